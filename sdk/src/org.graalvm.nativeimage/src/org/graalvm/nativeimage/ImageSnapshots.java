@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.nativeimage;
+
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.impl.ImageSnapshotSupport;
+
+/**
+ * Application state that is computed by a startup hook during native image generation and stored
+ * in the image heap, so that it is available without any initialization work at run time.
+ * <p>
+ * A startup hook is a class that implements {@link Supplier} and has a no-argument constructor.
+ * The object returned by the hook, e.g., a fully wired dependency injection container or a parsed
+ * configuration, and all objects reachable from it become part of the image heap. Hooks are
+ * registered with the {@code -H:ImageSnapshotHooks=<class names>} option, or with
+ * {@link #register} from a {@link Feature} before the static analysis starts.
+ * <p>
+ * The same restrictions as for objects created by class initializers that run during image
+ * generation apply: the snapshot must not reference instances of classes that are initialized at
+ * run time, or objects that are not allowed in the image heap such as threads. Such snapshots are
+ * rejected during image generation.
+ * <p>
+ * When the application runs on a Java VM instead of as a native image, every hook is run the first
+ * time its snapshot is requested, so the same code works in both modes.
+ *
+ * @since 21.1
+ */
+public final class ImageSnapshots {
+
+    private ImageSnapshots() {
+    }
+
+    /**
+     * Registers a startup hook. The hook is run immediately and the object it returns is stored in
+     * the image heap. Registering the same hook multiple times has no effect.
+     *
+     * @since 21.1
+     */
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public static void register(Class<? extends Supplier<?>> hook) {
+        ImageSingletons.lookup(ImageSnapshotSupport.class).register(hook);
+    }
+
+    /**
+     * Returns the snapshot of the given startup hook, i.e., the object that the hook returned during
+     * image generation. The hook must have been registered during image generation.
+     *
+     * @throws IllegalStateException if no snapshot of the hook is in the image
+     * @since 21.1
+     */
+    public static <T> T get(Class<? extends Supplier<T>> hook) {
+        if (!ImageInfo.inImageCode()) {
+            return JVMSnapshots.get(hook);
+        }
+        return ImageSingletons.lookup(ImageSnapshotSupport.class).get(hook);
+    }
+
+    /**
+     * Snapshots when running on a Java VM, where every hook runs once on first access.
+     */
+    private static final class JVMSnapshots {
+        private static final Map<Class<?>, Object> SNAPSHOTS = new HashMap<>();
+
+        /* Not computeIfAbsent: a hook can request the snapshots of other hooks. */
+        @SuppressWarnings("unchecked")
+        static synchronized <T> T get(Class<? extends Supplier<T>> hook) {
+            Object snapshot = SNAPSHOTS.get(hook);
+            if (snapshot == null) {
+                snapshot = run(hook);
+                SNAPSHOTS.put(hook, snapshot);
+            }
+            return (T) snapshot;
+        }
+
+        private static Object run(Class<?> hook) {
+            Supplier<?> supplier;
+            try {
+                Constructor<?> constructor = hook.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                supplier = (Supplier<?>) constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot instantiate startup hook " + hook.getName(), e);
+            }
+            Object snapshot = supplier.get();
+            if (snapshot == null) {
+                throw new IllegalStateException("Startup hook " + hook.getName() + " returned null");
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.nativeimage;
+
+import java.util.Objects;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.nativeimage.Isolates.CreateIsolateParameters;
+import org.graalvm.nativeimage.Isolates.IsolateException;
+import org.graalvm.word.WordFactory;
+
+/**
+ * A pool of isolates that are created ahead of time, so that a thread can
+ * {@linkplain #acquire() acquire} a fresh isolate, e.g., to process a single request in isolation,
+ * without waiting for the isolate to be created.
+ * <p>
+ * An isolate is never handed out twice: state that one user of an isolate leaves behind, including
+ * modified static fields and objects in the image heap, must not be observable by the next user.
+ * A {@linkplain #release(Isolate) released} isolate is therefore torn down, and a replacement is
+ * created, by a background thread of the pool, i.e., outside of the critical path of the threads
+ * that use the pool.
+ * <p>
+ * A typical use of the pool:
+ *
+ * <pre>
+ * Isolate isolate = pool.acquire();
+ * IsolateThread thread = Isolates.attachCurrentThread(isolate);
+ * try {
+ *     handleRequest(thread, request); // a CEntryPoint method
+ * } finally {
+ *     Isolates.detachThread(thread);
+ *     pool.release(isolate);
+ * }
+ * </pre>
+ *
+ * All threads must be detached from an isolate before it is released, because tearing down an
+ * isolate waits until no other threads are attached. If creating an isolate fails, a thread that
+ * waits in {@link #acquire()} is notified, and the creation is retried in the background with an
+ * increasing delay, so that the pool recovers from temporary failures. The pool is only available
+ * in native images.
+ *
+ * @since 21.1
+ */
+public final class IsolatePool implements AutoCloseable {
+
+    /** Marks a failed isolate creation in {@link #available}, so that a waiting thread wakes up. */
+    private static final long CREATION_FAILED = 0L;
+    /** Marks a closed pool in {@link #available}, so that all waiting threads wake up. */
+    private static final long CLOSED = -1L;
+
+    private static final long MIN_RETRY_DELAY_MILLIS = 10;
+    private static final long MAX_RETRY_DELAY_MILLIS = 10_000;
+
+    private final int size;
+    private final CreateIsolateParameters parameters;
+    /** The addresses of the isolates that are ready to be acquired, and the markers above. */
+    private final LinkedBlockingQueue<Long> available;
+    /** Creates and tears down the isolates of the pool. */
+    private final ScheduledThreadPoolExecutor maintenance;
+    private volatile IsolateException creationFailure;
+    private volatile boolean closed;
+    /** Only accessed by the maintenance thread. */
+    private int consecutiveCreationFailures;
+
+    private IsolatePool(int size, CreateIsolateParameters parameters) {
+        this.size = size;
+        this.parameters = parameters;
+        this.available = new LinkedBlockingQueue<>();
+        this.maintenance = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Isolate pool maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        /* Pending retries of a failed creation are pointless once the pool is closed. */
+        this.maintenance.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Creates a pool that keeps {@code size} isolates ready to be acquired. The isolates are
+     * created in the background; this method does not wait for them.
+     *
+     * @since 21.1
+     */
+    public static IsolatePool create(int size, CreateIsolateParameters parameters) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The size of an isolate pool must be positive: " + size);
+        }
+        IsolatePool pool = new IsolatePool(size, Objects.requireNonNull(parameters));
+        for (int i = 0; i < size; i++) {
+            pool.maintenance.execute(pool::createIsolate);
+        }
+        return pool;
+    }
+
+    /**
+     * Returns the number of isolates that this pool keeps ready to be acquired.
+     *
+     * @since 21.1
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns an isolate that no thread has been attached to before, waiting until one is created
+     * if necessary. The current thread is not attached to the isolate.
+     *
+     * @throws IllegalStateException if the pool is closed, also while waiting.
+     * @throws IsolateException if creating an isolate failed while waiting. The pool retries the
+     *             creation in the background, so a later call can succeed.
+     * @since 21.1
+     */
+    public Isolate acquire() throws InterruptedException, IsolateException {
+        if (closed) {
+            throw new IllegalStateException("The isolate pool is closed.");
+        }
+        long isolate = available.take();
+        if (isolate == CLOSED) {
+            /* Wake up the next waiting thread too. */
+            available.add(CLOSED);
+            throw new IllegalStateException("The isolate pool is closed.");
+        } else if (isolate == CREATION_FAILED) {
+            throw new IsolateException("Creating an isolate for the pool failed: " + creationFailure.getMessage());
+        }
+        return WordFactory.pointer(isolate);
+    }
+
+    /**
+     * Returns an isolate obtained from {@link #acquire()} to the pool. No thread must be attached
+     * to the isolate anymore. The isolate is torn down, and a new isolate is created to replace it,
+     * in the background.
+     *
+     * @since 21.1
+     */
+    public void release(Isolate isolate) {
+        long address = isolate.rawValue();
+        if (!closed) {
+            try {
+                maintenance.execute(() -> {
+                    createIsolate();
+                    tearDownIsolate(address);
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                /* The pool was closed concurrently. */
+            }
+        }
+        tearDownIsolate(address);
+    }
+
+    /**
+     * Tears down the isolates that are ready to be acquired. Threads that wait in
+     * {@link #acquire()} fail with an {@link IllegalStateException}. Isolates that are in use are
+     * torn down when they are {@linkplain #release released}.
+     *
+     * @since 21.1
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        available.add(CLOSED);
+        maintenance.shutdown();
+        maintenance.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        Long isolate;
+        while ((isolate = available.poll()) != null) {
+            if (isolate != CREATION_FAILED && isolate != CLOSED) {
+                tearDownIsolate(isolate);
+            }
+        }
+        /* For threads that passed the check in acquire but did not wait yet. */
+        available.add(CLOSED);
+    }
+
+    private void createIsolate() {
+        if (closed) {
+            return;
+        }
+        try {
+            IsolateThread thread = Isolates.createIsolate(parameters);
+            Isolate isolate = Isolates.getIsolate(thread);
+            Isolates.detachThread(thread);
+            consecutiveCreationFailures = 0;
+            available.add(isolate.rawValue());
+        } catch (IsolateException e) {
+            creationFailure = e;
+            /* One marker is enough to fail the next acquire, repeated failures must not pile up. */
+            if (!available.contains(CREATION_FAILED)) {
+                available.add(CREATION_FAILED);
+            }
+            long delay = Math.min(MAX_RETRY_DELAY_MILLIS, MIN_RETRY_DELAY_MILLIS << Math.min(consecutiveCreationFailures, 20));
+            consecutiveCreationFailures++;
+            try {
+                maintenance.schedule(this::createIsolate, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                /* The pool was closed concurrently. */
+            }
+        }
+    }
+
+    private static void tearDownIsolate(long address) {
+        Isolate isolate = WordFactory.pointer(address);
+        Isolates.tearDownIsolate(Isolates.attachCurrentThread(isolate));
+    }
+}
@@ -51,6 +51,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Predicate;
 import java.util.logging.Handler;
@@ -793,6 +795,33 @@ public final class Context implements AutoCloseable {
         }
     }
 
+    /**
+     * Submits a task to be run asynchronously on a carrier thread owned by this context and returns
+     * a future that completes with the result of the task. The context is entered on the carrier
+     * thread while the task runs, so the task may use any value of this context. Tasks submitted to
+     * the same context run one after the other in submission order. The carrier thread is started
+     * on first use and terminates when the context stays idle.
+     * <p>
+     * The usual thread access rules apply: if the context is currently entered on another thread
+     * and the languages of the context do not allow multi-threaded access, the task completes
+     * exceptionally with an {@link IllegalStateException}. Cancelling the returned future with
+     * {@link CompletableFuture#cancel(boolean) cancel(true)} while the task is running interrupts
+     * the guest code executed by the carrier thread, like {@link #interrupt(Duration)} does for
+     * all threads, and {@link Thread#interrupt() interrupts} the carrier thread. Other threads
+     * executing in the context are not affected. Tasks that did not start before the context is
+     * {@link #close() closed} complete exceptionally with an {@link IllegalStateException}.
+     *
+     * @param task the task to run on the carrier thread
+     * @throws IllegalStateException if the context is already closed.
+     * @throws NullPointerException if the task is null.
+     * @see Value#executeAsync(Object...)
+     * @since 21.1
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        Objects.requireNonNull(task, "task");
+        return impl.submit(task);
+    }
+
     /**
      * Returns the currently entered polyglot context. A context will be entered if the current
      * executing Java method is called by a Graal guest language or if a context is entered
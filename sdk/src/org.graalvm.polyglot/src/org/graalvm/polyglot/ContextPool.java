@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.polyglot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * A pool of initialized contexts that are handed out for short-lived units of work, e.g. one per
+ * request, and reused afterwards. Creating a context and initializing its languages repeats the
+ * setup of global objects and builtins every time, even if an {@link Engine engine} is shared.
+ * A context pool instead keeps initialized contexts and resets the guest visible state of a context
+ * when it is {@link #release(Context) released}, so that the next {@link #acquire() acquire} can
+ * reuse it right away.
+ * <p>
+ * A context can only be reused if all languages whose contexts were created support resetting
+ * their state. Otherwise a released context is closed and the next acquire creates a new one. The
+ * contexts of a pool should use a {@link Context.Builder#engine(Engine) shared engine} such that
+ * code is shared between them.
+ * <p>
+ * Inner contexts created by the languages are closed when a context is reset. The state of
+ * instruments associated with a context, e.g. their context locals, is not reset and is carried
+ * over to the next use of the context.
+ *
+ * <h3>Example</h3> <code>
+ * <pre>
+ * Engine engine = Engine.create();
+ * try (ContextPool pool = ContextPool.newBuilder(Context.newBuilder("js").engine(engine))
+ *                             .initialize("js")
+ *                             .maxIdle(16)
+ *                         .build()) {
+ *     Context context = pool.acquire();
+ *     try {
+ *         context.eval("js", "42");
+ *     } finally {
+ *         pool.release(context);
+ *     }
+ * }
+ * </pre>
+ * </code>
+ * <p>
+ * Context pools are thread-safe.
+ *
+ * @see #newBuilder(Context.Builder)
+ * @since 21.1
+ */
+public final class ContextPool implements AutoCloseable {
+
+    private final Context.Builder contextBuilder;
+    private final String[] initializeLanguages;
+    private final LinkedBlockingDeque<Context> idle;
+    private final Set<Context> acquired = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    ContextPool(Context.Builder contextBuilder, String[] initializeLanguages, int maxIdle) {
+        this.contextBuilder = contextBuilder;
+        this.initializeLanguages = initializeLanguages;
+        this.idle = new LinkedBlockingDeque<>(maxIdle);
+    }
+
+    /**
+     * Creates a new builder for a context pool. The given context builder is used to build the
+     * contexts of the pool and must not be modified afterwards.
+     *
+     * @throws NullPointerException if the context builder is null.
+     * @since 21.1
+     */
+    public static Builder newBuilder(Context.Builder contextBuilder) {
+        Objects.requireNonNull(contextBuilder, "contextBuilder");
+        return new Builder(contextBuilder);
+    }
+
+    /**
+     * Returns an idle context of the pool or creates a new one if there is no idle context. The
+     * returned context is used exclusively by the caller until it is {@link #release(Context)
+     * released}.
+     *
+     * @throws IllegalStateException if the pool is closed.
+     * @since 21.1
+     */
+    public Context acquire() {
+        checkClosed();
+        Context context = idle.pollFirst();
+        if (context == null) {
+            context = createContext();
+        }
+        acquired.add(context);
+        return context;
+    }
+
+    /**
+     * Returns a context {@link #acquire() acquired} from this pool. The context is reset and kept
+     * for reuse, unless one of its languages does not support resetting its state or the pool
+     * already holds the maximum number of idle contexts, in which case the context is closed.
+     * Contexts that were closed or {@link PolyglotException#isCancelled() cancelled} while they
+     * were acquired are discarded. The context must not be used after it was released.
+     *
+     * @throws IllegalArgumentException if the context was not acquired from this pool or was
+     *             already released.
+     * @throws IllegalStateException if the context is still entered or executing on a thread.
+     * @throws PolyglotException if a guest language error occurred while resetting the context.
+     * @since 21.1
+     */
+    public void release(Context context) {
+        Objects.requireNonNull(context, "context");
+        if (!acquired.remove(context)) {
+            throw new IllegalArgumentException("The context was not acquired from this context pool or was already released.");
+        }
+        boolean reusable;
+        try {
+            reusable = !closed && context.impl.reset(context);
+        } catch (PolyglotException e) {
+            context.close(true);
+            if (e.isCancelled()) {
+                // the context was cancelled while it was reset
+                return;
+            }
+            throw e;
+        } catch (IllegalStateException e) {
+            // the context is still in use and stays acquired
+            acquired.add(context);
+            throw e;
+        }
+        if (!reusable || !idle.offerFirst(context)) {
+            context.close(true);
+        }
+        if (closed) {
+            // the pool was closed concurrently
+            closeIdle();
+        }
+    }
+
+    /**
+     * Closes all idle contexts of this pool. Contexts that are currently acquired are closed when
+     * they are released. Closing an already closed pool has no effect.
+     *
+     * @since 21.1
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeIdle();
+    }
+
+    private void closeIdle() {
+        List<Context> contexts = new ArrayList<>();
+        idle.drainTo(contexts);
+        for (Context context : contexts) {
+            context.close();
+        }
+    }
+
+    private Context createContext() {
+        Context context;
+        synchronized (contextBuilder) {
+            // context builders are not thread-safe
+            context = contextBuilder.build();
+        }
+        try {
+            for (String language : initializeLanguages) {
+                context.initialize(language);
+            }
+        } catch (Throwable t) {
+            context.close();
+            throw t;
+        }
+        return context;
+    }
+
+    private void checkClosed() {
+        if (closed) {
+            throw new IllegalStateException("The context pool is already closed.");
+        }
+    }
+
+    /**
+     * A builder used to construct context pools. Builder instances are not thread-safe and may not
+     * be used from multiple threads at the same time.
+     *
+     * @since 21.1
+     */
+    public static final class Builder {
+
+        private final Context.Builder contextBuilder;
+        private String[] initializeLanguages = new String[0];
+        private int maxIdle = 8;
+        private int prewarm;
+
+        Builder(Context.Builder contextBuilder) {
+            this.contextBuilder = contextBuilder;
+        }
+
+        /**
+         * Sets the languages that are {@link Context#initialize(String) initialized} when a
+         * context of the pool is created. By default no language is initialized eagerly.
+         *
+         * @since 21.1
+         */
+        public Builder initialize(String... languages) {
+            Objects.requireNonNull(languages, "languages");
+            this.initializeLanguages = languages.clone();
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of idle contexts the pool keeps for reuse. Contexts released
+         * while the pool is full are closed. The default is 8.
+         *
+         * @throws IllegalArgumentException if the value is not positive.
+         * @since 21.1
+         */
+        public Builder maxIdle(int contexts) {
+            if (contexts <= 0) {
+                throw new IllegalArgumentException("The maximum number of idle contexts must be positive.");
+            }
+            this.maxIdle = contexts;
+            return this;
+        }
+
+        /**
+         * Sets the number of contexts that are created and initialized when the pool is
+         * {@link #build() built}, such that the first acquires do not pay for context creation.
+         * The value is capped by the {@link #maxIdle(int) maximum number of idle contexts}. By
+         * default no context is created ahead of time.
+         *
+         * @throws IllegalArgumentException if the value is negative.
+         * @since 21.1
+         */
+        public Builder prewarm(int contexts) {
+            if (contexts < 0) {
+                throw new IllegalArgumentException("The number of prewarmed contexts must not be negative.");
+            }
+            this.prewarm = contexts;
+            return this;
+        }
+
+        /**
+         * Creates the context pool and its {@link #prewarm(int) prewarmed} contexts.
+         *
+         * @since 21.1
+         */
+        public ContextPool build() {
+            ContextPool pool = new ContextPool(contextBuilder, initializeLanguages, maxIdle);
+            try {
+                for (int i = 0; i < Math.min(prewarm, maxIdle); i++) {
+                    pool.idle.offerLast(pool.createContext());
+                }
+            } catch (Throwable t) {
+                pool.close();
+                throw t;
+            }
+            return pool;
+        }
+    }
+}
@@ -62,6 +62,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 /**
@@ -694,6 +695,63 @@ public final class Value {
         impl.writeBufferDouble(receiver, order, byteOffset, value);
     }
 
+    /**
+     * Reads {@code length} bytes, starting at the given byte offset from the start of the buffer,
+     * into the {@code destination} array starting at {@code destinationOffset}. Unlike reading the
+     * bytes one by one with {@link #readBufferByte(long)}, the range is transferred with a single
+     * call into the guest language.
+     * <p>
+     * The access is <em>not</em> guaranteed to be atomic. Therefore, this method is <em>not</em>
+     * thread-safe.
+     * <p>
+     * Invoking this method does not cause any observable side-effects, apart from writing to the
+     * destination array.
+     *
+     * @param byteOffset the offset, in bytes, from the start of the buffer at which the first byte
+     *            will be read.
+     * @param destination the array the bytes are copied to.
+     * @param destinationOffset the index in the destination array of the first copied byte.
+     * @param length the number of bytes to copy.
+     * @throws IndexOutOfBoundsException if
+     *             <code>byteOffset < 0 || length < 0 || byteOffset > {@link #getBufferSize()} - length</code>
+     *             or if the range does not fit into the destination array.
+     * @throws UnsupportedOperationException if the value does not have {@link #hasBufferElements
+     *             buffer elements}.
+     * @throws IllegalStateException if the context is already closed.
+     * @throws PolyglotException if a guest language error occurred during execution.
+     * @since 21.1
+     */
+    public void readBuffer(long byteOffset, byte[] destination, int destinationOffset, int length) throws UnsupportedOperationException, IndexOutOfBoundsException {
+        impl.readBuffer(receiver, byteOffset, destination, destinationOffset, length);
+    }
+
+    /**
+     * Writes {@code length} bytes from the {@code source} array, starting at
+     * {@code sourceOffset}, into the buffer at the given byte offset from the start of the buffer.
+     * Unlike writing the bytes one by one with {@link #writeBufferByte(long, byte)}, the range is
+     * transferred with a single call into the guest language.
+     * <p>
+     * The access is <em>not</em> guaranteed to be atomic. Therefore, this method is <em>not</em>
+     * thread-safe.
+     *
+     * @param byteOffset the offset, in bytes, from the start of the buffer at which the first byte
+     *            will be written.
+     * @param source the array the bytes are copied from.
+     * @param sourceOffset the index in the source array of the first copied byte.
+     * @param length the number of bytes to copy.
+     * @throws IndexOutOfBoundsException if
+     *             <code>byteOffset < 0 || length < 0 || byteOffset > {@link #getBufferSize()} - length</code>
+     *             or if the range does not fit into the source array.
+     * @throws UnsupportedOperationException if the value does not have {@link #hasBufferElements
+     *             buffer elements} or is not {@link #isBufferWritable() modifiable}.
+     * @throws IllegalStateException if the context is already closed.
+     * @throws PolyglotException if a guest language error occurred during execution.
+     * @since 21.1
+     */
+    public void writeBuffer(long byteOffset, byte[] source, int sourceOffset, int length) throws UnsupportedOperationException, IndexOutOfBoundsException {
+        impl.writeBuffer(receiver, byteOffset, source, sourceOffset, length);
+    }
+
     // endregion
 
     /**
@@ -832,6 +890,24 @@ public final class Value {
         }
     }
 
+    /**
+     * Executes this value asynchronously on the carrier thread of its context and returns a future
+     * that completes with the result. The arguments are converted when the value is executed, on
+     * the carrier thread. Errors that {@link #execute(Object...)} would throw complete the future
+     * exceptionally. See {@link Context#submit(java.util.concurrent.Callable)} for the threading
+     * and cancellation rules.
+     *
+     * @throws IllegalStateException if the underlying context was closed or if this value is not
+     *             bound to a context.
+     * @throws NullPointerException if the arguments array is null.
+     * @see #execute(Object...)
+     * @since 21.1
+     */
+    public CompletableFuture<Value> executeAsync(Object... arguments) {
+        Objects.requireNonNull(arguments, "arguments");
+        return impl.executeAsync(receiver, arguments);
+    }
+
     /**
      * Executes this value if it {@link #canExecute() can} be executed. All arguments are subject to
      * polyglot value mapping rules as described in {@link Context#asValue(Object)}.
@@ -87,6 +87,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -431,6 +433,10 @@ public abstract class AbstractPolyglotImpl {
 
         public abstract void resetLimits();
 
+        public abstract boolean reset(Context sourceContext);
+
+        public abstract <T> CompletableFuture<T> submit(Callable<T> task);
+
     }
 
     public abstract static class AbstractEngineImpl {
@@ -624,6 +630,10 @@ public abstract class AbstractPolyglotImpl {
 
         public abstract void writeBufferDouble(Object receiver, ByteOrder order, long byteOffset, double value);
 
+        public abstract void readBuffer(Object receiver, long byteOffset, byte[] destination, int destinationOffset, int length);
+
+        public abstract void writeBuffer(Object receiver, long byteOffset, byte[] source, int sourceOffset, int length);
+
         // endregion
 
         public boolean hasMembers(Object receiver) {
@@ -656,6 +666,8 @@ public abstract class AbstractPolyglotImpl {
 
         public abstract Value execute(Object receiver);
 
+        public abstract CompletableFuture<Value> executeAsync(Object receiver, Object[] arguments);
+
         public boolean canInstantiate(Object receiver) {
             return false;
         }
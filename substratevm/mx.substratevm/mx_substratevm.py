@@ -372,7 +372,7 @@ def native_image_context(common_args=None, hosted_assertions=True, native_image_
             mx.log(timestr() + 'Shutting down completed')
 
 native_image_context.hosted_assertions = ['-J-ea', '-J-esa']
-_native_unittest_features = '--features=com.oracle.svm.test.ImageInfoTest$TestFeature,com.oracle.svm.test.ServiceLoaderTest$TestFeature,com.oracle.svm.test.SecurityServiceTest$TestFeature'
+_native_unittest_features = '--features=com.oracle.svm.test.ImageInfoTest$TestFeature,com.oracle.svm.test.ServiceLoaderTest$TestFeature,com.oracle.svm.test.SecurityServiceTest$TestFeature,com.oracle.svm.test.MonitorTest$TestFeature'
 
 IMAGE_ASSERTION_FLAGS = ['-H:+VerifyGraalGraphs', '-H:+VerifyPhases']
 
@@ -481,8 +481,23 @@ def native_unittests_task():
         # GR-24075
         mx_unittest.add_global_ignore_glob('com.oracle.svm.test.ProcessPropertiesTest')
 
-    # We need the -H:+EnableAllSecurityServices for com.oracle.svm.test.SecurityServiceTest
-    native_unittest(['--build-args', _native_unittest_features, '-H:+EnableAllSecurityServices'])
+    features = _native_unittest_features
+    if not svm_java8():
+        features += ',com.oracle.svm.test.jdk11.FlightRecorderTest$TestFeature'
+
+    # We need the -H:+EnableAllSecurityServices for com.oracle.svm.test.SecurityServiceTest,
+    # -H:+LightweightMonitors for com.oracle.svm.test.MonitorTest
+    # and -H:+FlightRecorder for com.oracle.svm.test.jdk11.FlightRecorderTest
+    native_unittest(['--build-args', features, '-H:+EnableAllSecurityServices', '-H:+LightweightMonitors', '-H:+FlightRecorder'])
+
+    if not mx.is_windows():
+        # com.oracle.svm.test.SamplingProfilerTest checks the profile of its own image
+        profile_dir = tempfile.mkdtemp()
+        try:
+            native_unittest(['com.oracle.svm.test.SamplingProfilerTest', '--build-args', '-H:+SamplingProfiler',
+                             '-R:SamplingProfilerFile=' + join(profile_dir, 'profile.txt'), '-R:SamplingProfilerDumpSignal=USR2'])
+        finally:
+            remove_tree(profile_dir)
 
 
 def javac_image_command(javac_path):
@@ -76,6 +76,7 @@ import com.oracle.graal.pointsto.meta.AnalysisUniverse;
 import com.oracle.graal.pointsto.meta.HostedProviders;
 import com.oracle.graal.pointsto.typestate.PointsToStats;
 import com.oracle.graal.pointsto.typestate.TypeState;
+import com.oracle.graal.pointsto.typestate.TypeStateStore;
 import com.oracle.graal.pointsto.util.CompletionExecutor;
 import com.oracle.graal.pointsto.util.CompletionExecutor.DebugContextRunnable;
 import com.oracle.graal.pointsto.util.Timer;
@@ -120,6 +121,8 @@ public abstract class BigBang {
     private ConcurrentMap<AbstractUnsafeLoadTypeFlow, Boolean> unsafeLoads;
     private ConcurrentMap<AbstractUnsafeStoreTypeFlow, Boolean> unsafeStores;
 
+    private final TypeStateStore typeStateStore;
+
     public final AtomicLong numParsedGraphs = new AtomicLong();
     private final CompletionExecutor.Timing timing;
 
@@ -146,6 +149,8 @@ public abstract class BigBang {
         this.unsupportedFeatures = unsupportedFeatures;
         this.providers = providers;
 
+        this.typeStateStore = new TypeStateStore(options);
+
         this.objectType = metaAccess.lookupJavaType(Object.class);
         /*
          * Make sure the all-instantiated type flow is created early. We do not have any
@@ -190,6 +195,10 @@ public abstract class BigBang {
         return reportAnalysisStatistics;
     }
 
+    public TypeStateStore getTypeStateStore() {
+        return typeStateStore;
+    }
+
     public OptionValues getOptions() {
         return options;
     }
@@ -283,6 +292,7 @@ public abstract class BigBang {
         scannedObjects = null;
 
         ConstantObjectsProfiler.constantTypes.clear();
+        typeStateStore.cleanupAfterAnalysis();
 
         universe.getTypes().forEach(AnalysisType::cleanupAfterAnalysis);
         universe.getFields().forEach(AnalysisField::cleanupAfterAnalysis);
@@ -562,6 +572,17 @@ public abstract class BigBang {
                 assert opts == getOptions();
                 return DebugContext.disabled(opts);
             }
+
+            @Override
+            public boolean isBatchable() {
+                return true;
+            }
+
+            @Override
+            public int getLocalityKey() {
+                /* Group the updates of flows that belong to the same method graph. */
+                return System.identityHashCode(operation.graphRef());
+            }
         });
     }
 
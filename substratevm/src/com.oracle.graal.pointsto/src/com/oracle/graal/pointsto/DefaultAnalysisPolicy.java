@@ -29,12 +29,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.graalvm.compiler.options.OptionValues;
 
+import com.oracle.graal.pointsto.api.PointstoOptions;
 import com.oracle.graal.pointsto.flow.AbstractSpecialInvokeTypeFlow;
 import com.oracle.graal.pointsto.flow.AbstractVirtualInvokeTypeFlow;
 import com.oracle.graal.pointsto.flow.ActualReturnTypeFlow;
+import com.oracle.graal.pointsto.flow.AllInstantiatedTypeFlow;
 import com.oracle.graal.pointsto.flow.MethodFlowsGraph;
 import com.oracle.graal.pointsto.flow.MethodTypeFlow;
 import com.oracle.graal.pointsto.flow.TypeFlow;
@@ -46,6 +49,7 @@ import com.oracle.graal.pointsto.meta.AnalysisField;
 import com.oracle.graal.pointsto.meta.AnalysisMethod;
 import com.oracle.graal.pointsto.meta.AnalysisType;
 import com.oracle.graal.pointsto.meta.AnalysisUniverse;
+import com.oracle.graal.pointsto.typestate.PointsToStats;
 import com.oracle.graal.pointsto.typestate.TypeState;
 import com.oracle.graal.pointsto.typestore.ArrayElementsTypeStore;
 import com.oracle.graal.pointsto.typestore.FieldTypeStore;
@@ -58,10 +62,12 @@ import jdk.vm.ci.meta.JavaConstant;
 public class DefaultAnalysisPolicy extends AnalysisPolicy {
 
     private DefaultAnalysisContextPolicy contextPolicy;
+    private final boolean demandDrivenInvokeResolution;
 
     public DefaultAnalysisPolicy(OptionValues options) {
         super(options);
         this.contextPolicy = new DefaultAnalysisContextPolicy();
+        this.demandDrivenInvokeResolution = PointstoOptions.DemandDrivenInvokeResolution.getValue(options);
     }
 
     @Override
@@ -145,7 +151,7 @@ public class DefaultAnalysisPolicy extends AnalysisPolicy {
     @Override
     public AbstractVirtualInvokeTypeFlow createVirtualInvokeTypeFlow(BytecodePosition invokeLocation, AnalysisType receiverType, AnalysisMethod targetMethod,
                     TypeFlow<?>[] actualParameters, ActualReturnTypeFlow actualReturn, BytecodeLocation location) {
-        return new DefaultVirtualInvokeTypeFlow(invokeLocation, receiverType, targetMethod, actualParameters, actualReturn, location);
+        return new DefaultVirtualInvokeTypeFlow(invokeLocation, receiverType, targetMethod, actualParameters, actualReturn, location, demandDrivenInvokeResolution);
     }
 
     @Override
@@ -154,18 +160,43 @@ public class DefaultAnalysisPolicy extends AnalysisPolicy {
         return new DefaultSpecialInvokeTypeFlow(invokeLocation, receiverType, targetMethod, actualParameters, actualReturn, location);
     }
 
-    /** Explicitly context insensitive implementation of the invoke virtual type flow update. */
+    /**
+     * Explicitly context insensitive implementation of the invoke virtual type flow update.
+     *
+     * With {@link PointstoOptions#DemandDrivenInvokeResolution} enabled an invoke is first resolved
+     * like in a rapid type analysis: instead of its receiver it observes the flow of all
+     * instantiated subtypes of its receiver type, as long as they all resolve to the same callee.
+     * That is cheap, since the invoke is not notified about the many updates of its receiver, and
+     * it is as precise as the receiver flow for devirtualization. Once a second callee shows up the
+     * invoke is refined: it goes back to observing its receiver and from then on only links the
+     * callees of the actual receiver types. The callee linked in the rapid type mode stays linked
+     * and its formal receiver keeps the types it already got.
+     */
     private static class DefaultVirtualInvokeTypeFlow extends AbstractVirtualInvokeTypeFlow {
 
+        private static final int RESOLUTION_UNDECIDED = 0;
+        private static final int RESOLUTION_RAPID_TYPE = 1;
+        private static final int RESOLUTION_PRECISE = 2;
+
+        private static final AtomicIntegerFieldUpdater<DefaultVirtualInvokeTypeFlow> RESOLUTION_UPDATER = AtomicIntegerFieldUpdater
+                        .newUpdater(DefaultVirtualInvokeTypeFlow.class, "resolution");
+
         private TypeState seenReceiverTypes = TypeState.forEmpty();
 
+        /** See {@link PointstoOptions#DemandDrivenInvokeResolution}. */
+        private volatile int resolution;
+        /** The only callee linked while in {@link #RESOLUTION_RAPID_TYPE} mode. */
+        private AnalysisMethod rapidTypeCallee;
+
         protected DefaultVirtualInvokeTypeFlow(BytecodePosition invokeLocation, AnalysisType receiverType, AnalysisMethod targetMethod,
-                        TypeFlow<?>[] actualParameters, ActualReturnTypeFlow actualReturn, BytecodeLocation location) {
+                        TypeFlow<?>[] actualParameters, ActualReturnTypeFlow actualReturn, BytecodeLocation location, boolean demandDrivenResolution) {
             super(invokeLocation, receiverType, targetMethod, actualParameters, actualReturn, location);
+            this.resolution = demandDrivenResolution ? RESOLUTION_UNDECIDED : RESOLUTION_PRECISE;
         }
 
         protected DefaultVirtualInvokeTypeFlow(BigBang bb, MethodFlowsGraph methodFlows, DefaultVirtualInvokeTypeFlow original) {
             super(bb, methodFlows, original);
+            this.resolution = original.resolution;
         }
 
         @Override
@@ -180,13 +211,19 @@ public class DefaultAnalysisPolicy extends AnalysisPolicy {
                 /* The receiver can saturate while the invoke update was waiting to be scheduled. */
                 return;
             }
-            TypeState receiverState = getReceiver().getState();
+            if (resolution == RESOLUTION_UNDECIDED && !isContextInsensitive()) {
+                if (getReceiver().getState().isEmpty() || !startRapidTypeResolution(bb)) {
+                    return;
+                }
+            }
+            boolean rapidType = resolution == RESOLUTION_RAPID_TYPE && !isContextInsensitive();
+            TypeState receiverState = rapidType ? receiverType.getTypeFlow(bb, false).getState() : getReceiver().getState();
 
             if (receiverState.isUnknown()) {
                 bb.reportIllegalUnknownUse(graphRef.getMethod(), source, "Illegal: Invoke on UnknownTypeState objects. Invoke: " + this);
                 return;
             }
-            if (!isContextInsensitive()) {
+            if (!isContextInsensitive() && !rapidType) {
                 /*
                  * The context insensitive invoke receiver doesn't need any filtering, the invoke is
                  * directly linked to its receiver type.
@@ -223,6 +260,16 @@ public class DefaultAnalysisPolicy extends AnalysisPolicy {
 
                 assert !Modifier.isAbstract(method.getModifiers());
 
+                if (rapidType) {
+                    if (rapidTypeCallee == null) {
+                        rapidTypeCallee = method;
+                    } else if (!rapidTypeCallee.equals(method)) {
+                        /* The invoke is polymorphic, switch to observing the actual receiver. */
+                        refineResolution(bb);
+                        return;
+                    }
+                }
+
                 MethodTypeFlow callee = method.getTypeFlow();
                 MethodFlowsGraph calleeFlows = callee.addContext(bb, bb.contextPolicy().emptyContext(), this);
 
@@ -245,6 +292,55 @@ public class DefaultAnalysisPolicy extends AnalysisPolicy {
             seenReceiverTypes = receiverState;
         }
 
+        /**
+         * Decides how the invoke is resolved when its receiver sees the first types. Returns true if
+         * the update should proceed.
+         */
+        private boolean startRapidTypeResolution(BigBang bb) {
+            AllInstantiatedTypeFlow receiverTypeFlow = receiverType.getTypeFlow(bb, false);
+            if (countCallees(receiverTypeFlow.getState()) > 1) {
+                /* Already polymorphic, resolve it using the receiver right away. */
+                RESOLUTION_UPDATER.compareAndSet(this, RESOLUTION_UNDECIDED, RESOLUTION_PRECISE);
+                return true;
+            }
+            if (RESOLUTION_UPDATER.compareAndSet(this, RESOLUTION_UNDECIDED, RESOLUTION_RAPID_TYPE)) {
+                PointsToStats.registerRapidTypeInvoke(bb);
+                getReceiver().removeObserver(this);
+                /* Registering as an observer triggers the first update. */
+                receiverTypeFlow.addObserver(bb, this);
+            }
+            return false;
+        }
+
+        private void refineResolution(BigBang bb) {
+            if (RESOLUTION_UPDATER.compareAndSet(this, RESOLUTION_RAPID_TYPE, RESOLUTION_PRECISE)) {
+                PointsToStats.registerRefinedInvoke(bb);
+                receiverType.getTypeFlow(bb, false).removeObserver(this);
+                /*
+                 * Registering as an observer triggers an update with the current receiver state. If
+                 * the receiver saturated in the meantime the invoke is notified of that instead.
+                 */
+                getReceiver().addObserver(bb, this);
+            }
+        }
+
+        /** Counts the distinct callees of the receiver types, stopping at two. */
+        private int countCallees(TypeState receiverState) {
+            AnalysisMethod first = null;
+            for (AnalysisType type : receiverState.types()) {
+                AnalysisMethod method = type.resolveConcreteMethod(getTargetMethod());
+                if (method == null || Modifier.isAbstract(method.getModifiers())) {
+                    continue;
+                }
+                if (first == null) {
+                    first = method;
+                } else if (!first.equals(method)) {
+                    return 2;
+                }
+            }
+            return first == null ? 0 : 1;
+        }
+
         @Override
         public void onObservedSaturated(BigBang bb, TypeFlow<?> observed) {
             assert this.isClone() && !this.isContextInsensitive();
@@ -113,6 +113,15 @@ public class PointstoOptions {
     @Option(help = "Allow a type flow state to contain types not compatible with its declared type.")//
     public static final OptionKey<Boolean> RelaxTypeFlowStateConstraints = new OptionKey<>(true);
 
+    @Option(help = "Share a single instance between equal type states and between equal type sets.")//
+    public static final OptionKey<Boolean> InternTypeStates = new OptionKey<>(true);
+
+    @Option(help = "The number of entries of the cache for type state union results. 0 disables the cache.")//
+    public static final OptionKey<Integer> TypeStateUnionCacheSize = new OptionKey<>(4096);
+
+    @Option(help = "Resolve virtual invokes using all instantiated subtypes of the receiver type, as in a rapid type analysis, and only track the receiver type flow of invokes that become polymorphic. Used by the context insensitive analysis.")//
+    public static final OptionKey<Boolean> DemandDrivenInvokeResolution = new OptionKey<>(false);
+
     @Option(help = "Report unresolved elements as errors.")//
     public static final OptionKey<Boolean> UnresolvedIsError = new OptionKey<>(true);
 
@@ -125,6 +134,9 @@ public class PointstoOptions {
     @Option(help = "Object scanning in parallel")//
     public static final OptionKey<Boolean> ScanObjectsParallel = new OptionKey<>(true);
 
+    @Option(help = "The maximum number of type flow updates posted by an analysis worker that are run as a single task. 1 disables batching.")//
+    public static final OptionKey<Integer> AnalysisTaskBatchSize = new OptionKey<>(32);
+
     @Option(help = "Scan all objects reachable from roots for analysis. By default false.")//
     public static final OptionKey<Boolean> ExhaustiveHeapScan = new OptionKey<>(false);
 
@@ -56,8 +56,16 @@ public class MultiTypeState extends TypeState {
     /** Has this type state been merged with the all-instantiated type state? */
     protected boolean merged;
 
+    /**
+     * Creates a new type state using the provided types bit set and objects, or returns the
+     * canonical state with the same content if the {@link TypeStateStore} already has one.
+     */
+    static MultiTypeState create(BigBang bb, boolean canBeNull, int properties, BitSet typesBitSet, AnalysisObject... objects) {
+        return bb.getTypeStateStore().intern(new MultiTypeState(bb, canBeNull, properties, typesBitSet, objects));
+    }
+
     /** Creates a new type state using the provided types bit set and objects. */
-    MultiTypeState(BigBang bb, boolean canBeNull, int properties, BitSet typesBitSet, AnalysisObject... objects) {
+    private MultiTypeState(BigBang bb, boolean canBeNull, int properties, BitSet typesBitSet, AnalysisObject... objects) {
         super(properties);
         this.bigbang = bb;
         this.objects = objects;
@@ -74,8 +82,8 @@ public class MultiTypeState extends TypeState {
          * another thread calls clone() the words[] array can be in an inconsistent state.
          */
         TypeStateUtils.trimBitSetToSize(typesBitSet);
-        this.typesBitSet = typesBitSet;
-        long cardinality = typesBitSet.cardinality();
+        this.typesBitSet = bb.getTypeStateStore().intern(typesBitSet);
+        long cardinality = this.typesBitSet.cardinality();
         assert cardinality < Integer.MAX_VALUE : "We don't expect so much types.";
         this.typesCount = (int) cardinality;
         this.canBeNull = canBeNull;
@@ -220,7 +228,7 @@ public class MultiTypeState extends TypeState {
             return this;
         } else {
             /* Just flip the canBeNull flag and copy the rest of the values from this. */
-            return new MultiTypeState(bb, resultCanBeNull, this);
+            return bb.getTypeStateStore().intern(new MultiTypeState(bb, resultCanBeNull, this));
         }
     }
 
@@ -345,6 +353,7 @@ public class MultiTypeState extends TypeState {
         int result = 1;
         result = 31 * result + Arrays.hashCode(objects);
         result = 31 * result + (canBeNull ? 1 : 0);
+        result = 31 * result + properties;
         return result;
     }
 
@@ -358,7 +367,7 @@ public class MultiTypeState extends TypeState {
         }
 
         MultiTypeState that = (MultiTypeState) o;
-        return this.canBeNull == that.canBeNull &&
+        return this.canBeNull == that.canBeNull && this.properties == that.properties &&
                         this.typesCount == that.typesCount && this.typesBitSet.equals(that.typesBitSet) &&
                         Arrays.equals(this.objects, that.objects);
     }
@@ -106,7 +106,7 @@ public class PointsToStats {
         reportStatistics = bb.reportAnalysisStatistics();
     }
 
-    public static void report(@SuppressWarnings("unused") BigBang bb, String reportNameRoot) {
+    public static void report(BigBang bb, String reportNameRoot) {
 
         try {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
@@ -117,6 +117,8 @@ public class PointsToStats {
             doReport(statsDirectory, reportNameRoot, "union operation stats", timeStamp, PointsToStats::reportUnionOpertationsStats);
             doReport(statsDirectory, reportNameRoot, "type flow stats", timeStamp, PointsToStats::reportTypeFlowStats);
             doReport(statsDirectory, reportNameRoot, "pruned type flow stats", timeStamp, PointsToStats::reportPrunedTypeFlows);
+            doReport(statsDirectory, reportNameRoot, "type state store stats", timeStamp, out -> reportTypeStateStoreStats(bb.getTypeStateStore(), out));
+            doReport(statsDirectory, reportNameRoot, "invoke resolution stats", timeStamp, PointsToStats::reportInvokeResolutionStats);
 
         } catch (IOException e) {
             throw JVMCIError.shouldNotReachHere(e);
@@ -381,6 +383,43 @@ public class PointsToStats {
                         });
     }
 
+    // type state sharing
+
+    private static void reportTypeStateStoreStats(TypeStateStore store, BufferedWriter out) {
+
+        doWrite(out, String.format("%20s\t%12s\t%12s\t%10s\t%20s\n", "Store", "Lookups", "Hits", "HitRate%", "EstimatedBytesSaved"));
+        for (TypeStateStore.StoreCounters counters : new TypeStateStore.StoreCounters[]{store.typesBitSetCounters, store.multiTypeStateCounters, store.unionCounters}) {
+            doWrite(out, String.format("%20s\t%12d\t%12d\t%10.2f\t%20d\n",
+                            counters.name, counters.lookups.sum(), counters.hits.sum(), counters.hitRate(), counters.bytesSaved.sum()));
+        }
+    }
+
+    // demand driven invoke resolution
+
+    private static final AtomicInteger rapidTypeInvokes = new AtomicInteger();
+    private static final AtomicInteger refinedInvokes = new AtomicInteger();
+
+    public static void registerRapidTypeInvoke(BigBang bb) {
+        if (bb.reportAnalysisStatistics()) {
+            rapidTypeInvokes.incrementAndGet();
+        }
+    }
+
+    public static void registerRefinedInvoke(BigBang bb) {
+        if (bb.reportAnalysisStatistics()) {
+            refinedInvokes.incrementAndGet();
+        }
+    }
+
+    private static void reportInvokeResolutionStats(BufferedWriter out) {
+        int rapidType = rapidTypeInvokes.get();
+        int refined = refinedInvokes.get();
+        doWrite(out, String.format("%30s\t%10s\n", "Invokes", "Count"));
+        doWrite(out, String.format("%30s\t%10d\n", "resolved by rapid type", rapidType));
+        doWrite(out, String.format("%30s\t%10d\n", "refined to receiver flow", refined));
+        doWrite(out, String.format("%30s\t%10d\n", "kept rapid type resolution", rapidType - refined));
+    }
+
     // union operations frequency
 
     private static ConcurrentHashMap<UnionOperation, AtomicInteger> unionStats = new ConcurrentHashMap<>();
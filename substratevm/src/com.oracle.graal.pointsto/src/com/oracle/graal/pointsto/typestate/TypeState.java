@@ -364,7 +364,7 @@ public abstract class TypeState {
              */
             BitSet typesBitSet = (BitSet) exactTypes.clone();
             int properties = bb.analysisPolicy().makePoperties(bb, objectsArray);
-            return new MultiTypeState(bb, canBeNull, properties, typesBitSet, objectsArray);
+            return MultiTypeState.create(bb, canBeNull, properties, typesBitSet, objectsArray);
         }
     }
 
@@ -397,7 +397,7 @@ public abstract class TypeState {
 
                 BitSet typesBitSet = multiState.typesBitSet;
                 int properties = bb.analysisPolicy().makePoperties(bb, objectsArray);
-                return new MultiTypeState(bb, multiState.canBeNull(), properties, typesBitSet, objectsArray);
+                return MultiTypeState.create(bb, multiState.canBeNull(), properties, typesBitSet, objectsArray);
             }
         }
     }
@@ -534,7 +534,7 @@ public abstract class TypeState {
 
             int properties = bb.analysisPolicy().makePopertiesForUnion(s1, s2);
 
-            TypeState result = new MultiTypeState(bb, resultCanBeNull, properties, typesBitSet, resultObjects);
+            TypeState result = MultiTypeState.create(bb, resultCanBeNull, properties, typesBitSet, resultObjects);
             PointsToStats.registerUnionOperation(bb, s1, s2, result);
             return result;
         }
@@ -592,7 +592,7 @@ public abstract class TypeState {
 
             int properties = bb.analysisPolicy().makePopertiesForUnion(s1, s2);
 
-            MultiTypeState result = new MultiTypeState(bb, resultCanBeNull, properties, s1.typesBitSet, resultObjects);
+            MultiTypeState result = MultiTypeState.create(bb, resultCanBeNull, properties, s1.typesBitSet, resultObjects);
             assert !result.equals(s1);
             /*
              * No need to check the result size against the all-instantiated since the type count
@@ -626,7 +626,7 @@ public abstract class TypeState {
             BitSet typesBitSet = TypeStateUtils.set(s1.typesBitSet, s2.exactType().getId());
             int properties = bb.analysisPolicy().makePopertiesForUnion(s1, s2);
 
-            MultiTypeState result = new MultiTypeState(bb, resultCanBeNull, properties, typesBitSet, resultObjects);
+            MultiTypeState result = MultiTypeState.create(bb, resultCanBeNull, properties, typesBitSet, resultObjects);
             PointsToStats.registerUnionOperation(bb, s1, s2, result);
             return result;
         }
@@ -644,7 +644,17 @@ public abstract class TypeState {
             return s1.forCanBeNull(bb, resultCanBeNull);
         }
 
-        return doUnion0(bb, s1, s2, resultCanBeNull);
+        /*
+         * The same pairs of states are merged over and over again, e.g., when a state is
+         * propagated along many uses. Reuse the result of a recent union of the same operands.
+         */
+        TypeStateStore store = bb.getTypeStateStore();
+        TypeState result = store.lookupUnion(s1, s2);
+        if (result == null) {
+            result = doUnion0(bb, s1, s2, resultCanBeNull);
+            store.cacheUnion(s1, s2, result);
+        }
+        return result;
     }
 
     private static TypeState doUnion0(BigBang bb, MultiTypeState s1, MultiTypeState s2, boolean resultCanBeNull) {
@@ -661,7 +671,7 @@ public abstract class TypeState {
             BitSet resultTypesBitSet = TypeStateUtils.or(s1.typesBitSet, s2.typesBitSet);
             int properties = bb.analysisPolicy().makePopertiesForUnion(s1, s2);
 
-            MultiTypeState result = new MultiTypeState(bb, resultCanBeNull, properties, resultTypesBitSet, resultObjects);
+            MultiTypeState result = MultiTypeState.create(bb, resultCanBeNull, properties, resultTypesBitSet, resultObjects);
             PointsToStats.registerUnionOperation(bb, s1, s2, result);
             return result;
 
@@ -675,7 +685,7 @@ public abstract class TypeState {
             BitSet resultTypesBitSet = TypeStateUtils.or(s1.typesBitSet, s2.typesBitSet);
             int properties = bb.analysisPolicy().makePopertiesForUnion(s1, s2);
 
-            MultiTypeState result = new MultiTypeState(bb, resultCanBeNull, properties, resultTypesBitSet, resultObjects);
+            MultiTypeState result = MultiTypeState.create(bb, resultCanBeNull, properties, resultTypesBitSet, resultObjects);
             PointsToStats.registerUnionOperation(bb, s1, s2, result);
             return result;
         }
@@ -866,7 +876,7 @@ public abstract class TypeState {
             BitSet resultTypesBitSet = TypeStateUtils.or(s1.typesBitSet, s2.typesBitSet);
             int properties = bb.analysisPolicy().makePopertiesForUnion(s1, s2);
 
-            MultiTypeState result = new MultiTypeState(bb, resultCanBeNull, properties, resultTypesBitSet, resultObjects.copyToArray(new AnalysisObject[resultObjects.size()]));
+            MultiTypeState result = MultiTypeState.create(bb, resultCanBeNull, properties, resultTypesBitSet, resultObjects.copyToArray(new AnalysisObject[resultObjects.size()]));
             assert !result.equals(s1) : "speculation code should prevent this case";
 
             /* The result can be equal to s2 only if s1 and s2 have the same number of types. */
@@ -1138,7 +1148,7 @@ public abstract class TypeState {
                 } else {
                     /* Logical AND the type bit sets. */
                     BitSet resultTypesBitSet = TypeStateUtils.and(s1.typesBitSet, s2.typesBitSet);
-                    MultiTypeState result = new MultiTypeState(bb, resultCanBeNull, bb.analysisPolicy().makePoperties(bb, objects), resultTypesBitSet, objects);
+                    MultiTypeState result = MultiTypeState.create(bb, resultCanBeNull, bb.analysisPolicy().makePoperties(bb, objects), resultTypesBitSet, objects);
 
                     /*
                      * The result can be equal to s1 if and only if s1 and s2 have the same type
@@ -1249,7 +1259,7 @@ public abstract class TypeState {
                 return new SingleTypeState(bb, resultCanBeNull, bb.analysisPolicy().makePoperties(bb, resultObjects), resultObjects);
             } else {
                 BitSet resultTypesBitSet = TypeStateUtils.clear(s1.typesBitSet, s2.exactType().getId());
-                return new MultiTypeState(bb, resultCanBeNull, bb.analysisPolicy().makePoperties(bb, resultObjects), resultTypesBitSet, resultObjects);
+                return MultiTypeState.create(bb, resultCanBeNull, bb.analysisPolicy().makePoperties(bb, resultObjects), resultTypesBitSet, resultObjects);
             }
 
         } else {
@@ -1372,7 +1382,7 @@ public abstract class TypeState {
                      * Don't need to check if the result is close-to-all-instantiated since result
                      * <= s1.
                      */
-                    return new MultiTypeState(bb, resultCanBeNull, bb.analysisPolicy().makePoperties(bb, objects), resultTypesBitSet, objects);
+                    return MultiTypeState.create(bb, resultCanBeNull, bb.analysisPolicy().makePoperties(bb, objects), resultTypesBitSet, objects);
                 }
             }
         }
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.pointsto.typestate;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.graalvm.compiler.options.OptionValues;
+
+import com.oracle.graal.pointsto.api.PointstoOptions;
+
+/**
+ * Canonicalizes the type states created during the analysis. Most type flows of an image converge
+ * to a comparatively small number of distinct states, so equal {@link MultiTypeState} objects and
+ * their types {@link BitSet}s are shared instead of being retained once per flow. Canonical
+ * instances are only weakly referenced by the store: states that are no longer referenced by any
+ * flow can still be collected.
+ *
+ * The store also keeps a small direct-mapped cache of recent (multi U multi) union results. The
+ * cache is keyed by the identity of the operands, which interning makes a good proxy for equality.
+ * Entries are immutable and the table is read and written without synchronization: a racy read at
+ * worst misses an entry that was just written by another thread.
+ */
+public final class TypeStateStore {
+
+    private final boolean internTypeStates;
+    private final boolean trackStatistics;
+
+    private final WeakInterner<BitSet> typesBitSets = new WeakInterner<>();
+    private final WeakInterner<MultiTypeState> multiTypeStates = new WeakInterner<>();
+
+    private final UnionEntry[] unionCache;
+    private final int unionCacheMask;
+
+    final StoreCounters typesBitSetCounters = new StoreCounters("types bit sets");
+    final StoreCounters multiTypeStateCounters = new StoreCounters("multi type states");
+    final StoreCounters unionCounters = new StoreCounters("union results");
+
+    public TypeStateStore(OptionValues options) {
+        this.internTypeStates = PointstoOptions.InternTypeStates.getValue(options);
+        this.trackStatistics = PointstoOptions.PrintPointsToStatistics.getValue(options);
+
+        int requestedSize = PointstoOptions.TypeStateUnionCacheSize.getValue(options);
+        if (requestedSize > 0) {
+            int size = Integer.highestOneBit(requestedSize);
+            size = size < requestedSize ? size << 1 : size;
+            this.unionCache = new UnionEntry[size];
+            this.unionCacheMask = size - 1;
+        } else {
+            this.unionCache = null;
+            this.unionCacheMask = 0;
+        }
+    }
+
+    /**
+     * Returns the canonical bit set equal to {@code bitSet}. The bit set must already be trimmed to
+     * size and must not be mutated after it was passed in, see {@link MultiTypeState}.
+     */
+    BitSet intern(BitSet bitSet) {
+        if (!internTypeStates) {
+            return bitSet;
+        }
+        BitSet result = typesBitSets.intern(bitSet);
+        if (trackStatistics) {
+            typesBitSetCounters.record(result != bitSet, estimatedSize(bitSet));
+        }
+        return result;
+    }
+
+    /** Returns the canonical type state equal to {@code state}. */
+    MultiTypeState intern(MultiTypeState state) {
+        if (!internTypeStates) {
+            return state;
+        }
+        MultiTypeState result = multiTypeStates.intern(state);
+        if (trackStatistics) {
+            multiTypeStateCounters.record(result != state, estimatedSize(state));
+        }
+        return result;
+    }
+
+    /** Returns the cached result of {@code s1 U s2}, or null if it is not in the cache. */
+    TypeState lookupUnion(MultiTypeState s1, MultiTypeState s2) {
+        if (unionCache == null) {
+            return null;
+        }
+        UnionEntry entry = unionCache[unionCacheIndex(s1, s2)];
+        TypeState result = entry != null && entry.s1 == s1 && entry.s2 == s2 ? entry.result : null;
+        if (trackStatistics) {
+            unionCounters.record(result != null, result != null ? estimatedSize(result) : 0);
+        }
+        return result;
+    }
+
+    void cacheUnion(MultiTypeState s1, MultiTypeState s2, TypeState result) {
+        if (unionCache != null) {
+            unionCache[unionCacheIndex(s1, s2)] = new UnionEntry(s1, s2, result);
+        }
+    }
+
+    private int unionCacheIndex(MultiTypeState s1, MultiTypeState s2) {
+        int hash = System.identityHashCode(s1) * 31 + System.identityHashCode(s2);
+        return (hash ^ (hash >>> 16)) & unionCacheMask;
+    }
+
+    /**
+     * Drops the canonical instances and the cached union results. The store remains usable, i.e.,
+     * type states created after the analysis are still canonicalized, but they are no longer
+     * shared with the states created during the analysis. The statistics are kept.
+     */
+    public void cleanupAfterAnalysis() {
+        typesBitSets.clear();
+        multiTypeStates.clear();
+        if (unionCache != null) {
+            for (int i = 0; i < unionCache.length; i++) {
+                unionCache[i] = null;
+            }
+        }
+    }
+
+    /*
+     * The size estimates assume compressed references and 8 byte aligned objects. They are only
+     * used to report the approximate amount of memory saved by sharing.
+     */
+
+    private static long estimatedSize(BitSet bitSet) {
+        long words = (bitSet.length() + Long.SIZE - 1) / Long.SIZE;
+        /* The BitSet object and its words array. */
+        return 24 + align(16 + words * Long.BYTES);
+    }
+
+    private static long estimatedSize(TypeState state) {
+        if (state instanceof MultiTypeState) {
+            MultiTypeState multiState = (MultiTypeState) state;
+            /* The state object and its objects array. The types bit set is accounted separately. */
+            return 40 + align(16 + multiState.objects.length * 4L);
+        }
+        return 32;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static final class UnionEntry {
+        final MultiTypeState s1;
+        final MultiTypeState s2;
+        final TypeState result;
+
+        UnionEntry(MultiTypeState s1, MultiTypeState s2, TypeState result) {
+            this.s1 = s1;
+            this.s2 = s2;
+            this.result = result;
+        }
+    }
+
+    static final class StoreCounters {
+        final String name;
+        final LongAdder lookups = new LongAdder();
+        final LongAdder hits = new LongAdder();
+        final LongAdder bytesSaved = new LongAdder();
+
+        StoreCounters(String name) {
+            this.name = name;
+        }
+
+        void record(boolean hit, long size) {
+            lookups.increment();
+            if (hit) {
+                hits.increment();
+                bytesSaved.add(size);
+            }
+        }
+
+        double hitRate() {
+            long total = lookups.sum();
+            return total == 0 ? 0 : hits.sum() * 100.0 / total;
+        }
+    }
+
+    /**
+     * A concurrent set of weakly referenced canonical values. Entries are keyed by the equality of
+     * their referents and removed once the referent has been collected.
+     */
+    private static final class WeakInterner<T> {
+        private final ConcurrentHashMap<WeakKey<T>, WeakKey<T>> map = new ConcurrentHashMap<>();
+        private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+        T intern(T value) {
+            expungeStaleEntries();
+            WeakKey<T> key = new WeakKey<>(value, queue);
+            while (true) {
+                WeakKey<T> existing = map.putIfAbsent(key, key);
+                if (existing == null) {
+                    return value;
+                }
+                T canonical = existing.get();
+                if (canonical != null) {
+                    return canonical;
+                }
+                /* The canonical value was collected concurrently, replace its stale entry. */
+                map.remove(existing, existing);
+            }
+        }
+
+        void clear() {
+            map.clear();
+            expungeStaleEntries();
+        }
+
+        private void expungeStaleEntries() {
+            Reference<? extends T> ref;
+            while ((ref = queue.poll()) != null) {
+                map.remove(ref);
+            }
+        }
+    }
+
+    private static final class WeakKey<T> extends WeakReference<T> {
+        private final int hash;
+
+        WeakKey(T referent, ReferenceQueue<T> queue) {
+            super(referent, queue);
+            this.hash = referent.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof WeakKey)) {
+                return false;
+            }
+            WeakKey<?> that = (WeakKey<?>) obj;
+            if (hash != that.hash) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent.equals(that.get());
+        }
+    }
+}
@@ -25,9 +25,11 @@
 package com.oracle.graal.pointsto.util;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -42,12 +44,22 @@ import org.graalvm.compiler.debug.DebugHandlersFactory;
 import org.graalvm.compiler.options.OptionValues;
 
 import com.oracle.graal.pointsto.BigBang;
+import com.oracle.graal.pointsto.api.PointstoOptions;
 
 import jdk.vm.ci.common.JVMCIError;
 
 /**
  * An extended version of a {@link ThreadPoolExecutor} that can block until all posted operations
  * are completed.
+ *
+ * Operations that are {@link DebugContextRunnable#isBatchable() batchable}, i.e., the many small
+ * type flow updates, are not submitted one by one when they are posted from a worker that is
+ * running an operation of this executor. They are collected in a per-worker batch that is
+ * submitted as a single task once it is full or when the operation that posted them finishes.
+ * Before a batch is run its operations are ordered by their
+ * {@link DebugContextRunnable#getLocalityKey() locality key}, so that, e.g., the updates of flows of
+ * the same method run back to back. Repeated updates of the same flow are already coalesced by the
+ * caller, see {@link BigBang#postFlow}.
  */
 public final class CompletionExecutor {
 
@@ -65,6 +77,9 @@ public final class CompletionExecutor {
 
     private final ForkJoinPool executorService;
     private final Runnable heartbeatCallback;
+    private final int batchSize;
+    /** The batch of the current worker, only set while the worker runs one of our operations. */
+    private final ThreadLocal<List<DebugContextRunnable>> workerBatch = new ThreadLocal<>();
 
     private BigBang bb;
     private Timing timing;
@@ -86,6 +101,7 @@ public final class CompletionExecutor {
         this.bb = bb;
         this.heartbeatCallback = heartbeatCallback;
         executorService = forkJoin;
+        batchSize = PointstoOptions.AnalysisTaskBatchSize.getValue(bb.getOptions());
         state = new AtomicReference<>(State.UNUSED);
         postedOperations = new LongAdder();
         completedOperations = new LongAdder();
@@ -130,8 +146,26 @@ public final class CompletionExecutor {
         default DebugContext getDebug(OptionValues options, List<DebugHandlersFactory> factories) {
             return new Builder(options, factories).description(getDescription()).build();
         }
+
+        /**
+         * Returns true if the task is small enough to be run in a batch together with other tasks
+         * posted by the same worker, instead of as a separate task.
+         */
+        default boolean isBatchable() {
+            return false;
+        }
+
+        /**
+         * Gets a key used to run related tasks of a batch next to each other. Tasks with the same
+         * key, e.g., tasks operating on the same method, run back to back.
+         */
+        default int getLocalityKey() {
+            return 0;
+        }
     }
 
+    private static final Comparator<DebugContextRunnable> LOCALITY_COMPARATOR = Comparator.comparingInt(DebugContextRunnable::getLocalityKey);
+
     @SuppressWarnings("try")
     public void execute(DebugContextRunnable command) {
         if (!exceptions.isEmpty()) {
@@ -159,33 +193,16 @@ public final class CompletionExecutor {
                     }
                     completedOperations.increment();
                 } else {
-                    executorService.execute(() -> {
-                        bb.getHostVM().installInThread(vmConfig);
-                        long startTime = 0L;
-                        if (timing != null) {
-                            startTime = System.nanoTime();
+                    List<DebugContextRunnable> batch = command.isBatchable() ? workerBatch.get() : null;
+                    if (batch != null) {
+                        batch.add(command);
+                        if (batch.size() >= batchSize) {
+                            submitBatch(batch);
+                            workerBatch.set(new ArrayList<>(batchSize));
                         }
-                        heartbeatCallback.run();
-                        Throwable thrown = null;
-                        try (DebugContext debug = command.getDebug(bb.getOptions(), bb.getDebugHandlerFactories());
-                                        Scope s = debug.scope("Operation");
-                                        Activation a = debug.activate()) {
-                            command.run(debug);
-                        } catch (Throwable x) {
-                            thrown = x;
-                        } finally {
-                            bb.getHostVM().clearInThread();
-                            if (timing != null) {
-                                long taskTime = System.nanoTime() - startTime;
-                                timing.addCompleted(command, taskTime);
-                            }
-
-                            if (thrown != null) {
-                                exceptions.add(thrown);
-                            }
-                            completedOperations.increment();
-                        }
-                    });
+                    } else {
+                        executorService.execute(() -> runInWorker(command, null));
+                    }
                 }
 
                 break;
@@ -194,6 +211,80 @@ public final class CompletionExecutor {
         }
     }
 
+    /**
+     * Runs a single operation, or a batch of operations if {@code batch} is non-null, in a worker
+     * thread. Batchable operations posted while running are collected and submitted at the end.
+     */
+    private void runInWorker(DebugContextRunnable command, List<DebugContextRunnable> batch) {
+        bb.getHostVM().installInThread(vmConfig);
+        boolean batching = batchSize > 1 && isOwnWorker();
+        /* A worker can run a nested task while it waits, e.g., when it joins another task. */
+        List<DebugContextRunnable> outerBatch = workerBatch.get();
+        if (batching) {
+            workerBatch.set(new ArrayList<>(batchSize));
+        }
+        try {
+            heartbeatCallback.run();
+            if (batch == null) {
+                runOperation(command);
+            } else {
+                batch.sort(LOCALITY_COMPARATOR);
+                for (DebugContextRunnable operation : batch) {
+                    runOperation(operation);
+                }
+            }
+        } finally {
+            if (batching) {
+                List<DebugContextRunnable> posted = workerBatch.get();
+                workerBatch.set(outerBatch);
+                if (!posted.isEmpty()) {
+                    submitBatch(posted);
+                }
+            }
+            bb.getHostVM().clearInThread();
+        }
+    }
+
+    private boolean isOwnWorker() {
+        Thread thread = Thread.currentThread();
+        return thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == executorService;
+    }
+
+    private void submitBatch(List<DebugContextRunnable> batch) {
+        if (batch.size() == 1) {
+            DebugContextRunnable command = batch.get(0);
+            executorService.execute(() -> runInWorker(command, null));
+        } else {
+            executorService.execute(() -> runInWorker(null, batch));
+        }
+    }
+
+    @SuppressWarnings("try")
+    private void runOperation(DebugContextRunnable command) {
+        long startTime = 0L;
+        if (timing != null) {
+            startTime = System.nanoTime();
+        }
+        Throwable thrown = null;
+        try (DebugContext debug = command.getDebug(bb.getOptions(), bb.getDebugHandlerFactories());
+                        Scope s = debug.scope("Operation");
+                        Activation a = debug.activate()) {
+            command.run(debug);
+        } catch (Throwable x) {
+            thrown = x;
+        } finally {
+            if (timing != null) {
+                long taskTime = System.nanoTime() - startTime;
+                timing.addCompleted(command, taskTime);
+            }
+
+            if (thrown != null) {
+                exceptions.add(thrown);
+            }
+            completedOperations.increment();
+        }
+    }
+
     public void start() {
         assert state.get() == State.BEFORE_START;
 
@@ -202,6 +293,15 @@ public final class CompletionExecutor {
         postedBeforeStart.clear();
     }
 
+    /**
+     * Like {@link #start()}, but posts the operations that were scheduled before the start in the
+     * given order, e.g., to start the long running operations first.
+     */
+    public void start(Comparator<? super DebugContextRunnable> order) {
+        postedBeforeStart.sort(order);
+        start();
+    }
+
     private void setState(State newState) {
         state.set(newState);
     }
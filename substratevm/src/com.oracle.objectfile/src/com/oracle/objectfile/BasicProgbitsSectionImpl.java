@@ -121,7 +121,7 @@ public class BasicProgbitsSectionImpl extends BasicElementImpl implements Progbi
 
     @Override
     public final RelocationRecord markRelocationSite(int offset, ByteBuffer bb, RelocationKind k, String symbolName, boolean useImplicitAddend, Long explicitAddend) {
-        assert getContent() == null || bb.array() == getContent();
+        assert !bb.hasArray() || getContent() == null || bb.array() == getContent();
         return ((RelocatableSectionImpl) getElement()).markRelocationSite(offset, bb, k, symbolName, useImplicitAddend, explicitAddend);
     }
 
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.objectfile;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import com.oracle.objectfile.ObjectFile.Element;
+import com.oracle.objectfile.ObjectFile.RelocationKind;
+import com.oracle.objectfile.ObjectFile.RelocationRecord;
+
+/**
+ * A progbits section whose content is kept in a {@link ByteBuffer}, typically a buffer that is
+ * mapped from a file, instead of in a byte array on the Java heap. The content is copied straight
+ * into the output when the object file is {@linkplain ObjectFile#write written}, so large sections
+ * never need a second on-heap copy.
+ */
+public class MappedProgbitsSectionImpl extends BasicProgbitsSectionImpl {
+
+    private static final byte[] NO_CONTENT = new byte[0];
+
+    private final ByteBuffer buffer;
+
+    public MappedProgbitsSectionImpl(ByteBuffer buffer) {
+        super(NO_CONTENT);
+        this.buffer = buffer;
+    }
+
+    /** Returns the buffer holding the section content. Its capacity is the section size. */
+    public ByteBuffer getContentBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public int getOrDecideSize(Map<Element, LayoutDecisionMap> alreadyDecided, int sizeHint) {
+        return buffer.capacity();
+    }
+
+    /**
+     * The decided content is empty, the actual bytes are only read from {@link #getContentBuffer()}
+     * when the file is written.
+     */
+    @Override
+    public byte[] getOrDecideContent(Map<Element, LayoutDecisionMap> alreadyDecided, byte[] contentHint) {
+        return NO_CONTENT;
+    }
+
+    @Override
+    public int getMemSize(Map<Element, LayoutDecisionMap> alreadyDecided) {
+        return buffer.capacity();
+    }
+
+    /**
+     * The content of a mapped section is only available through {@link #getContentBuffer()}.
+     * Materializing it as a byte array would defeat the purpose of this class, so both accessors
+     * fail instead of silently returning an array that does not reflect the section content.
+     */
+    @Override
+    public void setContent(byte[] c) {
+        throw new UnsupportedOperationException("The content of a mapped section cannot be replaced");
+    }
+
+    @Override
+    public byte[] getContent() {
+        throw new UnsupportedOperationException("The content of a mapped section is only available as a buffer, use getContentBuffer()");
+    }
+
+    /** Relocation sites are marked in the mapped buffer, which also receives implicit addends. */
+    @Override
+    public RelocationRecord markRelocationSite(int offset, RelocationKind k, String symbolName, boolean useImplicitAddend, Long explicitAddend) {
+        return markRelocationSite(offset, buffer, k, symbolName, useImplicitAddend, explicitAddend);
+    }
+}
@@ -1690,8 +1690,15 @@ public abstract class ObjectFile {
             assert off != Integer.MAX_VALUE; // not allowed any more -- this was a broken approach
             asBaseBuffer(out).position(off);
             int expectedSize = (int) decisionsTaken.get(e).getDecidedValue(LayoutDecision.Kind.SIZE);
-            byte[] content = (byte[]) decisionsTaken.get(e).getDecidedValue(LayoutDecision.Kind.CONTENT);
-            out.put(content);
+            if (e instanceof Section && ((Section) e).getImpl() instanceof MappedProgbitsSectionImpl) {
+                /* Copy the content straight from its buffer, it was never materialized. */
+                ByteBuffer content = ((MappedProgbitsSectionImpl) ((Section) e).getImpl()).getContentBuffer().duplicate();
+                asBaseBuffer(content).clear();
+                out.put(content);
+            } else {
+                byte[] content = (byte[]) decisionsTaken.get(e).getDecidedValue(LayoutDecision.Kind.CONTENT);
+                out.put(content);
+            }
             int emittedSize = out.position() - off;
             assert emittedSize >= 0;
             if (emittedSize != expectedSize) {
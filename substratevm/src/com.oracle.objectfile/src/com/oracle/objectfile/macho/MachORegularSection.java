@@ -24,7 +24,6 @@
  */
 package com.oracle.objectfile.macho;
 
-import java.nio.ByteBuffer;
 import java.util.EnumSet;
 
 import com.oracle.objectfile.ObjectFile;
@@ -52,7 +51,8 @@ public class MachORegularSection extends MachOUserDefinedSection implements Obje
 
     @Override
     public RelocationRecord markRelocationSite(int offset, RelocationKind k, String symbolName, boolean useImplicitAddend, Long explicitAddend) {
-        return markRelocationSite(offset, ByteBuffer.wrap(getContent()).order(getOwner().getByteOrder()), k, symbolName, useImplicitAddend, explicitAddend);
+        /* The impl knows where its content is, it is not necessarily a byte array. */
+        return ((ProgbitsSectionImpl) impl).markRelocationSite(offset, k, symbolName, useImplicitAddend, explicitAddend);
     }
 
 }
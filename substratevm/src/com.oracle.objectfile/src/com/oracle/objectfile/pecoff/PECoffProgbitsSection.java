@@ -25,7 +25,6 @@
 
 package com.oracle.objectfile.pecoff;
 
-import java.nio.ByteBuffer;
 import java.util.EnumSet;
 
 import com.oracle.objectfile.BasicProgbitsSectionImpl;
@@ -70,6 +69,7 @@ public class PECoffProgbitsSection extends PECoffUserDefinedSection implements P
 
     @Override
     public ObjectFile.RelocationRecord markRelocationSite(int offset, ObjectFile.RelocationKind k, String symbolName, boolean useImplicitAddend, Long explicitAddend) {
-        return markRelocationSite(offset, ByteBuffer.wrap(getContent()).order(getOwner().getByteOrder()), k, symbolName, useImplicitAddend, explicitAddend);
+        /* The impl knows where its content is, it is not necessarily a byte array. */
+        return ((ProgbitsSectionImpl) impl).markRelocationSite(offset, k, symbolName, useImplicitAddend, explicitAddend);
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench.analysis;
+
+import org.graalvm.nativeimage.hosted.Feature;
+
+/**
+ * Reports the wall clock time of the static analysis of the image, together with the number of
+ * analysis iterations, in a format that is easy to pick up by benchmark rules. Used with
+ * {@link SyntheticAnalysisBenchmark}, see there.
+ */
+public final class AnalysisThroughputFeature implements Feature {
+
+    private long analysisStartNanos;
+    private int iterations;
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        analysisStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void duringAnalysis(DuringAnalysisAccess access) {
+        iterations++;
+    }
+
+    @Override
+    public void afterAnalysis(AfterAnalysisAccess access) {
+        long millis = (System.nanoTime() - analysisStartNanos) / 1_000_000;
+        boolean complete = access.isReachable(SyntheticAnalysisBenchmark.Evaluator.class) && access.isReachable(SyntheticAnalysisBenchmark.Printer.class);
+        System.out.println("analysis-throughput: time " + millis + " ms, iterations " + iterations + (complete ? "" : ", benchmark code not reachable"));
+    }
+}
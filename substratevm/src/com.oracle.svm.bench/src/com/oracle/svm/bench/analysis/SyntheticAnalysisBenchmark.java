@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A fixed synthetic application used to measure the throughput of the static analysis. The
+ * application itself is irrelevant, what matters is that it produces a stable amount of analysis
+ * work: a type hierarchy with many virtual call sites (including double dispatch), generic
+ * containers whose element flows merge, lambdas, and the usual collections and streams.
+ *
+ * Build it with the {@link AnalysisThroughputFeature}, which reports the wall clock time of the
+ * analysis:
+ *
+ * <pre>
+ * native-image -cp &lt;svm.bench classpath&gt; --features=com.oracle.svm.bench.analysis.AnalysisThroughputFeature \
+ *     com.oracle.svm.bench.analysis.SyntheticAnalysisBenchmark
+ * </pre>
+ *
+ * Combine it with {@code -H:AnalysisTaskBatchSize=1} to compare against unbatched scheduling.
+ */
+public final class SyntheticAnalysisBenchmark {
+
+    /** Node of the expression trees evaluated by the application. */
+    abstract static class Node {
+        abstract <R> R accept(Visitor<R> visitor);
+    }
+
+    interface Visitor<R> {
+        R visitConstant(Constant node);
+
+        R visitVariable(Variable node);
+
+        R visitUnary(Unary node);
+
+        R visitBinary(Binary node);
+
+        R visitConditional(Conditional node);
+
+        R visitCall(Call node);
+
+        R visitLet(Let node);
+
+        R visitSequence(Sequence node);
+    }
+
+    static final class Constant extends Node {
+        final Value value;
+
+        Constant(Value value) {
+            this.value = value;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitConstant(this);
+        }
+    }
+
+    static final class Variable extends Node {
+        final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitVariable(this);
+        }
+    }
+
+    static final class Unary extends Node {
+        final Operator operator;
+        final Node operand;
+
+        Unary(Operator operator, Node operand) {
+            this.operator = operator;
+            this.operand = operand;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitUnary(this);
+        }
+    }
+
+    static final class Binary extends Node {
+        final Operator operator;
+        final Node left;
+        final Node right;
+
+        Binary(Operator operator, Node left, Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitBinary(this);
+        }
+    }
+
+    static final class Conditional extends Node {
+        final Node condition;
+        final Node thenNode;
+        final Node elseNode;
+
+        Conditional(Node condition, Node thenNode, Node elseNode) {
+            this.condition = condition;
+            this.thenNode = thenNode;
+            this.elseNode = elseNode;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitConditional(this);
+        }
+    }
+
+    static final class Call extends Node {
+        final Function<Value, Value> function;
+        final Node argument;
+
+        Call(Function<Value, Value> function, Node argument) {
+            this.function = function;
+            this.argument = argument;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitCall(this);
+        }
+    }
+
+    static final class Let extends Node {
+        final String name;
+        final Node value;
+        final Node body;
+
+        Let(String name, Node value, Node body) {
+            this.name = name;
+            this.value = value;
+            this.body = body;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitLet(this);
+        }
+    }
+
+    static final class Sequence extends Node {
+        final List<Node> nodes;
+
+        Sequence(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitSequence(this);
+        }
+    }
+
+    /** Values of the evaluated expressions. */
+    abstract static class Value {
+        abstract long asLong();
+
+        abstract boolean isTruthy();
+
+        abstract Value combine(Operator operator, Value other);
+    }
+
+    static final class LongValue extends Value {
+        final long value;
+
+        LongValue(long value) {
+            this.value = value;
+        }
+
+        @Override
+        long asLong() {
+            return value;
+        }
+
+        @Override
+        boolean isTruthy() {
+            return value != 0;
+        }
+
+        @Override
+        Value combine(Operator operator, Value other) {
+            return new LongValue(operator.apply(value, other.asLong()));
+        }
+    }
+
+    static final class StringValue extends Value {
+        final String value;
+
+        StringValue(String value) {
+            this.value = value;
+        }
+
+        @Override
+        long asLong() {
+            return value.length();
+        }
+
+        @Override
+        boolean isTruthy() {
+            return !value.isEmpty();
+        }
+
+        @Override
+        Value combine(Operator operator, Value other) {
+            if (operator == Operator.ADD) {
+                return new StringValue(value + other);
+            }
+            return new LongValue(operator.apply(asLong(), other.asLong()));
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    static final class ListValue extends Value {
+        final List<Value> elements;
+
+        ListValue(List<Value> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        long asLong() {
+            return elements.stream().mapToLong(Value::asLong).sum();
+        }
+
+        @Override
+        boolean isTruthy() {
+            return !elements.isEmpty();
+        }
+
+        @Override
+        Value combine(Operator operator, Value other) {
+            List<Value> result = new ArrayList<>(elements.size());
+            for (Value element : elements) {
+                result.add(element.combine(operator, other));
+            }
+            return new ListValue(result);
+        }
+    }
+
+    enum Operator {
+        ADD {
+            @Override
+            long apply(long a, long b) {
+                return a + b;
+            }
+        },
+        SUB {
+            @Override
+            long apply(long a, long b) {
+                return a - b;
+            }
+        },
+        MUL {
+            @Override
+            long apply(long a, long b) {
+                return a * b;
+            }
+        },
+        XOR {
+            @Override
+            long apply(long a, long b) {
+                return a ^ b;
+            }
+        };
+
+        abstract long apply(long a, long b);
+    }
+
+    static final class Evaluator implements Visitor<Value> {
+        private final Deque<Map<String, Value>> scopes = new ArrayDeque<>();
+
+        Evaluator() {
+            scopes.push(new HashMap<>());
+        }
+
+        @Override
+        public Value visitConstant(Constant node) {
+            return node.value;
+        }
+
+        @Override
+        public Value visitVariable(Variable node) {
+            for (Map<String, Value> scope : scopes) {
+                Value value = scope.get(node.name);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return new LongValue(0);
+        }
+
+        @Override
+        public Value visitUnary(Unary node) {
+            return new LongValue(0).combine(node.operator, node.operand.accept(this));
+        }
+
+        @Override
+        public Value visitBinary(Binary node) {
+            return node.left.accept(this).combine(node.operator, node.right.accept(this));
+        }
+
+        @Override
+        public Value visitConditional(Conditional node) {
+            return node.condition.accept(this).isTruthy() ? node.thenNode.accept(this) : node.elseNode.accept(this);
+        }
+
+        @Override
+        public Value visitCall(Call node) {
+            return node.function.apply(node.argument.accept(this));
+        }
+
+        @Override
+        public Value visitLet(Let node) {
+            Map<String, Value> scope = new HashMap<>();
+            scope.put(node.name, node.value.accept(this));
+            scopes.push(scope);
+            try {
+                return node.body.accept(this);
+            } finally {
+                scopes.pop();
+            }
+        }
+
+        @Override
+        public Value visitSequence(Sequence node) {
+            return new ListValue(node.nodes.stream().map(n -> n.accept(this)).collect(Collectors.toList()));
+        }
+    }
+
+    static final class Printer implements Visitor<String> {
+        @Override
+        public String visitConstant(Constant node) {
+            return String.valueOf(node.value.asLong());
+        }
+
+        @Override
+        public String visitVariable(Variable node) {
+            return node.name;
+        }
+
+        @Override
+        public String visitUnary(Unary node) {
+            return node.operator + "(" + node.operand.accept(this) + ")";
+        }
+
+        @Override
+        public String visitBinary(Binary node) {
+            return "(" + node.left.accept(this) + " " + node.operator + " " + node.right.accept(this) + ")";
+        }
+
+        @Override
+        public String visitConditional(Conditional node) {
+            return "(" + node.condition.accept(this) + " ? " + node.thenNode.accept(this) + " : " + node.elseNode.accept(this) + ")";
+        }
+
+        @Override
+        public String visitCall(Call node) {
+            return "call(" + node.argument.accept(this) + ")";
+        }
+
+        @Override
+        public String visitLet(Let node) {
+            return "let " + node.name + " = " + node.value.accept(this) + " in " + node.body.accept(this);
+        }
+
+        @Override
+        public String visitSequence(Sequence node) {
+            return node.nodes.stream().map(n -> n.accept(this)).collect(Collectors.joining(", ", "[", "]"));
+        }
+    }
+
+    /** Builds a deterministic pseudo-random expression tree of the given depth. */
+    static Node build(long seed, int depth) {
+        long next = seed * 6364136223846793005L + 1442695040888963407L;
+        int kind = (int) ((next >>> 33) % (depth == 0 ? 3 : 8));
+        Operator operator = Operator.values()[(int) ((next >>> 40) & 3)];
+        switch (kind) {
+            case 0:
+                return new Constant(new LongValue(next & 0xff));
+            case 1:
+                return new Constant(new StringValue(Long.toHexString(next & 0xfff)));
+            case 2:
+                return new Variable("v" + ((next >>> 20) & 3));
+            case 3:
+                return new Unary(operator, build(next, depth - 1));
+            case 4:
+                return new Binary(operator, build(next, depth - 1), build(next + 1, depth - 1));
+            case 5:
+                return new Conditional(build(next, depth - 1), build(next + 1, depth - 1), build(next + 2, depth - 1));
+            case 6:
+                return new Let("v" + ((next >>> 20) & 3), build(next, depth - 1), build(next + 1, depth - 1));
+            default:
+                List<Node> nodes = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    nodes.add(build(next + i, depth - 1));
+                }
+                Function<Value, Value> function = (next & 1) == 0 ? v -> v.combine(operator, v) : v -> new ListValue(Arrays.asList(v, v));
+                return new Call(function, new Sequence(nodes));
+        }
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        long checksum = 0;
+        for (long seed = 0; seed < 16; seed++) {
+            Node tree = build(seed, depth);
+            checksum += tree.accept(new Evaluator()).asLong();
+            checksum += tree.accept(new Printer()).hashCode();
+        }
+        System.out.println("checksum: " + checksum);
+    }
+}
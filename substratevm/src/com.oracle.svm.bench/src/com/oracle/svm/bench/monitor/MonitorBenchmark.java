@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench.monitor;
+
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * Measures the throughput of synchronized code, mostly of the uncontended kind found in legacy
+ * library classes such as {@link StringBuffer}, {@link Vector} and {@link Hashtable}, plus a
+ * contended and a wait/notify case for comparison. Run it as a native image, e.g., once with the
+ * {@code -H:+LightweightMonitors} and once with the default {@code -H:-LightweightMonitors}:
+ *
+ * <pre>
+ * native-image -cp &lt;svm.bench classpath&gt; com.oracle.svm.bench.monitor.MonitorBenchmark
+ * ./monitorbenchmark [iterations]
+ * </pre>
+ *
+ * Every case prints one line with its throughput in operations per millisecond.
+ */
+public final class MonitorBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    /** Consumed by the benchmarks so that their work is not optimized away. */
+    static volatile long sink;
+
+    interface Case {
+        /** Performs {@code operations} monitor operations, or groups of them. */
+        void run(int operations) throws InterruptedException;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        measure("string-buffer", operations, MonitorBenchmark::stringBuffer);
+        measure("vector", operations, MonitorBenchmark::vector);
+        measure("hashtable", operations, MonitorBenchmark::hashtable);
+        measure("recursive", operations, MonitorBenchmark::recursive);
+        measure("many-objects", operations, MonitorBenchmark::manyObjects);
+        measure("contended", operations, MonitorBenchmark::contended);
+        measure("wait-notify", operations / 100, MonitorBenchmark::waitNotify);
+    }
+
+    private static void measure(String name, int operations, Case benchmark) throws InterruptedException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            benchmark.run(operations);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            benchmark.run(operations);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println("monitor-" + name + ": " + (operations * 1_000_000L / Math.max(best, 1)) + " ops/ms");
+    }
+
+    private static void stringBuffer(int operations) {
+        StringBuffer buffer = new StringBuffer();
+        for (int i = 0; i < operations; i++) {
+            if (buffer.length() > 1024) {
+                buffer.setLength(0);
+            }
+            buffer.append('x');
+        }
+        sink += buffer.length();
+    }
+
+    private static void vector(int operations) {
+        Vector<Integer> vector = new Vector<>();
+        for (int i = 0; i < operations; i++) {
+            if (vector.size() == 1024) {
+                vector.clear();
+            }
+            vector.add(i);
+        }
+        sink += vector.size();
+    }
+
+    private static void hashtable(int operations) {
+        Hashtable<Integer, Integer> table = new Hashtable<>();
+        for (int i = 0; i < operations; i++) {
+            table.put(i & 1023, i);
+        }
+        sink += table.size();
+    }
+
+    static final class Counter {
+        long value;
+
+        synchronized void increment(int depth) {
+            if (depth > 0) {
+                increment(depth - 1);
+            } else {
+                value++;
+            }
+        }
+    }
+
+    private static void recursive(int operations) {
+        Counter counter = new Counter();
+        for (int i = 0; i < operations; i++) {
+            counter.increment(3);
+        }
+        sink += counter.value;
+    }
+
+    /** Locks many distinct objects, so that their monitors cannot stay in caches. */
+    private static void manyObjects(int operations) {
+        Counter[] counters = new Counter[4096];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new Counter();
+        }
+        for (int i = 0; i < operations; i++) {
+            counters[i & (counters.length - 1)].increment(0);
+        }
+        sink += counters[0].value;
+    }
+
+    private static void contended(int operations) throws InterruptedException {
+        Counter counter = new Counter();
+        Thread other = new Thread(() -> {
+            for (int i = 0; i < operations / 2; i++) {
+                counter.increment(0);
+            }
+        });
+        other.start();
+        for (int i = 0; i < operations / 2; i++) {
+            counter.increment(0);
+        }
+        other.join();
+        sink += counter.value;
+    }
+
+    /** Two threads that alternately hand over a token with wait and notify. */
+    private static void waitNotify(int operations) throws InterruptedException {
+        Object lock = new Object();
+        boolean[] token = new boolean[1];
+        Thread other = new Thread(() -> {
+            try {
+                for (int i = 0; i < operations; i++) {
+                    synchronized (lock) {
+                        while (!token[0]) {
+                            lock.wait();
+                        }
+                        token[0] = false;
+                        lock.notify();
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        other.start();
+        for (int i = 0; i < operations; i++) {
+            synchronized (lock) {
+                while (token[0]) {
+                    lock.wait();
+                }
+                token[0] = true;
+                lock.notify();
+            }
+        }
+        other.join();
+    }
+}
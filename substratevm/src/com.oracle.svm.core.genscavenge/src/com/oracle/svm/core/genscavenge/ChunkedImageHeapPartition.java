@@ -25,6 +25,7 @@
 package com.oracle.svm.core.genscavenge;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
@@ -76,7 +77,10 @@ public class ChunkedImageHeapPartition extends AbstractImageHeapPartition {
         allocator.alignBetweenChunks(getStartAlignment());
         startOffset = allocator.getPosition();
 
-        for (ImageHeapObject info : getObjects()) { // No need to sort by size
+        ImageHeapObject[] objects = getObjects().toArray(new ImageHeapObject[0]);
+        /* Only order by recorded access: unaligned chunks hold a single object each. */
+        Arrays.sort(objects, new AccessOrderComparator());
+        for (ImageHeapObject info : objects) {
             appendAllocatedObject(info, allocator.allocateUnalignedChunkForObject(info, isWritable()));
         }
 
@@ -96,7 +100,8 @@ public class ChunkedImageHeapPartition extends AbstractImageHeapPartition {
     }
 
     private void allocateObjectsInAlignedChunks(ChunkedImageHeapAllocator allocator) {
-        NavigableMap<Long, Queue<ImageHeapObject>> objects = createSortedObjectsMap(getObjects());
+        List<ImageHeapObject> unorderedObjects = allocateObjectsInAccessOrder(allocator);
+        NavigableMap<Long, Queue<ImageHeapObject>> objects = createSortedObjectsMap(unorderedObjects);
         while (!objects.isEmpty()) {
             ImageHeapObject info = dequeueBestFit(objects, allocator.getRemainingBytesInAlignedChunk());
             if (info == null) {
@@ -107,6 +112,33 @@ public class ChunkedImageHeapPartition extends AbstractImageHeapPartition {
         }
     }
 
+    /**
+     * Allocates the objects for which an access order is known consecutively in that order, so that
+     * the objects that are accessed first at run time end up on as few pages as possible. This
+     * trades some padding at the end of chunks for fewer page faults during startup.
+     *
+     * @return the objects without an access order, which are left for best-fit allocation.
+     */
+    private List<ImageHeapObject> allocateObjectsInAccessOrder(ChunkedImageHeapAllocator allocator) {
+        List<ImageHeapObject> ordered = new ArrayList<>();
+        List<ImageHeapObject> unordered = new ArrayList<>();
+        for (ImageHeapObject info : getObjects()) {
+            if (info.getAccessOrder() >= 0) {
+                ordered.add(info);
+            } else {
+                unordered.add(info);
+            }
+        }
+        ordered.sort(new AccessOrderComparator());
+        for (ImageHeapObject info : ordered) {
+            if (allocator.getRemainingBytesInAlignedChunk() < info.getSize()) {
+                allocator.startNewAlignedChunk();
+            }
+            appendAllocatedObject(info, allocator.allocateObjectInAlignedChunk(info, isWritable()));
+        }
+        return unordered;
+    }
+
     private ImageHeapObject dequeueBestFit(NavigableMap<Long, Queue<ImageHeapObject>> objects, long nbytes) {
         if (nbytes < minimumObjectSize) {
             return null;
@@ -170,6 +202,14 @@ public class ChunkedImageHeapPartition extends AbstractImageHeapPartition {
         return getEndOffset() - getStartOffset();
     }
 
+    /** Orders objects by their access order, with objects without an access order last. */
+    private static class AccessOrderComparator implements Comparator<ImageHeapObject> {
+        @Override
+        public int compare(ImageHeapObject o1, ImageHeapObject o2) {
+            return Integer.compareUnsigned(o1.getAccessOrder(), o2.getAccessOrder());
+        }
+    }
+
     private static class SizeComparator implements Comparator<ImageHeapObject> {
         @Override
         public int compare(ImageHeapObject o1, ImageHeapObject o2) {
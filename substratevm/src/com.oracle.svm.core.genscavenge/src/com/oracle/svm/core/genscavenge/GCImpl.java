@@ -75,6 +75,8 @@ import com.oracle.svm.core.heap.ObjectVisitor;
 import com.oracle.svm.core.heap.ReferenceHandler;
 import com.oracle.svm.core.heap.RuntimeCodeCacheCleaner;
 import com.oracle.svm.core.jdk.RuntimeSupport;
+import com.oracle.svm.core.jfr.FlightRecorder;
+import com.oracle.svm.core.jfr.JfrEvents;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.os.CommittedMemoryProvider;
 import com.oracle.svm.core.snippets.ImplicitExceptions;
@@ -165,6 +167,7 @@ public final class GCImpl implements GC {
         assert getCollectionEpoch().equal(requestingEpoch);
 
         timers.mutator.close();
+        long startTicks = JfrEvents.startTicks();
         startCollectionOrExit();
 
         timers.resetAllExceptMutator();
@@ -177,6 +180,7 @@ public final class GCImpl implements GC {
         boolean outOfMemory = collectImpl(cause.getName(), forceFullGC);
         HeapPolicy.setEdenAndYoungGenBytes(WordFactory.unsigned(0), accounting.getYoungChunkBytesAfter());
         printGCAfter(cause.getName());
+        emitFlightRecorderEvents(cause, startTicks);
 
         finishCollection();
         timers.mutator.open();
@@ -185,6 +189,16 @@ public final class GCImpl implements GC {
         return outOfMemory;
     }
 
+    private void emitFlightRecorderEvents(GCCause cause, long startTicks) {
+        if (startTicks == 0) {
+            return;
+        }
+        int gcId = (int) collectionEpoch.rawValue();
+        String name = completeCollection ? "CompleteCollection" : "IncrementalCollection";
+        JfrEvents.emitGarbageCollection(gcId, name, cause.getName(), startTicks, FlightRecorder.ticks());
+        timers.emitPhaseEvents(gcId);
+    }
+
     private boolean collectImpl(String cause, boolean forceFullGC) {
         Log trace = Log.noopLog().string("[GCImpl.collectImpl:").newline().string("  epoch: ").unsigned(getCollectionEpoch()).string("  cause: ").string(cause).newline();
         boolean outOfMemory;
@@ -36,6 +36,7 @@ import org.graalvm.word.UnsignedWord;
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.heap.ImageHeapAccessTracer;
 import com.oracle.svm.core.heap.ObjectHeader;
 import com.oracle.svm.core.hub.DynamicHub;
 import com.oracle.svm.core.hub.LayoutEncoding;
@@ -48,6 +49,10 @@ final class PinnedObjectImpl implements PinnedObject {
         @Override
         public PinnedObject create(Object object) {
             Log trace = Log.noopLog().string("[PinnedObject.open:").string(" object: ").object(object).newline();
+            if (ImageHeapAccessTracer.isEnabled()) {
+                /* The address of the object is typically passed to native code. */
+                ImageHeapAccessTracer.restoreAccess(object);
+            }
             PinnedObjectImpl result = new PinnedObjectImpl(object);
             PinnedObjectImpl.pushPinnedObject(result);
             trace.string("  returns: ]").object(result).newline();
@@ -52,6 +52,7 @@ import com.oracle.svm.core.genscavenge.graal.nodes.FormatObjectNode;
 import com.oracle.svm.core.graal.snippets.DeoptTester;
 import com.oracle.svm.core.hub.DynamicHub;
 import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.jfr.JfrEvents;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.snippets.KnownIntrinsics;
 import com.oracle.svm.core.snippets.SubstrateForeignCallTarget;
@@ -150,6 +151,7 @@ public final class ThreadLocalAllocation {
             assert size.equal(hub.getLayoutEncoding());
         }
         Object result = slowPathNewInstanceWithoutAllocating(hub, size);
+        JfrEvents.sampleAllocation(hub, HeapPolicy.getAlignedHeapChunkSize());
         /* If a collection happened, do follow-up tasks now that allocation, etc., is allowed. */
         HeapImpl.getHeapImpl().getGCImpl().possibleCollectionEpilogue(gcEpoch);
         runSlowPathHooks();
@@ -194,6 +196,8 @@ public final class ThreadLocalAllocation {
 
         UnsignedWord gcEpoch = HeapImpl.getHeapImpl().getGCImpl().possibleCollectionPrologue();
         Object result = slowPathNewArrayWithoutAllocating(hub, length, size, fillStartOffset);
+        /* Large arrays get their own chunk, all other objects start a new TLAB. */
+        JfrEvents.sampleAllocation(hub, size.aboveOrEqual(HeapPolicy.getLargeArrayThreshold()) ? size : HeapPolicy.getAlignedHeapChunkSize());
         /* If a collection happened, do follow-up tasks now that allocation, etc., is allowed. */
         HeapImpl.getHeapImpl().getGCImpl().possibleCollectionEpilogue(gcEpoch);
         runSlowPathHooks();
@@ -24,6 +24,7 @@
  */
 package com.oracle.svm.core.genscavenge;
 
+import com.oracle.svm.core.jfr.JfrEvents;
 import com.oracle.svm.core.log.Log;
 
 /**
@@ -162,6 +163,39 @@ final class Timers {
         }
     }
 
+    /** Emits flight recorder events for the timers, nested like in {@link #logAfterCollection}. */
+    void emitPhaseEvents(int gcId) {
+        emitOnePhase(1, gcId, verifyBefore);
+        emitOnePhase(1, gcId, collection);
+        emitOnePhase(2, gcId, rootScan);
+        emitOnePhase(3, gcId, cheneyScanFromRoots);
+        emitOnePhase(3, gcId, cheneyScanFromDirtyRoots);
+        emitOnePhase(4, gcId, promotePinnedObjects);
+        emitOnePhase(4, gcId, blackenStackRoots);
+        emitOnePhase(4, gcId, walkThreadLocals);
+        emitOnePhase(4, gcId, walkRuntimeCodeCache);
+        emitOnePhase(4, gcId, cleanRuntimeCodeCache);
+        emitOnePhase(4, gcId, blackenImageHeapRoots);
+        emitOnePhase(4, gcId, blackenDirtyCardRoots);
+        emitOnePhase(4, gcId, scanGreyObjects);
+        emitOnePhase(2, gcId, cleanCodeCache);
+        emitOnePhase(2, gcId, referenceObjects);
+        emitOnePhase(2, gcId, releaseSpaces);
+        emitOnePhase(1, gcId, verifyAfter);
+    }
+
+    /**
+     * Timers that are opened several times during a collection are reported as a single phase that
+     * ends when the timer was last closed.
+     */
+    private static void emitOnePhase(int level, int gcId, Timer timer) {
+        long nanos = timer.getMeasuredNanos();
+        if (nanos > 0) {
+            long finish = timer.getFinish();
+            JfrEvents.emitGCPhasePause(level, gcId, timer.getName(), finish - nanos, finish);
+        }
+    }
+
     static void logOneTimer(Log log, String prefix, Timer timer) {
         if (timer.getMeasuredNanos() > 0) {
             log.newline().string(prefix).string(timer.getName()).string(": ").signed(timer.getMeasuredNanos());
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.posix;
+
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.nativeimage.c.function.CEntryPoint;
+import org.graalvm.nativeimage.c.function.CEntryPointLiteral;
+import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.annotate.RestrictHeapAccess;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.c.function.CEntryPointOptions;
+import com.oracle.svm.core.c.function.CEntryPointOptions.NoEpilogue;
+import com.oracle.svm.core.c.function.CEntryPointOptions.NoPrologue;
+import com.oracle.svm.core.c.function.CEntryPointOptions.Publish;
+import com.oracle.svm.core.posix.headers.LibC;
+import com.oracle.svm.core.posix.headers.Signal;
+import com.oracle.svm.core.posix.headers.Signal.AdvancedSignalDispatcher;
+import com.oracle.svm.core.posix.headers.Signal.sigaction;
+import com.oracle.svm.core.posix.headers.Signal.siginfo_t;
+import com.oracle.svm.core.posix.headers.Signal.ucontext_t;
+import com.oracle.svm.core.posix.headers.Time;
+import com.oracle.svm.core.posix.headers.Time.itimerval;
+import com.oracle.svm.core.sampler.SamplingProfiler;
+import com.oracle.svm.core.sampler.SamplingTimer;
+
+@AutomaticFeature
+class PosixSamplingTimerFeature implements Feature {
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return SamplingProfiler.isEnabled();
+    }
+
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        ImageSingletons.add(SamplingTimer.class, new PosixSamplingTimer());
+    }
+}
+
+/**
+ * Samples with {@code SIGPROF} signals of a {@code ITIMER_PROF} interval timer, which measures the
+ * CPU time of the process and signals one of the threads that are running when it expires.
+ */
+class PosixSamplingTimer implements SamplingTimer {
+
+    @CEntryPoint
+    @CEntryPointOptions(prologue = NoPrologue.class, epilogue = NoEpilogue.class, publishAs = Publish.NotPublished, include = CEntryPointOptions.NotIncludedAutomatically.class)
+    @RestrictHeapAccess(access = RestrictHeapAccess.Access.NO_ALLOCATION, reason = "Must not allocate in a signal handler.")
+    @Uninterruptible(reason = "Must not reach a safepoint in a signal handler.")
+    private static void dispatch(@SuppressWarnings("unused") int signalNumber, @SuppressWarnings("unused") siginfo_t sigInfo, ucontext_t uContext) {
+        SamplingProfiler.recordSample(uContext);
+    }
+
+    private static final CEntryPointLiteral<AdvancedSignalDispatcher> advancedSignalDispatcher = CEntryPointLiteral.create(PosixSamplingTimer.class,
+                    "dispatch", int.class, siginfo_t.class, ucontext_t.class);
+
+    @Override
+    public boolean start(int intervalMillis) {
+        int structSigActionSize = SizeOf.get(sigaction.class);
+        sigaction structSigAction = StackValue.get(structSigActionSize);
+        LibC.memset(structSigAction, WordFactory.signed(0), WordFactory.unsigned(structSigActionSize));
+        /* Interrupted system calls are restarted, so that sampling is transparent to the program. */
+        structSigAction.sa_flags(Signal.SA_SIGINFO() | Signal.SA_RESTART());
+        structSigAction.sa_sigaction(advancedSignalDispatcher.getFunctionPointer());
+        if (Signal.sigaction(Signal.SignalEnum.SIGPROF, structSigAction, WordFactory.nullPointer()) != 0) {
+            return false;
+        }
+        return setTimer(intervalMillis);
+    }
+
+    @Override
+    public void stop() {
+        setTimer(0);
+    }
+
+    private static boolean setTimer(int intervalMillis) {
+        itimerval timer = StackValue.get(itimerval.class);
+        timer.it_interval().set_tv_sec(intervalMillis / 1000);
+        timer.it_interval().set_tv_usec((intervalMillis % 1000) * 1000L);
+        timer.it_value().set_tv_sec(intervalMillis / 1000);
+        timer.it_value().set_tv_usec((intervalMillis % 1000) * 1000L);
+        return Time.setitimer(Time.ITIMER_PROF(), timer, WordFactory.nullPointer()) == 0;
+    }
+}
@@ -26,6 +26,7 @@ package com.oracle.svm.core.posix;
 
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.Isolate;
+import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.StackValue;
 import org.graalvm.nativeimage.c.function.CEntryPoint;
 import org.graalvm.nativeimage.c.function.CEntryPointLiteral;
@@ -49,10 +50,13 @@ import com.oracle.svm.core.c.function.CEntryPointOptions.NoEpilogue;
 import com.oracle.svm.core.c.function.CEntryPointOptions.NoPrologue;
 import com.oracle.svm.core.c.function.CEntryPointOptions.Publish;
 import com.oracle.svm.core.graal.snippets.CEntryPointSnippets.IsolateCreationWatcher;
+import com.oracle.svm.core.heap.ImageHeapAccessTracer;
 import com.oracle.svm.core.os.MemoryProtectionKeyProvider;
 import com.oracle.svm.core.posix.headers.LibC;
 import com.oracle.svm.core.posix.headers.Signal;
 import com.oracle.svm.core.posix.headers.Signal.AdvancedSignalDispatcher;
+import com.oracle.svm.core.posix.headers.Signal.GregEnum;
+import com.oracle.svm.core.posix.headers.Signal.MContext64;
 import com.oracle.svm.core.posix.headers.Signal.sigaction;
 import com.oracle.svm.core.posix.headers.Signal.siginfo_t;
 import com.oracle.svm.core.posix.headers.Signal.ucontext_t;
@@ -74,6 +78,10 @@ class PosixSubstrateSegfaultHandler extends SubstrateSegfaultHandler {
     @RestrictHeapAccess(access = RestrictHeapAccess.Access.NO_ALLOCATION, reason = "Must not allocate in segfault signal handler.")
     @Uninterruptible(reason = "Must be uninterruptible until it gets immune to safepoints")
     private static void dispatch(@SuppressWarnings("unused") int signalNumber, @SuppressWarnings("unused") siginfo_t sigInfo, ucontext_t uContext) {
+        if (ImageHeapAccessTracer.isEnabled() && ImageHeapAccessTracer.recordAccess(sigInfo.si_addr(), mayBeWriteFault(uContext))) {
+            /* First access to a traced image heap page, which is accessible again now. */
+            return;
+        }
 
         if (MemoryProtectionKeyProvider.isAvailable()) {
             MemoryProtectionKeyProvider.singleton().handleSegfault(sigInfo);
@@ -98,6 +106,24 @@ class PosixSubstrateSegfaultHandler extends SubstrateSegfaultHandler {
         dump(uContext);
     }
 
+    /** The bit of the x86 page fault error code that is set for write accesses. */
+    private static final int PAGE_FAULT_WRITE = 0x2;
+
+    /**
+     * Returns false if the faulting memory access is known to be a read, and true if it is a write
+     * or the platform does not provide the kind of the access.
+     */
+    @Uninterruptible(reason = "Called from the segfault handler.", mayBeInlined = true)
+    private static boolean mayBeWriteFault(ucontext_t uContext) {
+        if (Platform.includedIn(Platform.LINUX_AMD64.class)) {
+            return (uContext.uc_mcontext_gregs().read(GregEnum.REG_ERR.getCValue()) & PAGE_FAULT_WRITE) != 0;
+        } else if (Platform.includedIn(Platform.DARWIN_AMD64.class)) {
+            MContext64 mContext = uContext.uc_mcontext64();
+            return (((Pointer) mContext).readInt(mContext.err_offset()) & PAGE_FAULT_WRITE) != 0;
+        }
+        return true;
+    }
+
     /** The address of the signal handler for signals handled by Java code, above. */
     private static final CEntryPointLiteral<AdvancedSignalDispatcher> advancedSignalDispatcher = CEntryPointLiteral.create(PosixSubstrateSegfaultHandler.class,
                     "dispatch", int.class, siginfo_t.class, ucontext_t.class);
@@ -38,6 +38,7 @@ import org.graalvm.nativeimage.c.struct.CFieldAddress;
 import org.graalvm.nativeimage.c.struct.CFieldOffset;
 import org.graalvm.nativeimage.c.struct.CPointerTo;
 import org.graalvm.nativeimage.c.struct.CStruct;
+import org.graalvm.nativeimage.c.type.VoidPointer;
 import org.graalvm.nativeimage.c.type.WordPointer;
 import org.graalvm.word.PointerBase;
 
@@ -92,6 +93,8 @@ public class Signal {
 
     @CStruct
     public interface siginfo_t extends PointerBase {
+        @CField
+        VoidPointer si_addr();
     }
 
     @Platforms(Platform.LINUX.class)
@@ -204,6 +207,9 @@ public class Signal {
 
         @CFieldOffset("__ss.__rflags")
         int efl_offset();
+
+        @CFieldOffset("__es.__err")
+        int err_offset();
     }
 
     @CStruct
@@ -233,6 +239,9 @@ public class Signal {
     @CConstant
     public static native int SA_SIGINFO();
 
+    @CConstant
+    public static native int SA_RESTART();
+
     @CStruct(addStructKeyword = true)
     public interface sigaction extends PointerBase {
         @CField
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.posix.headers.linux;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.c.CContext;
+import org.graalvm.nativeimage.c.function.CFunction;
+import org.graalvm.nativeimage.c.function.CFunction.Transition;
+import org.graalvm.nativeimage.c.type.CCharPointer;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.posix.headers.PosixDirectives;
+
+// Checkstyle: stop
+
+/**
+ * Definitions manually translated from the Linux-specific parts of the C header file sys/mman.h.
+ *
+ * memfd_create is invoked through syscall(2) because the glibc wrapper and its constants are only
+ * available since glibc 2.27, while images are also built against older glibc versions.
+ */
+@CContext(PosixDirectives.class)
+public class LinuxMman {
+
+    /** Value of {@code MFD_CLOEXEC} from linux/memfd.h. */
+    public static final int MFD_CLOEXEC = 0x0001;
+
+    public static class NoTransitions {
+        @CFunction(value = "syscall", transition = Transition.NO_TRANSITION)
+        public static native long syscallMemfdCreate(long number, CCharPointer name, int flags);
+
+        /**
+         * Returns a file descriptor or -1 if the kernel does not support memfd_create, in which
+         * case errno is ENOSYS.
+         */
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        public static int memfd_create(CCharPointer name, int flags) {
+            /* System call numbers from asm-generic/unistd.h and asm/unistd_64.h. */
+            long number = Platform.includedIn(Platform.AARCH64.class) ? 279 : 319;
+            return (int) syscallMemfdCreate(number, name, flags);
+        }
+    }
+}
@@ -54,6 +54,7 @@ import org.graalvm.word.SignedWord;
 import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
 
+import com.oracle.svm.core.CErrorNumber;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.c.CGlobalData;
@@ -66,8 +67,10 @@ import com.oracle.svm.core.os.ImageHeapProvider;
 import com.oracle.svm.core.os.VirtualMemoryProvider;
 import com.oracle.svm.core.os.VirtualMemoryProvider.Access;
 import com.oracle.svm.core.posix.PosixUtils;
+import com.oracle.svm.core.posix.headers.Errno;
 import com.oracle.svm.core.posix.headers.Fcntl;
 import com.oracle.svm.core.posix.headers.Unistd;
+import com.oracle.svm.core.posix.headers.linux.LinuxMman;
 import com.oracle.svm.core.util.PointerUtils;
 
 import jdk.vm.ci.code.MemoryBarriers;
@@ -95,6 +98,11 @@ class LinuxImageHeapProviderFeature implements Feature {
  *
  * The implementation avoids dirtying the pages of the original, and only referencing what is
  * strictly required.
+ *
+ * When the dynamic linker has relocated the relocatable partition of the original heap, the file
+ * contents of that partition cannot be used. In that case, a single copy of the relocated partition
+ * is placed in an anonymous in-memory file, which is then mapped copy-on-write into every further
+ * image heap so that isolates share its physical pages as well.
  */
 public class LinuxImageHeapProvider implements ImageHeapProvider {
     /** Magic value to verify that a located image file matches our loaded image. */
@@ -109,6 +117,9 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
     private static final CGlobalData<WordPointer> CACHED_IMAGE_FD = CGlobalDataFactory.createWord(FIRST_ISOLATE_FD);
     private static final CGlobalData<WordPointer> CACHED_IMAGE_HEAP_OFFSET = CGlobalDataFactory.createWord();
 
+    private static final CGlobalData<CCharPointer> RELOCATED_PARTITION_FILE_NAME = CGlobalDataFactory.createCString("svm-image-heap-relocatables");
+    private static final CGlobalData<WordPointer> CACHED_RELOCATED_PARTITION_FD = CGlobalDataFactory.createWord(UNASSIGNED_FD);
+
     private static final int MAX_PATHLEN = 4096;
 
     private static final ImageHeapProvider fallbackCopyingProvider = new CopyingImageHeapProvider();
@@ -212,7 +223,8 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
         ComparableWord mappedValue = heap.readWord(relocPointer.subtract(imageHeapBegin));
         if (relocatedValue.notEqual(mappedValue)) {
             /*
-             * Addresses were relocated by dynamic linker, so copy them, but first remap the pages
+             * Addresses were relocated by dynamic linker, so map the shared relocated copy of the
+             * partition over them, or if that is not possible, copy them, but first remap the pages
              * to avoid swapping them in from disk.
              */
             Pointer relocsBegin = heap.add(IMAGE_HEAP_RELOCATABLE_BEGIN.get().subtract(imageHeapBegin));
@@ -221,14 +233,16 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
                 freeImageHeap(allocatedMemory);
                 return CEntryPointErrors.PROTECT_HEAP_FAILED;
             }
-            if (VirtualMemoryProvider.get().commit(relocsBegin, relocsSize, Access.READ | Access.WRITE).isNull()) {
-                freeImageHeap(allocatedMemory);
-                return CEntryPointErrors.PROTECT_HEAP_FAILED;
-            }
-            memcpy(relocsBegin, IMAGE_HEAP_RELOCATABLE_BEGIN.get(), relocsSize);
-            if (VirtualMemoryProvider.get().protect(relocsBegin, relocsSize, Access.READ) != 0) {
-                freeImageHeap(allocatedMemory);
-                return CEntryPointErrors.PROTECT_HEAP_FAILED;
+            if (!mapRelocatedPartition(relocsBegin, relocsSize)) {
+                if (VirtualMemoryProvider.get().commit(relocsBegin, relocsSize, Access.READ | Access.WRITE).isNull()) {
+                    freeImageHeap(allocatedMemory);
+                    return CEntryPointErrors.PROTECT_HEAP_FAILED;
+                }
+                memcpy(relocsBegin, IMAGE_HEAP_RELOCATABLE_BEGIN.get(), relocsSize);
+                if (VirtualMemoryProvider.get().protect(relocsBegin, relocsSize, Access.READ) != 0) {
+                    freeImageHeap(allocatedMemory);
+                    return CEntryPointErrors.PROTECT_HEAP_FAILED;
+                }
             }
         }
 
@@ -308,6 +322,7 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
         }
         Word fileMagic = ((WordPointer) buffer).read();
         if (fileMagic.notEqual(magicAddress.readWord(0))) {
+            Unistd.NoTransitions.close(opened);
             return failfd; // magic number mismatch
         }
 
@@ -318,6 +333,64 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
         return opened;
     }
 
+    /**
+     * Maps the relocatable partition of a new image heap from an in-memory file that holds a copy
+     * of the partition as relocated by the dynamic linker. The file is created on first use and
+     * cached for subsequent isolates. As with the image file, we intentionally allow racing.
+     *
+     * @return true if the partition has been mapped read-only at {@code relocsBegin}, false if the
+     *         caller must fall back to copying the partition.
+     */
+    @Uninterruptible(reason = "Called during isolate initialization.")
+    private static boolean mapRelocatedPartition(Pointer relocsBegin, UnsignedWord relocsSize) {
+        SignedWord fd = CACHED_RELOCATED_PARTITION_FD.get().read();
+        if (fd.equal(UNASSIGNED_FD)) {
+            int created = createRelocatedPartitionFile(relocsSize);
+            MembarNode.memoryBarrier(MemoryBarriers.STORE_STORE);
+            SignedWord previous = ((Pointer) CACHED_RELOCATED_PARTITION_FD.get()).compareAndSwapWord(0, UNASSIGNED_FD, signed(created), LocationIdentity.ANY_LOCATION);
+            if (previous.equal(UNASSIGNED_FD)) {
+                fd = signed(created);
+            } else {
+                if (created >= 0) {
+                    Unistd.NoTransitions.close(created);
+                }
+                fd = previous;
+            }
+        }
+        if (fd.equal(CANNOT_OPEN_FD)) {
+            return false;
+        }
+        Pointer mapped = VirtualMemoryProvider.get().mapFile(relocsBegin, relocsSize, fd, WordFactory.zero(), Access.READ);
+        return mapped.isNonNull();
+    }
+
+    /**
+     * Creates an anonymous in-memory file with the contents of the relocatable partition of the
+     * image heap that was mapped and relocated by the dynamic linker.
+     */
+    @Uninterruptible(reason = "Called during isolate initialization.")
+    private static int createRelocatedPartitionFile(UnsignedWord relocsSize) {
+        int fd = LinuxMman.NoTransitions.memfd_create(RELOCATED_PARTITION_FILE_NAME.get(), LinuxMman.MFD_CLOEXEC);
+        if (fd < 0) {
+            return CANNOT_OPEN_FD_VALUE;
+        }
+        Pointer source = IMAGE_HEAP_RELOCATABLE_BEGIN.get();
+        UnsignedWord remaining = relocsSize;
+        while (remaining.aboveThan(0)) {
+            SignedWord written = Unistd.NoTransitions.write(fd, source, remaining);
+            if (written.lessOrEqual(0)) {
+                if (written.equal(-1) && CErrorNumber.getCErrorNumber() == Errno.EINTR()) {
+                    continue;
+                }
+                Unistd.NoTransitions.close(fd);
+                return CANNOT_OPEN_FD_VALUE;
+            }
+            source = source.add((UnsignedWord) written);
+            remaining = remaining.subtract((UnsignedWord) written);
+        }
+        return fd;
+    }
+
     @Override
     @Uninterruptible(reason = "Called during isolate tear-down.")
     public int freeImageHeap(PointerBase imageHeap) {
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.nativeimage.ImageSnapshots;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.impl.ImageSnapshotSupport;
+
+import com.oracle.svm.core.util.ImageHeapMap;
+import com.oracle.svm.core.util.UserError;
+
+/**
+ * Stores the {@link ImageSnapshots snapshots} of startup hooks. The hooks are run by the image
+ * builder before the static analysis starts, so that the map is complete when the analysis scans
+ * it.
+ */
+public final class ImageSnapshotSupportImpl implements ImageSnapshotSupport {
+
+    /**
+     * Keyed by the name of the hook class because the hash codes of classes differ between image
+     * generation and run time.
+     */
+    private final EconomicMap<String, Object> snapshots = ImageHeapMap.create();
+
+    @Platforms(Platform.HOSTED_ONLY.class) //
+    private final Function<Class<?>, Object> hookRunner;
+    @Platforms(Platform.HOSTED_ONLY.class) //
+    private final Set<Class<?>> running = new HashSet<>();
+    @Platforms(Platform.HOSTED_ONLY.class) //
+    private boolean sealed;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public ImageSnapshotSupportImpl(Function<Class<?>, Object> hookRunner) {
+        this.hookRunner = hookRunner;
+    }
+
+    @Override
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public synchronized void register(Class<? extends Supplier<?>> hook) {
+        if (snapshots.containsKey(hook.getName())) {
+            return;
+        }
+        UserError.guarantee(!sealed, "Startup hook %s must be registered before the static analysis starts, e.g., in Feature.duringSetup.", hook.getName());
+        UserError.guarantee(running.add(hook), "Startup hook %s requests its own snapshot, possibly via other startup hooks.", hook.getName());
+        try {
+            snapshots.put(hook.getName(), hookRunner.apply(hook));
+        } finally {
+            running.remove(hook);
+        }
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public synchronized void seal() {
+        sealed = true;
+    }
+
+    @Override
+    public <T> T get(Class<? extends Supplier<T>> hook) {
+        if (SubstrateUtil.HOSTED) {
+            getHosted(hook);
+        }
+        Object snapshot = snapshots.get(hook.getName());
+        if (snapshot == null) {
+            throw new IllegalStateException("The image contains no snapshot of startup hook " + hook.getName() + ". Register the hook during image generation with -H:ImageSnapshotHooks.");
+        }
+        @SuppressWarnings("unchecked")
+        T result = (T) snapshot;
+        return result;
+    }
+
+    /** During image generation, e.g., in another startup hook, snapshots are created on demand. */
+    @Platforms(Platform.HOSTED_ONLY.class)
+    private synchronized void getHosted(Class<? extends Supplier<?>> hook) {
+        if (!sealed) {
+            register(hook);
+        }
+    }
+}
@@ -195,6 +195,9 @@ public class SubstrateOptions {
     @Option(help = "Enable support for threads and and thread-local variables (disable for single-threaded implementation)")//
     public static final HostedOptionKey<Boolean> MultiThreaded = new HostedOptionKey<>(true);
 
+    @Option(help = "Lock objects that have a monitor slot by storing the owning thread in the slot. A full monitor is only created on contention, or for Object.wait and Object.notify.")//
+    public static final HostedOptionKey<Boolean> LightweightMonitors = new HostedOptionKey<>(false);
+
     @Option(help = "Use only a writable native image heap (requires ld.gold linker)")//
     public static final HostedOptionKey<Boolean> ForceNoROSectionRelocations = new HostedOptionKey<>(false);
 
@@ -43,6 +43,7 @@ import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.c.function.CEntryPointErrors;
 import com.oracle.svm.core.graal.nodes.WriteCurrentVMThreadNode;
 import com.oracle.svm.core.graal.nodes.WriteHeapBaseNode;
+import com.oracle.svm.core.heap.ImageHeapAccessTracer;
 import com.oracle.svm.core.jdk.RuntimeSupport;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.option.RuntimeOptionKey;
@@ -71,9 +72,19 @@ public abstract class SubstrateSegfaultHandler {
 
     static void startupHook() {
         Boolean optionValue = Options.InstallSegfaultHandler.getValue();
-        if (optionValue == Boolean.TRUE || (optionValue == null && ImageInfo.isExecutable())) {
+        boolean install = optionValue == Boolean.TRUE || (optionValue == null && ImageInfo.isExecutable());
+        /*
+         * Tracing image heap accesses relies on the segfault handler, so a configured trace file
+         * installs it unless it was explicitly disabled.
+         */
+        boolean trace = ImageHeapAccessTracer.isTraceFileConfigured() && optionValue != Boolean.FALSE;
+        if (install || trace) {
             ImageSingletons.lookup(SubstrateSegfaultHandler.class).install();
         }
+        if (trace) {
+            /* Tracing can only start after installing the segfault handler. */
+            ImageHeapAccessTracer.start();
+        }
     }
 
     /** Installs the platform dependent segfault handler. */
@@ -257,6 +257,10 @@ public final class CodeInfoAccess {
         return CodeInfoQueryResult.getTotalFrameSize(codeInfoQueryResult.getEncodedFrameSize());
     }
 
+    public static FrameInfoQueryResult lookupNearestFrameInfo(CodeInfo info, long ip) {
+        return CodeInfoDecoder.lookupNearestFrameInfo(info, ip);
+    }
+
     public static NonmovableArray<Byte> getStackReferenceMapEncoding(CodeInfo info) {
         return cast(info).getStackReferenceMapEncoding();
     }
@@ -200,6 +200,50 @@ public final class CodeInfoDecoder {
         return ReferenceMapIndex.NO_REFERENCE_MAP;
     }
 
+    /**
+     * Returns the frame information of the entry with frame information that is nearest before or
+     * at the given IP within the same method, or {@code null} if there is none. Unlike the exact
+     * lookups above, this can attribute arbitrary instruction addresses, for example sampled ones,
+     * to the (possibly inlined) method they belong to.
+     */
+    static FrameInfoQueryResult lookupNearestFrameInfo(CodeInfo info, long ip) {
+        long granuleIP = lookupEntryIP(ip);
+        long limitIP = ip;
+        while (true) {
+            long result = -1;
+            boolean methodStartSeen = false;
+            long sizeEncoding = initialSizeEncoding();
+            long entryIP = granuleIP;
+            long entryOffset = loadEntryOffset(info, granuleIP);
+            do {
+                int entryFlags = loadEntryFlags(info, entryOffset);
+                if (extractFS(entryFlags) != FS_NO_CHANGE) {
+                    sizeEncoding = updateSizeEncoding(info, entryOffset, entryFlags, sizeEncoding);
+                    if (decodeMethodStart(entryFlags, sizeEncoding)) {
+                        /* Entries before a method start belong to a different method. */
+                        result = -1;
+                        methodStartSeen = true;
+                    }
+                }
+                if (extractFI(entryFlags) != FI_NO_DEOPT) {
+                    result = entryOffset;
+                }
+
+                entryIP = advanceIP(info, entryOffset, entryIP);
+                entryOffset = advanceOffset(entryOffset, entryFlags);
+            } while (entryIP <= limitIP);
+
+            if (result >= 0) {
+                return loadFrameInfo(info, result, loadEntryFlags(info, result));
+            } else if (methodStartSeen || granuleIP == 0) {
+                return null;
+            }
+            /* The method starts in an earlier granule, continue the search there. */
+            limitIP = granuleIP - 1;
+            granuleIP = granuleIP - indexGranularity();
+        }
+    }
+
     static long indexGranularity() {
         return Options.CodeInfoIndexGranularity.getValue();
     }
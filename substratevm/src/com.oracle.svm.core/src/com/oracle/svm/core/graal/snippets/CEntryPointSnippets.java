@@ -62,6 +62,7 @@ import org.graalvm.nativeimage.StackValue;
 import org.graalvm.nativeimage.c.type.CCharPointer;
 import org.graalvm.nativeimage.c.type.WordPointer;
 import org.graalvm.word.LocationIdentity;
+import org.graalvm.word.Pointer;
 import org.graalvm.word.PointerBase;
 import org.graalvm.word.WordFactory;
 
@@ -69,6 +70,7 @@ import com.oracle.svm.core.Isolates;
 import com.oracle.svm.core.JavaMainWrapper.JavaMainSupport;
 import com.oracle.svm.core.RuntimeAssertionsSupport;
 import com.oracle.svm.core.SubstrateUtil;
+import com.oracle.svm.core.annotate.NeverInline;
 import com.oracle.svm.core.annotate.RestrictHeapAccess;
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.c.CGlobalData;
@@ -88,6 +90,8 @@ import com.oracle.svm.core.jdk.RuntimeSupport;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.option.RuntimeOptionParser;
 import com.oracle.svm.core.os.MemoryProtectionKeyProvider;
+import com.oracle.svm.core.sampler.SamplingProfiler;
+import com.oracle.svm.core.snippets.KnownIntrinsics;
 import com.oracle.svm.core.snippets.SnippetRuntime;
 import com.oracle.svm.core.snippets.SnippetRuntime.SubstrateForeignCallDescriptor;
 import com.oracle.svm.core.snippets.SubstrateForeignCallTarget;
@@ -198,6 +202,7 @@ public final class CEntryPointSnippets extends SubstrateTemplates implements Sni
 
     @Uninterruptible(reason = "Thread state not yet set up.")
     @SubstrateForeignCallTarget(stubCallingConvention = false)
+    @NeverInline("Reads the stack pointer of the entry point.")
     private static int createIsolate(CEntryPointCreateIsolateParameters parameters, int vmThreadSize) {
         WordPointer isolate = StackValue.get(WordPointer.class);
         isolate.write(WordFactory.nullPointer());
@@ -219,7 +224,7 @@ public final class CEntryPointSnippets extends SubstrateTemplates implements Sni
                 return CEntryPointErrors.THREADING_INITIALIZATION_FAILED;
             }
         }
-        error = attachThread(isolate.read(), vmThreadSize);
+        error = attachThread0(isolate.read(), vmThreadSize, KnownIntrinsics.readCallerStackPointer());
         if (error != CEntryPointErrors.NO_ERROR) {
             return error;
         }
@@ -320,7 +325,17 @@ public final class CEntryPointSnippets extends SubstrateTemplates implements Sni
 
     @Uninterruptible(reason = "Thread state not yet set up.")
     @SubstrateForeignCallTarget(stubCallingConvention = false)
+    @NeverInline("Reads the stack pointer of the entry point.")
     private static int attachThread(Isolate isolate, int vmThreadSize) {
+        return attachThread0(isolate, vmThreadSize, KnownIntrinsics.readCallerStackPointer());
+    }
+
+    /**
+     * @param entryPointSP the stack pointer of the frame of the entry point, above which there are
+     *            no Java frames of the attached thread.
+     */
+    @Uninterruptible(reason = "Thread state not yet set up.")
+    private static int attachThread0(Isolate isolate, int vmThreadSize, Pointer entryPointSP) {
         int sanityError = Isolates.checkSanity(isolate);
         if (sanityError != CEntryPointErrors.NO_ERROR) {
             return sanityError;
@@ -347,6 +362,9 @@ public final class CEntryPointSnippets extends SubstrateTemplates implements Sni
                 }
                 // Store thread and isolate in thread-local variables.
                 VMThreads.IsolateTL.set(thread, isolate);
+                if (SamplingProfiler.isEnabled()) {
+                    SamplingProfiler.attachThread(thread, entryPointSP);
+                }
             } else {
                 writeCurrentVMThread(thread);
             }
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.heap;
+
+import static com.oracle.svm.core.Isolates.IMAGE_HEAP_BEGIN;
+import static com.oracle.svm.core.Isolates.IMAGE_HEAP_END;
+import static com.oracle.svm.core.Isolates.IMAGE_HEAP_WRITABLE_BEGIN;
+import static com.oracle.svm.core.Isolates.IMAGE_HEAP_WRITABLE_END;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.word.Word;
+import org.graalvm.nativeimage.CurrentIsolate;
+import org.graalvm.nativeimage.UnmanagedMemory;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.word.LocationIdentity;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.PointerBase;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.Isolates;
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.annotate.RestrictHeapAccess;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.c.CGlobalData;
+import com.oracle.svm.core.c.CGlobalDataFactory;
+import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.jdk.RuntimeSupport;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.option.RuntimeOptionKey;
+import com.oracle.svm.core.os.VirtualMemoryProvider;
+import com.oracle.svm.core.os.VirtualMemoryProvider.Access;
+import com.oracle.svm.core.util.PointerUtils;
+import com.oracle.svm.core.util.UnsignedUtils;
+
+@AutomaticFeature
+class ImageHeapAccessTracerFeature implements Feature {
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return ImageHeapAccessTracer.isEnabled();
+    }
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        RuntimeSupport.getRuntimeSupport().addShutdownHook(ImageHeapAccessTracer::dumpTrace);
+    }
+}
+
+/**
+ * Records the order in which the pages of the image heap are first accessed at run time, so that a
+ * later image build can place the objects on those pages in that order (see
+ * {@code ImageHeapAccessProfileFeature}).
+ *
+ * Tracing revokes all access to the image heap of the first isolate at startup. The first access
+ * to each page then triggers a segfault, which is handled by {@link #recordAccess} by appending the
+ * page to the trace and restoring the original access to the page. Each page is therefore recorded
+ * once, and accesses before the tracer is started are not recorded. A fault on a page that is
+ * already accessible again is retried, unless the access is not allowed by the protection of the
+ * page.
+ *
+ * The kernel does not raise a segfault when a system call accesses an inaccessible page, so the
+ * pages of objects are restored with {@link #restoreAccess} when the objects are pinned before
+ * their addresses are passed to native code.
+ *
+ * All state is kept outside of the image heap because it is accessed from the segfault handler.
+ */
+public final class ImageHeapAccessTracer {
+    public static class Options {
+        @Option(help = "Include support for tracing the order of first accesses to image heap pages, and write an object map of the image heap to the reports directory.")//
+        public static final HostedOptionKey<Boolean> TraceImageHeapAccess = new HostedOptionKey<>(false);
+
+        @Option(help = "File to which the order of first accesses to image heap pages is written on exit. Requires an image built with -H:+TraceImageHeapAccess. Installs the segfault handler unless it is disabled with -XX:-InstallSegfaultHandler, in which case no trace is written. Native code must only access image heap objects that are pinned, otherwise system calls can fail with EFAULT.")//
+        public static final RuntimeOptionKey<String> ImageHeapAccessTraceFile = new RuntimeOptionKey<>("");
+    }
+
+    private static final int PAGE_UNTOUCHED = 0;
+    private static final int PAGE_RESTORING = 1;
+    private static final int PAGE_RESTORED = 2;
+
+    /** Start of the traced image heap, or null if tracing is not active. */
+    private static final CGlobalData<Pointer> TRACED_HEAP_BEGIN = CGlobalDataFactory.createWord();
+    private static final CGlobalData<Pointer> TRACED_HEAP_END = CGlobalDataFactory.createWord();
+    private static final CGlobalData<Pointer> TRACED_WRITABLE_BEGIN = CGlobalDataFactory.createWord();
+    private static final CGlobalData<Pointer> TRACED_WRITABLE_END = CGlobalDataFactory.createWord();
+    private static final CGlobalData<Pointer> PAGE_SIZE = CGlobalDataFactory.createWord();
+    /** One int per page with the states {@link #PAGE_UNTOUCHED} and so on. */
+    private static final CGlobalData<Pointer> PAGE_STATES = CGlobalDataFactory.createWord();
+    /** One int per page with the page indices in the order of their first access. */
+    private static final CGlobalData<Pointer> ACCESS_ORDER = CGlobalDataFactory.createWord();
+    private static final CGlobalData<Pointer> ACCESS_COUNT = CGlobalDataFactory.createWord();
+
+    private ImageHeapAccessTracer() {
+    }
+
+    @Fold
+    public static boolean isEnabled() {
+        return Options.TraceImageHeapAccess.getValue();
+    }
+
+    /** Returns true if tracing is included in the image and a trace file was specified. */
+    public static boolean isTraceFileConfigured() {
+        return isEnabled() && !Options.ImageHeapAccessTraceFile.getValue().isEmpty();
+    }
+
+    /**
+     * Starts tracing the image heap of the current isolate unless another isolate is already being
+     * traced. Must only be called after the segfault handler has been installed.
+     */
+    public static void start() {
+        if (!isTraceFileConfigured()) {
+            return;
+        }
+        UnsignedWord pageSize = VirtualMemoryProvider.get().getGranularity();
+        Pointer heapBegin = ((Pointer) Isolates.getHeapBase(CurrentIsolate.getIsolate())).add(Heap.getHeap().getImageHeapOffsetInAddressSpace());
+        UnsignedWord heapSize = UnsignedUtils.roundUp(IMAGE_HEAP_END.get().subtract(IMAGE_HEAP_BEGIN.get()), pageSize);
+        UnsignedWord pageCount = heapSize.unsignedDivide(pageSize);
+
+        Pointer states = UnmanagedMemory.calloc(pageCount.multiply(Integer.BYTES));
+        Pointer order = UnmanagedMemory.calloc(pageCount.multiply(Integer.BYTES));
+
+        PAGE_SIZE.get().writeWord(0, pageSize);
+        PAGE_STATES.get().writeWord(0, states);
+        ACCESS_ORDER.get().writeWord(0, order);
+        ACCESS_COUNT.get().writeWord(0, WordFactory.zero());
+        TRACED_HEAP_END.get().writeWord(0, heapBegin.add(heapSize));
+        UnsignedWord writableBeginOffset = UnsignedUtils.roundDown(IMAGE_HEAP_WRITABLE_BEGIN.get().subtract(IMAGE_HEAP_BEGIN.get()), pageSize);
+        UnsignedWord writableEndOffset = UnsignedUtils.roundUp(IMAGE_HEAP_WRITABLE_END.get().subtract(IMAGE_HEAP_BEGIN.get()), pageSize);
+        TRACED_WRITABLE_BEGIN.get().writeWord(0, heapBegin.add(writableBeginOffset));
+        TRACED_WRITABLE_END.get().writeWord(0, heapBegin.add(writableEndOffset));
+
+        PointerBase previous = TRACED_HEAP_BEGIN.get().compareAndSwapWord(0, WordFactory.nullPointer(), heapBegin, LocationIdentity.ANY_LOCATION);
+        if (previous.isNonNull()) {
+            UnmanagedMemory.free(states);
+            UnmanagedMemory.free(order);
+            return; // another isolate is already traced
+        }
+        if (VirtualMemoryProvider.get().protect(heapBegin, heapSize, Access.NONE) != 0) {
+            Log.log().string("Failed to start tracing image heap accesses").newline();
+            TRACED_HEAP_BEGIN.get().writeWord(0, WordFactory.nullPointer());
+        }
+    }
+
+    /**
+     * Called from the segfault handler with the faulting address. Must not access the image heap
+     * because it might not be accessible yet.
+     *
+     * @param mayBeWrite false if the faulting access is known to be a read, true if it is a write
+     *            or if its kind is unknown.
+     * @return true if the fault was caused by tracing and the faulting access can be retried.
+     */
+    @Uninterruptible(reason = "Called from the segfault handler.")
+    @RestrictHeapAccess(access = RestrictHeapAccess.Access.NO_ALLOCATION, reason = "Must not allocate in segfault handler.")
+    public static boolean recordAccess(PointerBase faultAddress, boolean mayBeWrite) {
+        Pointer heapBegin = TRACED_HEAP_BEGIN.get().readWord(0);
+        Pointer address = (Pointer) faultAddress;
+        if (heapBegin.isNull() || address.belowThan(heapBegin) || address.aboveOrEqual(TRACED_HEAP_END.get().readWord(0))) {
+            return false;
+        }
+        Pointer page = PointerUtils.roundDown(address, PAGE_SIZE.get().readWord(0));
+        if (getPageState(heapBegin, page).readInt(0) == PAGE_RESTORED) {
+            /*
+             * Either another thread restored access to the page after this access faulted, in
+             * which case the access can be retried, or the access is not allowed by the protection
+             * of the page, such as a write to a read-only page, which is a genuine fault.
+             */
+            return !mayBeWrite || isWritablePage(page);
+        }
+        return restorePage(heapBegin, page);
+    }
+
+    /**
+     * Restores access to the image heap pages of an object before its address is passed to native
+     * code. The kernel does not raise a segfault for an inaccessible page that is passed to a
+     * system call, but fails the call, for example with {@code EFAULT}.
+     */
+    public static void restoreAccess(Object obj) {
+        Pointer heapBegin = TRACED_HEAP_BEGIN.get().readWord(0);
+        if (heapBegin.isNull() || obj == null) {
+            return;
+        }
+        Pointer heapEnd = TRACED_HEAP_END.get().readWord(0);
+        Pointer begin = Word.objectToUntrackedPointer(obj);
+        if (begin.belowThan(heapBegin) || begin.aboveOrEqual(heapEnd)) {
+            return; // not in the traced image heap
+        }
+        Pointer end = begin.add(LayoutEncoding.getSizeFromObject(obj));
+        UnsignedWord pageSize = PAGE_SIZE.get().readWord(0);
+        for (Pointer page = PointerUtils.roundDown(begin, pageSize); page.belowThan(end) && page.belowThan(heapEnd); page = page.add(pageSize)) {
+            restorePage(heapBegin, page);
+        }
+    }
+
+    @Uninterruptible(reason = "Called from the segfault handler.", mayBeInlined = true)
+    private static Pointer getPageState(Pointer heapBegin, Pointer page) {
+        UnsignedWord pageIndex = page.subtract(heapBegin).unsignedDivide(PAGE_SIZE.get().readWord(0));
+        Pointer states = PAGE_STATES.get().readWord(0);
+        return states.add(pageIndex.multiply(Integer.BYTES));
+    }
+
+    @Uninterruptible(reason = "Called from the segfault handler.", mayBeInlined = true)
+    private static boolean isWritablePage(Pointer page) {
+        return page.aboveOrEqual(TRACED_WRITABLE_BEGIN.get().readWord(0)) && page.belowThan(TRACED_WRITABLE_END.get().readWord(0));
+    }
+
+    /**
+     * Restores the original access to a page and appends it to the trace, unless that was already
+     * done by another thread.
+     *
+     * @return true if the page is accessible.
+     */
+    @Uninterruptible(reason = "Called from the segfault handler.")
+    private static boolean restorePage(Pointer heapBegin, Pointer page) {
+        Pointer state = getPageState(heapBegin, page);
+        int previous = state.compareAndSwapInt(0, PAGE_UNTOUCHED, PAGE_RESTORING, LocationIdentity.ANY_LOCATION);
+        if (previous != PAGE_UNTOUCHED) {
+            while (previous == PAGE_RESTORING) {
+                // Another thread is restoring access to the page, wait for it.
+                previous = state.compareAndSwapInt(0, PAGE_RESTORED, PAGE_RESTORED, LocationIdentity.ANY_LOCATION);
+            }
+            return previous == PAGE_RESTORED;
+        }
+
+        int access = isWritablePage(page) ? (Access.READ | Access.WRITE) : Access.READ;
+        UnsignedWord pageSize = PAGE_SIZE.get().readWord(0);
+        // The provider is a folded constant, so this call does not load from the image heap.
+        if (VirtualMemoryProvider.get().protect(page, pageSize, access) != 0) {
+            state.compareAndSwapInt(0, PAGE_RESTORING, PAGE_UNTOUCHED, LocationIdentity.ANY_LOCATION);
+            return false;
+        }
+
+        Pointer count = ACCESS_COUNT.get();
+        UnsignedWord slot;
+        do {
+            slot = count.readWord(0);
+        } while (!count.logicCompareAndSwapWord(0, slot, slot.add(1), LocationIdentity.ANY_LOCATION));
+        Pointer order = ACCESS_ORDER.get().readWord(0);
+        UnsignedWord pageIndex = page.subtract(heapBegin).unsignedDivide(pageSize);
+        order.writeInt(slot.multiply(Integer.BYTES), (int) pageIndex.rawValue());
+
+        state.compareAndSwapInt(0, PAGE_RESTORING, PAGE_RESTORED, LocationIdentity.ANY_LOCATION);
+        return true;
+    }
+
+    /** Stops tracing, restores access to all pages and writes the trace to the trace file. */
+    static void dumpTrace() {
+        Pointer heapBegin = TRACED_HEAP_BEGIN.get().readWord(0);
+        if (heapBegin.isNull() || heapBegin.notEqual(((Pointer) Isolates.getHeapBase(CurrentIsolate.getIsolate())).add(Heap.getHeap().getImageHeapOffsetInAddressSpace()))) {
+            return; // not tracing, or tracing another isolate
+        }
+        Pointer writableBegin = TRACED_WRITABLE_BEGIN.get().readWord(0);
+        Pointer writableEnd = TRACED_WRITABLE_END.get().readWord(0);
+        Pointer heapEnd = TRACED_HEAP_END.get().readWord(0);
+        /* Restore access before disabling the handling of faults. */
+        VirtualMemoryProvider.get().protect(heapBegin, writableBegin.subtract(heapBegin), Access.READ);
+        VirtualMemoryProvider.get().protect(writableBegin, writableEnd.subtract(writableBegin), Access.READ | Access.WRITE);
+        VirtualMemoryProvider.get().protect(writableEnd, heapEnd.subtract(writableEnd), Access.READ);
+        TRACED_HEAP_BEGIN.get().writeWord(0, WordFactory.nullPointer());
+
+        UnsignedWord pageSize = PAGE_SIZE.get().readWord(0);
+        Pointer order = ACCESS_ORDER.get().readWord(0);
+        long count = ACCESS_COUNT.get().readWord(0).rawValue();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(Options.ImageHeapAccessTraceFile.getValue())))) {
+            out.println("# Offsets of image heap pages in the order of their first access, page size " + pageSize.rawValue());
+            for (long i = 0; i < count; i++) {
+                long pageIndex = order.readInt(WordFactory.unsigned(i * Integer.BYTES)) & 0xffffffffL;
+                out.println(Long.toHexString(pageIndex * pageSize.rawValue()));
+            }
+        } catch (IOException e) {
+            Log.log().string("Failed to write image heap access trace: ").string(e.getMessage()).newline();
+        }
+    }
+}
@@ -32,7 +32,6 @@ import com.oracle.svm.core.code.CodeInfo;
 import com.oracle.svm.core.code.CodeInfoAccess;
 import com.oracle.svm.core.code.CodeInfoTable;
 import com.oracle.svm.core.code.FrameInfoQueryResult;
-import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.deopt.DeoptimizedFrame;
 import com.oracle.svm.core.graal.nodes.NewStoredContinuationNode;
 import com.oracle.svm.core.snippets.KnownIntrinsics;
@@ -42,9 +41,6 @@ import com.oracle.svm.core.thread.JavaContinuations;
 import com.oracle.svm.core.thread.Safepoint;
 import com.oracle.svm.core.thread.Target_java_lang_Continuation;
 import com.oracle.svm.core.util.VMError;
-import jdk.vm.ci.meta.JavaKind;
-import org.graalvm.collections.Pair;
-import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.compiler.core.common.util.TypeConversion;
 import org.graalvm.compiler.word.Word;
 import org.graalvm.nativeimage.IsolateThread;
@@ -52,8 +48,8 @@ import org.graalvm.nativeimage.c.function.CodePointer;
 import org.graalvm.word.Pointer;
 import org.graalvm.word.WordFactory;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+
 
 /**
  * Helper class to access a {@link StoredContinuation}.
@@ -211,17 +207,6 @@ public final class StoredContinuationImpl {
         return payloadLocation(f).add(readFrameMetaSize(f));
     }
 
-    /** A non-uninterruptible function to allocate temporary buffer. */
-    public static byte[] allocateBuf(StoredContinuation f) {
-        return new byte[TypeConversion.asU4(readAllFrameSize(f))];
-    }
-
-    @Uninterruptible(reason = "access stack")
-    public static void writeBuf(StoredContinuation f, byte[] buf) {
-        Pointer frameStart = payloadFrameStart(f);
-        MemoryUtil.copy(frameStart, Word.objectToUntrackedPointer(buf).add(getByteArrayBaseOffset()), WordFactory.unsigned(buf.length));
-    }
-
     public static int allocateFromCurrentStack(Target_java_lang_Continuation contRef, Pointer rootSp, Pointer leafSp, CodePointer leafIp) {
         return allocateFromStack(contRef, rootSp, leafSp, leafIp, WordFactory.nullPointer());
     }
@@ -257,7 +242,7 @@ public final class StoredContinuationImpl {
         }
         VMError.guarantee(resultLeafSP.isNonNull());
 
-        int frameCount = visitor.frameSizeReferenceMapIndex.size();
+        int frameCount = visitor.frameCount;
         long payloadSize = SHARED_REFERENCE_MAP_ENCODING_SIZE + FRAME_META_SIZE * frameCount + rootSp.subtract(resultLeafSP).rawValue();
 
         contRef.internalContinuation = allocateWriteFrameCount(payloadSize, frameCount);
@@ -266,12 +251,9 @@ public final class StoredContinuationImpl {
 
         long allFrameSize = 0;
         for (int i = 0; i < frameCount; i++) {
-            Pair<Integer, Integer> frameSizeRefMapInxPair = visitor.frameSizeReferenceMapIndex.get(i);
-            writePayloadInt(contRef.internalContinuation, FRAME_META_START_OFFSET + i * FRAME_META_SIZE + SIZE_OFFSET_IN_FRAME_META,
-                            frameSizeRefMapInxPair.getLeft());
-            writePayloadInt(contRef.internalContinuation, FRAME_META_START_OFFSET + i * FRAME_META_SIZE + REFERENCE_MAP_INDEX_OFFSET_IN_FRAME_META,
-                            frameSizeRefMapInxPair.getRight());
-            allFrameSize += frameSizeRefMapInxPair.getLeft();
+            writePayloadInt(contRef.internalContinuation, FRAME_META_START_OFFSET + i * FRAME_META_SIZE + SIZE_OFFSET_IN_FRAME_META, visitor.frameSizes[i]);
+            writePayloadInt(contRef.internalContinuation, FRAME_META_START_OFFSET + i * FRAME_META_SIZE + REFERENCE_MAP_INDEX_OFFSET_IN_FRAME_META, visitor.referenceMapIndices[i]);
+            allFrameSize += visitor.frameSizes[i];
         }
 
         Pointer frameStart = payloadFrameStart(contRef.internalContinuation);
@@ -319,16 +301,21 @@ public final class StoredContinuationImpl {
     }
 
     private static class YieldVisitor extends StackFrameVisitor {
+        private static final int INITIAL_FRAME_CAPACITY = 16;
+
         int preemptStatus = JavaContinuations.YIELD_SUCCESS;
 
         Pointer rootSP;
         Pointer leafSP;
         CodePointer leafIP;
 
-        List<Pair<Integer, Integer>> frameSizeReferenceMapIndex = new ArrayList<>();
+        /* Plain arrays instead of a list of boxed pairs, so that visiting a frame is cheap. */
+        int frameCount;
+        int[] frameSizes = new int[INITIAL_FRAME_CAPACITY];
+        int[] referenceMapIndices = new int[INITIAL_FRAME_CAPACITY];
         NonmovableArray<Byte> referenceMapEncoding = WordFactory.nullPointer();
 
-        private static boolean startFromNextFrame = false;
+        private boolean startFromNextFrame = false;
 
         YieldVisitor(Pointer rootSp, Pointer verifyLeafSp, CodePointer leafIp) {
             if (verifyLeafSp.isNonNull()) {
@@ -360,7 +347,7 @@ public final class StoredContinuationImpl {
                     }
                     return true;
                 }
-            } else if (frameSizeReferenceMapIndex.isEmpty()) {
+            } else if (frameCount == 0) {
                 // yielding current thread,
                 // `leafSP` and `leafIP` are used for verification purpose.
                 VMError.guarantee(leafSP.equal(sp));
@@ -377,17 +364,22 @@ public final class StoredContinuationImpl {
             long relIp = CodeInfoAccess.relativeIP(codeInfo, ip);
             int frameSize = TypeConversion.asU4(CodeInfoAccess.lookupTotalFrameSize(codeInfo, relIp));
             int referenceMapIndex = TypeConversion.asS4(CodeInfoAccess.lookupStackReferenceMapIndex(codeInfo, relIp));
-            frameSizeReferenceMapIndex.add(Pair.create(frameSize, referenceMapIndex));
+            addFrame(frameSize, referenceMapIndex);
 
             Pointer currentFrameEnd = sp.add(frameSize);
             VMError.guarantee(currentFrameEnd.belowOrEqual(rootSP));
 
             return currentFrameEnd.notEqual(rootSP);
         }
-    }
 
-    @Fold
-    protected static int getByteArrayBaseOffset() {
-        return ConfigurationValues.getObjectLayout().getArrayBaseOffset(JavaKind.Byte);
+        private void addFrame(int frameSize, int referenceMapIndex) {
+            if (frameCount == frameSizes.length) {
+                frameSizes = Arrays.copyOf(frameSizes, frameCount * 2);
+                referenceMapIndices = Arrays.copyOf(referenceMapIndices, frameCount * 2);
+            }
+            frameSizes[frameCount] = frameSize;
+            referenceMapIndices[frameCount] = referenceMapIndex;
+            frameCount++;
+        }
     }
 }
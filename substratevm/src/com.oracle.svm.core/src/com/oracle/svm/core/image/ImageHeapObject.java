@@ -36,4 +36,10 @@ public interface ImageHeapObject {
     long getOffset();
 
     ImageHeapPartition getPartition();
+
+    /**
+     * Returns the position of this object in the order in which image heap objects are expected to
+     * be first accessed at run time, or -1 if that order is not known for this object.
+     */
+    int getAccessOrder();
 }
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.io.IOException;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.jdk.RuntimeSupport;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.option.RuntimeOptionKey;
+import com.oracle.svm.core.thread.JavaThreads;
+import com.oracle.svm.core.thread.JavaVMOperation;
+import com.oracle.svm.core.thread.VMOperation;
+import com.oracle.svm.core.thread.VMThreads;
+
+@AutomaticFeature
+class FlightRecorderFeature implements Feature {
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return FlightRecorder.isEnabled();
+    }
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        RuntimeSupport.getRuntimeSupport().addStartupHook(FlightRecorder::startRecordingAtStartup);
+        RuntimeSupport.getRuntimeSupport().addShutdownHook(FlightRecorder::stopRecording);
+    }
+}
+
+/**
+ * Records events of the garbage collector, of VM operations, of monitors, and of allocations into
+ * a file in the format of the JDK Flight Recorder, so that the file can be analyzed with the
+ * {@code jfr} tool or JDK Mission Control.
+ *
+ * The recording covers the whole lifetime of the isolate. Events are written by {@link JfrEvents}
+ * into {@linkplain JfrThreadLocal thread-local buffers} without synchronization. A flushing thread
+ * periodically writes the full buffers to the file. When the recording ends, the remaining buffers
+ * are collected at a safepoint, and the constant pools and the metadata are appended.
+ */
+public final class FlightRecorder {
+    public static class Options {
+        @Option(help = "Include support for recording events in the format of the JDK Flight Recorder.")//
+        public static final HostedOptionKey<Boolean> FlightRecorder = new HostedOptionKey<>(false);
+
+        @Option(help = "File to which a flight recording of the whole execution is written. Requires an image built with -H:+FlightRecorder.")//
+        public static final RuntimeOptionKey<String> FlightRecorderFile = new RuntimeOptionKey<>("");
+
+        @Option(help = "Size in bytes of the thread-local event buffers of the flight recorder.")//
+        public static final RuntimeOptionKey<Integer> FlightRecorderThreadBufferSize = new RuntimeOptionKey<>(64 * 1024);
+
+        @Option(help = "Number of bytes that a thread allocates between two jdk.ObjectAllocationSample events.")//
+        public static final RuntimeOptionKey<Long> FlightRecorderAllocationSampleInterval = new RuntimeOptionKey<>(512L * 1024);
+
+        @Option(help = "Interval in milliseconds in which full event buffers are written to the flight recording.")//
+        public static final RuntimeOptionKey<Integer> FlightRecorderFlushInterval = new RuntimeOptionKey<>(1000);
+    }
+
+    /** Ticks are {@link System#nanoTime()} values. */
+    static final long TICKS_PER_SECOND = 1_000_000_000L;
+
+    /** Initial capacity for the threads that are collected when the recording ends. */
+    private static final int INITIAL_THREADS_CAPACITY = 32;
+
+    private static volatile boolean recording;
+    /** Whether exiting threads are registered, which continues until the recording is finished. */
+    private static volatile boolean registeringThreads;
+    private static long threadBufferSize;
+    private static long allocationSampleInterval;
+    private static long startTicks;
+    private static JfrChunkWriter writer;
+    private static JfrConstantPools constantPools;
+    private static Thread flusher;
+
+    private FlightRecorder() {
+    }
+
+    @Fold
+    public static boolean isEnabled() {
+        return Options.FlightRecorder.getValue();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static boolean isRecording() {
+        return isEnabled() && recording;
+    }
+
+    public static long ticks() {
+        return System.nanoTime();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static UnsignedWord getThreadBufferSize() {
+        return WordFactory.unsigned(threadBufferSize);
+    }
+
+    static UnsignedWord getAllocationSampleInterval() {
+        return WordFactory.unsigned(allocationSampleInterval);
+    }
+
+    static JfrConstantPools getConstantPools() {
+        return constantPools;
+    }
+
+    static void startRecordingAtStartup() {
+        String file = Options.FlightRecorderFile.getValue();
+        if (!file.isEmpty()) {
+            startRecording(file);
+        }
+    }
+
+    private static synchronized void startRecording(String file) {
+        if (writer != null) {
+            /* Only a single recording per isolate is supported. */
+            return;
+        }
+        threadBufferSize = Options.FlightRecorderThreadBufferSize.getValue();
+        allocationSampleInterval = Options.FlightRecorderAllocationSampleInterval.getValue();
+        constantPools = new JfrConstantPools();
+        startTicks = ticks();
+        try {
+            writer = new JfrChunkWriter(file, System.currentTimeMillis() * 1_000_000L, startTicks);
+        } catch (IOException e) {
+            Log.log().string("Flight recording could not be started: ").string(e.getMessage()).newline();
+            return;
+        }
+        registeringThreads = true;
+        recording = true;
+
+        flusher = new Thread(FlightRecorder::flushPeriodically, "Flight Recorder Flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private static void flushPeriodically() {
+        long interval = Options.FlightRecorderFlushInterval.getValue();
+        while (recording) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            writeRetiredBuffers();
+        }
+    }
+
+    private static synchronized void writeRetiredBuffers() {
+        try {
+            /* Write the buffers in the order in which they were retired. */
+            writer.write(reverse(JfrThreadLocal.drainRetiredBuffers()));
+        } catch (IOException e) {
+            Log.log().string("Flight recording could not be written: ").string(e.getMessage()).newline();
+            recording = false;
+            JfrThreadLocal.freeRetiredBuffers();
+        }
+    }
+
+    private static JfrBuffer reverse(JfrBuffer buffers) {
+        JfrBuffer reversed = WordFactory.nullPointer();
+        JfrBuffer buffer = buffers;
+        while (buffer.isNonNull()) {
+            JfrBuffer next = buffer.getNext();
+            buffer.setNext(reversed);
+            reversed = buffer;
+            buffer = next;
+        }
+        return reversed;
+    }
+
+    /** Remembers the name of a thread that is exiting, for the constant pool of threads. */
+    public static void noteThreadExit(Thread thread) {
+        if (isEnabled() && registeringThreads) {
+            constantPools.registerThread(thread);
+        }
+    }
+
+    static void stopRecording() {
+        if (!isRecording()) {
+            return;
+        }
+        recording = false;
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        SweepThreadBuffersOperation operation = new SweepThreadBuffersOperation(new Thread[INITIAL_THREADS_CAPACITY], true);
+        operation.enqueue();
+        while (operation.threadCount > operation.threads.length) {
+            /*
+             * Threads that exit in the meantime register themselves, so the threads can be
+             * collected again with enough capacity, without sweeping the buffers again.
+             */
+            operation = new SweepThreadBuffersOperation(new Thread[operation.threadCount * 2], false);
+            operation.enqueue();
+        }
+        for (int i = 0; i < operation.threadCount; i++) {
+            constantPools.registerThread(operation.threads[i]);
+        }
+
+        synchronized (FlightRecorder.class) {
+            writeRetiredBuffers();
+            long endTicks = ticks();
+            try {
+                writer.finish(constantPools.createCheckpointEvent(endTicks), JfrMetadata.createMetadataEvent(endTicks), endTicks - startTicks);
+            } catch (IOException e) {
+                Log.log().string("Flight recording could not be written: ").string(e.getMessage()).newline();
+            }
+            registeringThreads = false;
+            /* Buffers that threads retired while the recording was finished. */
+            JfrThreadLocal.freeRetiredBuffers();
+        }
+        if (JfrThreadLocal.getLostBytes() > 0) {
+            Log.log().string("Flight recording lost ").signed(JfrThreadLocal.getLostBytes()).string(" bytes of events because no memory was available for buffers.").newline();
+        }
+    }
+
+    /**
+     * Collects the events that are still in the buffers of the threads, and the threads that are
+     * still alive. The threads are stored into a preallocated array because allocating on the Java
+     * heap at the safepoint could require a garbage collection. If the array is too small,
+     * {@link #threadCount} exceeds its length.
+     */
+    private static final class SweepThreadBuffersOperation extends JavaVMOperation {
+        final Thread[] threads;
+        final boolean sweep;
+        int threadCount;
+
+        SweepThreadBuffersOperation(Thread[] threads, boolean sweep) {
+            super("SweepFlightRecorderBuffers", VMOperation.SystemEffect.SAFEPOINT);
+            this.threads = threads;
+            this.sweep = sweep;
+        }
+
+        @Override
+        protected void operate() {
+            if (sweep) {
+                JfrThreadLocal.sweepThreadBuffers();
+            }
+            /* The thread list is locked during a safepoint. */
+            for (IsolateThread isolateThread = VMThreads.firstThread(); isolateThread.isNonNull(); isolateThread = VMThreads.nextThread(isolateThread)) {
+                Thread thread = JavaThreads.fromVMThread(isolateThread);
+                if (thread != null) {
+                    if (threadCount < threads.length) {
+                        threads[threadCount] = thread;
+                    }
+                    threadCount++;
+                }
+            }
+        }
+    }
+}
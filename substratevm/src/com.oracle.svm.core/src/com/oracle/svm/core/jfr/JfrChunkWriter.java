@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.graalvm.nativeimage.c.type.CTypeConversion;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.util.UnsignedUtils;
+
+/**
+ * Writes a recording file that consists of a single chunk in the format of the JDK Flight Recorder
+ * (version 2.0). The chunk header is written last because it contains the offsets of the constant
+ * pools and of the metadata, which follow the events.
+ */
+final class JfrChunkWriter {
+    private static final byte[] MAGIC = {'F', 'L', 'R', '\0'};
+    private static final short MAJOR_VERSION = 2;
+    private static final short MINOR_VERSION = 0;
+    private static final int HEADER_SIZE = 68;
+    private static final int FEATURE_COMPRESSED_INTS = 1;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long startNanos;
+    private final long startTicks;
+
+    JfrChunkWriter(String path, long startNanos, long startTicks) throws IOException {
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+        this.startNanos = startNanos;
+        this.startTicks = startTicks;
+        file.setLength(0);
+        file.write(new byte[HEADER_SIZE]);
+    }
+
+    /** Writes the data of a list of retired buffers and frees the buffers. */
+    void write(JfrBuffer buffers) throws IOException {
+        JfrBuffer buffer = buffers;
+        try {
+            while (buffer.isNonNull()) {
+                UnsignedWord size = JfrBufferAccess.getUnflushedSize(buffer);
+                if (size.aboveThan(0)) {
+                    ByteBuffer data = CTypeConversion.asByteBuffer(buffer.getFlushedPos(), UnsignedUtils.safeToInt(size));
+                    while (data.hasRemaining()) {
+                        channel.write(data);
+                    }
+                }
+                JfrBuffer next = buffer.getNext();
+                JfrBufferAccess.free(buffer);
+                buffer = next;
+            }
+        } finally {
+            /* Never leak the remaining buffers, even if writing failed. */
+            while (buffer.isNonNull()) {
+                JfrBuffer next = buffer.getNext();
+                JfrBufferAccess.free(buffer);
+                buffer = next;
+            }
+        }
+    }
+
+    /** Appends the constant pools and the metadata, completes the header, and closes the file. */
+    void finish(byte[] checkpointEvent, byte[] metadataEvent, long durationNanos) throws IOException {
+        try {
+            long checkpointOffset = channel.position();
+            channel.write(ByteBuffer.wrap(checkpointEvent));
+            long metadataOffset = channel.position();
+            channel.write(ByteBuffer.wrap(metadataEvent));
+            long chunkSize = channel.position();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC);
+            header.putShort(MAJOR_VERSION);
+            header.putShort(MINOR_VERSION);
+            header.putLong(chunkSize);
+            header.putLong(checkpointOffset);
+            header.putLong(metadataOffset);
+            header.putLong(startNanos);
+            header.putLong(durationNanos);
+            header.putLong(startTicks);
+            header.putLong(FlightRecorder.TICKS_PER_SECOND);
+            header.putInt(FEATURE_COMPRESSED_INTS);
+            header.flip();
+            channel.write(header, 0);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Assembles an event on the Java heap. Used for the metadata and the constant pools, which are
+     * only written when the recording ends.
+     */
+    static final class EventBuilder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void putByte(int value) {
+            out.write(value);
+        }
+
+        void putBoolean(boolean value) {
+            out.write(value ? 1 : 0);
+        }
+
+        void putInt(int value) {
+            putLong(value & 0xFFFFFFFFL);
+        }
+
+        void putLong(long value) {
+            long v = value;
+            for (int i = 0; i < 8 && (v & ~0x7FL) != 0; i++) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putByte(JfrMetadata.STRING_ENCODING_NULL);
+            } else if (value.isEmpty()) {
+                putByte(JfrMetadata.STRING_ENCODING_EMPTY);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                putByte(JfrMetadata.STRING_ENCODING_UTF8_BYTE_ARRAY);
+                putInt(bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+        }
+
+        /**
+         * Returns the event prefixed with its size, which includes the size field itself and is
+         * written as a padded compressed integer like in {@link JfrNativeEventWriter}.
+         */
+        byte[] toEvent() {
+            byte[] payload = out.toByteArray();
+            int size = payload.length + 4;
+            byte[] event = new byte[size];
+            event[0] = (byte) ((size & 0x7F) | 0x80);
+            event[1] = (byte) (((size >>> 7) & 0x7F) | 0x80);
+            event[2] = (byte) (((size >>> 14) & 0x7F) | 0x80);
+            event[3] = (byte) ((size >>> 21) & 0x7F);
+            System.arraycopy(payload, 0, event, 4, payload.length);
+            return event;
+        }
+    }
+}
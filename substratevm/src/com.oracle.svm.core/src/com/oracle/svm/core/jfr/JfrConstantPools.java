@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.oracle.svm.core.heap.Heap;
+import com.oracle.svm.core.hub.DynamicHub;
+
+/**
+ * The constant pools for the threads and classes that are referenced by events. Events only
+ * contain the {@linkplain Thread#getId() thread id} and the {@linkplain DynamicHub#getTypeID()
+ * type id}, which are resolved to names when the recording ends.
+ */
+final class JfrConstantPools {
+    /** The thread key of events without a thread. Java thread ids start at 1. */
+    static final long NO_THREAD_ID = 0;
+    private static final String NO_THREAD_NAME = "<no thread>";
+
+    /** One entry per type id, set to 1 when the class is referenced by an event. */
+    private final byte[] usedTypes;
+    private final Map<Long, String> threadNames = new TreeMap<>();
+
+    JfrConstantPools() {
+        int maxTypeId = 0;
+        for (Class<?> clazz : Heap.getHeap().getClassList()) {
+            maxTypeId = Math.max(maxTypeId, DynamicHub.fromClass(clazz).getTypeID());
+        }
+        usedTypes = new byte[maxTypeId + 1];
+    }
+
+    /** Marks a class as used. Does not allocate, so it can be called from any event site. */
+    void markClass(DynamicHub hub) {
+        int typeId = hub.getTypeID();
+        if (typeId < usedTypes.length) {
+            usedTypes[typeId] = 1;
+        }
+    }
+
+    /** Remembers the name of a thread, which may exit before the recording ends. */
+    synchronized void registerThread(Thread thread) {
+        threadNames.put(thread.getId(), thread.getName());
+    }
+
+    synchronized byte[] createCheckpointEvent(long startTicks) {
+        JfrChunkWriter.EventBuilder builder = new JfrChunkWriter.EventBuilder();
+        builder.putLong(JfrMetadata.CHECKPOINT_EVENT_ID);
+        builder.putLong(startTicks);
+        builder.putLong(0);
+        /* The delta to the previous checkpoint: this is the only one in the chunk. */
+        builder.putLong(0);
+        /* Flush marker. */
+        builder.putBoolean(true);
+        builder.putInt(2);
+
+        builder.putLong(JfrMetadata.TYPE_THREAD);
+        builder.putInt(threadNames.size() + 1);
+        /* Events reference the key 0 when there is no thread, e.g., no queuing thread. */
+        builder.putLong(NO_THREAD_ID);
+        builder.putString(NO_THREAD_NAME);
+        builder.putLong(NO_THREAD_ID);
+        builder.putString(NO_THREAD_NAME);
+        builder.putLong(NO_THREAD_ID);
+        for (Map.Entry<Long, String> entry : threadNames.entrySet()) {
+            builder.putLong(entry.getKey());
+            builder.putString(entry.getValue());
+            builder.putLong(entry.getKey());
+            builder.putString(entry.getValue());
+            builder.putLong(entry.getKey());
+        }
+
+        List<Class<?>> classes = Heap.getHeap().getClassList();
+        int usedCount = 0;
+        for (Class<?> clazz : classes) {
+            if (isUsed(clazz)) {
+                usedCount++;
+            }
+        }
+        builder.putLong(JfrMetadata.TYPE_CLASS);
+        builder.putInt(usedCount);
+        for (Class<?> clazz : classes) {
+            if (isUsed(clazz)) {
+                builder.putLong(DynamicHub.fromClass(clazz).getTypeID());
+                builder.putString(clazz.getName());
+                builder.putInt(clazz.getModifiers());
+            }
+        }
+        return builder.toEvent();
+    }
+
+    private boolean isUsed(Class<?> clazz) {
+        int typeId = DynamicHub.fromClass(clazz).getTypeID();
+        return typeId < usedTypes.length && usedTypes[typeId] != 0;
+    }
+}
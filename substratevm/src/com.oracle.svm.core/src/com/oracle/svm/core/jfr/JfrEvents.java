@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import org.graalvm.nativeimage.CurrentIsolate;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.thread.JavaThreads;
+import com.oracle.svm.core.thread.VMOperation;
+
+/**
+ * The events that the flight recorder emits. All methods return immediately if no recording is
+ * active, and none of them allocate on the Java heap. Start times are {@linkplain
+ * FlightRecorder#ticks() ticks}, which callers should only take if {@link #startTicks()} says that
+ * a recording is active.
+ */
+public final class JfrEvents {
+    private static final int MAX_LONG_SIZE = 9;
+
+    private JfrEvents() {
+    }
+
+    /** Returns the current ticks if a recording is active, and 0 otherwise. */
+    public static long startTicks() {
+        return FlightRecorder.isRecording() ? FlightRecorder.ticks() : 0;
+    }
+
+    public static void emitGarbageCollection(int gcId, String name, String cause, long startTicks, long endTicks) {
+        if (!FlightRecorder.isRecording()) {
+            return;
+        }
+        long duration = endTicks - startTicks;
+        JfrNativeEventWriterData data = StackValue.get(JfrNativeEventWriterData.class);
+        int maxSize = 5 * MAX_LONG_SIZE + JfrNativeEventWriter.maxStringSize(name) + JfrNativeEventWriter.maxStringSize(cause);
+        if (JfrNativeEventWriter.beginEvent(data, JfrMetadata.EVENT_GARBAGE_COLLECTION, maxSize)) {
+            JfrNativeEventWriter.putLong(data, startTicks);
+            JfrNativeEventWriter.putLong(data, duration);
+            JfrNativeEventWriter.putInt(data, gcId);
+            JfrNativeEventWriter.putString(data, name);
+            JfrNativeEventWriter.putString(data, cause);
+            /* The collector stops all threads for the whole collection. */
+            JfrNativeEventWriter.putLong(data, duration);
+            JfrNativeEventWriter.putLong(data, duration);
+            JfrNativeEventWriter.endEvent(data);
+        }
+    }
+
+    /**
+     * Emits a phase of a garbage collection. Phases nest like the timers in the verbose GC log,
+     * with level 1 being the outermost.
+     */
+    public static void emitGCPhasePause(int level, int gcId, String name, long startTicks, long endTicks) {
+        if (!FlightRecorder.isRecording()) {
+            return;
+        }
+        long typeId;
+        switch (level) {
+            case 1:
+                typeId = JfrMetadata.EVENT_GC_PHASE_PAUSE_LEVEL_1;
+                break;
+            case 2:
+                typeId = JfrMetadata.EVENT_GC_PHASE_PAUSE_LEVEL_2;
+                break;
+            case 3:
+                typeId = JfrMetadata.EVENT_GC_PHASE_PAUSE_LEVEL_3;
+                break;
+            default:
+                typeId = JfrMetadata.EVENT_GC_PHASE_PAUSE_LEVEL_4;
+                break;
+        }
+        JfrNativeEventWriterData data = StackValue.get(JfrNativeEventWriterData.class);
+        if (JfrNativeEventWriter.beginEvent(data, typeId, 4 * MAX_LONG_SIZE + JfrNativeEventWriter.maxStringSize(name))) {
+            JfrNativeEventWriter.putLong(data, startTicks);
+            JfrNativeEventWriter.putLong(data, endTicks - startTicks);
+            JfrNativeEventWriter.putLong(data, currentThreadId());
+            JfrNativeEventWriter.putInt(data, gcId);
+            JfrNativeEventWriter.putString(data, name);
+            JfrNativeEventWriter.endEvent(data);
+        }
+    }
+
+    public static void emitExecuteVMOperation(VMOperation operation, IsolateThread queuingThread, long startTicks) {
+        if (!FlightRecorder.isRecording() || startTicks == 0) {
+            return;
+        }
+        long endTicks = FlightRecorder.ticks();
+        JfrNativeEventWriterData data = StackValue.get(JfrNativeEventWriterData.class);
+        if (JfrNativeEventWriter.beginEvent(data, JfrMetadata.EVENT_EXECUTE_VM_OPERATION, 5 * MAX_LONG_SIZE + JfrNativeEventWriter.maxStringSize(operation.getName()))) {
+            JfrNativeEventWriter.putLong(data, startTicks);
+            JfrNativeEventWriter.putLong(data, endTicks - startTicks);
+            JfrNativeEventWriter.putLong(data, currentThreadId());
+            JfrNativeEventWriter.putString(data, operation.getName());
+            JfrNativeEventWriter.putBoolean(data, operation.getCausesSafepoint());
+            JfrNativeEventWriter.putLong(data, threadId(queuingThread));
+            JfrNativeEventWriter.endEvent(data);
+        }
+    }
+
+    /** Emits the creation of the lock that backs the monitor of {@code obj}. */
+    public static void emitJavaMonitorInflate(Object obj, long address, long startTicks) {
+        if (!FlightRecorder.isRecording() || startTicks == 0) {
+            return;
+        }
+        long endTicks = FlightRecorder.ticks();
+        DynamicHub hub = DynamicHub.fromClass(obj.getClass());
+        FlightRecorder.getConstantPools().markClass(hub);
+        JfrNativeEventWriterData data = StackValue.get(JfrNativeEventWriterData.class);
+        if (JfrNativeEventWriter.beginEvent(data, JfrMetadata.EVENT_JAVA_MONITOR_INFLATE, 5 * MAX_LONG_SIZE)) {
+            JfrNativeEventWriter.putLong(data, startTicks);
+            JfrNativeEventWriter.putLong(data, endTicks - startTicks);
+            JfrNativeEventWriter.putLong(data, currentThreadId());
+            JfrNativeEventWriter.putLong(data, hub.getTypeID());
+            JfrNativeEventWriter.putLong(data, address);
+            JfrNativeEventWriter.endEvent(data);
+        }
+    }
+
+    /**
+     * Accounts for {@code allocatedBytes} that the current thread obtained for new objects in the
+     * allocation slow path, and emits an allocation sample if the sample interval is reached. The
+     * weight of the sample is the number of bytes since the previous sample of the thread.
+     */
+    public static void sampleAllocation(DynamicHub hub, UnsignedWord allocatedBytes) {
+        if (!FlightRecorder.isRecording()) {
+            return;
+        }
+        UnsignedWord interval = FlightRecorder.getAllocationSampleInterval();
+        UnsignedWord weight = JfrThreadLocal.addAllocatedBytes(allocatedBytes, interval);
+        if (weight.belowThan(interval)) {
+            return;
+        }
+        FlightRecorder.getConstantPools().markClass(hub);
+        JfrNativeEventWriterData data = StackValue.get(JfrNativeEventWriterData.class);
+        if (JfrNativeEventWriter.beginEvent(data, JfrMetadata.EVENT_OBJECT_ALLOCATION_SAMPLE, 4 * MAX_LONG_SIZE)) {
+            JfrNativeEventWriter.putLong(data, FlightRecorder.ticks());
+            JfrNativeEventWriter.putLong(data, currentThreadId());
+            JfrNativeEventWriter.putLong(data, hub.getTypeID());
+            JfrNativeEventWriter.putLong(data, weight.rawValue());
+            JfrNativeEventWriter.endEvent(data);
+        }
+    }
+
+    private static long currentThreadId() {
+        return threadId(CurrentIsolate.getCurrentThread());
+    }
+
+    /** Returns the constant pool key of a thread, where 0 stands for no thread. */
+    private static long threadId(IsolateThread isolateThread) {
+        if (isolateThread.isNull()) {
+            return JfrConstantPools.NO_THREAD_ID;
+        }
+        Thread thread = JavaThreads.fromVMThread(isolateThread);
+        return thread == null ? JfrConstantPools.NO_THREAD_ID : thread.getId();
+    }
+}
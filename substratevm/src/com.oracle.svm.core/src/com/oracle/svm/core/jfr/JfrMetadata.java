@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The type ids and the self-describing metadata of the recordings. The metadata declares every
+ * type that occurs in events and constant pools, so that any reader of the JDK Flight Recorder
+ * format (the {@code jfr} tool, JDK Mission Control) can parse the recording without knowing
+ * about Native Image.
+ */
+final class JfrMetadata {
+    static final long METADATA_EVENT_ID = 0;
+    static final long CHECKPOINT_EVENT_ID = 1;
+
+    static final byte STRING_ENCODING_NULL = 0;
+    static final byte STRING_ENCODING_EMPTY = 1;
+    static final byte STRING_ENCODING_UTF8_BYTE_ARRAY = 3;
+    static final byte STRING_ENCODING_CHAR_ARRAY = 4;
+
+    static final long TYPE_BOOLEAN = 4;
+    static final long TYPE_INT = 8;
+    static final long TYPE_LONG = 9;
+    static final long TYPE_STRING = 20;
+    static final long TYPE_THREAD = 21;
+    static final long TYPE_CLASS = 22;
+    static final long TYPE_LABEL = 30;
+    static final long TYPE_TIMESTAMP = 31;
+    static final long TYPE_TIMESPAN = 32;
+    static final long TYPE_DATA_AMOUNT = 33;
+
+    static final long EVENT_GARBAGE_COLLECTION = 100;
+    static final long EVENT_GC_PHASE_PAUSE_LEVEL_1 = 101;
+    static final long EVENT_GC_PHASE_PAUSE_LEVEL_2 = 102;
+    static final long EVENT_GC_PHASE_PAUSE_LEVEL_3 = 103;
+    static final long EVENT_GC_PHASE_PAUSE_LEVEL_4 = 104;
+    static final long EVENT_EXECUTE_VM_OPERATION = 105;
+    static final long EVENT_JAVA_MONITOR_INFLATE = 106;
+    static final long EVENT_OBJECT_ALLOCATION_SAMPLE = 107;
+
+    private JfrMetadata() {
+    }
+
+    /** A node of the metadata tree, which is serialized with all names in a string table. */
+    private static final class Element {
+        final String name;
+        final Map<String, String> attributes = new LinkedHashMap<>();
+        final List<Element> children = new ArrayList<>();
+
+        Element(String name) {
+            this.name = name;
+        }
+
+        Element attribute(String key, Object value) {
+            attributes.put(key, String.valueOf(value));
+            return this;
+        }
+
+        Element add(Element child) {
+            children.add(child);
+            return child;
+        }
+    }
+
+    static byte[] createMetadataEvent(long startTicks) {
+        Element root = new Element("root");
+        Element metadata = root.add(new Element("metadata"));
+        metadata.add(type("boolean", TYPE_BOOLEAN, null));
+        metadata.add(type("int", TYPE_INT, null));
+        metadata.add(type("long", TYPE_LONG, null));
+        metadata.add(type("java.lang.String", TYPE_STRING, null));
+        metadata.add(annotationType("jdk.jfr.Label", TYPE_LABEL));
+        metadata.add(annotationType("jdk.jfr.Timestamp", TYPE_TIMESTAMP));
+        metadata.add(annotationType("jdk.jfr.Timespan", TYPE_TIMESPAN));
+        metadata.add(annotationType("jdk.jfr.DataAmount", TYPE_DATA_AMOUNT));
+
+        Element thread = metadata.add(type("java.lang.Thread", TYPE_THREAD, null));
+        label(thread, "Thread");
+        field(thread, "osName", TYPE_STRING, "OS Thread Name");
+        field(thread, "osThreadId", TYPE_LONG, "OS Thread Id");
+        field(thread, "javaName", TYPE_STRING, "Java Thread Name");
+        field(thread, "javaThreadId", TYPE_LONG, "Java Thread Id");
+
+        Element clazz = metadata.add(type("java.lang.Class", TYPE_CLASS, null));
+        label(clazz, "Java Class");
+        field(clazz, "name", TYPE_STRING, "Name");
+        field(clazz, "modifiers", TYPE_INT, "Access Modifiers");
+
+        Element gc = event(metadata, "jdk.GarbageCollection", EVENT_GARBAGE_COLLECTION, "Garbage Collection", true, false);
+        field(gc, "gcId", TYPE_INT, "GC Identifier");
+        field(gc, "name", TYPE_STRING, "Name");
+        field(gc, "cause", TYPE_STRING, "Cause");
+        timespan(field(gc, "sumOfPauses", TYPE_LONG, "Sum of Pauses"));
+        timespan(field(gc, "longestPause", TYPE_LONG, "Longest Pause"));
+
+        long[] phaseIds = {EVENT_GC_PHASE_PAUSE_LEVEL_1, EVENT_GC_PHASE_PAUSE_LEVEL_2, EVENT_GC_PHASE_PAUSE_LEVEL_3, EVENT_GC_PHASE_PAUSE_LEVEL_4};
+        for (int i = 0; i < phaseIds.length; i++) {
+            Element phase = event(metadata, "jdk.GCPhasePauseLevel" + (i + 1), phaseIds[i], "GC Phase Pause Level " + (i + 1), true, true);
+            field(phase, "gcId", TYPE_INT, "GC Identifier");
+            field(phase, "name", TYPE_STRING, "Name");
+        }
+
+        Element vmOperation = event(metadata, "jdk.ExecuteVMOperation", EVENT_EXECUTE_VM_OPERATION, "VM Operation", true, true);
+        field(vmOperation, "operation", TYPE_STRING, "Operation");
+        field(vmOperation, "safepoint", TYPE_BOOLEAN, "At Safepoint");
+        field(vmOperation, "caller", TYPE_THREAD, "Caller").attribute("constantPool", true);
+
+        Element inflate = event(metadata, "jdk.JavaMonitorInflate", EVENT_JAVA_MONITOR_INFLATE, "Java Monitor Inflated", true, true);
+        field(inflate, "monitorClass", TYPE_CLASS, "Monitor Class").attribute("constantPool", true);
+        field(inflate, "address", TYPE_LONG, "Monitor Address");
+
+        Element allocation = event(metadata, "jdk.ObjectAllocationSample", EVENT_OBJECT_ALLOCATION_SAMPLE, "Object Allocation Sample", false, true);
+        field(allocation, "objectClass", TYPE_CLASS, "Object Class").attribute("constantPool", true);
+        dataAmount(field(allocation, "weight", TYPE_LONG, "Sample Weight"));
+
+        root.add(new Element("region")).attribute("locale", "en_US").attribute("gmtOffset", 0);
+
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        collectStrings(root, strings);
+
+        JfrChunkWriter.EventBuilder builder = new JfrChunkWriter.EventBuilder();
+        builder.putLong(METADATA_EVENT_ID);
+        builder.putLong(startTicks);
+        builder.putLong(0);
+        builder.putLong(0);
+        builder.putInt(strings.size());
+        for (String string : strings.keySet()) {
+            builder.putString(string);
+        }
+        writeElement(builder, root, strings);
+        return builder.toEvent();
+    }
+
+    private static Element type(String name, long id, String superType) {
+        Element type = new Element("class").attribute("name", name).attribute("id", id);
+        if (superType != null) {
+            type.attribute("superType", superType);
+        }
+        return type;
+    }
+
+    private static Element annotationType(String name, long id) {
+        Element type = type(name, id, "java.lang.annotation.Annotation");
+        type.add(new Element("field")).attribute("name", "value").attribute("class", TYPE_STRING);
+        return type;
+    }
+
+    private static Element event(Element metadata, String name, long id, String label, boolean hasDuration, boolean hasThread) {
+        Element event = metadata.add(type(name, id, "jdk.jfr.Event"));
+        label(event, label);
+        field(event, "startTime", TYPE_LONG, "Start Time").add(new Element("annotation")).attribute("class", TYPE_TIMESTAMP).attribute("value", "TICKS");
+        if (hasDuration) {
+            timespan(field(event, "duration", TYPE_LONG, "Duration"));
+        }
+        if (hasThread) {
+            field(event, "eventThread", TYPE_THREAD, "Event Thread").attribute("constantPool", true);
+        }
+        return event;
+    }
+
+    private static Element field(Element type, String name, long fieldType, String label) {
+        Element field = type.add(new Element("field")).attribute("name", name).attribute("class", fieldType);
+        label(field, label);
+        return field;
+    }
+
+    private static void label(Element element, String label) {
+        element.add(new Element("annotation")).attribute("class", TYPE_LABEL).attribute("value", label);
+    }
+
+    private static void timespan(Element field) {
+        field.add(new Element("annotation")).attribute("class", TYPE_TIMESPAN).attribute("value", "TICKS");
+    }
+
+    private static void dataAmount(Element field) {
+        field.add(new Element("annotation")).attribute("class", TYPE_DATA_AMOUNT).attribute("value", "BYTES");
+    }
+
+    private static void collectStrings(Element element, Map<String, Integer> strings) {
+        strings.putIfAbsent(element.name, strings.size());
+        for (Map.Entry<String, String> attribute : element.attributes.entrySet()) {
+            strings.putIfAbsent(attribute.getKey(), strings.size());
+            strings.putIfAbsent(attribute.getValue(), strings.size());
+        }
+        for (Element child : element.children) {
+            collectStrings(child, strings);
+        }
+    }
+
+    private static void writeElement(JfrChunkWriter.EventBuilder builder, Element element, Map<String, Integer> strings) {
+        builder.putInt(strings.get(element.name));
+        builder.putInt(element.attributes.size());
+        for (Map.Entry<String, String> attribute : element.attributes.entrySet()) {
+            builder.putInt(strings.get(attribute.getKey()));
+            builder.putInt(strings.get(attribute.getValue()));
+        }
+        builder.putInt(element.children.size());
+        for (Element child : element.children) {
+            writeElement(builder, child, strings);
+        }
+    }
+}
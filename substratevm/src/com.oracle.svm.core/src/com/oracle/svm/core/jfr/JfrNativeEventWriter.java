@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+
+/**
+ * Writes events in the binary format of the JDK Flight Recorder into the {@link JfrBuffer} of the
+ * current thread. Integers are written as compressed (LEB128) values, strings as UTF-16 char
+ * arrays. An event is only visible to the flushing thread after {@link #endEvent} has committed
+ * it, so a safepoint in the middle of an event is harmless.
+ *
+ * <pre>
+ * JfrNativeEventWriterData data = StackValue.get(JfrNativeEventWriterData.class);
+ * if (JfrNativeEventWriter.beginEvent(data, typeId, maxSize)) {
+ *     JfrNativeEventWriter.putLong(data, ...);
+ *     JfrNativeEventWriter.endEvent(data);
+ * }
+ * </pre>
+ *
+ * None of the methods allocate on the Java heap, so events can be written from the garbage
+ * collector and from the allocation slow path.
+ */
+public final class JfrNativeEventWriter {
+    /** The event size is written as a padded compressed integer so that it can be patched. */
+    private static final int EVENT_SIZE_BYTES = 4;
+    private static final int MAX_COMPRESSED_LONG_BYTES = 9;
+
+    private JfrNativeEventWriter() {
+    }
+
+    /** Returns an upper bound for the number of bytes that {@link #putString} writes. */
+    public static int maxStringSize(String value) {
+        return value == null ? 1 : 1 + MAX_COMPRESSED_LONG_BYTES + 3 * value.length();
+    }
+
+    /**
+     * Starts an event of the given type that occupies at most {@code maxSize} bytes, not counting
+     * the size and type fields. Returns false if the event cannot be written.
+     */
+    @Uninterruptible(reason = "Accesses the thread-local buffer, which is swept at safepoints.")
+    public static boolean beginEvent(JfrNativeEventWriterData data, long typeId, int maxSize) {
+        JfrBuffer buffer = JfrThreadLocal.getBuffer(WordFactory.unsigned(EVENT_SIZE_BYTES + MAX_COMPRESSED_LONG_BYTES + maxSize));
+        if (buffer.isNull()) {
+            return false;
+        }
+        Pointer start = buffer.getCommittedPos();
+        data.setBuffer(buffer);
+        data.setStartPos(start);
+        data.setCurrentPos(start.add(EVENT_SIZE_BYTES));
+        data.setEndPos(JfrBufferAccess.getDataEnd(buffer));
+        putLong(data, typeId);
+        return true;
+    }
+
+    /** Commits the event. Returns false if the event did not fit and was discarded. */
+    @Uninterruptible(reason = "Accesses the thread-local buffer, which is swept at safepoints.")
+    public static boolean endEvent(JfrNativeEventWriterData data) {
+        Pointer current = data.getCurrentPos();
+        if (current.isNull()) {
+            return false;
+        }
+        UnsignedWord size = current.subtract(data.getStartPos());
+        assert size.belowThan(1 << 28);
+        int value = (int) size.rawValue();
+        Pointer start = data.getStartPos();
+        start.writeByte(0, (byte) ((value & 0x7F) | 0x80));
+        start.writeByte(1, (byte) (((value >>> 7) & 0x7F) | 0x80));
+        start.writeByte(2, (byte) (((value >>> 14) & 0x7F) | 0x80));
+        start.writeByte(3, (byte) ((value >>> 21) & 0x7F));
+        data.getBuffer().setCommittedPos(current);
+        return true;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static void putBoolean(JfrNativeEventWriterData data, boolean value) {
+        putByte(data, (byte) (value ? 1 : 0));
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static void putByte(JfrNativeEventWriterData data, byte value) {
+        if (ensureSize(data, 1)) {
+            Pointer pos = data.getCurrentPos();
+            pos.writeByte(0, value);
+            data.setCurrentPos(pos.add(1));
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static void putInt(JfrNativeEventWriterData data, int value) {
+        putLong(data, value & 0xFFFFFFFFL);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static void putLong(JfrNativeEventWriterData data, long value) {
+        if (!ensureSize(data, MAX_COMPRESSED_LONG_BYTES)) {
+            return;
+        }
+        Pointer pos = data.getCurrentPos();
+        long v = value;
+        int i = 0;
+        while (i < MAX_COMPRESSED_LONG_BYTES - 1 && (v & ~0x7FL) != 0) {
+            pos.writeByte(i++, (byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        pos.writeByte(i++, (byte) v);
+        data.setCurrentPos(pos.add(i));
+    }
+
+    /**
+     * Writes a string as a char array. Must not be called from uninterruptible code because it
+     * reads the characters of a Java object.
+     */
+    public static void putString(JfrNativeEventWriterData data, String value) {
+        if (value == null) {
+            putByte(data, JfrMetadata.STRING_ENCODING_NULL);
+        } else if (value.isEmpty()) {
+            putByte(data, JfrMetadata.STRING_ENCODING_EMPTY);
+        } else {
+            putByte(data, JfrMetadata.STRING_ENCODING_CHAR_ARRAY);
+            putInt(data, value.length());
+            for (int i = 0; i < value.length(); i++) {
+                putLong(data, value.charAt(i));
+            }
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static boolean ensureSize(JfrNativeEventWriterData data, int size) {
+        Pointer pos = data.getCurrentPos();
+        if (pos.isNonNull() && pos.add(size).belowOrEqual(data.getEndPos())) {
+            return true;
+        }
+        data.setCurrentPos(WordFactory.nullPointer());
+        return false;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import org.graalvm.nativeimage.c.struct.RawField;
+import org.graalvm.nativeimage.c.struct.RawStructure;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.PointerBase;
+
+/**
+ * The state of an event that is being written by {@link JfrNativeEventWriter}. Instances are
+ * allocated on the stack of the writing thread.
+ */
+@RawStructure
+public interface JfrNativeEventWriterData extends PointerBase {
+
+    @RawField
+    JfrBuffer getBuffer();
+
+    @RawField
+    void setBuffer(JfrBuffer value);
+
+    /** The position of the size field of the event. */
+    @RawField
+    Pointer getStartPos();
+
+    @RawField
+    void setStartPos(Pointer value);
+
+    /** The next position to write to, or null if the event does not fit into the buffer. */
+    @RawField
+    Pointer getCurrentPos();
+
+    @RawField
+    void setCurrentPos(Pointer value);
+
+    @RawField
+    Pointer getEndPos();
+
+    @RawField
+    void setEndPos(Pointer value);
+}
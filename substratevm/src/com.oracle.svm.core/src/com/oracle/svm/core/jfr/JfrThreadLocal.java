@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.c.struct.RawField;
+import org.graalvm.nativeimage.c.struct.RawStructure;
+import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.word.PointerBase;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.MemoryUtil;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.jdk.UninterruptibleUtils;
+import com.oracle.svm.core.thread.VMOperation;
+import com.oracle.svm.core.thread.VMThreads;
+import com.oracle.svm.core.threadlocal.FastThreadLocalBytes;
+import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
+
+/**
+ * The per-thread state of the flight recorder. Each thread writes its events into its own
+ * {@link JfrBuffer}, so that emitting an event never needs synchronization. Buffers that are full,
+ * that belong to an exited thread, or that were swept at a safepoint are handed over to the
+ * {@linkplain #drainRetiredBuffers() retired list}, from which the flushing thread writes them to
+ * the recording.
+ */
+public final class JfrThreadLocal {
+
+    @RawStructure
+    interface Descriptor extends PointerBase {
+        @RawField
+        JfrBuffer getBuffer();
+
+        @RawField
+        void setBuffer(JfrBuffer value);
+
+        /** Number of bytes that were allocated in new TLABs since the last allocation sample. */
+        @RawField
+        UnsignedWord getAllocatedSinceSample();
+
+        @RawField
+        void setAllocatedSinceSample(UnsignedWord value);
+    }
+
+    private static final FastThreadLocalBytes<Descriptor> descriptor = FastThreadLocalFactory.createBytes(JfrThreadLocal::getDescriptorSize);
+
+    /** Buffers that are ready to be written, linked via {@link JfrBuffer#getNext()}. */
+    private static final UninterruptibleUtils.AtomicPointer<JfrBuffer> retiredBuffers = new UninterruptibleUtils.AtomicPointer<>();
+
+    /** Number of bytes of events that were discarded because no buffer could be allocated. */
+    private static final UninterruptibleUtils.AtomicLong lostBytes = new UninterruptibleUtils.AtomicLong(0);
+
+    private JfrThreadLocal() {
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    private static int getDescriptorSize() {
+        return SizeOf.get(Descriptor.class);
+    }
+
+    /**
+     * Returns the buffer of the current thread with at least {@code requiredSize} bytes of free
+     * space, or null if no memory is available. A buffer that is too full is retired and replaced.
+     * Must not be called while an event is being written.
+     */
+    @Uninterruptible(reason = "Accesses the thread-local buffer, which is swept at safepoints.")
+    static JfrBuffer getBuffer(UnsignedWord requiredSize) {
+        Descriptor local = descriptor.getAddress();
+        JfrBuffer buffer = local.getBuffer();
+        if (buffer.isNonNull() && JfrBufferAccess.getAvailableSize(buffer).aboveOrEqual(requiredSize)) {
+            return buffer;
+        }
+        if (buffer.isNonNull()) {
+            retire(buffer);
+        }
+        UnsignedWord size = FlightRecorder.getThreadBufferSize();
+        if (size.belowThan(requiredSize)) {
+            size = requiredSize;
+        }
+        buffer = JfrBufferAccess.allocate(size);
+        local.setBuffer(buffer);
+        return buffer;
+    }
+
+    /**
+     * Returns the number of bytes that the current thread has allocated since its last allocation
+     * sample, including {@code allocatedBytes}, and resets the count if it reaches
+     * {@code sampleInterval}.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static UnsignedWord addAllocatedBytes(UnsignedWord allocatedBytes, UnsignedWord sampleInterval) {
+        Descriptor local = descriptor.getAddress();
+        UnsignedWord allocated = local.getAllocatedSinceSample().add(allocatedBytes);
+        local.setAllocatedSinceSample(allocated.aboveOrEqual(sampleInterval) ? WordFactory.zero() : allocated);
+        return allocated;
+    }
+
+    /**
+     * Hands over the buffer of a thread that is exiting, or frees it if the recording has ended and
+     * nobody writes the retired buffers anymore.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static void detachThread(IsolateThread thread) {
+        Descriptor local = descriptor.getAddress(thread);
+        JfrBuffer buffer = local.getBuffer();
+        if (buffer.isNonNull()) {
+            local.setBuffer(WordFactory.nullPointer());
+            if (FlightRecorder.isRecording()) {
+                retire(buffer);
+            } else {
+                JfrBufferAccess.free(buffer);
+            }
+        }
+    }
+
+    /**
+     * Copies the committed but not yet flushed data of all threads to the retired list. The
+     * buffers themselves stay with their threads because a thread may be in the middle of writing
+     * an event. The data of a thread for which no copy can be allocated is counted as
+     * {@linkplain #getLostBytes() lost}.
+     */
+    static void sweepThreadBuffers() {
+        VMOperation.guaranteeInProgressAtSafepoint("Thread buffers can only be swept at a safepoint.");
+        for (IsolateThread thread = VMThreads.firstThread(); thread.isNonNull(); thread = VMThreads.nextThread(thread)) {
+            JfrBuffer buffer = descriptor.getAddress(thread).getBuffer();
+            if (buffer.isNull()) {
+                continue;
+            }
+            UnsignedWord size = JfrBufferAccess.getUnflushedSize(buffer);
+            if (size.equal(0)) {
+                continue;
+            }
+            JfrBuffer copy = JfrBufferAccess.allocate(size);
+            if (copy.isNull()) {
+                lostBytes.addAndGet(size.rawValue());
+            } else {
+                MemoryUtil.copy(buffer.getFlushedPos(), JfrBufferAccess.getDataStart(copy), size);
+                copy.setCommittedPos(JfrBufferAccess.getDataStart(copy).add(size));
+                retire(copy);
+            }
+            buffer.setFlushedPos(buffer.getCommittedPos());
+        }
+    }
+
+    static long getLostBytes() {
+        return lostBytes.get();
+    }
+
+    /** Retired buffers are pushed onto a stack, so the newest buffer is the head of the list. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static void retire(JfrBuffer buffer) {
+        JfrBuffer head;
+        do {
+            head = retiredBuffers.get();
+            buffer.setNext(head);
+        } while (!retiredBuffers.compareAndSet(head, buffer));
+    }
+
+    /** Frees the retired buffers without writing them, once the recording has ended. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static void freeRetiredBuffers() {
+        JfrBuffer buffer = drainRetiredBuffers();
+        while (buffer.isNonNull()) {
+            JfrBuffer next = buffer.getNext();
+            JfrBufferAccess.free(buffer);
+            buffer = next;
+        }
+    }
+
+    /**
+     * Removes and returns all retired buffers, the most recently retired buffer first. The caller
+     * takes ownership of the buffers and must {@linkplain JfrBufferAccess#free free} them.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static JfrBuffer drainRetiredBuffers() {
+        JfrBuffer head;
+        do {
+            head = retiredBuffers.get();
+        } while (!retiredBuffers.compareAndSet(head, WordFactory.nullPointer()));
+        return head;
+    }
+}
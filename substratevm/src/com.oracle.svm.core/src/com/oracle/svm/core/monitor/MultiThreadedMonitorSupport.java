@@ -42,13 +42,16 @@ import java.util.concurrent.locks.ReentrantLock;
 import com.oracle.svm.core.thread.JavaContinuations;
 import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
 import com.oracle.svm.core.threadlocal.FastThreadLocalInt;
+import com.oracle.svm.core.threadlocal.FastThreadLocalObject;
 import org.graalvm.compiler.core.common.SuppressFBWarnings;
 import org.graalvm.compiler.serviceprovider.GraalUnsafeAccess;
 import org.graalvm.compiler.word.BarrieredAccess;
+import org.graalvm.compiler.word.Word;
 import org.graalvm.nativeimage.IsolateThread;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
 
+import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.SubstrateUtil;
 import com.oracle.svm.core.WeakIdentityHashMap;
 import com.oracle.svm.core.annotate.Alias;
@@ -59,6 +62,7 @@ import com.oracle.svm.core.annotate.RestrictHeapAccess.Access;
 import com.oracle.svm.core.annotate.TargetClass;
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.jfr.JfrEvents;
 import com.oracle.svm.core.snippets.KnownIntrinsics;
 import com.oracle.svm.core.snippets.SubstrateForeignCallTarget;
 import com.oracle.svm.core.stack.StackOverflowCheck;
@@ -91,6 +95,15 @@ import sun.misc.Unsafe;
  * {@link Condition} objects are used to implement {@link #wait()} and {@link #notify()}. When an
  * object monitor needs a condition object, it is atomically swapped into its
  * {@link Target_java_util_concurrent_locks_ReentrantLock_NonfairSync#objectMonitorCondition} field.
+ * <p>
+ * With {@link SubstrateOptions#LightweightMonitors}, an object with a monitor slot is first locked
+ * without a {@link ReentrantLock}: the owning {@link Thread} is swapped into the slot, and the
+ * recursion count is kept in the {@link LightweightLocks} of the owning thread. This avoids the
+ * allocation of a lock for the many objects that are only ever locked by a single thread at a time.
+ * The slot is inflated to a {@link ReentrantLock} only when another thread wants to lock the object,
+ * or for {@link #wait()} and {@link #notify()}. Since only the owner knows its recursion count, a
+ * thread that inflates the monitor of another thread creates a lock with a hold count of 1, and the
+ * owner adds its remaining holds to the lock the next time it exits the monitor.
  */
 public class MultiThreadedMonitorSupport extends MonitorSupport {
 
@@ -114,6 +127,43 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
         }
     }
 
+    /**
+     * The objects that are lightweight-locked by a thread, together with their recursion counts.
+     * Due to structured locking, an object that is unlocked is usually the most recently locked one,
+     * so lookups start at the end.
+     */
+    static final class LightweightLocks {
+        static final int CAPACITY = 8;
+
+        final Object[] objects = new Object[CAPACITY];
+        final int[] counts = new int[CAPACITY];
+        int size;
+
+        int indexOf(Object obj) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (objects[i] == obj) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void add(Object obj) {
+            objects[size] = obj;
+            counts[size] = 1;
+            size++;
+        }
+
+        void remove(int index) {
+            size--;
+            System.arraycopy(objects, index + 1, objects, index, size - index);
+            System.arraycopy(counts, index + 1, counts, index, size - index);
+            objects[size] = null;
+        }
+    }
+
+    protected static final FastThreadLocalObject<LightweightLocks> lightweightLocks = FastThreadLocalFactory.createObject(LightweightLocks.class);
+
     /**
      * Types that are used to implement the secondary storage for monitor slots cannot themselves
      * use the additionalMonitors map. That could result in recursive manipulation of the
@@ -249,12 +299,47 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
     @RestrictHeapAccess(reason = NO_LONGER_UNINTERRUPTIBLE, overridesCallers = true, access = Access.UNRESTRICTED)
     @Override
     public void monitorEnter(Object obj) {
-        ReentrantLock lockObject = getOrCreateMonitor(obj, true);
-        lockObject.lock();
+        if (!tryLightweightEnter(obj)) {
+            ReentrantLock lockObject = getOrCreateMonitor(obj, true);
+            lockObject.lock();
+        }
 
         onMonitorLocked();
     }
 
+    /**
+     * Locks the object without a {@link ReentrantLock} if it is unlocked or already
+     * lightweight-locked by the current thread. Returns false if the inflated monitor must be used.
+     */
+    protected static boolean tryLightweightEnter(Object obj) {
+        int monitorOffset = getMonitorOffset(obj);
+        if (!SubstrateOptions.LightweightMonitors.getValue() || monitorOffset == 0) {
+            return false;
+        }
+        Thread currentThread = Thread.currentThread();
+        Object owner = BarrieredAccess.readObject(obj, monitorOffset);
+        if (owner == currentThread) {
+            /*
+             * Recursive locking. Even if another thread inflates the monitor concurrently, the count
+             * is moved to the inflated monitor when the object is unlocked.
+             */
+            LightweightLocks locks = lightweightLocks.get();
+            locks.counts[locks.indexOf(obj)]++;
+            return true;
+        } else if (owner == null) {
+            LightweightLocks locks = lightweightLocks.get();
+            if (locks == null) {
+                locks = new LightweightLocks();
+                lightweightLocks.set(locks);
+            }
+            if (locks.size < LightweightLocks.CAPACITY && UNSAFE.compareAndSwapObject(obj, monitorOffset, null, currentThread)) {
+                locks.add(obj);
+                return true;
+            }
+        }
+        return false;
+    }
+
     @SubstrateForeignCallTarget(stubCallingConvention = false)
     @Uninterruptible(reason = "Avoid stack overflow error before yellow zone has been activated", calleeMustBe = false)
     private static void slowPathMonitorExit(Object obj) {
@@ -288,12 +373,52 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
     @RestrictHeapAccess(reason = NO_LONGER_UNINTERRUPTIBLE, overridesCallers = true, access = Access.UNRESTRICTED)
     @Override
     public void monitorExit(Object obj) {
-        ReentrantLock lockObject = getOrCreateMonitor(obj, true);
-        lockObject.unlock();
+        if (!tryLightweightExit(obj)) {
+            ReentrantLock lockObject = getOrCreateMonitor(obj, true);
+            lockObject.unlock();
+        }
 
         onMonitorUnlocked();
     }
 
+    /**
+     * Unlocks an object that was lightweight-locked by the current thread. Returns false if the
+     * inflated monitor must be unlocked, which is also the case when another thread inflated the
+     * monitor while the current thread held the lightweight lock. The remaining recursion count is
+     * then moved to the inflated monitor first.
+     */
+    protected static boolean tryLightweightExit(Object obj) {
+        int monitorOffset = getMonitorOffset(obj);
+        if (!SubstrateOptions.LightweightMonitors.getValue() || monitorOffset == 0) {
+            return false;
+        }
+        LightweightLocks locks = lightweightLocks.get();
+        int index = locks == null ? -1 : locks.indexOf(obj);
+        if (index < 0) {
+            return false;
+        }
+        Thread currentThread = Thread.currentThread();
+        if (BarrieredAccess.readObject(obj, monitorOffset) == currentThread) {
+            if (locks.counts[index] > 1) {
+                locks.counts[index]--;
+                return true;
+            }
+            if (UNSAFE.compareAndSwapObject(obj, monitorOffset, currentThread, null)) {
+                locks.remove(index);
+                return true;
+            }
+        }
+        /* Inflated by another thread with a hold count of 1 on behalf of the current thread. */
+        ReentrantLock monitor = KnownIntrinsics.convertUnknownValue(BarrieredAccess.readObject(obj, monitorOffset), ReentrantLock.class);
+        assert monitor.isHeldByCurrentThread();
+        int count = locks.counts[index];
+        locks.remove(index);
+        for (int i = 1; i < count; i++) {
+            monitor.lock();
+        }
+        return false;
+    }
+
     @Override
     public Object prepareRelockObject(Object obj) {
         /*
@@ -352,16 +477,32 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
 
     @Override
     public boolean isLockedByCurrentThread(Object obj) {
+        if (getLightweightLockOwner(obj) == Thread.currentThread()) {
+            return true;
+        }
         ReentrantLock lockObject = getOrCreateMonitor(obj, false);
         return lockObject != null && lockObject.isHeldByCurrentThread();
     }
 
     @Override
     public boolean isLockedByAnyThread(Object obj) {
+        if (getLightweightLockOwner(obj) != null) {
+            return true;
+        }
         ReentrantLock lockObject = getOrCreateMonitor(obj, false);
         return lockObject != null && lockObject.isLocked();
     }
 
+    /** Returns the thread that holds the lightweight lock of the object, or null. */
+    protected static Thread getLightweightLockOwner(Object obj) {
+        int monitorOffset = getMonitorOffset(obj);
+        if (monitorOffset == 0) {
+            return null;
+        }
+        Object value = BarrieredAccess.readObject(obj, monitorOffset);
+        return value instanceof Thread ? (Thread) value : null;
+    }
+
     @Override
     public int countThreadLock(IsolateThread vmThread) {
         VMError.guarantee(JavaContinuations.useLoom(), "This method is only supported when continuations are enabled.");
@@ -426,18 +567,32 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
     }
 
     protected ReentrantLock getOrCreateMonitorFromObject(Object obj, boolean createIfNotExisting, int monitorOffset) {
-        ReentrantLock existingMonitor = KnownIntrinsics.convertUnknownValue(BarrieredAccess.readObject(obj, monitorOffset), ReentrantLock.class);
-        if (existingMonitor != null || !createIfNotExisting) {
-            assert existingMonitor == null || isMonitorLock(existingMonitor);
-            return existingMonitor;
-        }
-        /* Atomically put a new lock in place of the null at the monitorOffset. */
-        ReentrantLock newMonitor = newMonitorLock();
-        if (UNSAFE.compareAndSwapObject(obj, monitorOffset, null, newMonitor)) {
-            return newMonitor;
+        while (true) {
+            Object existing = KnownIntrinsics.convertUnknownValue(BarrieredAccess.readObject(obj, monitorOffset), Object.class);
+            if (existing instanceof ReentrantLock) {
+                ReentrantLock existingMonitor = (ReentrantLock) existing;
+                assert isMonitorLock(existingMonitor);
+                return existingMonitor;
+            } else if (!createIfNotExisting) {
+                /* Unlocked, or lightweight-locked by a thread. */
+                return null;
+            }
+
+            long startTicks = JfrEvents.startTicks();
+            ReentrantLock newMonitor;
+            if (existing == null) {
+                /* Atomically put a new lock in place of the null at the monitorOffset. */
+                newMonitor = newMonitorLock();
+            } else {
+                /* Inflate a lightweight lock, see the class comment. */
+                newMonitor = newLockedMonitorForThread((Thread) existing, 1);
+            }
+            if (UNSAFE.compareAndSwapObject(obj, monitorOffset, existing, newMonitor)) {
+                JfrEvents.emitJavaMonitorInflate(obj, Word.objectToUntrackedPointer(obj).rawValue(), startTicks);
+                return newMonitor;
+            }
+            /* We lost the race, retry with the value some other thread installed. */
         }
-        /* We lost the race, use the lock some other thread installed. */
-        return KnownIntrinsics.convertUnknownValue(BarrieredAccess.readObject(obj, monitorOffset), ReentrantLock.class);
     }
 
     protected ReentrantLock getOrCreateMonitorFromMap(Object obj, boolean createIfNotExisting) {
@@ -456,9 +611,11 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
                 assert existingMonitor == null || isMonitorLock(existingMonitor);
                 return existingMonitor;
             }
+            long startTicks = JfrEvents.startTicks();
             ReentrantLock newMonitor = newMonitorLock();
             ReentrantLock previousEntry = additionalMonitors.put(obj, newMonitor);
             VMError.guarantee(previousEntry == null, "Replaced monitor in secondary storage map");
+            JfrEvents.emitJavaMonitorInflate(obj, Word.objectToUntrackedPointer(obj).rawValue(), startTicks);
             return newMonitor;
         } finally {
             additionalMonitorsLock.unlock();
@@ -480,6 +637,10 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
      * (for a good reason, because it is a highly unusual operation).
      */
     protected static ReentrantLock newLockedMonitorForThread(IsolateThread isolateThread, int recursionDepth) {
+        return newLockedMonitorForThread(JavaThreads.fromVMThread(isolateThread), recursionDepth);
+    }
+
+    protected static ReentrantLock newLockedMonitorForThread(Thread thread, int recursionDepth) {
         ReentrantLock result = newMonitorLock();
         for (int i = 0; i < recursionDepth; i++) {
             result.lock();
@@ -489,7 +650,7 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
         Target_java_util_concurrent_locks_AbstractOwnableSynchronizer sync = SubstrateUtil.cast(lock.sync, Target_java_util_concurrent_locks_AbstractOwnableSynchronizer.class);
 
         assert sync.exclusiveOwnerThread == Thread.currentThread() : "Must be locked by current thread";
-        sync.exclusiveOwnerThread = JavaThreads.fromVMThread(isolateThread);
+        sync.exclusiveOwnerThread = thread;
 
         return result;
     }
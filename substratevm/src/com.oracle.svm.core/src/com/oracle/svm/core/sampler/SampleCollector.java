@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.sampler;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.graalvm.compiler.nodes.extended.MembarNode;
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.nativeimage.c.function.CodePointer;
+import org.graalvm.word.Pointer;
+
+import com.oracle.svm.core.FrameAccess;
+import com.oracle.svm.core.code.CodeInfo;
+import com.oracle.svm.core.code.CodeInfoAccess;
+import com.oracle.svm.core.code.CodeInfoQueryResult;
+import com.oracle.svm.core.code.CodeInfoTable;
+import com.oracle.svm.core.code.FrameInfoQueryResult;
+import com.oracle.svm.core.code.SimpleCodeInfoQueryResult;
+
+import jdk.vm.ci.code.MemoryBarriers;
+
+/**
+ * Consumes the samples of all {@link SamplerBuffers}, walks the copied stacks, and aggregates the
+ * samples by stack trace. The walk follows the frames of image code like
+ * {@link com.oracle.svm.core.stack.JavaStackWalker} does, but on the copy of the stack, and stops
+ * at the first entry point frame or at an instruction pointer outside of image code.
+ *
+ * Stack traces are recorded as relative instruction pointers and only resolved to (possibly
+ * inlined) Java methods via their {@link FrameInfoQueryResult} when the profile is written.
+ */
+final class SampleCollector {
+    /** Marks a stack trace that was cut off because the copy of the stack was too small. */
+    private static final long TRUNCATED = -1;
+    /** Marks a frame that is not in image code, for example of runtime-compiled code. */
+    private static final long UNKNOWN = -2;
+
+    private static final int MAX_DEPTH = 1024;
+
+    private final Map<StackTrace, long[]> samples = new HashMap<>();
+    private final Map<Long, String> frameNames = new HashMap<>();
+    private long droppedSamples;
+
+    /** Consumes all samples that are available now. */
+    void collect() {
+        CodeInfo info = CodeInfoTable.getImageCodeInfo();
+        SamplerBuffer buffer = SamplerBuffers.getBuffers();
+        while (buffer.isNonNull()) {
+            SamplerBuffer next = buffer.getNext();
+
+            boolean retired = buffer.getRetired();
+            /* A retired buffer gets no more samples, so its write count is final. */
+            MembarNode.memoryBarrier(MemoryBarriers.LOAD_LOAD);
+            long readCount = buffer.getReadCount();
+            long writeCount = buffer.getWriteCount();
+            /* Slots must not be read before they were published. */
+            MembarNode.memoryBarrier(MemoryBarriers.LOAD_LOAD);
+            while (readCount < writeCount) {
+                collect(info, SamplerBuffers.getSlot(buffer, readCount));
+                readCount++;
+            }
+            /* Slots must not be reused before they were read. */
+            MembarNode.memoryBarrier(MemoryBarriers.LOAD_STORE);
+            buffer.setReadCount(readCount);
+
+            if (retired) {
+                droppedSamples += buffer.getDroppedCount();
+                SamplerBuffers.free(buffer);
+            }
+            buffer = next;
+        }
+    }
+
+    private void collect(CodeInfo info, Pointer slot) {
+        long length = SamplerBuffers.getSlotLength(slot);
+        Pointer stack = SamplerBuffers.getSlotData(slot);
+        CodePointer ip = SamplerBuffers.getSlotIP(slot);
+        SimpleCodeInfoQueryResult queryResult = StackValue.get(SimpleCodeInfoQueryResult.class);
+
+        long[] frames = new long[16];
+        int depth = 0;
+        long offset = 0;
+        while (true) {
+            if (depth + 1 >= frames.length) {
+                if (depth >= MAX_DEPTH) {
+                    frames[depth++] = TRUNCATED;
+                    break;
+                }
+                frames = Arrays.copyOf(frames, frames.length * 2);
+            }
+            if (!CodeInfoAccess.contains(info, ip)) {
+                frames[depth++] = UNKNOWN;
+                break;
+            }
+            long relativeIP = CodeInfoAccess.relativeIP(info, ip);
+            frames[depth++] = relativeIP;
+
+            CodeInfoAccess.lookupCodeInfo(info, relativeIP, queryResult);
+            long encodedFrameSize = queryResult.getEncodedFrameSize();
+            if (CodeInfoQueryResult.isEntryPoint(encodedFrameSize)) {
+                break;
+            }
+            /* Bump sp up over the frame and read the return address to the caller. */
+            offset += CodeInfoQueryResult.getTotalFrameSize(encodedFrameSize);
+            if (offset > length) {
+                frames[depth++] = TRUNCATED;
+                break;
+            }
+            ip = FrameAccess.singleton().readReturnAddress(stack.add((int) offset));
+        }
+
+        samples.computeIfAbsent(new StackTrace(Arrays.copyOf(frames, depth)), k -> new long[1])[0]++;
+    }
+
+    /** Returns the number of samples that were dropped because a buffer was full. */
+    long getDroppedSamples() {
+        long result = droppedSamples;
+        for (SamplerBuffer buffer = SamplerBuffers.getBuffers(); buffer.isNonNull(); buffer = buffer.getNext()) {
+            result += buffer.getDroppedCount();
+        }
+        return result;
+    }
+
+    /**
+     * Writes the samples as collapsed stacks: one line per distinct stack trace, with the frames
+     * from the outermost to the innermost method separated by semicolons, followed by the number
+     * of samples. This is the input format of flame graph tools.
+     */
+    void writeCollapsedStacks(PrintWriter writer) {
+        CodeInfo info = CodeInfoTable.getImageCodeInfo();
+        Map<String, Long> lines = new TreeMap<>();
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<StackTrace, long[]> entry : samples.entrySet()) {
+            long[] frames = entry.getKey().frames;
+            sb.setLength(0);
+            for (int i = frames.length - 1; i >= 0; i--) {
+                sb.append(getFrameName(info, frames[i]));
+                if (i > 0) {
+                    sb.append(';');
+                }
+            }
+            lines.merge(sb.toString(), entry.getValue()[0], Long::sum);
+        }
+        for (Map.Entry<String, Long> line : lines.entrySet()) {
+            writer.print(line.getKey());
+            writer.print(' ');
+            writer.println(line.getValue());
+        }
+    }
+
+    /** Returns the methods of a frame, including inlined ones, from the outermost to the innermost. */
+    private String getFrameName(CodeInfo info, long frame) {
+        if (frame == TRUNCATED) {
+            return "[truncated]";
+        } else if (frame == UNKNOWN) {
+            return "[unknown]";
+        }
+        return frameNames.computeIfAbsent(frame, ip -> {
+            FrameInfoQueryResult frameInfo = CodeInfoAccess.lookupNearestFrameInfo(info, ip);
+            if (frameInfo == null) {
+                return "[unknown]";
+            }
+            List<String> methods = new ArrayList<>();
+            for (FrameInfoQueryResult cur = frameInfo; cur != null; cur = cur.getCaller()) {
+                methods.add(cur.getSourceClassName() + "." + cur.getSourceMethodName());
+            }
+            StringBuilder name = new StringBuilder();
+            for (int i = methods.size() - 1; i >= 0; i--) {
+                name.append(methods.get(i));
+                if (i > 0) {
+                    name.append(';');
+                }
+            }
+            return name.toString();
+        });
+    }
+
+    private static final class StackTrace {
+        final long[] frames;
+        final int hashCode;
+
+        StackTrace(long[] frames) {
+            this.frames = frames;
+            this.hashCode = Arrays.hashCode(frames);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof StackTrace && Arrays.equals(frames, ((StackTrace) obj).frames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
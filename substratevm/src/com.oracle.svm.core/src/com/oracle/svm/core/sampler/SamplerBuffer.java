@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.sampler;
+
+import org.graalvm.nativeimage.c.struct.RawField;
+import org.graalvm.nativeimage.c.struct.RawStructure;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.PointerBase;
+
+/**
+ * A ring of sample slots in native memory that belongs to a single thread. The signal handler of
+ * the thread is the only producer and {@link SampleCollector} is the only consumer, so the ring
+ * needs no locking (see {@link SamplerBuffers} for the layout of the slots). All buffers are linked
+ * via {@link #getNext} so that the collector can find them without stopping threads.
+ */
+@RawStructure
+interface SamplerBuffer extends PointerBase {
+
+    /** The highest stack address of the thread, up to which stack contents are copied. */
+    @RawField
+    Pointer getStackEnd();
+
+    @RawField
+    void setStackEnd(Pointer value);
+
+    /** Number of samples that were written, only incremented by the signal handler. */
+    @RawField
+    long getWriteCount();
+
+    @RawField
+    void setWriteCount(long value);
+
+    /** Number of samples that were consumed, only incremented by the collector. */
+    @RawField
+    long getReadCount();
+
+    @RawField
+    void setReadCount(long value);
+
+    /** Number of samples that were dropped because the ring was full. */
+    @RawField
+    long getDroppedCount();
+
+    @RawField
+    void setDroppedCount(long value);
+
+    /** Set when the thread exited, after which the collector frees the buffer once it is empty. */
+    @RawField
+    boolean getRetired();
+
+    @RawField
+    void setRetired(boolean value);
+
+    @RawField
+    SamplerBuffer getNext();
+
+    @RawField
+    void setNext(SamplerBuffer value);
+}
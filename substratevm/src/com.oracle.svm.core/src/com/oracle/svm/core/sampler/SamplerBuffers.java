@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.sampler;
+
+import org.graalvm.compiler.nodes.PauseNode;
+import org.graalvm.compiler.nodes.extended.MembarNode;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.c.function.CodePointer;
+import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.nativeimage.impl.UnmanagedMemorySupport;
+import org.graalvm.word.LocationIdentity;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordBase;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.MemoryUtil;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.c.CGlobalData;
+import com.oracle.svm.core.c.CGlobalDataFactory;
+import com.oracle.svm.core.jdk.UninterruptibleUtils;
+import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
+import com.oracle.svm.core.threadlocal.FastThreadLocalWord;
+import com.oracle.svm.core.util.UnsignedUtils;
+
+import jdk.vm.ci.code.MemoryBarriers;
+
+/**
+ * The per-thread sample buffers of the {@link SamplingProfiler}, and the registry of threads that
+ * the signal handler consults before it trusts the thread register of the interrupted context.
+ *
+ * A sample slot consists of the stack pointer, the instruction pointer, the number of copied stack
+ * bytes, and a raw copy of the stack starting at the stack pointer. Copying the stack is the only
+ * work that is done in the signal handler: decoding the frames needs the code metadata, which
+ * cannot be read from uninterruptible code, so it is done later by the {@link SampleCollector}.
+ */
+final class SamplerBuffers {
+    private static final int SLOT_SP = 0;
+    private static final int SLOT_IP = SLOT_SP + 8;
+    private static final int SLOT_LENGTH = SLOT_IP + 8;
+    private static final int SLOT_DATA = SLOT_LENGTH + 8;
+
+    /** Number of entries of the thread registry, must be a power of two. */
+    private static final int REGISTRY_SIZE = 4096;
+    private static final long REGISTRY_TOMBSTONE = 1;
+
+    /**
+     * Open-addressing hash set of the {@link IsolateThread}s that have a buffer. It is kept in C
+     * memory so that the signal handler can read it without a valid heap base. The signal handler
+     * only reads it, while threads that attach or detach modify it under {@link #registryLock}.
+     */
+    private static final CGlobalData<Pointer> registry = CGlobalDataFactory.createBytes(() -> REGISTRY_SIZE * 8);
+    private static final CGlobalData<Pointer> registryLock = CGlobalDataFactory.createBytes(() -> 4);
+
+    private static final FastThreadLocalWord<SamplerBuffer> bufferTL = FastThreadLocalFactory.createWord();
+
+    /** All buffers, including retired ones that were not freed yet. */
+    private static final UninterruptibleUtils.AtomicPointer<SamplerBuffer> buffers = new UninterruptibleUtils.AtomicPointer<>();
+
+    private SamplerBuffers() {
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static UnsignedWord getHeaderSize() {
+        return UnsignedUtils.roundUp(WordFactory.unsigned(SizeOf.get(SamplerBuffer.class)), WordFactory.unsigned(8));
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static int getStackCopySize() {
+        return SamplingProfiler.getStackCopySize() & ~7;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static Pointer getSlot(SamplerBuffer buffer, long count) {
+        long index = count % SamplingProfiler.getBufferedSamples();
+        return ((Pointer) buffer).add(getHeaderSize()).add(WordFactory.unsigned(index * (SLOT_DATA + getStackCopySize())));
+    }
+
+    static Pointer getSlotSP(Pointer slot) {
+        return slot.readWord(SLOT_SP);
+    }
+
+    static CodePointer getSlotIP(Pointer slot) {
+        return slot.readWord(SLOT_IP);
+    }
+
+    static long getSlotLength(Pointer slot) {
+        return slot.readLong(SLOT_LENGTH);
+    }
+
+    /** Returns the address of the copy of the stack, which starts at {@link #getSlotSP}. */
+    static Pointer getSlotData(Pointer slot) {
+        return slot.add(SLOT_DATA);
+    }
+
+    /** Allocates and registers the buffer of the current thread, called when it attaches. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static void attachThread(IsolateThread thread, Pointer stackEnd) {
+        UnsignedWord size = getHeaderSize().add(WordFactory.unsigned((long) SamplingProfiler.getBufferedSamples() * (SLOT_DATA + getStackCopySize())));
+        SamplerBuffer buffer = ImageSingletons.lookup(UnmanagedMemorySupport.class).malloc(size);
+        if (buffer.isNull()) {
+            return;
+        }
+        buffer.setStackEnd(stackEnd);
+        buffer.setWriteCount(0);
+        buffer.setReadCount(0);
+        buffer.setDroppedCount(0);
+        buffer.setRetired(false);
+        if (!register(thread)) {
+            /* Too many threads, this one is not sampled. */
+            ImageSingletons.lookup(UnmanagedMemorySupport.class).free(buffer);
+            return;
+        }
+        bufferTL.set(thread, buffer);
+
+        SamplerBuffer head;
+        do {
+            head = buffers.get();
+            buffer.setNext(head);
+        } while (!buffers.compareAndSet(head, buffer));
+    }
+
+    /**
+     * Unregisters the current thread, which is exiting. Its buffer is freed by the collector after
+     * the remaining samples were consumed.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static void detachThread(IsolateThread thread) {
+        SamplerBuffer buffer = bufferTL.get(thread);
+        if (buffer.isNull()) {
+            return;
+        }
+        /* The signal handler of this thread must no longer find the buffer before it is retired. */
+        unregister(thread);
+        bufferTL.set(thread, WordFactory.nullPointer());
+        MembarNode.memoryBarrier(MemoryBarriers.STORE_STORE);
+        buffer.setRetired(true);
+    }
+
+    /**
+     * Copies the stack of an interrupted thread into a free slot of its buffer. Called from the
+     * signal handler, so it must only access C memory and the thread locals of a registered thread.
+     */
+    @Uninterruptible(reason = "Called from a signal handler.")
+    static void recordSample(IsolateThread thread, Pointer sp, CodePointer ip) {
+        if (!isRegistered(thread)) {
+            return;
+        }
+        SamplerBuffer buffer = bufferTL.get(thread);
+        if (buffer.isNull()) {
+            return;
+        }
+        long writeCount = buffer.getWriteCount();
+        if (writeCount - buffer.getReadCount() >= SamplingProfiler.getBufferedSamples()) {
+            buffer.setDroppedCount(buffer.getDroppedCount() + 1);
+            return;
+        }
+        Pointer stackEnd = buffer.getStackEnd();
+        if (sp.aboveOrEqual(stackEnd)) {
+            /* The thread runs on a part of the stack that it did not attach with. */
+            return;
+        }
+        UnsignedWord length = stackEnd.subtract(sp);
+        if (length.aboveThan(getStackCopySize())) {
+            length = WordFactory.unsigned(getStackCopySize());
+        }
+
+        Pointer slot = getSlot(buffer, writeCount);
+        slot.writeWord(SLOT_SP, sp);
+        slot.writeWord(SLOT_IP, ip);
+        slot.writeWord(SLOT_LENGTH, length);
+        MemoryUtil.copy(sp, slot.add(SLOT_DATA), length);
+
+        /* Publish the slot only after it is complete. */
+        MembarNode.memoryBarrier(MemoryBarriers.STORE_STORE);
+        buffer.setWriteCount(writeCount + 1);
+    }
+
+    /** Returns the first of all buffers, which are linked via {@link SamplerBuffer#getNext}. */
+    static SamplerBuffer getBuffers() {
+        return buffers.get();
+    }
+
+    /**
+     * Removes a retired buffer from the list of buffers and frees it. Only the collector removes
+     * buffers, so only the head of the list can change concurrently.
+     */
+    static void free(SamplerBuffer buffer) {
+        if (!buffers.compareAndSet(buffer, buffer.getNext())) {
+            SamplerBuffer prev = buffers.get();
+            while (prev.getNext().notEqual(buffer)) {
+                prev = prev.getNext();
+            }
+            prev.setNext(buffer.getNext());
+        }
+        ImageSingletons.lookup(UnmanagedMemorySupport.class).free(buffer);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static int hash(IsolateThread thread) {
+        return (int) ((thread.rawValue() * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static void lockRegistry() {
+        while (!registryLock.get().logicCompareAndSwapInt(0, 0, 1, LocationIdentity.ANY_LOCATION)) {
+            PauseNode.pause();
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static void unlockRegistry() {
+        MembarNode.memoryBarrier(MemoryBarriers.STORE_STORE);
+        registryLock.get().writeInt(0, 0);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static int offsetOf(int index) {
+        return (index & (REGISTRY_SIZE - 1)) * 8;
+    }
+
+    /** Inserts the thread into the first free slot of its probe sequence, tombstones included. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static boolean register(IsolateThread thread) {
+        lockRegistry();
+        boolean registered = false;
+        int hash = hash(thread);
+        for (int i = 0; i < REGISTRY_SIZE; i++) {
+            int offset = offsetOf(hash + i);
+            long entry = registry.get().readWord(offset).rawValue();
+            if (entry == 0 || entry == REGISTRY_TOMBSTONE) {
+                registry.get().writeWord(offset, thread);
+                registered = true;
+                break;
+            }
+        }
+        unlockRegistry();
+        return registered;
+    }
+
+    /**
+     * Removes the thread. A tombstone is only left if the slot is part of the probe sequence of
+     * another entry, that is, if the next slot is not empty. Otherwise the slot and the tombstones
+     * that directly precede it are cleared, so that the probe sequences do not grow over time.
+     * Clearing them is safe for concurrent readers because no entry is reachable only through them.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static void unregister(IsolateThread thread) {
+        lockRegistry();
+        int offset = find(thread);
+        if (offset >= 0) {
+            int index = offset / 8;
+            if (registry.get().readWord(offsetOf(index + 1)).rawValue() != 0) {
+                registry.get().writeWord(offset, WordFactory.unsigned(REGISTRY_TOMBSTONE));
+            } else {
+                registry.get().writeWord(offset, WordFactory.zero());
+                for (int i = 1; i < REGISTRY_SIZE; i++) {
+                    int prev = offsetOf(index - i);
+                    if (registry.get().readWord(prev).rawValue() != REGISTRY_TOMBSTONE) {
+                        break;
+                    }
+                    registry.get().writeWord(prev, WordFactory.zero());
+                }
+            }
+        }
+        unlockRegistry();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static boolean isRegistered(IsolateThread thread) {
+        return thread.isNonNull() && thread.rawValue() != REGISTRY_TOMBSTONE && find(thread) >= 0;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static int find(IsolateThread thread) {
+        int hash = hash(thread);
+        for (int i = 0; i < REGISTRY_SIZE; i++) {
+            int offset = offsetOf(hash + i);
+            WordBase entry = registry.get().readWord(offset);
+            if (entry.rawValue() == thread.rawValue()) {
+                return offset;
+            } else if (entry.rawValue() == 0) {
+                break;
+            }
+        }
+        return -1;
+    }
+}
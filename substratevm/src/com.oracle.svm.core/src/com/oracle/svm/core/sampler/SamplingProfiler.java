@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.sampler;
+
+//Checkstyle: stop
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.c.function.CodePointer;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.RegisterDumper;
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.c.CGlobalData;
+import com.oracle.svm.core.c.CGlobalDataFactory;
+import com.oracle.svm.core.code.CodeInfo;
+import com.oracle.svm.core.code.CodeInfoAccess;
+import com.oracle.svm.core.code.CodeInfoTable;
+import com.oracle.svm.core.jdk.RuntimeSupport;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.option.RuntimeOptionKey;
+import com.oracle.svm.core.util.UserError;
+
+import sun.misc.Signal;
+
+//Checkstyle: resume
+
+@AutomaticFeature
+class SamplingProfilerFeature implements Feature {
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return SamplingProfiler.isEnabled();
+    }
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        UserError.guarantee(ImageSingletons.contains(SamplingTimer.class) && ImageSingletons.contains(RegisterDumper.class),
+                        "The sampling profiler (option -H:+SamplingProfiler) is not supported on this platform.");
+        RuntimeSupport.getRuntimeSupport().addStartupHook(SamplingProfiler::startProfilingAtStartup);
+        RuntimeSupport.getRuntimeSupport().addShutdownHook(SamplingProfiler::stopProfiling);
+    }
+}
+
+/**
+ * A sampling profiler for Java code of the image. A timer periodically interrupts the running
+ * threads with a signal. The signal handler only copies the top of the interrupted stack into a
+ * {@linkplain SamplerBuffers per-thread buffer}, which is async-signal-safe and cheap. A collector
+ * thread later walks the copied stacks with the frame sizes of the code metadata, and attributes
+ * each frame to the Java methods that were inlined into it. The profile is written as collapsed
+ * stacks when the isolate exits, and optionally whenever a signal is received.
+ *
+ * Samples are only taken while a thread executes image code. Time spent in native code or in
+ * runtime-compiled code is not attributed. A sample taken during the prologue or epilogue of a
+ * method can have an imprecise innermost frame.
+ */
+public final class SamplingProfiler {
+    public static class Options {
+        @Option(help = "Include support for a signal-based sampling profiler of Java code.")//
+        public static final HostedOptionKey<Boolean> SamplingProfiler = new HostedOptionKey<>(false);
+
+        @Option(help = "Maximum number of bytes of a stack that the sampling profiler copies per sample. Deeper stacks are truncated.")//
+        public static final HostedOptionKey<Integer> SamplingProfilerStackCopySize = new HostedOptionKey<>(8 * 1024);
+
+        @Option(help = "Number of samples that the sampling profiler buffers per thread until they are collected.")//
+        public static final HostedOptionKey<Integer> SamplingProfilerBufferedSamples = new HostedOptionKey<>(8);
+
+        @Option(help = "File to which the sampling profiler writes collapsed stacks. Profiling starts at startup if set. Requires an image built with -H:+SamplingProfiler.")//
+        public static final RuntimeOptionKey<String> SamplingProfilerFile = new RuntimeOptionKey<>("");
+
+        @Option(help = "Interval in milliseconds of CPU time between two samples of the sampling profiler.")//
+        public static final RuntimeOptionKey<Integer> SamplingProfilerInterval = new RuntimeOptionKey<>(10);
+
+        @Option(help = "Name of a signal, for example USR2, on which the sampling profiler writes the profile collected so far.")//
+        public static final RuntimeOptionKey<String> SamplingProfilerDumpSignal = new RuntimeOptionKey<>("");
+    }
+
+    /** The start and end address of the image code, which the signal handler can read from C memory. */
+    private static final CGlobalData<Pointer> codeBounds = CGlobalDataFactory.createBytes(() -> 16);
+
+    private static volatile boolean profiling;
+    private static String file;
+    private static SampleCollector collector;
+    private static Thread collectorThread;
+
+    private SamplingProfiler() {
+    }
+
+    @Fold
+    public static boolean isEnabled() {
+        return Options.SamplingProfiler.getValue();
+    }
+
+    @Fold
+    static int getStackCopySize() {
+        return Options.SamplingProfilerStackCopySize.getValue();
+    }
+
+    @Fold
+    static int getBufferedSamples() {
+        return Options.SamplingProfilerBufferedSamples.getValue();
+    }
+
+    /**
+     * Called when a thread attaches. The buffer is allocated even if profiling did not start yet,
+     * because only now the extent of the stack that is used for Java code is known.
+     */
+    @Uninterruptible(reason = "Thread is not attached yet.")
+    public static void attachThread(IsolateThread thread, Pointer stackEnd) {
+        SamplerBuffers.attachThread(thread, stackEnd);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.")
+    public static void detachThread(IsolateThread thread) {
+        SamplerBuffers.detachThread(thread);
+    }
+
+    /**
+     * Called from the signal handler of the {@link SamplingTimer}. The thread register of the
+     * interrupted context is only trusted if the instruction pointer is in image code and the
+     * thread is registered.
+     */
+    @Uninterruptible(reason = "Called from a signal handler.")
+    public static void recordSample(RegisterDumper.Context context) {
+        CodePointer ip = (CodePointer) RegisterDumper.singleton().getIP(context);
+        Pointer codeStart = codeBounds.get().readWord(0);
+        Pointer codeEnd = codeBounds.get().readWord(8);
+        if (((Pointer) ip).belowThan(codeStart) || ((Pointer) ip).aboveOrEqual(codeEnd)) {
+            return;
+        }
+        IsolateThread thread = (IsolateThread) RegisterDumper.singleton().getThreadPointer(context);
+        Pointer sp = (Pointer) RegisterDumper.singleton().getSP(context);
+        SamplerBuffers.recordSample(thread, sp, ip);
+    }
+
+    static void startProfilingAtStartup() {
+        String profileFile = Options.SamplingProfilerFile.getValue();
+        if (!profileFile.isEmpty()) {
+            startProfiling(profileFile);
+        }
+    }
+
+    private static synchronized void startProfiling(String profileFile) {
+        if (profiling) {
+            return;
+        }
+        file = profileFile;
+        collector = new SampleCollector();
+
+        CodeInfo info = CodeInfoTable.getImageCodeInfo();
+        Pointer codeStart = (Pointer) CodeInfoAccess.getCodeStart(info);
+        UnsignedWord codeSize = CodeInfoAccess.getCodeSize(info);
+        codeBounds.get().writeWord(0, codeStart);
+        codeBounds.get().writeWord(8, codeStart.add(codeSize));
+
+        int interval = Math.max(1, Options.SamplingProfilerInterval.getValue());
+        if (!ImageSingletons.lookup(SamplingTimer.class).start(interval)) {
+            Log.log().string("Sampling profiler could not be started.").newline();
+            return;
+        }
+        profiling = true;
+
+        String dumpSignal = Options.SamplingProfilerDumpSignal.getValue();
+        if (!dumpSignal.isEmpty()) {
+            Signal.handle(new Signal(dumpSignal), signal -> writeProfile());
+        }
+
+        /* Collect often enough that the buffer of a busy thread does not overflow. */
+        long collectInterval = Math.max(1, (long) interval * getBufferedSamples() / 2);
+        collectorThread = new Thread(() -> collectPeriodically(collectInterval), "Sampling Profiler");
+        collectorThread.setDaemon(true);
+        collectorThread.start();
+    }
+
+    private static void collectPeriodically(long collectInterval) {
+        while (profiling) {
+            try {
+                Thread.sleep(collectInterval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            collect();
+        }
+    }
+
+    private static synchronized void collect() {
+        collector.collect();
+    }
+
+    /** Writes the profile that was collected so far. */
+    private static synchronized void writeProfile() {
+        collector.collect();
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            collector.writeCollapsedStacks(writer);
+        } catch (IOException e) {
+            Log.log().string("Sampling profile could not be written: ").string(e.getMessage()).newline();
+        }
+    }
+
+    static void stopProfiling() {
+        if (!profiling) {
+            return;
+        }
+        profiling = false;
+        ImageSingletons.lookup(SamplingTimer.class).stop();
+        collectorThread.interrupt();
+        try {
+            collectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeProfile();
+        if (collector.getDroppedSamples() > 0) {
+            Log.log().string("Sampling profiler dropped ").signed(collector.getDroppedSamples()).string(" samples, consider a larger -H:SamplingProfilerBufferedSamples.").newline();
+        }
+    }
+}
@@ -63,6 +63,8 @@ import com.oracle.svm.core.jdk.StackTraceUtils;
 import com.oracle.svm.core.jdk.UninterruptibleUtils;
 import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicReference;
 import com.oracle.svm.core.jdk.management.ManagementSupport;
+import com.oracle.svm.core.jfr.FlightRecorder;
+import com.oracle.svm.core.jfr.JfrThreadLocal;
 import com.oracle.svm.core.locks.VMMutex;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.monitor.MonitorSupport;
@@ -355,6 +357,10 @@ public abstract class JavaThreads {
         VMThreads.THREAD_MUTEX.assertIsOwner("Must hold the VMThreads mutex");
         assert StatusSupport.isStatusIgnoreSafepoints(vmThread) || VMOperation.isInProgress();
 
+        if (FlightRecorder.isEnabled()) {
+            JfrThreadLocal.detachThread(vmThread);
+        }
+
         // Detach ParkEvents for this thread, if any.
         final Thread thread = currentThread.get(vmThread);
         ParkEvent.detach(getUnsafeParkEvent(thread));
@@ -530,6 +536,7 @@ public abstract class JavaThreads {
         } finally {
             exit(thread);
             ManagementSupport.getSingleton().noteThreadFinish(thread);
+            FlightRecorder.noteThreadExit(thread);
         }
     }
 
@@ -33,6 +33,7 @@ import com.oracle.svm.core.annotate.Substitute;
 import com.oracle.svm.core.annotate.TargetClass;
 import com.oracle.svm.core.annotate.TargetElement;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.heap.StoredContinuation;
 import com.oracle.svm.core.heap.StoredContinuationImpl;
 import com.oracle.svm.core.jdk.LoomJDK;
@@ -195,11 +196,18 @@ public final class Target_java_lang_Continuation {
             assert cont.internalContinuation != null;
             assert cont.ip.isNonNull();
 
-            byte[] buf = StoredContinuationImpl.allocateBuf(cont.internalContinuation);
-            StoredContinuationImpl.writeBuf(cont.internalContinuation, buf);
-
-            for (int i = 0; i < buf.length; i++) {
-                currentSP.writeByte(i - buf.length, buf[i]);
+            /*
+             * Copy the frames directly from the stored continuation to the stack, without a
+             * temporary buffer. The destination overlaps the frame of this method, so the loop
+             * must not contain any calls. Frame sizes are a multiple of the word size. The method
+             * is uninterruptible, so the stored continuation cannot move during the copy.
+             */
+            Pointer source = StoredContinuationImpl.payloadFrameStart(cont.internalContinuation);
+            long size = StoredContinuationImpl.readAllFrameSize(cont.internalContinuation);
+            Pointer target = currentSP.subtract(WordFactory.unsigned(size));
+            int wordSize = ConfigurationValues.getTarget().wordSize;
+            for (long offset = 0; offset < size; offset += wordSize) {
+                target.writeWord(WordFactory.unsigned(offset), source.readWord(WordFactory.unsigned(offset)));
             }
 
             CodePointer ip = cont.ip;
@@ -207,7 +215,7 @@ public final class Target_java_lang_Continuation {
             cont.internalContinuation = null;
             cont.sp = currentSP;
             cont.ip = currentIP;
-            KnownIntrinsics.farReturn(0, currentSP.subtract(buf.length), ip, false);
+            KnownIntrinsics.farReturn(0, target, ip, false);
         } else {
             assert cont.sp.isNull() && cont.ip.isNull() && cont.internalContinuation == null;
             cont.monitorBefore = 0;
@@ -31,6 +31,7 @@ import org.graalvm.nativeimage.IsolateThread;
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.RestrictHeapAccess;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.jfr.JfrEvents;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.thread.VMOperationControl.OpInProgress;
 import com.oracle.svm.core.util.VMError;
@@ -86,7 +87,9 @@ public abstract class VMOperation {
         control.setInProgress(this, getQueuingThread(data), CurrentIsolate.getCurrentThread());
         try {
             trace.string("[Executing operation ").string(name);
+            long startTicks = JfrEvents.startTicks();
             operate(data);
+            JfrEvents.emitExecuteVMOperation(this, getQueuingThread(data), startTicks);
             trace.string("]");
         } catch (Throwable t) {
             trace.string("[VMOperation.execute caught: ").string(t.getClass().getName()).string("]").newline();
@@ -53,6 +53,7 @@ import com.oracle.svm.core.jdk.UninterruptibleUtils;
 import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicWord;
 import com.oracle.svm.core.locks.VMCondition;
 import com.oracle.svm.core.locks.VMMutex;
+import com.oracle.svm.core.sampler.SamplingProfiler;
 import com.oracle.svm.core.threadlocal.FastThreadLocal;
 import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
 import com.oracle.svm.core.threadlocal.FastThreadLocalInt;
@@ -326,6 +327,9 @@ public abstract class VMThreads {
             nextOsThreadToCleanup = OSThreadHandleTL.get(thread);
         }
 
+        if (SamplingProfiler.isEnabled()) {
+            SamplingProfiler.detachThread(thread);
+        }
         cleanupBeforeDetach(thread);
 
         setStatusIgnoreSafepointsAndLock();
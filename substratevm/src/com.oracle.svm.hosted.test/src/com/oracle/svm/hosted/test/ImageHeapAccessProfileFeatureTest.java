@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.svm.core.util.UserError.UserException;
+import com.oracle.svm.hosted.image.ImageHeapAccessProfileFeature;
+
+/**
+ * Checks that {@link ImageHeapAccessProfileFeature} resolves the pages of a recorded access trace
+ * to the objects of the image heap object map in the order in which the pages were accessed.
+ */
+public class ImageHeapAccessProfileFeatureTest {
+
+    private static final int PAGE_SIZE = 4096;
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("image-heap-access-profile-test");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /** Writes an object map in the format of the {@code -H:+TraceImageHeapAccess} report. */
+    private Path writeObjectMap() throws IOException {
+        return Files.write(directory.resolve("objects.txt"), Arrays.asList(
+                        "0\t2048\tjava.lang.Object[] root#1",
+                        /* Spans the first and the second page. */
+                        "800\t4096\tbyte[] root#1",
+                        "1800\t256\tbyte[] root#2",
+                        "2000\t16\thub java.lang.String#1",
+                        "3000\t16\tstring 1234#1"));
+    }
+
+    /** Writes a trace in the format of the {@code -XX:ImageHeapAccessTraceFile} output. */
+    private Path writeTrace(String... lines) throws IOException {
+        return Files.write(directory.resolve("trace.txt"), Arrays.asList(lines));
+    }
+
+    @Test
+    public void testAccessOrder() throws IOException {
+        Path objectMap = writeObjectMap();
+        Path trace = writeTrace("# Offsets of image heap pages in the order of their first access, page size " + PAGE_SIZE, "2000", "1000", "0");
+
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("hub java.lang.String#1", 0);
+        /* Objects that start on an earlier page are ordered by the first access to any page. */
+        expected.put("byte[] root#1", 1);
+        expected.put("byte[] root#2", 2);
+        expected.put("java.lang.Object[] root#1", 3);
+        assertEquals(expected, ImageHeapAccessProfileFeature.loadAccessOrder(trace.toString(), objectMap.toString()));
+    }
+
+    @Test
+    public void testEmptyTrace() throws IOException {
+        Path objectMap = writeObjectMap();
+        Path trace = writeTrace("# Offsets of image heap pages in the order of their first access, page size " + PAGE_SIZE);
+        assertTrue(ImageHeapAccessProfileFeature.loadAccessOrder(trace.toString(), objectMap.toString()).isEmpty());
+    }
+
+    @Test
+    public void testMissingPageSize() throws IOException {
+        Path objectMap = writeObjectMap();
+        Path trace = writeTrace("2000");
+        try {
+            ImageHeapAccessProfileFeature.loadAccessOrder(trace.toString(), objectMap.toString());
+            fail("a trace without a page size must be rejected");
+        } catch (UserException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("does not specify the page size"));
+        }
+    }
+}
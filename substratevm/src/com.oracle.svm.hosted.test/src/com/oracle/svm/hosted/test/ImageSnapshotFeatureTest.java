@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.test;
+
+// Checkstyle: allow reflection
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.ImageSnapshots;
+import org.graalvm.nativeimage.hosted.Feature.BeforeAnalysisAccess;
+import org.graalvm.nativeimage.impl.ImageSnapshotSupport;
+import org.graalvm.nativeimage.impl.RuntimeClassInitializationSupport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.svm.core.option.HostedOptionValues;
+import com.oracle.svm.core.option.LocatableMultiOptionValue;
+import com.oracle.svm.core.util.UserError.UserException;
+import com.oracle.svm.hosted.ImageSingletonsSupportImpl.HostedManagement;
+import com.oracle.svm.hosted.ImageSnapshotFeature;
+import com.oracle.svm.hosted.classinitialization.ClassInitializationSupport;
+
+/**
+ * Runs the {@link ImageSnapshotFeature} without an image build: the image singletons it needs are
+ * installed by the test, and the analysis access only resolves class names.
+ */
+public class ImageSnapshotFeatureTest {
+
+    public static final class Configuration {
+        final String name;
+        final Object[] values;
+
+        Configuration(String name, Object... values) {
+            this.name = name;
+            this.values = values;
+        }
+    }
+
+    public static final class OptionHook implements Supplier<Configuration> {
+        static int runs;
+
+        @Override
+        public Configuration get() {
+            runs++;
+            return new Configuration("from option");
+        }
+    }
+
+    public static final class RegisteredHook implements Supplier<Configuration> {
+        @Override
+        public Configuration get() {
+            /* Hooks can depend on the snapshots of other hooks. */
+            return new Configuration("registered", ImageSingletons.lookup(ImageSnapshotSupport.class).get(OptionHook.class));
+        }
+    }
+
+    /** Instances of this class are not allowed in the image heap. */
+    static final class InitializedAtRunTime {
+    }
+
+    public static final class DisallowedHook implements Supplier<Configuration> {
+        @Override
+        public Configuration get() {
+            return new Configuration("disallowed", "allowed", new InitializedAtRunTime());
+        }
+    }
+
+    private ImageSnapshotFeature feature;
+
+    @Before
+    public void setUp() {
+        OptionHook.runs = 0;
+        HostedManagement.installInThread(new HostedManagement());
+
+        EconomicMap<OptionKey<?>, Object> options = OptionValues.newOptionMap();
+        options.put(ImageSnapshotFeature.Options.ImageSnapshotHooks, new LocatableMultiOptionValue.Strings(Arrays.asList(OptionHook.class.getName())));
+        ImageSingletons.add(HostedOptionValues.class, new HostedOptionValues(options));
+        ImageSingletons.add(RuntimeClassInitializationSupport.class, createClassInitializationSupport());
+
+        feature = new ImageSnapshotFeature();
+        feature.afterRegistration(null);
+    }
+
+    @After
+    public void tearDown() {
+        HostedManagement.clearInThread();
+    }
+
+    private static ClassInitializationSupport createClassInitializationSupport() {
+        return (ClassInitializationSupport) Proxy.newProxyInstance(ClassInitializationSupport.class.getClassLoader(), new Class<?>[]{ClassInitializationSupport.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("shouldInitializeAtRuntime")) {
+                                return args[0] == InitializedAtRunTime.class;
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                        });
+    }
+
+    private static BeforeAnalysisAccess createBeforeAnalysisAccess() {
+        return (BeforeAnalysisAccess) Proxy.newProxyInstance(BeforeAnalysisAccess.class.getClassLoader(), new Class<?>[]{BeforeAnalysisAccess.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("findClassByName")) {
+                                try {
+                                    return Class.forName((String) args[0]);
+                                } catch (ClassNotFoundException e) {
+                                    return null;
+                                }
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                        });
+    }
+
+    private static ImageSnapshotSupport support() {
+        return ImageSingletons.lookup(ImageSnapshotSupport.class);
+    }
+
+    @Test
+    public void testRegistration() {
+        ImageSnapshots.register(RegisteredHook.class);
+        /* The hook of the option was run on demand by the registered hook. */
+        assertEquals(1, OptionHook.runs);
+
+        feature.beforeAnalysis(createBeforeAnalysisAccess());
+        ImageSnapshots.register(RegisteredHook.class);
+        assertEquals(1, OptionHook.runs);
+
+        Configuration fromOption = support().get(OptionHook.class);
+        assertEquals("from option", fromOption.name);
+        Configuration registered = support().get(RegisteredHook.class);
+        assertEquals("registered", registered.name);
+        assertSame(fromOption, registered.values[0]);
+    }
+
+    @Test
+    public void testSealedInBeforeAnalysis() {
+        feature.beforeAnalysis(createBeforeAnalysisAccess());
+        assertEquals(1, OptionHook.runs);
+        try {
+            ImageSnapshots.register(RegisteredHook.class);
+            fail("hooks must not be registered after the analysis started");
+        } catch (UserException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(RegisteredHook.class.getName()));
+            assertTrue(e.getMessage(), e.getMessage().contains("before the static analysis starts"));
+        }
+        try {
+            support().get(RegisteredHook.class);
+            fail("no snapshot expected for a hook that was not registered");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRejectDisallowedObject() {
+        try {
+            ImageSnapshots.register(DisallowedHook.class);
+            fail("snapshot references an instance of a class initialized at run time");
+        } catch (UserException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(DisallowedHook.class.getName()));
+            assertTrue(e.getMessage(), e.getMessage().contains(InitializedAtRunTime.class.getTypeName()));
+            assertTrue(e.getMessage(), e.getMessage().contains("snapshot.values[1]"));
+        }
+        /* A rejected hook leaves no snapshot behind. */
+        feature.beforeAnalysis(createBeforeAnalysisAccess());
+        try {
+            support().get(DisallowedHook.class);
+            fail("no snapshot expected for a rejected hook");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
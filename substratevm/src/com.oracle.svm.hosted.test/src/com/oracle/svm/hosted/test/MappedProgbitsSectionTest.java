@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.objectfile.MappedProgbitsSectionImpl;
+import com.oracle.objectfile.ObjectFile;
+import com.oracle.objectfile.ObjectFile.ProgbitsSectionImpl;
+import com.oracle.objectfile.ObjectFile.RelocationKind;
+import com.oracle.objectfile.ObjectFile.Section;
+import com.oracle.objectfile.elf.ELFMachine;
+import com.oracle.objectfile.elf.ELFObjectFile;
+import com.oracle.svm.hosted.image.RelocatableBuffer;
+
+public class MappedProgbitsSectionTest {
+
+    private static final int PAGE_SIZE = 4096;
+    private static final byte[] MARKER = "mapped-section-content".getBytes();
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("mapped-section-test");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testCreateMapped() throws IOException {
+        RelocatableBuffer buffer = RelocatableBuffer.createMapped(2 * PAGE_SIZE, ByteOrder.LITTLE_ENDIAN, directory);
+        assertFalse(buffer.hasBackingArray());
+        ByteBuffer byteBuffer = buffer.getByteBuffer();
+        assertTrue(byteBuffer.isDirect());
+        assertEquals(2 * PAGE_SIZE, byteBuffer.capacity());
+        assertEquals(ByteOrder.LITTLE_ENDIAN, byteBuffer.order());
+
+        /* The backing file is unlinked right away, the mapping stays usable. */
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+        byteBuffer.putLong(PAGE_SIZE + 8, 0x0102030405060708L);
+        assertEquals(0x0102030405060708L, byteBuffer.getLong(PAGE_SIZE + 8));
+        assertEquals(0L, byteBuffer.getLong(0));
+
+        buffer.addRelocationWithoutAddend(16, RelocationKind.DIRECT_8, "target");
+        assertTrue(buffer.hasRelocations());
+    }
+
+    @Test
+    public void testContentAccessors() throws IOException {
+        RelocatableBuffer buffer = RelocatableBuffer.createMapped(PAGE_SIZE, ByteOrder.LITTLE_ENDIAN, directory);
+        MappedProgbitsSectionImpl impl = new MappedProgbitsSectionImpl(buffer.getByteBuffer());
+        try {
+            impl.getContent();
+            fail("content of a mapped section must not be materialized");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            impl.setContent(new byte[PAGE_SIZE]);
+            fail("content of a mapped section must not be replaced");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWriteMappedSection() throws IOException {
+        ObjectFile objectFile = new ELFObjectFile(PAGE_SIZE, ELFMachine.X86_64);
+        RelocatableBuffer buffer = RelocatableBuffer.createMapped(PAGE_SIZE, objectFile.getByteOrder(), directory);
+        buffer.getByteBuffer().position(64);
+        buffer.getByteBuffer().put(MARKER);
+
+        ProgbitsSectionImpl impl = new MappedProgbitsSectionImpl(buffer.getByteBuffer());
+        Section section = objectFile.newProgbitsSection("mapped", PAGE_SIZE, true, false, impl);
+        objectFile.createDefinedSymbol(section.getName(), section, 0, 0, false, false);
+
+        /* Relocations can be marked both through the impl and through the section element. */
+        impl.markRelocationSite(0, RelocationKind.DIRECT_8, section.getName(), false, 8L);
+        ((ProgbitsSectionImpl) section).markRelocationSite(8, RelocationKind.DIRECT_8, section.getName(), false, 16L);
+
+        Path output = directory.resolve("output.o");
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            objectFile.write(channel);
+        }
+
+        /* The section content is copied from the mapped buffer into the page aligned section. */
+        byte[] written = Files.readAllBytes(output);
+        int sectionOffset = indexOf(written, MARKER) - 64;
+        assertTrue("section content not written", sectionOffset >= 0);
+        assertEquals(0, sectionOffset % PAGE_SIZE);
+        assertArrayEquals(new byte[64], Arrays.copyOfRange(written, sectionOffset, sectionOffset + 64));
+    }
+
+    private static int indexOf(byte[] array, byte[] pattern) {
+        outer: for (int i = 0; i <= array.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (array[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
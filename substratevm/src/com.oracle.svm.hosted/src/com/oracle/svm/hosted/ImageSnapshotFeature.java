@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.graalvm.compiler.options.Option;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.ImageSnapshots;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.impl.ImageSnapshotSupport;
+import org.graalvm.nativeimage.impl.RuntimeClassInitializationSupport;
+
+import com.oracle.svm.core.ImageSnapshotSupportImpl;
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.option.LocatableMultiOptionValue;
+import com.oracle.svm.core.option.SubstrateOptionsParser;
+import com.oracle.svm.core.util.UserError;
+import com.oracle.svm.hosted.classinitialization.ClassInitializationFeature;
+import com.oracle.svm.hosted.classinitialization.ClassInitializationSupport;
+
+/**
+ * Runs the startup hooks of {@link ImageSnapshots} during image generation and stores the returned
+ * objects in the image heap.
+ */
+@AutomaticFeature
+public class ImageSnapshotFeature implements Feature {
+
+    public static class Options {
+        @Option(help = "Comma-separated list of startup hooks, i.e., classes implementing java.util.function.Supplier, that are run during image generation. " +
+                        "The objects returned by the hooks are stored in the image heap and are available at run time via ImageSnapshots.get.")//
+        public static final HostedOptionKey<LocatableMultiOptionValue.Strings> ImageSnapshotHooks = new HostedOptionKey<>(new LocatableMultiOptionValue.Strings());
+    }
+
+    private ImageSnapshotSupportImpl support;
+    private ClassInitializationSupport classInitializationSupport;
+
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        classInitializationSupport = (ClassInitializationSupport) ImageSingletons.lookup(RuntimeClassInitializationSupport.class);
+        support = new ImageSnapshotSupportImpl(this::runHook);
+        ImageSingletons.add(ImageSnapshotSupport.class, support);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        Options.ImageSnapshotHooks.getValue().getValuesWithOrigins().forEach(entry -> {
+            for (String name : entry.getLeft().split(",")) {
+                Class<?> hook = access.findClassByName(name);
+                UserError.guarantee(hook != null, "Startup hook class %s not found (from %s).", name, entry.getRight());
+                UserError.guarantee(Supplier.class.isAssignableFrom(hook), "Startup hook class %s must implement %s (from %s).", name, Supplier.class.getName(), entry.getRight());
+                support.register((Class<? extends Supplier<?>>) hook);
+            }
+        });
+        /* The map of snapshots is scanned by the analysis, so it must not change any more. */
+        support.seal();
+    }
+
+    private Object runHook(Class<?> hook) {
+        Supplier<?> supplier;
+        try {
+            Constructor<?> constructor = hook.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            supplier = (Supplier<?>) constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw UserError.abort(e, "Cannot instantiate startup hook %s. The class must have a no-argument constructor.", hook.getName());
+        }
+
+        Object snapshot;
+        try {
+            snapshot = supplier.get();
+        } catch (Throwable t) {
+            throw UserError.abort(t, "Startup hook %s failed during image generation.", hook.getName());
+        }
+        UserError.guarantee(snapshot != null, "Startup hook %s returned null.", hook.getName());
+        checkSnapshot(hook, snapshot);
+        return snapshot;
+    }
+
+    /** The path from the snapshot root to an object, for error messages. */
+    private static final class Reference {
+        final Reference parent;
+        final String name;
+
+        Reference(Reference parent, String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return parent == null ? name : parent + (name.startsWith("[") ? "" : ".") + name;
+        }
+    }
+
+    /**
+     * Rejects snapshots that reference instances of classes that must be initialized at run time.
+     * The check for objects in the image heap would find these instances too, but only here we
+     * can tell the user which hook and which path of fields are responsible.
+     */
+    private void checkSnapshot(Class<?> hook, Object snapshot) {
+        Map<Object, Reference> visited = new IdentityHashMap<>();
+        ArrayDeque<Object> worklist = new ArrayDeque<>();
+        visited.put(snapshot, new Reference(null, "snapshot"));
+        worklist.push(snapshot);
+
+        while (!worklist.isEmpty()) {
+            Object object = worklist.pop();
+            Class<?> clazz = object.getClass();
+            Reference reference = visited.get(object);
+            if (classInitializationSupport.shouldInitializeAtRuntime(clazz)) {
+                throw UserError.abort("The snapshot of startup hook %s references an instance of %s, which is initialized at run time: %s. " +
+                                "Initialize the class at build time with %s, or do not keep such objects in the snapshot.",
+                                hook.getName(), clazz.getTypeName(), reference,
+                                SubstrateOptionsParser.commandArgument(ClassInitializationFeature.Options.ClassInitialization, clazz.getTypeName(), "initialize-at-build-time"));
+            }
+            if (object instanceof Class || object instanceof ClassLoader) {
+                /* Not part of the application state, and handled specially in the image heap. */
+                continue;
+            }
+
+            if (clazz.isArray()) {
+                if (!clazz.getComponentType().isPrimitive()) {
+                    int length = Array.getLength(object);
+                    for (int i = 0; i < length; i++) {
+                        push(worklist, visited, Array.get(object, i), reference, "[" + i + "]");
+                    }
+                }
+                continue;
+            }
+            for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                        continue;
+                    }
+                    Object value;
+                    try {
+                        field.setAccessible(true);
+                        value = field.get(object);
+                    } catch (RuntimeException | IllegalAccessException e) {
+                        /* Fields of JDK classes that are not open to us are checked by the image heap. */
+                        continue;
+                    }
+                    push(worklist, visited, value, reference, field.getName());
+                }
+            }
+        }
+    }
+
+    private static void push(ArrayDeque<Object> worklist, Map<Object, Reference> visited, Object value, Reference parent, String name) {
+        if (value != null && !visited.containsKey(value)) {
+            visited.put(value, new Reference(parent, name));
+            worklist.push(value);
+        }
+    }
+}
@@ -76,6 +76,12 @@ public class NativeImageOptions {
     @Option(help = "Print statistics of methods in native image heap")//
     public static final HostedOptionKey<Boolean> PrintMethodHistogram = new HostedOptionKey<>(false);
 
+    @Option(help = "Start the parse, inline and compile tasks of the largest methods first, estimated by their bytecode and graph sizes.")//
+    public static final HostedOptionKey<Boolean> SizeAwareCompileScheduling = new HostedOptionKey<>(true);
+
+    @Option(help = "Print the parallel efficiency of the parse, inline and compile stages.")//
+    public static final HostedOptionKey<Boolean> PrintCompileQueueEfficiency = new HostedOptionKey<>(false);
+
     @Option(help = "Print the sizes of the elements of the built image")//
     public static final HostedOptionKey<Boolean> PrintImageElementSizes = new HostedOptionKey<>(false);
 
@@ -85,6 +91,9 @@ public class NativeImageOptions {
     @Option(help = "Print features-specific information")//
     public static final HostedOptionKey<Boolean> PrintFeatures = new HostedOptionKey<>(false);
 
+    @Option(help = "Keep the image heap section in a memory-mapped temporary file instead of the Java heap while the image is written. Reduces the peak memory usage of the image builder for large images.")//
+    public static final HostedOptionKey<Boolean> MappedImageHeapSection = new HostedOptionKey<>(false);
+
     @Option(help = "Directory for temporary files generated during native image generation. If this option is specified, the temporary files are not deleted so that you can inspect them after native image generation")//
     public static final HostedOptionKey<String> TempDirectory = new HostedOptionKey<>("");
 
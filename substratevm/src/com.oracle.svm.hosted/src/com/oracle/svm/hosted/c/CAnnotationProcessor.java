@@ -109,12 +109,18 @@ public class CAnnotationProcessor {
                 return codeInfo;
             }
 
-            Path binary = compileQueryCode(queryFile);
-            if (nativeLibs.getErrors().size() > 0) {
-                return codeInfo;
+            String queryKey = null;
+            if (cache.isQueryResultCacheEnabled()) {
+                queryKey = CAnnotationProcessorCache.computeQueryKey(queryFile, getQueryCompilerOptions(), compilerInvoker);
             }
+            if (queryKey == null || !cache.getQueryResult(nativeLibs, codeInfo, queryKey)) {
+                Path binary = compileQueryCode(queryFile);
+                if (nativeLibs.getErrors().size() > 0) {
+                    return codeInfo;
+                }
 
-            makeQuery(cache, binary.toString());
+                makeQuery(cache, binary.toString(), queryKey);
+            }
             if (nativeLibs.getErrors().size() > 0) {
                 return codeInfo;
             }
@@ -125,7 +131,7 @@ public class CAnnotationProcessor {
         return codeInfo;
     }
 
-    private void makeQuery(CAnnotationProcessorCache cache, String binaryName) {
+    private void makeQuery(CAnnotationProcessorCache cache, String binaryName, String queryKey) {
         Process printingProcess = null;
         try {
             ProcessBuilder pb = new ProcessBuilder().command(binaryName).directory(tempDirectory.toFile());
@@ -135,6 +141,9 @@ public class CAnnotationProcessor {
                 if (CAnnotationProcessorCache.Options.NewCAPCache.getValue()) {
                     cache.put(codeInfo, lines);
                 }
+                if (queryKey != null && nativeLibs.getErrors().isEmpty()) {
+                    cache.putQueryResult(queryKey, lines);
+                }
             }
             printingProcess.waitFor();
         } catch (IOException ex) {
@@ -156,13 +165,17 @@ public class CAnnotationProcessor {
         }
         String fileName = fileNamePath.toString();
         Path binary = tempDirectory.resolve(compilerInvoker.asExecutableName(fileName.substring(0, fileName.lastIndexOf("."))));
+        compilerInvoker.compileAndParseError(SubstrateOptions.StrictQueryCodeCompilation.getValue(), getQueryCompilerOptions(), queryFile, binary, this::reportCompilerError);
+        return binary;
+    }
+
+    private List<String> getQueryCompilerOptions() {
         ArrayList<String> options = new ArrayList<>();
         options.addAll(codeCtx.getDirectives().getOptions());
         if (Platform.includedIn(Platform.LINUX.class)) {
             options.addAll(LibCBase.singleton().getAdditionalQueryCodeCompilerOptions());
         }
-        compilerInvoker.compileAndParseError(SubstrateOptions.StrictQueryCodeCompilation.getValue(), options, queryFile, binary, this::reportCompilerError);
-        return binary;
+        return options;
     }
 
     protected void reportCompilerError(ProcessBuilder current, Path queryFile, String line) {
@@ -31,12 +31,17 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 
 import com.oracle.svm.core.SubstrateUtil;
@@ -46,6 +51,7 @@ import org.graalvm.compiler.options.Option;
 import com.oracle.svm.core.option.HostedOptionKey;
 import com.oracle.svm.core.option.SubstrateOptionsParser;
 import com.oracle.svm.core.util.UserError;
+import com.oracle.svm.hosted.c.codegen.CCompilerInvoker;
 import com.oracle.svm.hosted.c.info.NativeCodeInfo;
 import com.oracle.svm.hosted.c.query.QueryResultParser;
 import org.graalvm.compiler.options.OptionKey;
@@ -66,6 +72,9 @@ import org.graalvm.nativeimage.Platform;
  * A CAP cache is just a directory with a file for each {@link NativeCodeInfo}, where the file is
  * pretty much the output of the "query" program generated by the CAnnotationProcessor.
  *
+ * In addition, query results can be kept in a {@linkplain Options#CAPQueryCacheDir query cache}
+ * that is updated automatically: its entries are keyed by the content of the query code, so a
+ * rebuild only compiles and runs the queries whose code changed.
  */
 public final class CAnnotationProcessorCache {
     private static final String FILE_EXTENSION = ".cap";
@@ -106,6 +115,10 @@ public final class CAnnotationProcessorCache {
         @Option(help = "Exit image generation after C Annotation Processor Cache creation.")//
         public static final HostedOptionKey<Boolean> ExitAfterCAPCache = new HostedOptionKey<>(false);
 
+        @Option(help = "Directory where results of the C Annotation Processor queries are cached across image builds. Unlike the CAP cache, entries are keyed by a hash of the query code, " +
+                        "the compiler options, and the C compiler, so a query is only compiled and executed again when one of them changed.")//
+        public static final HostedOptionKey<String> CAPQueryCacheDir = new HostedOptionKey<>("");
+
         @Option(help = "Output query code for target platform without executing it")//
         public static final HostedOptionKey<Boolean> ExitAfterQueryCodeGeneration = new HostedOptionKey<>(false);
 
@@ -113,8 +126,11 @@ public final class CAnnotationProcessorCache {
         public static final HostedOptionKey<String> QueryCodeDir = new HostedOptionKey<>("");
     }
 
+    private static final String QUERY_RESULT_FILE_EXTENSION = ".capq";
+
     private File cache;
     private File query;
+    private Path queryResultCache;
 
     public CAnnotationProcessorCache() {
         if ((Options.UseCAPCache.getValue() || Options.NewCAPCache.getValue())) {
@@ -139,6 +155,15 @@ public final class CAnnotationProcessorCache {
             }
         }
 
+        if (!Options.CAPQueryCacheDir.getValue().isEmpty()) {
+            queryResultCache = FileSystems.getDefault().getPath(Options.CAPQueryCacheDir.getValue()).toAbsolutePath();
+            try {
+                Files.createDirectories(queryResultCache);
+            } catch (IOException e) {
+                throw UserError.abort("Could not create C Annotation Processor query cache directory: %s", e.getMessage());
+            }
+        }
+
         if (Options.QueryCodeDir.hasBeenSet()) {
             Path queryPath = FileSystems.getDefault().getPath(Options.QueryCodeDir.getValue()).toAbsolutePath();
             query = queryPath.toFile();
@@ -186,6 +211,84 @@ public final class CAnnotationProcessorCache {
         }
     }
 
+    public boolean isQueryResultCacheEnabled() {
+        return queryResultCache != null;
+    }
+
+    /**
+     * Computes the key of a query result. The result of a query only depends on the query code, on
+     * the contents of all headers that it includes, and on how it is compiled. The included headers
+     * are listed by the preprocessor, so that a change of a user or system header invalidates the
+     * result. Returns null if the headers cannot be determined, in which case the query must not
+     * be cached.
+     */
+    public static String computeQueryKey(Path queryFile, List<String> compilerOptions, CCompilerInvoker compilerInvoker) {
+        List<Path> includedFiles = compilerInvoker.getIncludedFiles(compilerOptions, queryFile);
+        if (includedFiles == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(queryFile));
+            for (Path includedFile : includedFiles) {
+                digest.update((byte) 0);
+                digest.update(includedFile.toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(Files.readAllBytes(includedFile));
+            }
+            for (String option : compilerOptions) {
+                digest.update((byte) 0);
+                digest.update(option.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            digest.update(String.valueOf(compilerInvoker.compilerInfo.compilerPath).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(compilerInvoker.compilerInfo.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b & 0xFF));
+            }
+            return key.toString();
+        } catch (IOException e) {
+            /* An included file vanished, the query is executed without the cache. */
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw shouldNotReachHere(e);
+        }
+    }
+
+    /**
+     * Parses the cached result of the query with the given key into {@code nativeCodeInfo}.
+     * Returns false if there is no such result.
+     */
+    public boolean getQueryResult(NativeLibraries nativeLibs, NativeCodeInfo nativeCodeInfo, String key) {
+        Path file = queryResultCache.resolve(key + QUERY_RESULT_FILE_EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (InputStream is = Files.newInputStream(file)) {
+            QueryResultParser.parse(nativeLibs, nativeCodeInfo, is);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public void putQueryResult(String key, List<String> lines) {
+        /*
+         * Several image builds can share the cache directory, so the result is written to a
+         * temporary file first and then atomically moved to its final name.
+         */
+        Path file = queryResultCache.resolve(key + QUERY_RESULT_FILE_EXTENSION);
+        try {
+            Path tempFile = Files.createTempFile(queryResultCache, key, ".tmp");
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            /* The cache is only an optimization, the next build executes the query again. */
+        }
+    }
+
     private void clearCache() {
         try {
             final Path cachePath = cache.toPath();
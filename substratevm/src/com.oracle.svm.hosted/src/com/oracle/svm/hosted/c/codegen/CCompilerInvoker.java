@@ -132,6 +132,17 @@ public abstract class CCompilerInvoker {
             return compilingProcess.getInputStream();
         }
 
+        @Override
+        protected List<String> getIncludedFilesOptions(Path dependencyFile) {
+            return Arrays.asList("/Zs", "/showIncludes");
+        }
+
+        @Override
+        protected List<Path> parseIncludedFiles(List<String> output, Path dependencyFile) {
+            String prefix = "Note: including file:";
+            return output.stream().filter(line -> line.startsWith(prefix)).map(line -> Paths.get(line.substring(prefix.length()).trim())).collect(Collectors.toList());
+        }
+
         @Override
         protected List<String> getVersionInfoOptions() {
             return Collections.emptyList();
@@ -466,6 +477,66 @@ public abstract class CCompilerInvoker {
         }
     }
 
+    /**
+     * Returns all files that the preprocessor reads when compiling {@code source} with the given
+     * options, system headers included, or null if they cannot be determined.
+     */
+    public List<Path> getIncludedFiles(List<String> compileOptions, Path source) {
+        Path dependencyFile = tempDirectory.resolve(source.getFileName() + ".d");
+        List<String> options = new ArrayList<>(compileOptions);
+        options.addAll(getIncludedFilesOptions(dependencyFile));
+        Process preprocessingProcess = null;
+        try {
+            ProcessBuilder command = FileUtils.prepareCommand(createCompilerCommand(options, null, source.normalize()), tempDirectory);
+            command.redirectErrorStream(true);
+
+            FileUtils.traceCommand(command);
+
+            preprocessingProcess = command.start();
+            List<String> lines;
+            try (InputStream inputStream = preprocessingProcess.getInputStream()) {
+                lines = FileUtils.readAllLines(inputStream);
+                FileUtils.traceCommandOutput(lines);
+            }
+            if (preprocessingProcess.waitFor() != 0) {
+                return null;
+            }
+            /* Relative paths are relative to the working directory of the compiler. */
+            return parseIncludedFiles(lines, dependencyFile).stream().map(tempDirectory::resolve).collect(Collectors.toList());
+        } catch (InterruptedException ex) {
+            throw new InterruptImageBuilding("Interrupted during C-ABI query code preprocessing of " + source);
+        } catch (IOException ex) {
+            return null;
+        } finally {
+            if (preprocessingProcess != null) {
+                preprocessingProcess.destroy();
+            }
+        }
+    }
+
+    protected List<String> getIncludedFilesOptions(Path dependencyFile) {
+        return Arrays.asList("-M", "-MF", dependencyFile.toString());
+    }
+
+    /**
+     * Parses the make rule {@code target: source header...} that {@code -M} writes. Long rules are
+     * continued with a backslash at the end of the line, and spaces in file names are escaped.
+     */
+    protected List<Path> parseIncludedFiles(@SuppressWarnings("unused") List<String> output, Path dependencyFile) throws IOException {
+        StringBuilder rule = new StringBuilder();
+        for (String line : Files.readAllLines(dependencyFile)) {
+            rule.append(line.endsWith("\\") ? line.substring(0, line.length() - 1) : line).append(' ');
+        }
+        String prerequisites = rule.substring(rule.indexOf(": ") + 1).replace("\\ ", "\0");
+        List<Path> files = new ArrayList<>();
+        for (String file : prerequisites.trim().split("\\s+")) {
+            if (!file.isEmpty()) {
+                files.add(Paths.get(file.replace('\0', ' ')));
+            }
+        }
+        return files;
+    }
+
     private List<String> createStrictOptions(List<String> compileOptions) {
         ArrayList<String> strictCompileOptions = new ArrayList<>(compileStrictOptions());
         strictCompileOptions.addAll(compileOptions);
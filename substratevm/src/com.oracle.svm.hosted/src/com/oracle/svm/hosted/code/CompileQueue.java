@@ -40,6 +40,8 @@ import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.graalvm.collections.EconomicMap;
 import org.graalvm.compiler.api.replacements.Fold;
@@ -236,17 +238,39 @@ public class CompileQueue {
         }
     }
 
-    public class CompileTask implements DebugContextRunnable {
+    /**
+     * A task whose relative cost can be estimated before it runs. The tasks of a stage that are
+     * known when the stage starts are submitted in the order of decreasing cost, so that a few large
+     * methods do not end up running at the end of the stage while most workers are idle.
+     */
+    protected interface CostEstimatedTask extends DebugContextRunnable {
+        long getEstimatedCost();
+    }
+
+    private static long estimatedCost(DebugContextRunnable task) {
+        return task instanceof CostEstimatedTask ? ((CostEstimatedTask) task).getEstimatedCost() : 0;
+    }
+
+    private static final Comparator<DebugContextRunnable> LARGEST_FIRST = Comparator.comparingLong(CompileQueue::estimatedCost).reversed();
+
+    private static long graphSize(HostedMethod method) {
+        StructuredGraph graph = method.compilationInfo.getGraph();
+        return graph != null ? graph.getNodeCount() : 0;
+    }
+
+    public class CompileTask implements CostEstimatedTask {
 
         public final HostedMethod method;
         protected final CompileReason reason;
         protected final List<CompileReason> allReasons;
         public CompilationResult result;
         public final CompilationIdentifier compilationIdentifier;
+        private final long estimatedCost;
 
         public CompileTask(HostedMethod method, CompileReason reason) {
             this.method = method;
             this.reason = reason;
+            this.estimatedCost = graphSize(method);
             if (NativeImageOptions.PrintMethodHistogram.getValue()) {
                 this.allReasons = Collections.synchronizedList(new ArrayList<CompileReason>());
                 this.allReasons.add(reason);
@@ -268,16 +292,23 @@ public class CompileQueue {
         public Description getDescription() {
             return new Description(method, compilationIdentifier.toString(Verbosity.ID));
         }
+
+        @Override
+        public long getEstimatedCost() {
+            return estimatedCost;
+        }
     }
 
-    protected class TrivialInlineTask implements DebugContextRunnable {
+    protected class TrivialInlineTask implements CostEstimatedTask {
 
         private final HostedMethod method;
         private final Description description;
+        private final long estimatedCost;
 
         TrivialInlineTask(HostedMethod method) {
             this.method = method;
             this.description = new Description(method, method.getName());
+            this.estimatedCost = graphSize(method);
         }
 
         @Override
@@ -289,9 +320,14 @@ public class CompileQueue {
         public Description getDescription() {
             return description;
         }
+
+        @Override
+        public long getEstimatedCost() {
+            return estimatedCost;
+        }
     }
 
-    public class ParseTask implements DebugContextRunnable {
+    public class ParseTask implements CostEstimatedTask {
 
         protected final CompileReason reason;
         private final HostedMethod method;
@@ -312,6 +348,71 @@ public class CompileQueue {
         public Description getDescription() {
             return description;
         }
+
+        @Override
+        public long getEstimatedCost() {
+            /* No graph exists yet, so the bytecode size is the best estimate we have. */
+            return method.getCodeSize();
+        }
+    }
+
+    /**
+     * Compares the time spent in the tasks of a stage with the wall-clock time of the stage. A
+     * parallel efficiency well below 100% means that workers were idle for a significant part of
+     * the stage, e.g., because they waited for the compilation of a single large method.
+     */
+    private static final class StageTiming implements CompletionExecutor.Timing {
+        private final String stage;
+        private final int parallelism;
+        private final LongAdder numTasks = new LongAdder();
+        private final LongAdder taskNanos = new LongAdder();
+        private final AtomicLong longestTaskNanos = new AtomicLong();
+        private long wallNanos;
+        private long roundStartNanos;
+
+        StageTiming(String stage, int parallelism) {
+            this.stage = stage;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public long getPrintIntervalNanos() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public void addScheduled(DebugContextRunnable r) {
+        }
+
+        @Override
+        public void addCompleted(DebugContextRunnable r, long nanos) {
+            numTasks.increment();
+            taskNanos.add(nanos);
+            longestTaskNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        @Override
+        public void printHeader() {
+            /* The statistics are printed once for the whole stage, see report(). */
+        }
+
+        @Override
+        public void print() {
+        }
+
+        void startRound() {
+            roundStartNanos = System.nanoTime();
+        }
+
+        void endRound() {
+            wallNanos += System.nanoTime() - roundStartNanos;
+        }
+
+        void report() {
+            double efficiency = wallNanos == 0 ? 0 : 100d * taskNanos.sum() / ((double) wallNanos * parallelism);
+            System.out.format("%-8s tasks: %8d; wall time: %9.2f ms; task time: %9.2f ms; longest task: %9.2f ms; parallelism: %3d; parallel efficiency: %5.1f%%%n",
+                            stage, numTasks.sum(), wallNanos / 1e6, taskNanos.sum() / 1e6, longestTaskNanos.get() / 1e6, parallelism, efficiency);
+        }
     }
 
     public CompileQueue(DebugContext debug, FeatureHandler featureHandler, HostedUniverse universe, SharedRuntimeConfigurationBuilder runtimeConfigBuilder, Boolean deoptimizeAll,
@@ -471,16 +572,49 @@ public class CompileQueue {
         System.out.println("Number of deopt during calls entries       ; " + totalNumDuringCallEntryPoints);
     }
 
+    private StageTiming createStageTiming(String stage) {
+        if (!NativeImageOptions.PrintCompileQueueEfficiency.getValue() || executor.isSequential()) {
+            return null;
+        }
+        return new StageTiming(stage, executor.getExecutorService().getParallelism());
+    }
+
+    /**
+     * Starts the tasks posted so far, the largest ones first, and waits until all tasks of the
+     * stage, including the ones posted by other tasks, are completed.
+     */
+    private void runStage(StageTiming timing) throws InterruptedException {
+        if (timing != null) {
+            timing.startRound();
+        }
+        if (NativeImageOptions.SizeAwareCompileScheduling.getValue()) {
+            executor.start(LARGEST_FIRST);
+        } else {
+            executor.start();
+        }
+        executor.complete();
+        if (timing != null) {
+            timing.endRound();
+        }
+        executor.shutdown();
+    }
+
+    private static void reportStage(StageTiming timing) {
+        if (timing != null) {
+            timing.report();
+        }
+    }
+
     private void parseAll() throws InterruptedException {
-        executor.init();
+        StageTiming timing = createStageTiming("parse");
+        executor.init(timing);
 
         parseDeoptimizationTargetMethods();
         parseAheadOfTimeCompiledMethods();
 
         // calling start before marking methods for parsing summons evil daemons
-        executor.start();
-        executor.complete();
-        executor.shutdown();
+        runStage(timing);
+        reportStage(timing);
     }
 
     /**
@@ -544,22 +678,22 @@ public class CompileQueue {
             }
         }
 
+        StageTiming timing = createStageTiming("inline");
         int round = 0;
         do {
             inliningProgress = false;
             round++;
             try (Indent ignored = debug.logAndIndent("==== Trivial Inlining  round %d\n", round)) {
 
-                executor.init();
+                executor.init(timing);
                 universe.getMethods().stream().filter(method -> method.compilationInfo.getGraph() != null).forEach(method -> executor.execute(new TrivialInlineTask(method)));
 
                 universe.getMethods().stream().map(method -> method.compilationInfo.getDeoptTargetMethod()).filter(Objects::nonNull).forEach(
                                 deoptTargetMethod -> executor.execute(new TrivialInlineTask(deoptTargetMethod)));
-                executor.start();
-                executor.complete();
-                executor.shutdown();
+                runStage(timing);
             }
         } while (inliningProgress);
+        reportStage(timing);
     }
 
     @SuppressWarnings("try")
@@ -678,7 +812,8 @@ public class CompileQueue {
     }
 
     protected void compileAll() throws InterruptedException {
-        executor.init();
+        StageTiming timing = createStageTiming("compile");
+        executor.init(timing);
         universe.getMethods().stream()
                         .filter(method -> method.isEntryPoint() || CompilationInfoSupport.singleton().isForcedCompilation(method))
                         .forEach(method -> ensureCompiled(method, new EntryPointReason()));
@@ -688,9 +823,8 @@ public class CompileQueue {
                         .filter(deoptTargetMethod -> deoptTargetMethod != null)
                         .forEach(deoptTargetMethod -> ensureCompiled(deoptTargetMethod, new EntryPointReason()));
 
-        executor.start();
-        executor.complete();
-        executor.shutdown();
+        runStage(timing);
+        reportStage(timing);
     }
 
     protected void ensureParsed(HostedMethod method, CompileReason reason) {
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.image;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.core.common.NumUtil;
+import org.graalvm.compiler.options.Option;
+
+import com.oracle.graal.pointsto.reports.ReportUtils;
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.util.UserError;
+import com.oracle.svm.hosted.meta.HostedMethod;
+
+/**
+ * Determines the order of compiled methods in the text section from a method usage profile, so
+ * that the methods that are executed during startup and the hot methods are contiguous and cover
+ * as few pages, and therefore i-TLB entries, as possible.
+ *
+ * The profile is a text file with one method per line in the format {@code %H.%n(%P)}, optionally
+ * followed by whitespace and an invocation or sample count. Methods are placed in the order of the
+ * file, which is expected to list the methods executed during startup first, followed by the other
+ * hot methods in the order of decreasing hotness. All other methods follow in the default order.
+ * Lines starting with {@code #} are ignored.
+ */
+public final class CodeLayoutProfile {
+
+    public static class Options {
+        @Option(help = "Method usage profile that determines the order of methods in the text section, with startup and hot methods first.")//
+        public static final HostedOptionKey<String> CodeLayoutProfile = new HostedOptionKey<>("");
+    }
+
+    private static final String METHOD_FORMAT = "%H.%n(%P)";
+    private static final long SMALL_PAGE_SIZE = 4 * 1024;
+    private static final long LARGE_PAGE_SIZE = 2 * 1024 * 1024;
+
+    private CodeLayoutProfile() {
+    }
+
+    /**
+     * Returns the compilations in the order in which they should be placed in the text section,
+     * which is the iteration order of {@code compilations} if no profile is specified.
+     */
+    public static List<Entry<HostedMethod, CompilationResult>> computeLayoutOrder(Map<HostedMethod, CompilationResult> compilations, String imageName) {
+        List<Entry<HostedMethod, CompilationResult>> defaultOrder = new ArrayList<>(compilations.entrySet());
+        String profileFile = Options.CodeLayoutProfile.getValue();
+        if (profileFile.isEmpty()) {
+            return defaultOrder;
+        }
+        Map<String, Long> profile = loadProfile(profileFile);
+
+        Map<String, Entry<HostedMethod, CompilationResult>> compilationsByName = new HashMap<>();
+        for (Entry<HostedMethod, CompilationResult> entry : defaultOrder) {
+            compilationsByName.put(entry.getKey().format(METHOD_FORMAT), entry);
+        }
+
+        List<Entry<HostedMethod, CompilationResult>> profileOrder = new ArrayList<>(defaultOrder.size());
+        Set<HostedMethod> profiledMethods = new HashSet<>();
+        for (String name : profile.keySet()) {
+            Entry<HostedMethod, CompilationResult> entry = compilationsByName.get(name);
+            if (entry != null && profiledMethods.add(entry.getKey())) {
+                profileOrder.add(entry);
+            }
+        }
+        for (Entry<HostedMethod, CompilationResult> entry : defaultOrder) {
+            if (!profiledMethods.contains(entry.getKey())) {
+                profileOrder.add(entry);
+            }
+        }
+
+        String path = Paths.get(Paths.get(SubstrateOptions.Path.getValue()).toString(), "reports").toAbsolutePath().toString();
+        ReportUtils.report("code layout", path, "code_layout_" + imageName, "txt",
+                        out -> printReport(out, profile, profiledMethods, defaultOrder, profileOrder));
+        return profileOrder;
+    }
+
+    private static Map<String, Long> loadProfile(String profileFile) {
+        Map<String, Long> profile = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(profileFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                long count = parts.length > 1 ? Long.parseLong(parts[1]) : 0;
+                profile.merge(parts[0], count, Long::sum);
+            }
+        } catch (IOException | NumberFormatException ex) {
+            throw UserError.abort(ex, "Cannot read code layout profile %s", profileFile);
+        }
+        return profile;
+    }
+
+    private static void printReport(PrintWriter out, Map<String, Long> profile, Set<HostedMethod> profiledMethods,
+                    List<Entry<HostedMethod, CompilationResult>> defaultOrder, List<Entry<HostedMethod, CompilationResult>> profileOrder) {
+        long profiledCodeSize = 0;
+        for (Entry<HostedMethod, CompilationResult> entry : profileOrder) {
+            if (profiledMethods.contains(entry.getKey())) {
+                profiledCodeSize += entry.getValue().getTargetCodeSize();
+            }
+        }
+        out.printf("Profile entries:                  %d%n", profile.size());
+        out.printf("Profiled methods in image:        %d of %d compiled methods%n", profiledMethods.size(), profileOrder.size());
+        out.printf("Code size of profiled methods:    %d bytes%n", profiledCodeSize);
+        for (long pageSize : new long[]{SMALL_PAGE_SIZE, LARGE_PAGE_SIZE}) {
+            int before = countPagesSpanned(defaultOrder, profiledMethods, pageSize);
+            int after = countPagesSpanned(profileOrder, profiledMethods, pageSize);
+            out.printf("%7d KB pages spanned by profiled methods: %d with default order, %d with profile order (i-TLB reach %.1fx)%n",
+                            pageSize / 1024, before, after, after == 0 ? 1.0 : (double) before / after);
+        }
+    }
+
+    /** Simulates the layout of {@code order} and counts the pages that the given methods touch. */
+    private static int countPagesSpanned(List<Entry<HostedMethod, CompilationResult>> order, Set<HostedMethod> methods, long pageSize) {
+        Set<Long> pages = new HashSet<>();
+        long offset = 0;
+        for (Entry<HostedMethod, CompilationResult> entry : order) {
+            int codeSize = entry.getValue().getTargetCodeSize();
+            if (methods.contains(entry.getKey()) && codeSize > 0) {
+                for (long page = offset / pageSize; page <= (offset + codeSize - 1) / pageSize; page++) {
+                    pages.add(page);
+                }
+            }
+            offset = NumUtil.roundUp(offset + codeSize, SubstrateOptions.codeAlignment());
+        }
+        return pages.size();
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.image;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.graalvm.compiler.options.Option;
+import org.graalvm.nativeimage.hosted.Feature;
+
+import com.oracle.graal.pointsto.reports.ReportUtils;
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.heap.ImageHeapAccessTracer;
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.option.SubstrateOptionsParser;
+import com.oracle.svm.core.util.UserError;
+import com.oracle.svm.hosted.FeatureImpl.AfterHeapLayoutAccessImpl;
+import com.oracle.svm.hosted.FeatureImpl.BeforeImageWriteAccessImpl;
+import com.oracle.svm.hosted.image.NativeImageHeap.ObjectInfo;
+import com.oracle.svm.hosted.meta.HostedField;
+
+/**
+ * Places image heap objects in the order in which they were first accessed during a training run,
+ * so that the objects needed during startup are on as few pages as possible.
+ *
+ * A training image is built with {@code -H:+TraceImageHeapAccess}, which writes a map of the image
+ * heap objects to the reports directory and includes the {@link ImageHeapAccessTracer}. Running
+ * that image with {@code -XX:ImageHeapAccessTraceFile=<file>} records the order of first accesses
+ * to image heap pages. A later build then takes both files with {@code -H:ImageHeapAccessProfile}
+ * and {@code -H:ImageHeapAccessProfileObjectMap}.
+ *
+ * Objects are matched between builds by keys derived from their class, their root in the image
+ * heap and the order in which they were added to the heap. Hubs and strings are matched by name
+ * and contents, but the keys of other objects are only stable between builds of the same
+ * application, so the profile should be recorded again when the application changes.
+ */
+@AutomaticFeature
+public class ImageHeapAccessProfileFeature implements Feature {
+
+    public static class Options {
+        @Option(help = "Trace of the first accesses to image heap pages, recorded with -XX:ImageHeapAccessTraceFile, used to order image heap objects.")//
+        public static final HostedOptionKey<String> ImageHeapAccessProfile = new HostedOptionKey<>("");
+
+        @Option(help = "Image heap object map written by the -H:+TraceImageHeapAccess build of the image that recorded the -H:ImageHeapAccessProfile trace.")//
+        public static final HostedOptionKey<String> ImageHeapAccessProfileObjectMap = new HostedOptionKey<>("");
+    }
+
+    private static final String PAGE_SIZE_PREFIX = "page size ";
+
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return ImageHeapAccessTracer.Options.TraceImageHeapAccess.getValue() || !Options.ImageHeapAccessProfile.getValue().isEmpty();
+    }
+
+    @Override
+    public void afterHeapLayout(AfterHeapLayoutAccess a) {
+        String profile = Options.ImageHeapAccessProfile.getValue();
+        if (profile.isEmpty()) {
+            return;
+        }
+        String objectMap = Options.ImageHeapAccessProfileObjectMap.getValue();
+        if (objectMap.isEmpty()) {
+            throw UserError.abort("Option %s requires option %s", SubstrateOptionsParser.commandArgument(Options.ImageHeapAccessProfile, profile),
+                            SubstrateOptionsParser.commandArgument(Options.ImageHeapAccessProfileObjectMap, "<file>"));
+        }
+        Map<String, Integer> accessOrder = loadAccessOrder(profile, objectMap);
+
+        NativeImageHeap heap = ((AfterHeapLayoutAccessImpl) a).getHeap();
+        Map<ObjectInfo, String> keys = computeKeys(heap);
+        for (Map.Entry<ObjectInfo, String> entry : keys.entrySet()) {
+            Integer order = accessOrder.get(entry.getValue());
+            if (order != null) {
+                entry.getKey().setAccessOrder(order);
+            }
+        }
+    }
+
+    @Override
+    public void beforeImageWrite(BeforeImageWriteAccess a) {
+        if (!ImageHeapAccessTracer.Options.TraceImageHeapAccess.getValue()) {
+            return;
+        }
+        BeforeImageWriteAccessImpl access = (BeforeImageWriteAccessImpl) a;
+        Map<ObjectInfo, String> keys = computeKeys(access.getImage().getHeap());
+        List<ObjectInfo> objects = new ArrayList<>(keys.keySet());
+        objects.sort(Comparator.comparingLong(ObjectInfo::getOffset));
+
+        String path = Paths.get(Paths.get(SubstrateOptions.Path.getValue()).toString(), "reports").toAbsolutePath().toString();
+        ReportUtils.report("image heap object map", path, "image_heap_objects_" + access.getImageName(), "txt", out -> {
+            for (ObjectInfo info : objects) {
+                out.printf("%x\t%d\t%s%n", info.getOffset(), info.getSize(), keys.get(info));
+            }
+        });
+    }
+
+    /**
+     * Computes a key for each object in the heap that identifies the object in another build of
+     * the same application. Objects with the same class and root are distinguished by the order in
+     * which they were added to the heap.
+     */
+    private static Map<ObjectInfo, String> computeKeys(NativeImageHeap heap) {
+        List<ObjectInfo> objects = new ArrayList<>(heap.getObjects());
+        objects.sort(Comparator.comparingInt(ObjectInfo::getSequenceNumber));
+
+        Map<ObjectInfo, String> keys = new IdentityHashMap<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (ObjectInfo info : objects) {
+            String baseKey = computeBaseKey(info);
+            int occurrence = occurrences.merge(baseKey, 1, Integer::sum);
+            keys.put(info, baseKey + "#" + occurrence);
+        }
+        return keys;
+    }
+
+    private static String computeBaseKey(ObjectInfo info) {
+        Object object = info.getObject();
+        if (object instanceof DynamicHub) {
+            return "hub " + ((DynamicHub) object).getName();
+        } else if (object instanceof String) {
+            return "string " + Integer.toHexString(object.hashCode());
+        }
+        Object root = info.getReason();
+        while (root instanceof ObjectInfo) {
+            root = ((ObjectInfo) root).getReason();
+        }
+        String rootName = (root instanceof HostedField) ? ((HostedField) root).format("%H.%n") : String.valueOf(root);
+        String key = info.getClazz().toJavaName(true) + " " + rootName;
+        return key.replace('\n', ' ').replace('\r', ' ').replace('\t', ' ');
+    }
+
+    /**
+     * Resolves the pages in the access trace to the objects on those pages, and returns the keys of
+     * these objects mapped to the order of their first access. The objects on a page are ordered
+     * by their offset in the object map.
+     */
+    public static Map<String, Integer> loadAccessOrder(String profile, String objectMap) {
+        NavigableMap<Long, MapEntry> objectsByOffset = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(objectMap))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 3);
+                if (parts.length == 3) {
+                    objectsByOffset.put(Long.parseLong(parts[0], 16), new MapEntry(Long.parseLong(parts[1]), parts[2]));
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            throw UserError.abort(ex, "Cannot read image heap object map %s", objectMap);
+        }
+
+        Map<String, Integer> accessOrder = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(profile))) {
+            long pageSize = -1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    int index = line.indexOf(PAGE_SIZE_PREFIX);
+                    if (index >= 0) {
+                        pageSize = Long.parseLong(line.substring(index + PAGE_SIZE_PREFIX.length()).trim());
+                    }
+                    continue;
+                }
+                if (pageSize <= 0) {
+                    throw UserError.abort("Image heap access profile %s does not specify the page size", profile);
+                }
+                long pageBegin = Long.parseLong(line.trim(), 16);
+                long pageEnd = pageBegin + pageSize;
+                Long first = objectsByOffset.floorKey(pageBegin);
+                for (Map.Entry<Long, MapEntry> entry : objectsByOffset.subMap(first != null ? first : pageBegin, true, pageEnd, false).entrySet()) {
+                    if (entry.getKey() + entry.getValue().size > pageBegin) {
+                        accessOrder.putIfAbsent(entry.getValue().key, accessOrder.size());
+                    }
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            throw UserError.abort(ex, "Cannot read image heap access profile %s", profile);
+        }
+        return accessOrder;
+    }
+
+    private static final class MapEntry {
+        final long size;
+        final String key;
+
+        MapEntry(long size, String key) {
+            this.size = size;
+            this.key = key;
+        }
+    }
+}
@@ -89,7 +89,7 @@ public class LIRNativeImageCodeCache extends NativeImageCodeCache {
             // Assign a location to all methods.
             assert codeCacheSize == 0;
             HostedMethod firstMethod = null;
-            for (Entry<HostedMethod, CompilationResult> entry : compilations.entrySet()) {
+            for (Entry<HostedMethod, CompilationResult> entry : CodeLayoutProfile.computeLayoutOrder(compilations, imageName)) {
 
                 HostedMethod method = entry.getKey();
                 if (firstMethod == null) {
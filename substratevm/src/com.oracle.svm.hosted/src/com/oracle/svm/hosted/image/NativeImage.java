@@ -28,6 +28,7 @@ import static com.oracle.svm.core.SubstrateUtil.mangleName;
 import static com.oracle.svm.core.util.VMError.shouldNotReachHere;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.AnnotatedType;
@@ -67,6 +68,7 @@ import com.oracle.objectfile.BasicProgbitsSectionImpl;
 import com.oracle.objectfile.BuildDependency;
 import com.oracle.objectfile.LayoutDecision;
 import com.oracle.objectfile.LayoutDecisionMap;
+import com.oracle.objectfile.MappedProgbitsSectionImpl;
 import com.oracle.objectfile.ObjectFile;
 import com.oracle.objectfile.ObjectFile.Element;
 import com.oracle.objectfile.ObjectFile.ProgbitsSectionImpl;
@@ -88,6 +90,7 @@ import com.oracle.svm.core.c.CTypedef;
 import com.oracle.svm.core.c.CUnsigned;
 import com.oracle.svm.core.c.function.CEntryPointOptions.Publish;
 import com.oracle.svm.core.c.function.GraalIsolateHeader;
+import com.oracle.svm.core.c.libc.TemporaryBuildDirectoryProvider;
 import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.graal.code.CGlobalDataInfo;
 import com.oracle.svm.core.graal.code.CGlobalDataReference;
@@ -459,8 +462,9 @@ public abstract class NativeImage extends AbstractImage {
             // Dynamic linkers/loaders generally don't ensure any alignment to more than page
             // boundaries, so we take care of this ourselves in CommittedMemoryProvider, if we can.
             int alignment = objectFile.getPageSize();
-            RelocatableBuffer heapSectionBuffer = new RelocatableBuffer(heapLayout.getImageHeapSize(), objectFile.getByteOrder());
-            ProgbitsSectionImpl heapSectionImpl = new BasicProgbitsSectionImpl(heapSectionBuffer.getBackingArray());
+            RelocatableBuffer heapSectionBuffer = createHeapSectionBuffer(heapLayout.getImageHeapSize());
+            ProgbitsSectionImpl heapSectionImpl = heapSectionBuffer.hasBackingArray() ? new BasicProgbitsSectionImpl(heapSectionBuffer.getBackingArray())
+                            : new MappedProgbitsSectionImpl(heapSectionBuffer.getByteBuffer());
             heapSection = objectFile.newProgbitsSection(SectionName.SVM_HEAP.getFormatDependentName(objectFile.getFormat()), alignment, writable, false, heapSectionImpl);
             objectFile.createDefinedSymbol(heapSection.getName(), heapSection, 0, 0, false, false);
 
@@ -513,6 +517,24 @@ public abstract class NativeImage extends AbstractImage {
         // -Christian
     }
 
+    /**
+     * The image heap is by far the largest section. With
+     * {@link NativeImageOptions#MappedImageHeapSection} it is written into a memory-mapped temporary
+     * file and copied from there straight into the output file, so it never occupies the Java heap
+     * of the image builder.
+     */
+    private RelocatableBuffer createHeapSectionBuffer(long size) {
+        if (NativeImageOptions.MappedImageHeapSection.getValue()) {
+            Path directory = ImageSingletons.lookup(TemporaryBuildDirectoryProvider.class).getTemporaryBuildDirectory();
+            try {
+                return RelocatableBuffer.createMapped(size, objectFile.getByteOrder(), directory);
+            } catch (IOException ex) {
+                throw shouldNotReachHere(ex);
+            }
+        }
+        return new RelocatableBuffer(size, objectFile.getByteOrder());
+    }
+
     private boolean hasDuplicatedObjects(Collection<ObjectInfo> objects) {
         Set<ObjectInfo> deduplicated = Collections.newSetFromMap(new IdentityHashMap<>());
         for (ObjectInfo info : objects) {
@@ -526,7 +548,7 @@ public abstract class NativeImage extends AbstractImage {
             final int offset = entry.getKey();
             final RelocatableBuffer.Info info = entry.getValue();
 
-            assert ConfigurationValues.getTarget().arch instanceof AArch64 || checkEmbeddedOffset(sectionImpl, offset, info);
+            assert ConfigurationValues.getTarget().arch instanceof AArch64 || checkEmbeddedOffset(buffer, offset, info);
 
             // Figure out what kind of relocation site it is.
             if (info.getTargetObject() instanceof CFunctionPointer) {
@@ -549,8 +571,8 @@ public abstract class NativeImage extends AbstractImage {
         }
     }
 
-    private static boolean checkEmbeddedOffset(ProgbitsSectionImpl sectionImpl, final int offset, final RelocatableBuffer.Info info) {
-        final ByteBuffer dataBuf = ByteBuffer.wrap(sectionImpl.getContent()).order(sectionImpl.getElement().getOwner().getByteOrder());
+    private static boolean checkEmbeddedOffset(RelocatableBuffer buffer, final int offset, final RelocatableBuffer.Info info) {
+        final ByteBuffer dataBuf = buffer.getByteBuffer();
         if (info.getRelocationSize() == Long.BYTES) {
             long value = dataBuf.getLong(offset);
             assert value == 0 || value == 0xDEADDEADDEADDEADL : String.format("unexpected embedded offset: 0x%x, info: %s", value, info);
@@ -536,7 +536,7 @@ public final class NativeImageHeap implements ImageHeap {
 
     /** Add an object to the model of the native image heap. */
     private ObjectInfo addToImageHeap(Object object, HostedClass clazz, long size, int identityHashCode, Object reason) {
-        ObjectInfo info = new ObjectInfo(object, size, clazz, identityHashCode, reason);
+        ObjectInfo info = new ObjectInfo(object, size, clazz, identityHashCode, reason, objects.size());
         assert !objects.containsKey(object);
         objects.put(object, info);
         return info;
@@ -617,8 +617,10 @@ public final class NativeImageHeap implements ImageHeap {
         private final HostedClass clazz;
         private final long size;
         private final int identityHashCode;
+        private final int sequenceNumber;
         private ImageHeapPartition partition;
         private long offsetInPartition;
+        private int accessOrder;
         /**
          * For debugging only: the reason why this object is in the native image heap.
          *
@@ -628,14 +630,16 @@ public final class NativeImageHeap implements ImageHeap {
          */
         final Object reason;
 
-        ObjectInfo(Object object, long size, HostedClass clazz, int identityHashCode, Object reason) {
+        ObjectInfo(Object object, long size, HostedClass clazz, int identityHashCode, Object reason, int sequenceNumber) {
             this.object = object;
             this.clazz = clazz;
             this.partition = null;
             this.offsetInPartition = -1L;
+            this.accessOrder = -1;
             this.size = size;
             this.identityHashCode = identityHashCode;
             this.reason = reason;
+            this.sequenceNumber = sequenceNumber;
         }
 
         @Override
@@ -711,6 +715,26 @@ public final class NativeImageHeap implements ImageHeap {
             return identityHashCode;
         }
 
+        /** The position of this object in the order in which objects were added to the heap. */
+        public int getSequenceNumber() {
+            return sequenceNumber;
+        }
+
+        /** The reason why this object is in the heap, see {@link #reason}. */
+        public Object getReason() {
+            return reason;
+        }
+
+        @Override
+        public int getAccessOrder() {
+            return accessOrder;
+        }
+
+        public void setAccessOrder(int value) {
+            assert value >= 0;
+            this.accessOrder = value;
+        }
+
         @Override
         public String toString() {
             StringBuilder result = new StringBuilder(getObject().getClass().getName()).append(" -> ");
@@ -25,8 +25,14 @@
 
 package com.oracle.svm.hosted.image;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
@@ -40,7 +46,8 @@ import com.oracle.objectfile.ObjectFile;
 
 /**
  * Offers a {@link ByteBuffer} with additional support for marking relocation sites within the
- * buffer for later processing.
+ * buffer for later processing. The buffer is either backed by a byte array on the Java heap or, see
+ * {@link #createMapped}, by a memory-mapped temporary file.
  */
 public final class RelocatableBuffer {
     private final ByteBuffer byteBuffer;
@@ -52,6 +59,25 @@ public final class RelocatableBuffer {
         this.relocations = new TreeMap<>();
     }
 
+    private RelocatableBuffer(ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer;
+        this.relocations = new TreeMap<>();
+    }
+
+    /**
+     * Creates a buffer that is backed by a memory-mapped temporary file in {@code directory}. The
+     * content does not occupy the Java heap and the operating system can write it back to the file
+     * under memory pressure. The file is deleted right away, the mapping stays valid until the
+     * buffer is garbage collected.
+     */
+    public static RelocatableBuffer createMapped(long size, ByteOrder byteOrder, Path directory) throws IOException {
+        int intSize = NumUtil.safeToInt(size);
+        Path file = Files.createTempFile(directory, "section-", ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+            return new RelocatableBuffer(channel.map(MapMode.READ_WRITE, 0, intSize).order(byteOrder));
+        }
+    }
+
     public void addRelocationWithoutAddend(int key, ObjectFile.RelocationKind relocationKind, Object targetObject) {
         relocations.put(key, new Info(relocationKind, null, targetObject));
     }
@@ -68,6 +94,10 @@ public final class RelocatableBuffer {
         return Collections.unmodifiableSet(relocations.entrySet());
     }
 
+    public boolean hasBackingArray() {
+        return byteBuffer.hasArray();
+    }
+
     public byte[] getBackingArray() {
         return byteBuffer.array();
     }
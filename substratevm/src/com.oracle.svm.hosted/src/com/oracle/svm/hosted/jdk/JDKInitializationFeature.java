@@ -30,6 +30,7 @@ import org.graalvm.nativeimage.hosted.Feature;
 import org.graalvm.nativeimage.hosted.RuntimeClassInitialization;
 import org.graalvm.nativeimage.impl.RuntimeClassInitializationSupport;
 
+import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 
 @AutomaticFeature
@@ -132,5 +133,13 @@ public class JDKInitializationFeature implements Feature {
         // values properly. Otherwise the numbers generated will be fixed for each generated image.
         classInitSupport.rerunInitialization("java.lang.Math$RandomNumberGeneratorHolder", "Must not be initialized at build time in the final image.");
         classInitSupport.rerunInitialization("java.lang.StrictMath$RandomNumberGeneratorHolder", "Must not be initialized at build time in the final image.");
+
+        if (SubstrateOptions.UseLoom.getValue()) {
+            // The default scheduler of virtual threads is sized for the processors of the machine
+            // the image runs on, and the I/O pollers that unpark virtual threads blocked on
+            // sockets start their threads during class initialization.
+            classInitSupport.rerunInitialization("java.lang.VirtualThread", "Scheduler must be created for the run-time number of processors.");
+            classInitSupport.rerunInitialization("sun.nio.ch.Poller", "Poller threads must be started at run time.");
+        }
     }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test.jdk11;
+
+// Checkstyle: allow reflection
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Records the events of the flight recorder ({@code -H:+FlightRecorder}) into a file and checks
+ * that the file can be parsed by the JDK and contains the expected events.
+ */
+public class FlightRecorderTest {
+
+    private static final String FLIGHT_RECORDER = "com.oracle.svm.core.jfr.FlightRecorder";
+
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    public static class TestFeature implements Feature {
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess access) {
+            Class<?> flightRecorder = access.findClassByName(FLIGHT_RECORDER);
+            try {
+                RuntimeReflection.register(flightRecorder);
+                RuntimeReflection.register(flightRecorder.getDeclaredMethod("startRecording", String.class), flightRecorder.getDeclaredMethod("stopRecording"));
+            } catch (NoSuchMethodException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /** A type whose monitor is inflated by a contending thread. */
+    static final class Contended {
+    }
+
+    @Test
+    public void testRecording() throws Exception {
+        // Checkstyle: stop
+        Class<?> flightRecorder = Class.forName(FLIGHT_RECORDER);
+        // Checkstyle: resume
+        Method startRecording = flightRecorder.getDeclaredMethod("startRecording", String.class);
+        Method stopRecording = flightRecorder.getDeclaredMethod("stopRecording");
+        startRecording.setAccessible(true);
+        stopRecording.setAccessible(true);
+
+        Path file = Files.createTempFile("flight-recorder-test", ".jfr");
+        try {
+            startRecording.invoke(null, file.toString());
+            allocate();
+            System.gc();
+            contend();
+            stopRecording.invoke(null);
+
+            Map<String, List<RecordedEvent>> events = RecordingFile.readAllEvents(file).stream().collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+
+            List<RecordedEvent> gcs = events.get("jdk.GarbageCollection");
+            Assert.assertNotNull("No garbage collection events", gcs);
+            Assert.assertTrue(gcs.stream().anyMatch(e -> "java.lang.System.gc()".equals(e.getString("cause"))));
+
+            List<RecordedEvent> operations = events.get("jdk.ExecuteVMOperation");
+            Assert.assertNotNull("No VM operation events", operations);
+            Assert.assertTrue(operations.stream().anyMatch(e -> e.getBoolean("safepoint") && e.getString("operation") != null));
+
+            List<RecordedEvent> inflations = events.get("jdk.JavaMonitorInflate");
+            Assert.assertNotNull("No monitor inflation events", inflations);
+            Assert.assertTrue(inflations.stream().anyMatch(e -> Contended.class.getName().equals(e.getClass("monitorClass").getName())));
+
+            List<RecordedEvent> samples = events.get("jdk.ObjectAllocationSample");
+            Assert.assertNotNull("No allocation sample events", samples);
+            Assert.assertTrue(samples.stream().allMatch(e -> e.getLong("weight") > 0 && e.getClass("objectClass") != null));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Allocates far more than the allocation sample interval, which also triggers collections. */
+    private static void allocate() {
+        Object[] retained = new Object[16];
+        for (int i = 0; i < 64 * 1024; i++) {
+            retained[i % retained.length] = new byte[1024];
+        }
+        Assert.assertNotNull(retained[0]);
+    }
+
+    private static void contend() throws InterruptedException {
+        Contended contended = new Contended();
+        Thread contender;
+        synchronized (contended) {
+            contender = new Thread(() -> {
+                synchronized (contended) {
+                    // blocks until the main thread releases the monitor
+                }
+            });
+            contender.start();
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (contender.getState() != Thread.State.BLOCKED && contender.isAlive()) {
+                Assert.assertTrue("Thread did not block on the monitor", System.currentTimeMillis() < deadline);
+                Thread.sleep(1);
+            }
+        }
+        contender.join(TIMEOUT_MILLIS);
+    }
+}
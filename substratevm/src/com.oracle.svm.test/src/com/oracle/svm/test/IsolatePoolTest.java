@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.graalvm.nativeimage.Isolate;
+import org.graalvm.nativeimage.IsolatePool;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.Isolates;
+import org.graalvm.nativeimage.Isolates.CreateIsolateParameters;
+import org.graalvm.nativeimage.Isolates.IsolateException;
+import org.graalvm.word.WordFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IsolatePoolTest {
+
+    @Test
+    public void testAcquireAndRelease() throws InterruptedException {
+        try (IsolatePool pool = IsolatePool.create(2, CreateIsolateParameters.getDefault())) {
+            Assert.assertEquals(2, pool.getSize());
+            for (int i = 0; i < 5; i++) {
+                Isolate first = pool.acquire();
+                Isolate second = pool.acquire();
+                Assert.assertNotEquals(first.rawValue(), second.rawValue());
+
+                IsolateThread thread = Isolates.attachCurrentThread(first);
+                Assert.assertEquals(first.rawValue(), Isolates.getIsolate(thread).rawValue());
+                Isolates.detachThread(thread);
+
+                pool.release(first);
+                pool.release(second);
+            }
+        }
+    }
+
+    @Test
+    public void testCloseWakesWaitingThreads() throws InterruptedException {
+        IsolatePool pool = IsolatePool.create(1, CreateIsolateParameters.getDefault());
+        Isolate inUse = pool.acquire();
+
+        /* The pool is empty until the isolate is released, so these threads wait. */
+        int waiting = 3;
+        CountDownLatch started = new CountDownLatch(waiting);
+        List<AtomicReference<Throwable>> failures = new ArrayList<>();
+        Thread[] threads = new Thread[waiting];
+        for (int i = 0; i < waiting; i++) {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            failures.add(failure);
+            threads[i] = new Thread(() -> {
+                started.countDown();
+                try {
+                    pool.acquire();
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            threads[i].start();
+        }
+        started.await();
+        Thread.sleep(50);
+
+        pool.close();
+        for (int i = 0; i < waiting; i++) {
+            threads[i].join(10_000);
+            Assert.assertFalse("acquire still waits after close", threads[i].isAlive());
+            Throwable failure = failures.get(i).get();
+            Assert.assertTrue(String.valueOf(failure), failure instanceof IllegalStateException);
+        }
+        try {
+            pool.acquire();
+            Assert.fail("acquire must fail after close");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        /* Isolates that were in use during close are torn down on release. */
+        pool.release(inUse);
+    }
+
+    @Test
+    public void testCreationFailure() throws InterruptedException {
+        /* No isolate fits into this address space, so every creation fails. */
+        CreateIsolateParameters parameters = new CreateIsolateParameters.Builder().reservedAddressSpaceSize(WordFactory.unsigned(1L << 62)).build();
+        try (IsolatePool pool = IsolatePool.create(1, parameters)) {
+            /* Every failed attempt is reported, the pool keeps retrying in the background. */
+            for (int i = 0; i < 3; i++) {
+                try {
+                    pool.acquire();
+                    Assert.fail("isolate creation must fail");
+                } catch (IsolateException e) {
+                    // expected
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+// Checkstyle: allow reflection
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the monitor implementation, in particular the lightweight locking of objects with a
+ * monitor slot ({@code -H:+LightweightMonitors}).
+ */
+public class MonitorTest {
+
+    private static final String MONITOR_SUPPORT = "com.oracle.svm.core.monitor.MonitorSupport";
+
+    /** Number of objects a thread can lock without inflating their monitors. */
+    private static final int LIGHTWEIGHT_LOCKS_CAPACITY = 8;
+
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    public static class TestFeature implements Feature {
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess access) {
+            Class<?> monitorSupport = access.findClassByName(MONITOR_SUPPORT);
+            try {
+                RuntimeReflection.register(monitorSupport);
+                RuntimeReflection.register(monitorSupport.getMethod("singleton"),
+                                monitorSupport.getMethod("prepareRelockObject", Object.class),
+                                monitorSupport.getMethod("doRelockObject", Object.class, Object.class),
+                                monitorSupport.getMethod("monitorExit", Object.class));
+            } catch (NoSuchMethodException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /** A type that is used for synchronization and therefore gets a monitor slot. */
+    static final class Lockable {
+    }
+
+    @Test
+    public void testRecursiveEnterExit() throws InterruptedException {
+        Lockable lockable = new Lockable();
+        synchronized (lockable) {
+            synchronized (lockable) {
+                synchronized (lockable) {
+                    Assert.assertTrue(Thread.holdsLock(lockable));
+                }
+                Assert.assertTrue(Thread.holdsLock(lockable));
+            }
+            Assert.assertTrue(Thread.holdsLock(lockable));
+        }
+        Assert.assertFalse(Thread.holdsLock(lockable));
+        assertLockableByOtherThread(lockable);
+    }
+
+    @Test
+    public void testInflationWhileRecursivelyLocked() throws InterruptedException {
+        Lockable lockable = new Lockable();
+        AtomicBoolean entered = new AtomicBoolean();
+        Thread contender = new Thread(() -> {
+            synchronized (lockable) {
+                entered.set(true);
+            }
+        });
+        synchronized (lockable) {
+            synchronized (lockable) {
+                synchronized (lockable) {
+                    contender.start();
+                    // the contending thread inflates the monitor before it blocks
+                    awaitBlocked(contender);
+                }
+                Assert.assertTrue(Thread.holdsLock(lockable));
+                Assert.assertFalse(entered.get());
+            }
+            Assert.assertTrue(Thread.holdsLock(lockable));
+            Assert.assertFalse(entered.get());
+        }
+        Assert.assertFalse(Thread.holdsLock(lockable));
+        contender.join(TIMEOUT_MILLIS);
+        Assert.assertTrue(entered.get());
+        assertLockableByOtherThread(lockable);
+    }
+
+    @Test
+    public void testManyLockedObjects() throws InterruptedException {
+        Lockable[] lockables = new Lockable[LIGHTWEIGHT_LOCKS_CAPACITY * 2 + 1];
+        for (int i = 0; i < lockables.length; i++) {
+            lockables[i] = new Lockable();
+        }
+        lockAll(lockables, 0);
+        for (Lockable lockable : lockables) {
+            Assert.assertFalse(Thread.holdsLock(lockable));
+            assertLockableByOtherThread(lockable);
+        }
+    }
+
+    private static void lockAll(Lockable[] lockables, int index) {
+        if (index == lockables.length) {
+            for (Lockable lockable : lockables) {
+                Assert.assertTrue(Thread.holdsLock(lockable));
+            }
+            return;
+        }
+        synchronized (lockables[index]) {
+            // lock an already locked object again, in between other objects
+            synchronized (lockables[index / 2]) {
+                lockAll(lockables, index + 1);
+            }
+            Assert.assertTrue(Thread.holdsLock(lockables[index]));
+        }
+    }
+
+    @Test
+    public void testWaitNotify() throws InterruptedException {
+        Lockable lockable = new Lockable();
+        AtomicBoolean ready = new AtomicBoolean();
+        Thread notifier = new Thread(() -> {
+            synchronized (lockable) {
+                ready.set(true);
+                lockable.notifyAll();
+            }
+        });
+        synchronized (lockable) {
+            synchronized (lockable) {
+                notifier.start();
+                long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+                while (!ready.get() && System.currentTimeMillis() < deadline) {
+                    lockable.wait(TIMEOUT_MILLIS);
+                }
+                Assert.assertTrue(ready.get());
+                Assert.assertTrue(Thread.holdsLock(lockable));
+            }
+            Assert.assertTrue(Thread.holdsLock(lockable));
+            // notify without waiters
+            lockable.notify();
+        }
+        Assert.assertFalse(Thread.holdsLock(lockable));
+        notifier.join(TIMEOUT_MILLIS);
+        assertLockableByOtherThread(lockable);
+
+        Lockable unlocked = new Lockable();
+        try {
+            unlocked.notify();
+            Assert.fail("IllegalMonitorStateException expected");
+        } catch (IllegalMonitorStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testHoldsLock() throws InterruptedException {
+        Lockable lockable = new Lockable();
+        Assert.assertFalse(Thread.holdsLock(lockable));
+        synchronized (lockable) {
+            Assert.assertTrue(Thread.holdsLock(lockable));
+            AtomicBoolean heldByOther = new AtomicBoolean(true);
+            Thread other = new Thread(() -> heldByOther.set(Thread.holdsLock(lockable)));
+            other.start();
+            other.join(TIMEOUT_MILLIS);
+            Assert.assertFalse(heldByOther.get());
+        }
+        Assert.assertFalse(Thread.holdsLock(lockable));
+    }
+
+    /**
+     * Replicates the calls of the deoptimizer when it re-locks an object whose locking was
+     * eliminated in the deoptimized frame.
+     */
+    @Test
+    public void testRelockAfterDeoptimization() throws Exception {
+        // Checkstyle: stop
+        Class<?> monitorSupportClass = Class.forName(MONITOR_SUPPORT);
+        // Checkstyle: resume
+        Object monitorSupport = monitorSupportClass.getMethod("singleton").invoke(null);
+        Method prepareRelockObject = monitorSupportClass.getMethod("prepareRelockObject", Object.class);
+        Method doRelockObject = monitorSupportClass.getMethod("doRelockObject", Object.class, Object.class);
+        Method monitorExit = monitorSupportClass.getMethod("monitorExit", Object.class);
+
+        // recursive locking eliminated: the object is lightweight-locked by the current thread
+        Lockable locked = new Lockable();
+        synchronized (locked) {
+            synchronized (locked) {
+                doRelockObject.invoke(monitorSupport, locked, prepareRelockObject.invoke(monitorSupport, locked));
+                Assert.assertTrue(Thread.holdsLock(locked));
+                // the monitor exit of the re-locked frame
+                monitorExit.invoke(monitorSupport, locked);
+                Assert.assertTrue(Thread.holdsLock(locked));
+            }
+            Assert.assertTrue(Thread.holdsLock(locked));
+        }
+        Assert.assertFalse(Thread.holdsLock(locked));
+        assertLockableByOtherThread(locked);
+
+        // object rematerialized during deoptimization: the object is unlocked
+        Lockable rematerialized = new Lockable();
+        doRelockObject.invoke(monitorSupport, rematerialized, prepareRelockObject.invoke(monitorSupport, rematerialized));
+        Assert.assertTrue(Thread.holdsLock(rematerialized));
+        synchronized (rematerialized) {
+            Assert.assertTrue(Thread.holdsLock(rematerialized));
+        }
+        monitorExit.invoke(monitorSupport, rematerialized);
+        Assert.assertFalse(Thread.holdsLock(rematerialized));
+        assertLockableByOtherThread(rematerialized);
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (thread.getState() != Thread.State.BLOCKED) {
+            Assert.assertTrue("Thread did not block on the monitor", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void assertLockableByOtherThread(Lockable lockable) throws InterruptedException {
+        AtomicInteger locked = new AtomicInteger();
+        Thread other = new Thread(() -> {
+            synchronized (lockable) {
+                locked.incrementAndGet();
+            }
+        });
+        other.start();
+        other.join(TIMEOUT_MILLIS);
+        Assert.assertEquals("Monitor is still locked", 1, locked.get());
+    }
+}
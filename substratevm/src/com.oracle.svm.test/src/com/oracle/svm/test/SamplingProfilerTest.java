@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021, 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.graalvm.nativeimage.RuntimeOptions;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+//Checkstyle: stop
+import sun.misc.Signal;
+//Checkstyle: resume
+
+/**
+ * Checks the collapsed stacks of the sampling profiler. Requires an image that is built with
+ * {@code -H:+SamplingProfiler}, {@code -R:SamplingProfilerFile=<file>} and
+ * {@code -R:SamplingProfilerDumpSignal=<signal>}, so that profiling starts at startup and the test
+ * can request the profile collected so far.
+ */
+public class SamplingProfilerTest {
+
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    private static final long BURN_MILLIS = 500;
+
+    /** Keeps the result of {@link #burnCpu} alive. */
+    static volatile long sink;
+
+    @Test
+    public void testProfile() throws IOException, InterruptedException {
+        String file = getOption("SamplingProfilerFile");
+        String dumpSignal = getOption("SamplingProfilerDumpSignal");
+        Assume.assumeTrue("Sampling profiler not enabled", file != null && !file.isEmpty() && dumpSignal != null && !dumpSignal.isEmpty());
+
+        String frame = SamplingProfilerTest.class.getName() + ".burnCpu";
+        Path profile = Paths.get(file);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            sink += burnCpu(System.currentTimeMillis() + BURN_MILLIS);
+            Files.deleteIfExists(profile);
+            Signal.raise(new Signal(dumpSignal));
+            /* The profile is written asynchronously by the signal dispatcher thread. */
+            Thread.sleep(BURN_MILLIS / 5);
+            if (Files.exists(profile) && new String(Files.readAllBytes(profile), StandardCharsets.UTF_8).contains(frame)) {
+                break;
+            }
+            Assert.assertTrue("No sample in " + frame + " in profile " + file, System.currentTimeMillis() < deadline);
+        }
+    }
+
+    private static String getOption(String name) {
+        try {
+            return RuntimeOptions.get(name);
+        } catch (RuntimeException e) {
+            /* The option is not part of the image. */
+            return null;
+        }
+    }
+
+    /** Keeps the CPU busy in this method until the deadline. */
+    private static long burnCpu(long deadlineMillis) {
+        long value = 17;
+        while (System.currentTimeMillis() < deadlineMillis) {
+            for (int i = 0; i < 100_000; i++) {
+                value = value * 31 + (value >>> 7) + i;
+            }
+        }
+        return value;
+    }
+}
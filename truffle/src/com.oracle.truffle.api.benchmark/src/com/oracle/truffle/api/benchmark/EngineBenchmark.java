@@ -186,6 +186,28 @@ public class EngineBenchmark extends TruffleBenchmark {
         state.context.leave();
     }
 
+    @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+    public static class ContextEnterLeaveMultiThread {
+
+        final Context context = Context.create(TEST_LANGUAGE);
+
+        public ContextEnterLeaveMultiThread() {
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+
+    }
+
+    @Benchmark
+    @Threads(10)
+    public void enterLeaveContextMultiThread(ContextEnterLeaveMultiThread state) {
+        state.context.enter();
+        state.context.leave();
+    }
+
     @State(org.openjdk.jmh.annotations.Scope.Benchmark)
     public static class ContextLookupMultiThreadMultiContext {
         final Source source = Source.newBuilder(TEST_LANGUAGE, "1", CONTEXT_LOOKUP).buildLiteral();
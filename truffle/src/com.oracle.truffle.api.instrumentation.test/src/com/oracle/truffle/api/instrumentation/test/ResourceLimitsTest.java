@@ -393,6 +393,68 @@ public class ResourceLimitsTest {
         executorService.awaitTermination(100, TimeUnit.SECONDS);
     }
 
+    @Test
+    public void testParallelContextStatementLimitBatched() throws InterruptedException, ExecutionException {
+        final int limit = 10000;
+        final int batchSize = 100;
+        ResourceLimits limits = ResourceLimits.newBuilder().//
+                        statementLimit(limit, null).//
+                        build();
+        ExecutorService executorService = Executors.newFixedThreadPool(20);
+        List<Future<?>> futures = new ArrayList<>();
+        try (Context c = Context.newBuilder().resourceLimits(limits).allowExperimentalOptions(true).//
+                        option("engine.StatementLimitBatchSize", String.valueOf(batchSize)).build()) {
+            forceMultiThreading(executorService, c);
+            for (int i = 0; i < limit / batchSize / 2; i++) {
+                futures.add(executorService.submit(() -> {
+                    c.eval(statements(batchSize));
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            try {
+                for (int i = 0; i < limit; i++) {
+                    c.eval(statements(batchSize));
+                }
+                fail();
+            } catch (PolyglotException e) {
+                assertTrue(e.isCancelled());
+                assertTrue(e.isResourceExhausted());
+            }
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(100, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testParallelContextStatementResetLimitBatched() throws InterruptedException, ExecutionException {
+        final int limit = 1000;
+        final int batchSize = 100;
+        ResourceLimits limits = ResourceLimits.newBuilder().//
+                        statementLimit(limit, null).//
+                        build();
+        ExecutorService executorService = Executors.newFixedThreadPool(1);
+        try (Context c = Context.newBuilder().resourceLimits(limits).allowExperimentalOptions(true).//
+                        option("engine.StatementLimitBatchSize", String.valueOf(batchSize)).build()) {
+            forceMultiThreading(executorService, c);
+            // the current thread keeps half of its batch
+            c.eval(statements(batchSize / 2));
+            c.resetLimits();
+            // statements left in batches before the reset are dropped
+            c.eval(statements(limit));
+            try {
+                c.eval(statements(1));
+                fail();
+            } catch (PolyglotException e) {
+                assertTrue(e.isCancelled());
+                assertTrue(e.isResourceExhausted());
+            }
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(100, TimeUnit.SECONDS);
+    }
+
     @Test
     public void testParallelMultiContextStatementLimit() throws InterruptedException, ExecutionException {
         Engine engine = Engine.create();
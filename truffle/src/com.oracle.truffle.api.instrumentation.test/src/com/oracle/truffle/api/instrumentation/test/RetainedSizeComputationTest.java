@@ -95,6 +95,40 @@ public class RetainedSizeComputationTest {
         }
     }
 
+    @Test
+    public void testRetainedSizeIncremental() throws IOException {
+        Assume.assumeFalse(TruffleOptions.AOT);
+        Assume.assumeFalse(Truffle.getRuntime() instanceof DefaultTruffleRuntime);
+        try (Context context = Context.create()) {
+            TruffleInstrument.Env instrumentEnv = context.getEngine().getInstruments().get("InstrumentationUpdateInstrument").lookup(TruffleInstrument.Env.class);
+            context.initialize(InstrumentationTestLanguage.ID);
+            context.enter();
+            try {
+                for (int i = 0; i < 10000; i++) {
+                    defineFoobarFunction(context, i);
+                }
+                long fullRetainedSize = instrumentEnv.calculateContextHeapSize(instrumentEnv.getEnteredContext(), 16L * 1024L * 1024L, new AtomicBoolean(false));
+                int steps = 0;
+                long retainedSize;
+                do {
+                    retainedSize = instrumentEnv.calculateContextHeapSizeIncrementally(instrumentEnv.getEnteredContext(), 16L * 1024L * 1024L, 1000);
+                    steps++;
+                } while (retainedSize < 0);
+                Assert.assertTrue(steps > 1);
+                Assert.assertTrue(retainedSize > fullRetainedSize / 2);
+                Assert.assertTrue(retainedSize < fullRetainedSize * 2);
+                // A finished calculation is not continued, the next step starts a new one.
+                Assert.assertEquals(-1, instrumentEnv.calculateContextHeapSizeIncrementally(instrumentEnv.getEnteredContext(), 16L * 1024L * 1024L, 1));
+                // A different stopAtBytes value starts the calculation over.
+                long stoppedSize = instrumentEnv.calculateContextHeapSizeIncrementally(instrumentEnv.getEnteredContext(), 1024L, Integer.MAX_VALUE);
+                Assert.assertTrue(stoppedSize > 1024L);
+                Assert.assertTrue(stoppedSize < fullRetainedSize / 2);
+            } finally {
+                context.leave();
+            }
+        }
+    }
+
     @Test
     public void testRetainedSizeCanceledAtStart() throws IOException {
         try (Context context = Context.create()) {
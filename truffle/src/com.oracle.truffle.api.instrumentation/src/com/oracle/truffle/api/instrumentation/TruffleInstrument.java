@@ -1341,6 +1341,43 @@ public abstract class TruffleInstrument {
         public long calculateContextHeapSize(TruffleContext truffleContext, long stopAtBytes, AtomicBoolean cancelled) {
             return InstrumentAccessor.engineAccess().calculateContextHeapSize(InstrumentAccessor.langAccess().getPolyglotContext(truffleContext), stopAtBytes, cancelled);
         }
+
+        /**
+         * Performs a bounded step of an incremental calculation of the heap memory size retained
+         * by a polyglot context. Unlike
+         * {@link #calculateContextHeapSize(TruffleContext, long, AtomicBoolean)}, which traverses
+         * all objects retained by the context in one call, each call visits at most
+         * {@code maxObjects} objects, so that the cost of monitoring the heap size of a large
+         * context can be spread over time. The traversal state is kept by the context between
+         * calls. The first call starts a new calculation, and the call that completes it returns
+         * the calculated size. The next call starts a new calculation.
+         * <p>
+         * The traversal state retains the objects that are still to be visited until the
+         * calculation completes. It is discarded and the calculation is started over if a call
+         * passes a different {@code stopAtBytes} value than the call that started it. It is also
+         * discarded when the context is closed.
+         * <p>
+         * Objects that are allocated or become unreachable while a calculation is in progress may
+         * or may not be accounted for, so the result approximates the retained size. Concurrent
+         * calls for the same context contribute to the same calculation.
+         *
+         * @param truffleContext specifies the polyglot context for which retained size is
+         *            calculated.
+         * @param stopAtBytes when the calculated size exceeds stopAtBytes, calculation is stopped
+         *            and the size calculated up to that point is returned.
+         * @param maxObjects the maximum number of objects to visit in this step. Elements of an
+         *            object array are visited together with the array.
+         * @return calculated heap memory size retained by the specified polyglot context, or a
+         *         value greater than stopAtBytes if the calculated size is greater than
+         *         stopAtBytes, if the calculation finished with this step, or {@code -1} if it is
+         *         still in progress.
+         * @throws UnsupportedOperationException in case heap size calculation is not supported on
+         *             current runtime.
+         * @since 21.1
+         */
+        public long calculateContextHeapSizeIncrementally(TruffleContext truffleContext, long stopAtBytes, int maxObjects) {
+            return InstrumentAccessor.engineAccess().calculateContextHeapSizeIncrementally(InstrumentAccessor.langAccess().getPolyglotContext(truffleContext), stopAtBytes, maxObjects);
+        }
     }
 
     /**
@@ -157,6 +157,21 @@ final class AssertUtils {
                         formatValue(receiver), formatValue(arg));
     }
 
+    static boolean validArrayRange(Object receiver, byte[] array, int arrayOffset, int length) {
+        if (array == null) {
+            throw new NullPointerException(violationNonInteropArgument(receiver, array));
+        }
+        // A negative length is reported by the message itself.
+        assert length < 0 || (arrayOffset >= 0 && arrayOffset <= array.length - length) : violationArrayRange(receiver, array, arrayOffset, length);
+        return true;
+    }
+
+    private static String violationArrayRange(Object receiver, byte[] array, int arrayOffset, int length) {
+        return String.format("Pre-condition contract violation for receiver %s. " +
+                        "Array range [%d, %d + %d) is out of bounds for length %d.",
+                        formatValue(receiver), arrayOffset, arrayOffset, length, array.length);
+    }
+
     @SuppressWarnings("deprecation")
     static boolean isInteropValue(Object o) {
         return o instanceof com.oracle.truffle.api.TruffleException || o instanceof TruffleObject || o instanceof Boolean || o instanceof Byte || o instanceof Short || o instanceof Integer ||
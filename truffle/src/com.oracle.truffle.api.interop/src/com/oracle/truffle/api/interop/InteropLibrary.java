@@ -77,6 +77,7 @@ import static com.oracle.truffle.api.CompilerDirectives.shouldNotReachHere;
 import static com.oracle.truffle.api.interop.AssertUtils.assertString;
 import static com.oracle.truffle.api.interop.AssertUtils.preCondition;
 import static com.oracle.truffle.api.interop.AssertUtils.validArgument;
+import static com.oracle.truffle.api.interop.AssertUtils.validArrayRange;
 import static com.oracle.truffle.api.interop.AssertUtils.validArguments;
 import static com.oracle.truffle.api.interop.AssertUtils.validNonInteropArgument;
 import static com.oracle.truffle.api.interop.AssertUtils.validReturn;
@@ -1360,6 +1361,76 @@ public abstract class InteropLibrary extends Library {
         throw UnsupportedMessageException.create();
     }
 
+    /**
+     * Reads {@code length} bytes from the receiver object, starting at the given byte offset from
+     * the start of the buffer, into the {@code destination} array starting at
+     * {@code destinationOffset}.
+     * <p>
+     * This is the bulk variant of {@link #readBufferByte(Object, long)}. By default, it checks the
+     * bounds once and then reads the bytes one by one. Buffers backed by contiguous memory should
+     * export this message to copy the whole range at once.
+     * <p>
+     * The access is <em>not</em> guaranteed to be atomic. Therefore, this message is <em>not</em>
+     * thread-safe.
+     * <p>
+     * Invoking this message does not cause any observable side-effects, apart from writing to the
+     * destination array.
+     * <p>
+     * The caller must ensure that the destination range is valid, that is
+     * <code>destinationOffset >= 0 && destinationOffset <= destination.length - length</code>. The
+     * destination range is not validated by this message.
+     *
+     * @throws InvalidBufferOffsetException if and only if
+     *             <code>byteOffset < 0 || length < 0 || byteOffset > {@link #getBufferSize(Object)} - length</code>
+     * @throws UnsupportedMessageException if and only if {@link #hasBufferElements(Object)} returns
+     *             {@code false}
+     * @since 21.1
+     */
+    public void readBuffer(Object receiver, long byteOffset, byte[] destination, int destinationOffset, int length) throws UnsupportedMessageException, InvalidBufferOffsetException {
+        checkBufferRange(byteOffset, length, getBufferSize(receiver));
+        for (int i = 0; i < length; i++) {
+            destination[destinationOffset + i] = readBufferByte(receiver, byteOffset + i);
+        }
+    }
+
+    /**
+     * Writes {@code length} bytes from the {@code source} array, starting at
+     * {@code sourceOffset}, into the receiver object at the given byte offset from the start of
+     * the buffer.
+     * <p>
+     * This is the bulk variant of {@link #writeBufferByte(Object, long, byte)}. By default, it
+     * checks the bounds once and then writes the bytes one by one. Buffers backed by contiguous
+     * memory should export this message to copy the whole range at once.
+     * <p>
+     * The access is <em>not</em> guaranteed to be atomic. Therefore, this message is <em>not</em>
+     * thread-safe.
+     * <p>
+     * The caller must ensure that the source range is valid, that is
+     * <code>sourceOffset >= 0 && sourceOffset <= source.length - length</code>. The source range
+     * is not validated by this message.
+     *
+     * @throws InvalidBufferOffsetException if and only if
+     *             <code>byteOffset < 0 || length < 0 || byteOffset > {@link #getBufferSize(Object)} - length</code>
+     * @throws UnsupportedMessageException if and only if either {@link #hasBufferElements(Object)}
+     *             or {@link #isBufferWritable} returns {@code false}
+     * @since 21.1
+     */
+    public void writeBuffer(Object receiver, long byteOffset, byte[] source, int sourceOffset, int length) throws UnsupportedMessageException, InvalidBufferOffsetException {
+        if (!isBufferWritable(receiver)) {
+            throw UnsupportedMessageException.create();
+        }
+        checkBufferRange(byteOffset, length, getBufferSize(receiver));
+        for (int i = 0; i < length; i++) {
+            writeBufferByte(receiver, byteOffset + i, source[sourceOffset + i]);
+        }
+    }
+
+    private static void checkBufferRange(long byteOffset, int length, long bufferSize) throws InvalidBufferOffsetException {
+        if (byteOffset < 0 || length < 0 || byteOffset > bufferSize - length) {
+            throw InvalidBufferOffsetException.create(byteOffset, length);
+        }
+    }
+
     // endregion
 
     /**
@@ -3652,6 +3723,39 @@ public abstract class InteropLibrary extends Library {
             }
         }
 
+        @Override
+        public void readBuffer(Object receiver, long byteOffset, byte[] destination, int destinationOffset, int length) throws UnsupportedMessageException, InvalidBufferOffsetException {
+            assert preCondition(receiver);
+            assert validArrayRange(receiver, destination, destinationOffset, length);
+            try {
+                delegate.readBuffer(receiver, byteOffset, destination, destinationOffset, length);
+                assert delegate.hasBufferElements(receiver) : violationInvariant(receiver, byteOffset);
+            } catch (UnsupportedMessageException e) {
+                assert !delegate.hasBufferElements(receiver) : violationPost(receiver, e);
+                throw e;
+            } catch (InteropException e) {
+                assert e instanceof InvalidBufferOffsetException : violationPost(receiver, e);
+                throw e;
+            }
+        }
+
+        @Override
+        public void writeBuffer(Object receiver, long byteOffset, byte[] source, int sourceOffset, int length) throws UnsupportedMessageException, InvalidBufferOffsetException {
+            assert preCondition(receiver);
+            assert validArrayRange(receiver, source, sourceOffset, length);
+            try {
+                delegate.writeBuffer(receiver, byteOffset, source, sourceOffset, length);
+                assert delegate.hasBufferElements(receiver) : violationInvariant(receiver, byteOffset);
+                assert delegate.isBufferWritable(receiver) : violationInvariant(receiver, byteOffset);
+            } catch (UnsupportedMessageException e) {
+                assert !delegate.hasBufferElements(receiver) || !delegate.isBufferWritable(receiver) : violationPost(receiver, e);
+                throw e;
+            } catch (InteropException e) {
+                assert e instanceof InvalidBufferOffsetException : violationPost(receiver, e);
+                throw e;
+            }
+        }
+
         // endregion
 
         @Override
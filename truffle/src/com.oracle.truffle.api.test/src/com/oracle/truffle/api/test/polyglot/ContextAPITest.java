@@ -63,6 +63,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -1043,6 +1045,112 @@ public class ContextAPITest extends AbstractPolyglotTest {
         assertFails(() -> fnc.execute(), IllegalStateException.class);
     }
 
+    @Test
+    public void testSubmitAndExecuteAsync() throws Exception {
+        Context c = Context.create();
+        Thread testThread = Thread.currentThread();
+        Value add = c.asValue(new ProxyExecutable() {
+            @Override
+            public Object execute(Value... arguments) {
+                assertNotSame(testThread, Thread.currentThread());
+                return arguments[0].asInt() + arguments[1].asInt();
+            }
+        });
+        Value fail = c.asValue(new ProxyExecutable() {
+            @Override
+            public Object execute(Value... arguments) {
+                throw new IllegalArgumentException("async failure");
+            }
+        });
+
+        assertEquals(42, add.executeAsync(40, 2).get().asInt());
+        assertEquals(3, (int) c.submit(() -> add.execute(1, 2).asInt()).get());
+        assertEquals("foo", c.submit(() -> c.asValue("foo").asString()).get());
+
+        try {
+            fail.executeAsync().get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PolyglotException);
+            assertTrue(((PolyglotException) e.getCause()).isHostException());
+        }
+
+        // tasks run one after the other in submission order
+        List<Integer> order = new ArrayList<>();
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int index = i;
+            futures.add(c.submit(() -> order.add(index)));
+        }
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), order);
+
+        c.close();
+        assertFails(() -> c.submit(() -> null), IllegalStateException.class);
+        assertFails(() -> add.executeAsync(1, 2), IllegalStateException.class);
+    }
+
+    @Test
+    public void testSubmitCancel() throws Exception {
+        try (Context c = Context.create()) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch interrupted = new CountDownLatch(1);
+            Value block = c.asValue(new ProxyExecutable() {
+                @Override
+                public Object execute(Value... arguments) {
+                    started.countDown();
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return null;
+                }
+            });
+
+            CountDownLatch otherStarted = new CountDownLatch(1);
+            CountDownLatch otherRelease = new CountDownLatch(1);
+            Value other = c.asValue(new ProxyExecutable() {
+                @Override
+                public Object execute(Value... arguments) {
+                    otherStarted.countDown();
+                    try {
+                        otherRelease.await();
+                        return true;
+                    } catch (InterruptedException e) {
+                        return false;
+                    }
+                }
+            });
+            ExecutorService otherThread = Executors.newSingleThreadExecutor();
+            Future<Boolean> otherResult = otherThread.submit(() -> other.execute().asBoolean());
+
+            Future<Value> running = block.executeAsync();
+            Future<Value> pending = c.submit(() -> c.asValue(42));
+            started.await();
+            otherStarted.await();
+
+            // a task that did not start yet is never executed
+            assertTrue(pending.cancel(true));
+            assertTrue(pending.isCancelled());
+
+            // cancelling the running task interrupts the carrier thread only
+            assertTrue(running.cancel(true));
+            assertTrue(running.isCancelled());
+            assertTrue(interrupted.await(100, TimeUnit.SECONDS));
+            otherRelease.countDown();
+            assertTrue(otherResult.get());
+            otherThread.shutdown();
+            assertFails(() -> running.get(), CancellationException.class);
+            assertFails(() -> pending.get(), CancellationException.class);
+
+            // the context stays usable after the cancellation
+            assertEquals(42, c.submit(() -> c.asValue(42).asInt()).get(10, TimeUnit.SECONDS).intValue());
+        }
+    }
+
     @Test
     public void testDefaultContextClassLoader() {
         ClassLoader orig = Thread.currentThread().getContextClassLoader();
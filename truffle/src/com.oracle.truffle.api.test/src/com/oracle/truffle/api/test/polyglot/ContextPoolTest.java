@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.test.polyglot;
+
+import static com.oracle.truffle.api.test.polyglot.AbstractPolyglotTest.assertFails;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.ContextPool;
+import org.graalvm.polyglot.Engine;
+import org.junit.After;
+import org.junit.Test;
+
+import com.oracle.truffle.api.TruffleContext;
+import com.oracle.truffle.api.test.polyglot.ProxyLanguage.LanguageContext;
+
+public class ContextPoolTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger reset = new AtomicInteger();
+
+    @After
+    public void cleanup() {
+        ProxyLanguage.setDelegate(new ProxyLanguage());
+    }
+
+    private void setupLanguage(boolean resettable) {
+        ProxyLanguage language = new ProxyLanguage() {
+            @Override
+            protected boolean resetContext(LanguageContext context) {
+                reset.incrementAndGet();
+                return resettable;
+            }
+        };
+        language.setOnCreate((c) -> created.incrementAndGet());
+        ProxyLanguage.setDelegate(language);
+    }
+
+    @Test
+    public void testReuse() {
+        setupLanguage(true);
+        try (Engine engine = Engine.create();
+                        ContextPool pool = ContextPool.newBuilder(Context.newBuilder().engine(engine)).initialize(ProxyLanguage.ID).build()) {
+            Context c0 = pool.acquire();
+            assertEquals(1, created.get());
+            c0.getPolyglotBindings().putMember("foo", 42);
+            pool.release(c0);
+            assertEquals(1, reset.get());
+
+            Context c1 = pool.acquire();
+            assertSame(c0, c1);
+            assertEquals(1, created.get());
+            assertFalse(c1.getPolyglotBindings().hasMember("foo"));
+            pool.release(c1);
+        }
+    }
+
+    @Test
+    public void testNotResettable() {
+        setupLanguage(false);
+        try (ContextPool pool = ContextPool.newBuilder(Context.newBuilder()).initialize(ProxyLanguage.ID).build()) {
+            Context c0 = pool.acquire();
+            pool.release(c0);
+            assertEquals(1, reset.get());
+            assertFails(() -> c0.initialize(ProxyLanguage.ID), IllegalStateException.class);
+
+            Context c1 = pool.acquire();
+            assertNotSame(c0, c1);
+            assertEquals(2, created.get());
+            pool.release(c1);
+        }
+    }
+
+    @Test
+    public void testPrewarmAndMaxIdle() {
+        setupLanguage(true);
+        try (ContextPool pool = ContextPool.newBuilder(Context.newBuilder()).initialize(ProxyLanguage.ID).maxIdle(2).prewarm(2).build()) {
+            assertEquals(2, created.get());
+            Context c0 = pool.acquire();
+            Context c1 = pool.acquire();
+            Context c2 = pool.acquire();
+            assertEquals(3, created.get());
+            pool.release(c0);
+            pool.release(c1);
+            pool.release(c2);
+            // the pool is full, the last released context is closed
+            assertFails(() -> c2.initialize(ProxyLanguage.ID), IllegalStateException.class);
+            Context c3 = pool.acquire();
+            assertSame(c1, c3);
+            pool.release(c3);
+        }
+    }
+
+    @Test
+    public void testReleaseClosedOrCancelled() {
+        setupLanguage(true);
+        try (ContextPool pool = ContextPool.newBuilder(Context.newBuilder()).initialize(ProxyLanguage.ID).build()) {
+            Context c0 = pool.acquire();
+            c0.close();
+            pool.release(c0);
+
+            Context c1 = pool.acquire();
+            assertNotSame(c0, c1);
+            c1.close(true);
+            pool.release(c1);
+
+            Context c2 = pool.acquire();
+            assertNotSame(c1, c2);
+            assertEquals(3, created.get());
+            assertEquals(0, reset.get());
+            pool.release(c2);
+        }
+    }
+
+    @Test
+    public void testInnerContextsClosed() {
+        setupLanguage(true);
+        try (ContextPool pool = ContextPool.newBuilder(Context.newBuilder()).initialize(ProxyLanguage.ID).build()) {
+            Context c0 = pool.acquire();
+            c0.enter();
+            TruffleContext inner = ProxyLanguage.getCurrentContext().getEnv().newContextBuilder().build();
+            c0.leave();
+            pool.release(c0);
+            assertTrue(inner.isClosed());
+
+            Context c1 = pool.acquire();
+            assertSame(c0, c1);
+            pool.release(c1);
+        }
+    }
+
+    @Test
+    public void testReleaseActive() {
+        setupLanguage(true);
+        try (ContextPool pool = ContextPool.newBuilder(Context.newBuilder()).initialize(ProxyLanguage.ID).build()) {
+            Context c0 = pool.acquire();
+            c0.enter();
+            assertFails(() -> pool.release(c0), IllegalStateException.class);
+            c0.leave();
+            pool.release(c0);
+            assertEquals(1, reset.get());
+        }
+    }
+
+    @Test
+    public void testReleaseUnknown() {
+        setupLanguage(true);
+        try (ContextPool pool = ContextPool.newBuilder(Context.newBuilder()).initialize(ProxyLanguage.ID).build();
+                        ContextPool otherPool = ContextPool.newBuilder(Context.newBuilder()).build();
+                        Context context = Context.create()) {
+            assertFails(() -> pool.release(context), IllegalArgumentException.class);
+
+            Context c0 = otherPool.acquire();
+            assertFails(() -> pool.release(c0), IllegalArgumentException.class);
+            otherPool.release(c0);
+
+            Context c1 = pool.acquire();
+            pool.release(c1);
+            assertFails(() -> pool.release(c1), IllegalArgumentException.class);
+            assertEquals(1, reset.get());
+        }
+    }
+
+    @Test
+    public void testClose() {
+        setupLanguage(true);
+        ContextPool pool = ContextPool.newBuilder(Context.newBuilder()).initialize(ProxyLanguage.ID).prewarm(1).build();
+        Context c0 = pool.acquire();
+        Context c1 = pool.acquire();
+        pool.release(c0);
+        pool.close();
+        assertFails(() -> c0.initialize(ProxyLanguage.ID), IllegalStateException.class);
+        assertFails(() -> pool.acquire(), IllegalStateException.class);
+
+        // contexts acquired before the close are closed when released
+        pool.release(c1);
+        assertFails(() -> c1.initialize(ProxyLanguage.ID), IllegalStateException.class);
+        assertFails(() -> ContextPool.newBuilder(Context.newBuilder()).maxIdle(0), IllegalArgumentException.class);
+    }
+}
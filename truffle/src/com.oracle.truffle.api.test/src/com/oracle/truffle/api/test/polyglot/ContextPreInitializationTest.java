@@ -48,8 +48,10 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
@@ -67,6 +69,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -87,6 +90,7 @@ import org.graalvm.polyglot.Value;
 import org.graalvm.polyglot.io.FileSystem;
 import org.junit.After;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -99,6 +103,7 @@ import com.oracle.truffle.api.TruffleContext;
 import com.oracle.truffle.api.TruffleFile;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.TruffleLanguage.Env;
+import com.oracle.truffle.api.TruffleOptions;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.instrumentation.ContextsListener;
 import com.oracle.truffle.api.instrumentation.EventBinding;
@@ -802,6 +807,62 @@ public class ContextPreInitializationTest {
         assertEquals(1, internalLangCtx2.disposeThreadCount);
     }
 
+    @Test
+    public void testBackgroundPreInitialization() throws Exception {
+        Assume.assumeFalse("Cannot start a Java VM", TruffleOptions.AOT);
+        // the background pre-initialization is started when the polyglot implementation is loaded
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!arg.startsWith("-agentlib:jdwp") && !arg.startsWith("-Xrunjdwp")) {
+                command.add(arg);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Dpolyglot.engine.PreinitializeContextsInBackground=" + FIRST);
+        command.add(BackgroundPreInitialization.class.getName());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+        }
+        assertTrue(process.waitFor(5, TimeUnit.MINUTES));
+        assertEquals(new String(output.toByteArray(), "UTF-8"), 0, process.exitValue());
+    }
+
+    /**
+     * Started in a new VM by {@link ContextPreInitializationTest#testBackgroundPreInitialization()}.
+     */
+    public static final class BackgroundPreInitialization {
+
+        public static void main(String[] args) throws Exception {
+            setPatchable(FIRST);
+            // waits for the background pre-initialization and patches the pre-initialized context
+            try (Context ctx = Context.create()) {
+                List<CountingContext> contexts = new ArrayList<>(emittedContexts);
+                assertEquals(1, contexts.size());
+                final CountingContext firstLangCtx = findContext(FIRST, contexts);
+                assertNotNull(firstLangCtx);
+                assertEquals(1, firstLangCtx.createContextCount);
+                assertEquals(1, firstLangCtx.initializeContextCount);
+                assertEquals(1, firstLangCtx.patchContextCount);
+                Value res = ctx.eval(Source.create(FIRST, "test"));
+                assertEquals("test", res.asString());
+                assertEquals(1, new ArrayList<>(emittedContexts).size());
+            }
+            // only the first context uses the pre-initialized context
+            try (Context ctx = Context.create()) {
+                ctx.eval(Source.create(FIRST, "test"));
+                assertEquals(2, new ArrayList<>(emittedContexts).size());
+            }
+        }
+    }
+
     @Test
     public void testSingleLanguageExceptionFromContextPatch() throws Exception {
         setPatchable(FIRST);
@@ -1699,6 +1760,7 @@ public class ContextPreInitializationTest {
         }
     }
 
+
     private static Collection<? extends CountingContext> findContexts(
                     final String languageId,
                     Collection<? extends CountingContext> contexts) {
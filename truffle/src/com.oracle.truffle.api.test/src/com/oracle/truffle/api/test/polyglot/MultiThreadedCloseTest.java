@@ -45,13 +45,20 @@ import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleLanguage.Env;
 import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.source.Source;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -112,6 +119,90 @@ public class MultiThreadedCloseTest extends AbstractPolyglotTest {
         context.eval(ProxyLanguage.ID, "");
     }
 
+    private static final int ENTER_LEAVE_THREADS = 4;
+
+    @Test
+    public void testEnterLeaveRacingClose() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            Context c = Context.create();
+            ExecutorService executor = Executors.newFixedThreadPool(ENTER_LEAVE_THREADS);
+            try {
+                CountDownLatch entered = new CountDownLatch(ENTER_LEAVE_THREADS);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int j = 0; j < ENTER_LEAVE_THREADS; j++) {
+                    futures.add(executor.submit(() -> enterLeave(c, entered, Integer.MAX_VALUE)));
+                }
+                entered.await();
+                c.close(true);
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(100, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void testEnterLeaveRacingInterrupt() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            Context c = Context.create();
+            ExecutorService executor = Executors.newFixedThreadPool(ENTER_LEAVE_THREADS);
+            try {
+                CountDownLatch entered = new CountDownLatch(ENTER_LEAVE_THREADS);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int j = 0; j < ENTER_LEAVE_THREADS; j++) {
+                    futures.add(executor.submit(() -> enterLeave(c, entered, 10000)));
+                }
+                entered.await();
+                try {
+                    c.interrupt(Duration.ofMillis(10));
+                } catch (TimeoutException e) {
+                    // the threads keep entering, which may delay the interrupt
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                // the entered counts of all threads are consistent again
+                c.close();
+            } finally {
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(100, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    private static void enterLeave(Context c, CountDownLatch entered, int iterations) {
+        boolean first = true;
+        for (int i = 0; i < iterations; i++) {
+            try {
+                c.enter();
+            } catch (IllegalStateException e) {
+                // closed
+                return;
+            } catch (PolyglotException e) {
+                assertTrue(e.isCancelled() || e.isInterrupted());
+                return;
+            }
+            if (first) {
+                entered.countDown();
+                first = false;
+            }
+            try {
+                c.leave();
+            } catch (IllegalStateException e) {
+                // closed while entered
+                return;
+            } catch (PolyglotException e) {
+                assertTrue(e.isCancelled() || e.isInterrupted());
+                return;
+            }
+        }
+        // clear a pending interrupt of this thread
+        Thread.interrupted();
+    }
+
     private static class CloseContext extends ProxyLanguage.LanguageContext {
 
         final AtomicReference<Collection<Thread>> createdThreads;
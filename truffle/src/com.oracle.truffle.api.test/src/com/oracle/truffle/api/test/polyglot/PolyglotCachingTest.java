@@ -103,6 +103,37 @@ public class PolyglotCachingTest {
         assertEquals(4, parseCalled.get());
     }
 
+    @Test
+    public void testBoundedCacheEvictsLeastRecentlyUsed() throws Exception {
+        AtomicInteger parseCalled = new AtomicInteger(0);
+        ProxyLanguage.setDelegate(new ProxyLanguage() {
+            @Override
+            protected CallTarget parse(ParsingRequest request) throws Exception {
+                parseCalled.incrementAndGet();
+                return Truffle.getRuntime().createCallTarget(RootNode.createConstantNode(""));
+            }
+        });
+        try (Context c = Context.newBuilder().allowExperimentalOptions(true).option("engine.SourceCacheSize", "2").build()) {
+            Source source1 = Source.create(ProxyLanguage.ID, "testBoundedCache1");
+            Source source2 = Source.create(ProxyLanguage.ID, "testBoundedCache2");
+            Source source3 = Source.create(ProxyLanguage.ID, "testBoundedCache3");
+            c.eval(source1);
+            c.eval(source2);
+            assertEquals(2, parseCalled.get());
+            c.eval(source1);
+            assertEquals(2, parseCalled.get());
+
+            // evicts source2, which was used least recently
+            c.eval(source3);
+            assertEquals(3, parseCalled.get());
+            c.eval(source1);
+            c.eval(source3);
+            assertEquals(3, parseCalled.get());
+            c.eval(source2);
+            assertEquals(4, parseCalled.get());
+        }
+    }
+
     /*
      * Tests that the outer source instance is never the same as the one passed in. That allows the
      * outer source instance to be collected while the inner one is still referenced strongly. The
@@ -612,6 +612,50 @@ public class ValueAPITest {
         }
     }
 
+    @Test
+    public void testBuffersBulk() {
+        for (final ByteBuffer buffer : makeTestBuffers()) {
+            final Value value = context.asValue(buffer);
+            final byte[] destination = new byte[10];
+            value.readBuffer(2, destination, 1, 6);
+            for (int i = 0; i < 6; ++i) {
+                Assert.assertEquals(buffer.get(2 + i), destination[1 + i]);
+            }
+            Assert.assertEquals("Side effect: readBuffer should not modify wrapped buffer's position", 0, buffer.position());
+            if (value.isBufferWritable()) {
+                final byte[] source = {10, 11, 12, 13, 14};
+                value.writeBuffer(3, source, 1, 4);
+                for (int i = 0; i < 4; ++i) {
+                    Assert.assertEquals(source[1 + i], buffer.get(3 + i));
+                }
+                Assert.assertEquals("Side effect: writeBuffer should not modify wrapped buffer's position", 0, buffer.position());
+            }
+        }
+    }
+
+    @Test
+    public void testBuffersBulkErrors() {
+        for (final ByteBuffer buffer : BUFFERS) {
+            final Value value = context.asValue(buffer);
+            final String className = buffer.getClass().getName();
+            assertFails(() -> value.readBuffer(4, new byte[8], 0, 5), IndexOutOfBoundsException.class,
+                            "Invalid buffer access of length 5 at byte offset 4 for buffer '" + className + "[pos=0 lim=8 cap=8]'(language: Java, type: " + className + ").");
+            assertFails(() -> value.readBuffer(-1, new byte[8], 0, 1), IndexOutOfBoundsException.class,
+                            "Invalid buffer access of length 1 at byte offset -1 for buffer '" + className + "[pos=0 lim=8 cap=8]'(language: Java, type: " + className + ").");
+            assertFails(() -> value.readBuffer(0, new byte[4], 2, 4), IndexOutOfBoundsException.class, null);
+            if (buffer.isReadOnly()) {
+                assertFails(() -> value.writeBuffer(0, new byte[1], 0, 1), UnsupportedOperationException.class,
+                                "Unsupported operation Value.writeBuffer() for '" + className + "[pos=0 lim=8 cap=8]'(language: Java, type: " + className +
+                                                "). You can ensure that the operation is supported using Value.isBufferWritable().");
+            } else {
+                assertFails(() -> value.writeBuffer(7, new byte[2], 0, 2), IndexOutOfBoundsException.class,
+                                "Invalid buffer access of length 2 at byte offset 7 for buffer '" + className + "[pos=0 lim=8 cap=8]'(language: Java, type: " + className + ").");
+            }
+        }
+        final Value nonBuffer = context.asValue(42);
+        assertFails(() -> nonBuffer.readBuffer(0, new byte[1], 0, 1), UnsupportedOperationException.class, null);
+    }
+
     // endregion
 
     @Test
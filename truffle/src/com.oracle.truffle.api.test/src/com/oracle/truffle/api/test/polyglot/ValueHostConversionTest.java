@@ -186,6 +186,28 @@ public class ValueHostConversionTest extends AbstractPolyglotTest {
         assertTrue(context.asValue(ByteBuffer.allocate(4)).hasBufferElements());
     }
 
+    @Test
+    public void testDirectBuffersNativePointer() {
+        final ByteBuffer direct = ByteBuffer.allocateDirect(8);
+        final ByteBuffer base = ByteBuffer.allocateDirect(10);
+        base.position(1); // not chainable (returns Buffer)
+        final ByteBuffer slice = base.slice();
+        try (Context nativeContext = Context.newBuilder().allowHostAccess(HostAccess.ALL).allowNativeAccess(true).build()) {
+            final Value value = nativeContext.asValue(direct);
+            Assert.assertTrue(value.isNativePointer());
+            Assert.assertNotEquals(0, value.asNativePointer());
+            Assert.assertEquals(value.asNativePointer(), nativeContext.asValue(direct).asNativePointer());
+            Assert.assertEquals(nativeContext.asValue(base).asNativePointer() + 1, nativeContext.asValue(slice).asNativePointer());
+            Assert.assertFalse(nativeContext.asValue(direct.asReadOnlyBuffer()).isNativePointer());
+            Assert.assertFalse(nativeContext.asValue(ByteBuffer.allocate(8)).isNativePointer());
+        }
+        // Without native access direct buffers are only accessible through the buffer methods.
+        try (Context restrictedContext = Context.newBuilder().allowHostAccess(HostAccess.ALL).build()) {
+            Assert.assertFalse(restrictedContext.asValue(direct).isNativePointer());
+            Assert.assertTrue(restrictedContext.asValue(direct).hasBufferElements());
+        }
+    }
+
     @Test
     public void testBasicExamplesLambda() {
         Assume.assumeFalse("Cannot get reflection data for a lambda", TruffleOptions.AOT);
@@ -55,6 +55,9 @@ import static org.junit.Assume.assumeTrue;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.util.AbstractList;
 import java.util.AbstractMap;
@@ -73,6 +76,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
+import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.TypeLiteral;
 import org.graalvm.polyglot.Value;
@@ -337,6 +341,139 @@ public class ValueHostInteropTest extends AbstractPolyglotTest {
         }
     }
 
+    public static class GeneratedInvokerTarget {
+        public long value;
+
+        public GeneratedInvokerTarget(long value) {
+            this.value = value;
+        }
+
+        public double add(int a, long b, double c) {
+            return a + b + c + value;
+        }
+
+        public void setValue(long newValue) {
+            this.value = newValue;
+        }
+
+        public String concat(String a, Object b) {
+            return a + b;
+        }
+
+        public static char firstChar(String s) {
+            return s.charAt(0);
+        }
+
+        public int fail() {
+            throw new IllegalStateException("fail");
+        }
+    }
+
+    @Test
+    public void testGeneratedHostInvokers() {
+        if (TruffleOptions.AOT) {
+            return;
+        }
+        try (Context c = Context.newBuilder().allowAllAccess(true).allowExperimentalOptions(true).option("engine.GenerateHostInvokers", "true").build()) {
+            Value targetClass = c.asValue(GeneratedInvokerTarget.class);
+            Value target = targetClass.newInstance(3L);
+            assertEquals(3L, target.<GeneratedInvokerTarget> asHostObject().value);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(10d, target.invokeMember("add", 1, 2L, 4d).asDouble(), 0d);
+            }
+            assertTrue(target.invokeMember("setValue", 5L).isNull());
+            assertEquals(12d, target.invokeMember("add", 1, 2L, 4d).asDouble(), 0d);
+            assertEquals("a42", target.invokeMember("concat", "a", 42).asString());
+            assertEquals("b", targetClass.getMember("static").invokeMember("firstChar", "bc").asString());
+            assertEquals(2, c.asValue(new ArrayList<>(Arrays.asList(1, 2))).invokeMember("size").asInt());
+            try {
+                target.invokeMember("fail");
+                fail();
+            } catch (PolyglotException e) {
+                assertTrue(e.isHostException());
+                assertTrue(e.asHostException() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    public static class LinkageTarget {
+        public String describe(@SuppressWarnings("unused") LinkageParameter parameter) {
+            return "called";
+        }
+    }
+
+    public static class LinkageParameter {
+    }
+
+    /**
+     * Defines {@link LinkageTarget} and {@link LinkageParameter} itself and can stop serving
+     * {@link LinkageParameter} to class loaders that delegate to it.
+     */
+    private static final class LinkageTestLoader extends ClassLoader {
+
+        volatile boolean hideParameterType;
+
+        LinkageTestLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            boolean isParameterType = name.equals(LinkageParameter.class.getName());
+            if (!isParameterType && !name.equals(LinkageTarget.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            if (isParameterType && hideParameterType) {
+                throw new ClassNotFoundException(name);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    byte[] classBytes = readClassBytes(name);
+                    c = defineClass(name, classBytes, 0, classBytes.length);
+                }
+                return c;
+            }
+        }
+
+        private byte[] readClassBytes(String name) throws ClassNotFoundException {
+            try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                if (in == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratedHostInvokerLinkageError() throws Exception {
+        if (TruffleOptions.AOT) {
+            return;
+        }
+        LinkageTestLoader loader = new LinkageTestLoader(ValueHostInteropTest.class.getClassLoader());
+        Object target = loader.loadClass(LinkageTarget.class.getName()).getConstructor().newInstance();
+        Object parameter = loader.loadClass(LinkageParameter.class.getName()).getConstructor().newInstance();
+        try (Context c = Context.newBuilder().allowAllAccess(true).allowExperimentalOptions(true).option("engine.GenerateHostInvokers", "true").build()) {
+            Value targetValue = c.asValue(target);
+            assertTrue(targetValue.getMember("describe").canExecute());
+            // the generated invoker cannot resolve the parameter type -> falls back to a method
+            // handle
+            loader.hideParameterType = true;
+            for (int i = 0; i < 2; i++) {
+                assertEquals("called", targetValue.invokeMember("describe", parameter).asString());
+            }
+        }
+    }
+
     @Test
     public void accessAllPublicPropertiesDirectly() {
         final PublicPOJO orig = new PublicPOJO();
@@ -790,6 +790,24 @@ public abstract class TruffleLanguage<C> {
         return false;
     }
 
+    /**
+     * Resets the guest visible state of a context such that it can be reused as if it was freshly
+     * created and initialized, e.g. by clearing global variables and reverting modified builtins.
+     * Contexts are reset when they are returned to a {@link org.graalvm.polyglot.ContextPool
+     * context pool}. The method is called for every language whose context was created, with the
+     * context entered on the current thread and no other thread active in the context. State that
+     * is expensive to create and not visible to the guest application, like parsed code, should be
+     * kept.
+     *
+     * @param context the context to reset
+     * @return true if the context was reset. By default it returns {@code false}, in which case the
+     *         polyglot context is closed instead of being reused.
+     * @since 21.1
+     */
+    protected boolean resetContext(C context) {
+        return false;
+    }
+
     /**
      * Request for parsing. Contains information of what to parse and in which context.
      *
@@ -542,6 +542,8 @@ public abstract class Accessor {
         public abstract Object getEngineLock(Object polyglotEngine);
 
         public abstract long calculateContextHeapSize(Object polyglotContext, long stopAtBytes, AtomicBoolean cancelled);
+
+        public abstract long calculateContextHeapSizeIncrementally(Object polyglotContext, long stopAtBytes, int maxObjects);
     }
 
     public abstract static class LanguageSupport extends Support {
@@ -624,6 +626,8 @@ public abstract class Accessor {
 
         public abstract void finalizeContext(Env localEnv);
 
+        public abstract boolean resetContext(Env env);
+
         public abstract Iterable<com.oracle.truffle.api.Scope> findLegacyLocalScopes(Env env, Node node, Frame frame);
 
         public abstract Iterable<com.oracle.truffle.api.Scope> findTopScopes(Env env);
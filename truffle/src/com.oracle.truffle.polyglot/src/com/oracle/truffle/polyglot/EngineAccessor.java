@@ -901,7 +901,7 @@ final class EngineAccessor extends Accessor {
 
         @Override
         public void preinitializeContext(Object polyglotEngine) {
-            ((PolyglotEngineImpl) polyglotEngine).preInitialize();
+            ((PolyglotEngineImpl) polyglotEngine).preInitialize("");
         }
 
         @Override
@@ -1378,6 +1378,11 @@ final class EngineAccessor extends Accessor {
         public long calculateContextHeapSize(Object polyglotContext, long stopAtBytes, AtomicBoolean cancelled) {
             return ((PolyglotContextImpl) polyglotContext).calculateHeapSize(stopAtBytes, cancelled);
         }
+
+        @Override
+        public long calculateContextHeapSizeIncrementally(Object polyglotContext, long stopAtBytes, int maxObjects) {
+            return ((PolyglotContextImpl) polyglotContext).calculateHeapSizeIncrementally(stopAtBytes, maxObjects);
+        }
     }
 
     abstract static class AbstractClassLoaderSupplier implements Supplier<ClassLoader> {
@@ -50,6 +50,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.StringJoiner;
+import java.util.function.BiFunction;
 
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerAsserts;
@@ -270,7 +271,10 @@ abstract class HostMethodDesc {
         }
 
         abstract static class MHBase extends SingleMethod {
+            private static final BiFunction<Object, Object[], Object> NO_INVOKER = (receiver, arguments) -> null;
+
             @CompilationFinal private MethodHandle methodHandle;
+            @CompilationFinal private BiFunction<Object, Object[], Object> generatedInvoker;
 
             MHBase(Executable executable) {
                 super(executable);
@@ -292,6 +296,23 @@ abstract class HostMethodDesc {
                 return invokeHandle.invokeExact(receiver, arguments);
             }
 
+            @TruffleBoundary(allowInlining = true)
+            static Object invokeGenerated(MHBase method, Object receiver, Object[] arguments) throws Throwable {
+                BiFunction<Object, Object[], Object> invoker = method.generatedInvoker;
+                if (invoker != NO_INVOKER) {
+                    try {
+                        return invoker.apply(receiver, arguments);
+                    } catch (LinkageError e) {
+                        if (!HostMethodInvokerGenerator.isInvokerLinkageError(e)) {
+                            throw e;
+                        }
+                        // the generated class cannot link the method -> use the method handle
+                        method.generatedInvoker = NO_INVOKER;
+                    }
+                }
+                return method.invoke(receiver, arguments);
+            }
+
             protected abstract MethodHandle makeMethodHandle();
 
             protected static MethodHandle adaptSignature(MethodHandle originalHandle, boolean isStatic, int parameterCount) {
@@ -308,6 +329,19 @@ abstract class HostMethodDesc {
 
             @Override
             public Object invokeGuestToHost(Object receiver, Object[] arguments, PolyglotEngineImpl engine, PolyglotLanguageContext languageContext, Node node) {
+                if (engine.generateHostInvokers) {
+                    BiFunction<Object, Object[], Object> invoker = generatedInvoker;
+                    if (invoker == null) {
+                        CompilerDirectives.transferToInterpreterAndInvalidate();
+                        invoker = HostMethodInvokerGenerator.generate(getReflectionMethod());
+                        generatedInvoker = invoker = invoker != null ? invoker : NO_INVOKER;
+                    }
+                    if (invoker != NO_INVOKER) {
+                        CallTarget target = engine.getHostToGuestCodeCache().generatedHostInvoke;
+                        CompilerAsserts.partialEvaluationConstant(target);
+                        return GuestToHostRootNode.guestToHostCall(node, target, languageContext, receiver, this, arguments);
+                    }
+                }
                 MethodHandle handle = methodHandle;
                 if (handle == null) {
                     CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.polyglot;
+
+import static com.oracle.truffle.api.impl.asm.Opcodes.ACC_FINAL;
+import static com.oracle.truffle.api.impl.asm.Opcodes.ACC_PUBLIC;
+import static com.oracle.truffle.api.impl.asm.Opcodes.ACC_SUPER;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiFunction;
+
+import com.oracle.truffle.api.impl.asm.ClassWriter;
+import com.oracle.truffle.api.impl.asm.Opcodes;
+import com.oracle.truffle.api.impl.asm.Type;
+import com.oracle.truffle.api.impl.asm.commons.InstructionAdapter;
+
+/**
+ * Generates a class that invokes a single host method or constructor directly, used instead of a
+ * method handle if {@code engine.GenerateHostInvokers} is enabled. The generated class implements
+ * {@link BiFunction}, which takes the receiver and the argument array and returns the boxed result.
+ * The arguments are expected to be converted to the parameter types already; they are unboxed and
+ * cast with the same semantics as a spread method handle. Each class is defined in its own class
+ * loader whose parent is the loader of the declaring class.
+ */
+final class HostMethodInvokerGenerator {
+
+    private static final String INVOKER_CLASS_NAME = "com.oracle.truffle.polyglot.hostinvokers.HostMethodInvoker";
+    private static final String INIT = "<init>";
+    private static final Type OBJECT_TYPE = Type.getType(Object.class);
+    private static final Type OBJECT_ARRAY_TYPE = Type.getType(Object[].class);
+
+    private HostMethodInvokerGenerator() {
+    }
+
+    /**
+     * Returns a new invoker for the given method or constructor, or <code>null</code> if the
+     * declaring class cannot be linked from a generated class.
+     */
+    @SuppressWarnings("unchecked")
+    static BiFunction<Object, Object[], Object> generate(Executable executable) {
+        Class<?> declaringClass = executable.getDeclaringClass();
+        ClassLoader parentLoader = declaringClass.getClassLoader();
+        try {
+            if (Class.forName(declaringClass.getName(), false, parentLoader) != declaringClass) {
+                return null;
+            }
+            byte[] classBytes = generateClassBytes(executable);
+            Class<?> invokerClass = new InvokerClassLoader(parentLoader, classBytes).loadClass(INVOKER_CLASS_NAME);
+            return (BiFunction<Object, Object[], Object>) invokerClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the given error was thrown while the generated invoker resolved
+     * the invoked method or one of its types, rather than by the invoked method itself. The JVM
+     * resolves these references lazily, when the invoker is first applied.
+     */
+    static boolean isInvokerLinkageError(LinkageError e) {
+        if (e instanceof ExceptionInInitializerError) {
+            // the invoker was linked, but the declaring class failed to initialize
+            return false;
+        }
+        StackTraceElement[] stackTrace = e.getStackTrace();
+        return stackTrace.length > 0 && stackTrace[0].getClassName().equals(INVOKER_CLASS_NAME);
+    }
+
+    private static byte[] generateClassBytes(Executable executable) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        String className = INVOKER_CLASS_NAME.replace('.', '/');
+        cw.visit(Opcodes.V1_8, ACC_PUBLIC | ACC_SUPER | ACC_FINAL, className, null, OBJECT_TYPE.getInternalName(),
+                        new String[]{Type.getInternalName(BiFunction.class)});
+
+        InstructionAdapter init = new InstructionAdapter(cw.visitMethod(ACC_PUBLIC, INIT, Type.getMethodDescriptor(Type.VOID_TYPE), null, null));
+        init.visitCode();
+        init.load(0, OBJECT_TYPE);
+        init.invokespecial(OBJECT_TYPE.getInternalName(), INIT, Type.getMethodDescriptor(Type.VOID_TYPE), false);
+        init.areturn(Type.VOID_TYPE);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        InstructionAdapter mv = new InstructionAdapter(cw.visitMethod(ACC_PUBLIC, "apply", Type.getMethodDescriptor(OBJECT_TYPE, OBJECT_TYPE, OBJECT_TYPE), null, null));
+        mv.visitCode();
+        Class<?> declaringClass = executable.getDeclaringClass();
+        Type declaringType = Type.getType(declaringClass);
+        boolean isInterface = declaringClass.isInterface();
+        if (executable instanceof Constructor<?>) {
+            mv.anew(declaringType);
+            mv.dup();
+            loadArguments(mv, executable.getParameterTypes());
+            mv.invokespecial(declaringType.getInternalName(), INIT, Type.getConstructorDescriptor((Constructor<?>) executable), false);
+            mv.areturn(OBJECT_TYPE);
+        } else {
+            Method method = (Method) executable;
+            String descriptor = Type.getMethodDescriptor(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                loadArguments(mv, method.getParameterTypes());
+                mv.invokestatic(declaringType.getInternalName(), method.getName(), descriptor, isInterface);
+            } else {
+                mv.load(1, OBJECT_TYPE);
+                mv.checkcast(declaringType);
+                loadArguments(mv, method.getParameterTypes());
+                if (isInterface) {
+                    mv.invokeinterface(declaringType.getInternalName(), method.getName(), descriptor);
+                } else {
+                    mv.invokevirtual(declaringType.getInternalName(), method.getName(), descriptor, false);
+                }
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == void.class) {
+                mv.aconst(null);
+            } else if (returnType.isPrimitive()) {
+                box(mv, returnType);
+            }
+            mv.areturn(OBJECT_TYPE);
+        }
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void loadArguments(InstructionAdapter mv, Class<?>[] parameterTypes) {
+        for (int i = 0; i < parameterTypes.length; i++) {
+            mv.load(2, OBJECT_TYPE);
+            mv.checkcast(OBJECT_ARRAY_TYPE);
+            mv.iconst(i);
+            mv.aload(OBJECT_TYPE);
+            Class<?> parameterType = parameterTypes[i];
+            if (parameterType.isPrimitive()) {
+                unbox(mv, parameterType);
+            } else if (parameterType != Object.class) {
+                mv.checkcast(Type.getType(parameterType));
+            }
+        }
+    }
+
+    private static void unbox(InstructionAdapter mv, Class<?> primitiveType) {
+        Type boxedType = Type.getType(boxedType(primitiveType));
+        mv.checkcast(boxedType);
+        mv.invokevirtual(boxedType.getInternalName(), primitiveType.getName() + "Value", Type.getMethodDescriptor(Type.getType(primitiveType)), false);
+    }
+
+    private static void box(InstructionAdapter mv, Class<?> primitiveType) {
+        Type boxedType = Type.getType(boxedType(primitiveType));
+        mv.invokestatic(boxedType.getInternalName(), "valueOf", Type.getMethodDescriptor(boxedType, Type.getType(primitiveType)), false);
+    }
+
+    private static Class<?> boxedType(Class<?> primitiveType) {
+        if (primitiveType == boolean.class) {
+            return Boolean.class;
+        } else if (primitiveType == byte.class) {
+            return Byte.class;
+        } else if (primitiveType == short.class) {
+            return Short.class;
+        } else if (primitiveType == char.class) {
+            return Character.class;
+        } else if (primitiveType == int.class) {
+            return Integer.class;
+        } else if (primitiveType == long.class) {
+            return Long.class;
+        } else if (primitiveType == float.class) {
+            return Float.class;
+        } else if (primitiveType == double.class) {
+            return Double.class;
+        }
+        throw new IllegalArgumentException(primitiveType.getName());
+    }
+
+    private static final class InvokerClassLoader extends ClassLoader {
+
+        private final byte[] classBytes;
+
+        InvokerClassLoader(ClassLoader parent, byte[] classBytes) {
+            super(parent);
+            this.classBytes = classBytes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (name.equals(INVOKER_CLASS_NAME)) {
+                return defineClass(name, classBytes, 0, classBytes.length, HostAdapterClassLoader.GENERATED_PROTECTION_DOMAIN);
+            }
+            throw new ClassNotFoundException(name);
+        }
+    }
+}
@@ -1103,6 +1103,93 @@ final class HostObject implements TruffleObject {
         buffer.putDouble(index, value);
     }
 
+    @ExportMessage
+    public void readBuffer(long index, byte[] destination, int destinationOffset, int length,
+                    @Shared("isBuffer") @Cached IsBufferNode isBuffer,
+                    @Shared("error") @Cached BranchProfile error) throws UnsupportedMessageException, InvalidBufferOffsetException {
+        if (!isBuffer.execute(this)) {
+            error.enter();
+            throw UnsupportedMessageException.create();
+        }
+        final ByteBuffer buffer = (ByteBuffer) obj;
+        final long size = isPEFriendlyBuffer(buffer) ? buffer.limit() : getBufferSizeBoundary(buffer);
+        if (index < 0 || length < 0 || index > size - length) {
+            error.enter();
+            throw InvalidBufferOffsetException.create(index, length);
+        }
+        getBufferBytesBoundary(buffer, (int) index, destination, destinationOffset, length);
+    }
+
+    @TruffleBoundary
+    private static void getBufferBytesBoundary(ByteBuffer buffer, int index, byte[] destination, int destinationOffset, int length) {
+        // A duplicate has its own position, so the position of the shared buffer is not changed.
+        final ByteBuffer view = buffer.duplicate();
+        view.position(index);
+        view.get(destination, destinationOffset, length);
+    }
+
+    @ExportMessage
+    public void writeBuffer(long index, byte[] source, int sourceOffset, int length,
+                    @Shared("isBuffer") @Cached IsBufferNode isBuffer,
+                    @Shared("error") @Cached BranchProfile error) throws UnsupportedMessageException, InvalidBufferOffsetException {
+        if (!isBuffer.execute(this)) {
+            error.enter();
+            throw UnsupportedMessageException.create();
+        }
+        final ByteBuffer buffer = (ByteBuffer) obj;
+        final long size = isPEFriendlyBuffer(buffer) ? buffer.limit() : getBufferSizeBoundary(buffer);
+        if (index < 0 || length < 0 || index > size - length) {
+            error.enter();
+            throw InvalidBufferOffsetException.create(index, length);
+        }
+        try {
+            putBufferBytesBoundary(buffer, (int) index, source, sourceOffset, length);
+        } catch (ReadOnlyBufferException e) {
+            throw UnsupportedMessageException.create();
+        }
+    }
+
+    @TruffleBoundary
+    private static void putBufferBytesBoundary(ByteBuffer buffer, int index, byte[] source, int sourceOffset, int length) {
+        final ByteBuffer view = buffer.duplicate();
+        view.position(index);
+        view.put(source, sourceOffset, length);
+    }
+
+    /*
+     * Writable direct buffers, including memory mapped files, are also exposed as native pointers
+     * if the context allows native access. Languages that access native memory can then read and
+     * write the buffer contents directly instead of going through the buffer messages.
+     */
+
+    @ExportMessage
+    boolean isPointer(@Shared("isBuffer") @Cached IsBufferNode isBuffer) {
+        return isBuffer.execute(this) && isNativeAccessAllowed() && isNativeBuffer((ByteBuffer) obj);
+    }
+
+    @ExportMessage
+    long asPointer(@Shared("isBuffer") @Cached IsBufferNode isBuffer,
+                    @Shared("error") @Cached BranchProfile error) throws UnsupportedMessageException {
+        if (!isPointer(isBuffer)) {
+            error.enter();
+            throw UnsupportedMessageException.create();
+        }
+        return DirectBufferAccess.getAddress((ByteBuffer) obj);
+    }
+
+    private boolean isNativeAccessAllowed() {
+        return languageContext != null && languageContext.context.config.nativeAccessAllowed;
+    }
+
+    private static boolean isNativeBuffer(ByteBuffer buffer) {
+        return isPEFriendlyBuffer(buffer) ? buffer.getClass() == DIRECT_BYTE_BUFFER_CLASS : isNativeBufferBoundary(buffer);
+    }
+
+    @TruffleBoundary
+    private static boolean isNativeBufferBoundary(ByteBuffer buffer) {
+        return buffer.isDirect() && !buffer.isReadOnly();
+    }
+
     // endregion
 
     @TruffleBoundary(allowInlining = true)
@@ -95,6 +95,25 @@ final class HostToGuestCodeCache {
         }
     });
 
+    final CallTarget generatedHostInvoke = GuestToHostRootNode.createGuestToHost(new GuestToHostRootNode(HostObject.class, "doInvoke") {
+        @Override
+        protected Object executeImpl(Object receiver, Object[] callArguments) {
+            if (TruffleOptions.AOT) {
+                throw CompilerDirectives.shouldNotReachHere("MHBase.invokeGenerated can only be used in non AOT mode.");
+            }
+
+            MHBase method = (MHBase) callArguments[ARGUMENT_OFFSET];
+            Object[] arguments = (Object[]) callArguments[ARGUMENT_OFFSET + 1];
+            Object ret;
+            try {
+                ret = MHBase.invokeGenerated(method, receiver, arguments);
+            } catch (Throwable e) {
+                throw HostInteropReflect.rethrow(e);
+            }
+            return ret;
+        }
+    });
+
     final CallTarget reflectionHostInvoke = GuestToHostRootNode.createGuestToHost(new GuestToHostRootNode(HostObject.class, "doInvoke") {
         @Override
         protected Object executeImpl(Object obj, Object[] callArguments) {
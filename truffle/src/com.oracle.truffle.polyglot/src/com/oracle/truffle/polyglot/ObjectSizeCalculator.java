@@ -224,6 +224,76 @@ final class ObjectSizeCalculator {
         }
     }
 
+    /**
+     * Starts a calculation of the allocated size of the given object and all other objects
+     * reachable from it that is performed in bounded {@link IncrementalCalculation#step(int)
+     * steps}. Unlike {@link #calculateObjectSize(Object, long, AtomicBoolean)}, the traversal
+     * state is kept between the steps, so that the work of a long calculation can be spread over
+     * time without starting over.
+     *
+     * @param obj the object; cannot be null.
+     * @param stopAtBytes when calculated size exceeds stopAtBytes, calculation stops.
+     */
+    @CompilerDirectives.TruffleBoundary
+    IncrementalCalculation startIncrementalCalculation(final Object obj, long stopAtBytes) {
+        if (TruffleOptions.AOT || Truffle.getRuntime() instanceof DefaultTruffleRuntime) {
+            throw new UnsupportedOperationException();
+        }
+        CalculationState calculationState;
+        synchronized (this) {
+            // The class infos are not shared with other calculations as they live across steps.
+            calculationState = new CalculationState(new IdentityHashMap<>(), new QuickIdentitySet<>(alreadyVisitedInitialCapacity), stopAtBytes);
+        }
+        ClassInfo classInfo = getClassInfo(calculationState.classInfos, obj.getClass());
+        classInfo.increaseByBaseSize(calculationState, obj);
+        calculationState.alreadyVisited.add(obj);
+        enqueue(calculationState.pending, obj);
+        return new IncrementalCalculation(calculationState);
+    }
+
+    /**
+     * A calculation started by {@link ObjectSizeCalculator#startIncrementalCalculation}. Objects
+     * allocated or unlinked while the calculation is in progress may or may not be accounted for,
+     * so the result is an approximation of the retained size at the time the calculation
+     * finishes.
+     */
+    static final class IncrementalCalculation {
+        private final CalculationState calculationState;
+
+        private IncrementalCalculation(CalculationState calculationState) {
+            this.calculationState = calculationState;
+        }
+
+        /**
+         * Visits at most {@code maxObjects} of the pending objects. Elements of an object array
+         * are visited together with the array.
+         *
+         * @return {@code true} if the calculation is finished.
+         */
+        @CompilerDirectives.TruffleBoundary
+        synchronized boolean step(int maxObjects) {
+            for (int i = 0; i < maxObjects && !isFinished(); i++) {
+                visit(calculationState, calculationState.pending.pollFirst());
+            }
+            return isFinished();
+        }
+
+        synchronized boolean isFinished() {
+            return calculationState.pending.isEmpty() || calculationState.dataSize > calculationState.stopAtBytes;
+        }
+
+        /**
+         * Returns the size calculated so far.
+         */
+        synchronized long getSize() {
+            return calculationState.dataSize;
+        }
+
+        long getStopAtBytes() {
+            return calculationState.stopAtBytes;
+        }
+    }
+
     private static CancellationException cancel(long dataSize) {
         throw new CancellationException(String.format("cancelled at %d bytes", dataSize));
     }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.polyglot;
+
+import static com.oracle.truffle.polyglot.PolyglotValue.hostEnter;
+import static com.oracle.truffle.polyglot.PolyglotValue.hostLeave;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Runs tasks submitted with {@link org.graalvm.polyglot.Context#submit} on a carrier thread owned
+ * by the context. A single carrier thread is used, such that tasks of a context that does not
+ * allow multi-threaded access never race with each other. The thread is started lazily and
+ * terminates when the context stays idle for a while.
+ */
+final class PolyglotContextExecutor implements ThreadFactory {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final PolyglotContextImpl context;
+    private final ThreadPoolExecutor executor;
+
+    PolyglotContextExecutor(PolyglotContextImpl context) {
+        this.context = context;
+        this.executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), this);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Polyglot Context Executor");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    <T> CompletableFuture<T> submit(Callable<T> callable) {
+        Task<T> task = new Task<>(context, callable);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw PolyglotEngineException.illegalState("The Context is already closed.");
+        }
+        return task;
+    }
+
+    /**
+     * Stops the carrier thread once the running task completes. Tasks that did not start yet are
+     * completed exceptionally.
+     */
+    void shutdown() {
+        executor.shutdown();
+        List<Runnable> pending = new ArrayList<>();
+        executor.getQueue().drainTo(pending);
+        for (Runnable r : pending) {
+            ((Task<?>) r).completeExceptionally(new IllegalStateException("The Context is already closed."));
+        }
+    }
+
+    private static final class Task<T> extends CompletableFuture<T> implements Runnable {
+
+        private final PolyglotContextImpl context;
+        private final Callable<T> callable;
+        // the thread of the carrier while the task runs, guarded by this
+        private PolyglotThreadInfo threadInfo;
+
+        Task(PolyglotContextImpl context, Callable<T> callable) {
+            this.context = context;
+            this.callable = callable;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                // cancelled before it was started
+                return;
+            }
+            PolyglotLanguageContext hostContext = context.getHostContext();
+            Object prev;
+            try {
+                prev = hostEnter(hostContext);
+            } catch (Throwable t) {
+                completeExceptionally(t);
+                return;
+            }
+            try {
+                PolyglotThreadInfo info;
+                synchronized (context) {
+                    info = context.getCurrentThreadInfo();
+                }
+                synchronized (this) {
+                    if (isDone()) {
+                        // cancelled while entering
+                        return;
+                    }
+                    threadInfo = info;
+                }
+                complete(callable.call());
+            } catch (Throwable t) {
+                completeExceptionally(t);
+            } finally {
+                boolean interrupted;
+                synchronized (this) {
+                    interrupted = threadInfo != null && threadInfo.interruptRequested;
+                    if (interrupted) {
+                        threadInfo.interruptRequested = false;
+                        // the interrupt must not leak into the next task
+                        Thread.interrupted();
+                    }
+                    threadInfo = null;
+                }
+                if (interrupted) {
+                    context.engine.getCancelHandler().disableCancel();
+                }
+                try {
+                    hostLeave(hostContext, prev);
+                } catch (Throwable t) {
+                    completeExceptionally(t);
+                }
+            }
+        }
+
+        /**
+         * Cancelling a running task interrupts the guest code executed by the carrier thread and
+         * the host code it waits in. Other threads executing in the context are not affected.
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                interruptRunning();
+            }
+            return cancelled;
+        }
+
+        private synchronized void interruptRunning() {
+            PolyglotThreadInfo info = threadInfo;
+            if (info == null || info.interruptRequested) {
+                // not running anymore or already interrupted
+                return;
+            }
+            try {
+                context.engine.getCancelHandler().enableCancel();
+            } catch (Throwable t) {
+                context.engine.getEngineLogger().log(Level.WARNING, "Failed to interrupt the guest code of a cancelled task.", t);
+                return;
+            }
+            info.interruptRequested = true;
+            info.getThread().interrupt();
+        }
+    }
+}
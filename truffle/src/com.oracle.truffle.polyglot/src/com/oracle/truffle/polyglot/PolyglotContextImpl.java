@@ -62,6 +62,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -93,6 +95,7 @@ import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.nodes.LanguageInfo;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.utilities.TruffleWeakReference;
 import com.oracle.truffle.polyglot.HostLanguage.HostContext;
 import com.oracle.truffle.polyglot.PolyglotEngineImpl.CancelExecution;
 import com.oracle.truffle.polyglot.PolyglotEngineImpl.StableLocalLocations;
@@ -168,6 +171,13 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     final Assumption singleThreaded = Truffle.getRuntime().createAssumption("Single threaded");
     private final Map<Thread, PolyglotThreadInfo> threads = new WeakHashMap<>();
 
+    /*
+     * The thread info of the current thread, set when the thread entered this context for the
+     * first time. Allows threads of a multi-threaded context to enter and leave without taking the
+     * context lock. Referenced weakly, as the thread infos are kept alive by the threads map.
+     */
+    private final ThreadLocal<TruffleWeakReference<PolyglotThreadInfo>> threadLocalInfo = new ThreadLocal<>();
+
     volatile PolyglotThreadInfo currentThreadInfo = PolyglotThreadInfo.NULL;
     @CompilationFinal volatile PolyglotThreadInfo constantCurrentThreadInfo = PolyglotThreadInfo.NULL;
 
@@ -202,6 +212,7 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     final PolyglotContextImpl parent;
     volatile Map<String, Value> polyglotBindings; // for direct legacy access
     volatile Value polyglotHostBindings; // for accesses from the polyglot api
+    private PolyglotContextExecutor executor; // guarded by this, created lazily by submit
     private final PolyglotBindings polyglotBindingsObject = new PolyglotBindings(this);
     final PolyglotLanguage creator; // creator for internal contexts
     final Map<String, Object> creatorArguments; // special arguments for internal contexts
@@ -218,6 +229,7 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     List<Source> sourcesToInvalidate;  // Non null only during content pre-initialization
 
     final AtomicLong volatileStatementCounter = new AtomicLong();
+    final PolyglotLimits.StatementBatchEpoch statementBatchEpoch = new PolyglotLimits.StatementBatchEpoch(volatileStatementCounter);
     long statementCounter;
     final long statementLimit;
 
@@ -237,6 +249,12 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     private final ContextLocalsTL contextThreadLocals = new ContextLocalsTL();
 
     private ObjectSizeCalculator objectSizeCalculator;
+    /*
+     * The traversal state of the incremental heap size calculation in progress, if any. It retains
+     * the pending objects of the traversal until the calculation finishes, is restarted with a
+     * different stopAtBytes value or the context is closed.
+     */
+    private ObjectSizeCalculator.IncrementalCalculation incrementalHeapSizeCalculation;
 
     /* Constructor for testing. */
     private PolyglotContextImpl() {
@@ -327,6 +345,80 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         return config.getInstrumentOptionValues(instrument);
     }
 
+    @Override
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        try {
+            PolyglotContextExecutor localExecutor;
+            synchronized (this) {
+                checkClosed();
+                localExecutor = executor;
+                if (localExecutor == null) {
+                    executor = localExecutor = new PolyglotContextExecutor(this);
+                }
+            }
+            return localExecutor.submit(task);
+        } catch (Throwable t) {
+            throw PolyglotImpl.guestToHostException(engine, t);
+        }
+    }
+
+    @Override
+    public boolean reset(Context sourceContext) {
+        try {
+            checkCreatorAccess(sourceContext, "reset");
+            if (!isResettable()) {
+                return false;
+            }
+            if (isActive(Thread.currentThread())) {
+                throw PolyglotEngineException.illegalState("The context cannot be reset while it is active.");
+            }
+            PolyglotContextImpl prev = engine.enter(this);
+            try {
+                synchronized (this) {
+                    /*
+                     * Checked after entering, such that the check and the enter cannot be
+                     * interleaved with a close or with an enter on another thread.
+                     */
+                    if (!isResettable()) {
+                        return false;
+                    }
+                    if (getFirstActiveOtherThread(true) != null) {
+                        throw PolyglotEngineException.illegalState("The context cannot be reset while it is active.");
+                    }
+                }
+                // inner contexts are not reused, they are created again by the languages
+                PolyglotContextImpl[] childrenToClose;
+                synchronized (this) {
+                    childrenToClose = childContexts.toArray(new PolyglotContextImpl[childContexts.size()]);
+                }
+                for (PolyglotContextImpl childContext : childrenToClose) {
+                    if (!childContext.closeImpl(false, false, true)) {
+                        return false;
+                    }
+                }
+                for (int i = PolyglotEngineImpl.HOST_LANGUAGE_INDEX + 1; i < contexts.length; i++) {
+                    if (!contexts[i].reset()) {
+                        return false;
+                    }
+                }
+                Map<String, Value> bindings = this.polyglotBindings;
+                if (bindings != null) {
+                    bindings.clear();
+                }
+                PolyglotLimits.reset(this);
+            } finally {
+                engine.leave(prev, this);
+            }
+            return true;
+        } catch (Throwable t) {
+            throw PolyglotImpl.guestToHostException(engine, t);
+        }
+    }
+
+    private synchronized boolean isResettable() {
+        return !closed && !invalid && !cancelling && closingThread == null;
+    }
+
     @Override
     public void resetLimits() {
         PolyglotLanguageContext languageContext = this.getHostContext();
@@ -489,12 +581,16 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         return context;
     }
 
+    /*
+     * The explicit context stack is only accessed by its own thread, so explicit enter and leave do
+     * not need the context lock unless the enter or leave itself needs it.
+     */
     @Override
-    public synchronized void explicitEnter(Context sourceContext) {
+    public void explicitEnter(Context sourceContext) {
         try {
             checkCreatorAccess(sourceContext, "entered");
             PolyglotContextImpl prev = engine.enter(this);
-            PolyglotThreadInfo current = getCurrentThreadInfo();
+            PolyglotThreadInfo current = getThreadLocalInfo();
             assert current.getThread() == Thread.currentThread();
             current.explicitContextStack.addLast(prev);
         } catch (Throwable t) {
@@ -503,7 +599,7 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     }
 
     @Override
-    public synchronized void explicitLeave(Context sourceContext) {
+    public void explicitLeave(Context sourceContext) {
         if (closed || closingThread == Thread.currentThread()) {
             // explicit leaves if already closed are allowed.
             // as close may automatically leave the context on threads.
@@ -511,7 +607,7 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         }
         try {
             checkCreatorAccess(sourceContext, "left");
-            PolyglotThreadInfo current = getCurrentThreadInfo();
+            PolyglotThreadInfo current = getThreadLocalInfo();
             LinkedList<PolyglotContextImpl> stack = current.explicitContextStack;
             if (stack.isEmpty() || current.getThread() == null) {
                 throw PolyglotEngineException.illegalState("The context is not entered explicity. A context can only be left if it was previously entered.");
@@ -528,8 +624,59 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         }
     }
 
+    /**
+     * Returns the thread info of the current thread or {@link PolyglotThreadInfo#NULL} if the
+     * current thread never entered this context.
+     */
+    @TruffleBoundary
+    PolyglotThreadInfo getThreadLocalInfo() {
+        TruffleWeakReference<PolyglotThreadInfo> ref = threadLocalInfo.get();
+        PolyglotThreadInfo info = ref != null ? ref.get() : null;
+        if (info == null) {
+            synchronized (this) {
+                return getCurrentThreadInfo();
+            }
+        }
+        return info;
+    }
+
+    /*
+     * Enter and leave of a thread that entered before only need the context lock if the context
+     * is single-threaded or is interrupted, cancelled or closed. These states are checked before
+     * and after changing the entered count of the thread, and an enter that races with a state
+     * change is undone and retried under the lock. This gives the same guarantees as the fast path
+     * for the cached thread info, see PolyglotThreadInfo#enter.
+     */
+    private boolean isLockFreeEnterLeaveAllowed(PolyglotThreadInfo info) {
+        return !singleThreaded.isValid() && !info.cancelled && !cancelling && !interrupting && !invalid && !closed && closingThread == null;
+    }
+
     @TruffleBoundary
     PolyglotContextImpl enterThreadChanged() {
+        TruffleWeakReference<PolyglotThreadInfo> ref = threadLocalInfo.get();
+        PolyglotThreadInfo info = ref != null ? ref.get() : null;
+        if (info != null && isLockFreeEnterLeaveAllowed(info)) {
+            PolyglotContextImpl prev = singleContextState.contextThreadLocal.setReturnParent(this);
+            try {
+                info.enter(engine, this);
+            } catch (Throwable t) {
+                singleContextState.contextThreadLocal.set(prev);
+                throw t;
+            }
+            if (isLockFreeEnterLeaveAllowed(info)) {
+                return prev;
+            }
+            // the context state changed concurrently -> undo and enter under the lock
+            try {
+                info.leave(engine, this);
+            } finally {
+                singleContextState.contextThreadLocal.set(prev);
+            }
+        }
+        return enterThreadChangedSlowPath();
+    }
+
+    private PolyglotContextImpl enterThreadChangedSlowPath() {
         Thread current = Thread.currentThread();
         PolyglotContextImpl prev;
         boolean needsInitialization = false;
@@ -563,6 +710,7 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
                     throw PolyglotEngineException.illegalState("Can not create new threads in closing context.", true);
                 }
                 threads.put(current, threadInfo);
+                threadLocalInfo.set(new TruffleWeakReference<>(threadInfo));
             }
 
             if (needsInitialization) {
@@ -653,6 +801,36 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
 
     @TruffleBoundary
     PolyglotThreadInfo leaveThreadChanged() {
+        TruffleWeakReference<PolyglotThreadInfo> ref = threadLocalInfo.get();
+        PolyglotThreadInfo info = ref != null ? ref.get() : null;
+        if (info != null && info.isActive() && isLockFreeEnterLeaveAllowed(info)) {
+            boolean wasLastActive = info.isLastActive();
+            info.leave(engine, this);
+            if (!isLockFreeEnterLeaveAllowed(info)) {
+                /*
+                 * The context started closing, cancelling or interrupting while this thread left.
+                 * Do the bookkeeping of the slow path, which the closing thread might wait for.
+                 */
+                leaveThreadChangedAfterRace(info, wasLastActive);
+            }
+            return info;
+        }
+        return leaveThreadChangedSlowPath();
+    }
+
+    private synchronized void leaveThreadChangedAfterRace(PolyglotThreadInfo info, boolean wasLastActive) {
+        setCachedThreadInfo(PolyglotThreadInfo.NULL);
+        if (cancelling && wasLastActive) {
+            notifyThreadClosed();
+        }
+        if (interrupting && !info.isActiveNotCancelled()) {
+            Thread.interrupted();
+        }
+        // wake up a thread that waits for this thread to leave
+        notifyAll();
+    }
+
+    private PolyglotThreadInfo leaveThreadChangedSlowPath() {
         PolyglotThreadInfo info;
         synchronized (this) {
             Thread current = Thread.currentThread();
@@ -1306,20 +1484,59 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
 
     long calculateHeapSize(long stopAtBytes, AtomicBoolean calculationCancelled) {
         try {
-            ObjectSizeCalculator localObjectSizeCalculator;
+            return getObjectSizeCalculator().calculateObjectSize(getContextHeapRoots(), stopAtBytes, calculationCancelled);
+        } catch (UnsupportedOperationException e) {
+            throw new UnsupportedOperationException("Polyglot context heap size calculation is not supported on current Truffle runtime.", e);
+        }
+    }
+
+    /**
+     * Performs one step of the incremental heap size calculation of this context, starting a new
+     * calculation if none is in progress or if the calculation in progress was started with a
+     * different stopAtBytes value. Returns the calculated size if the calculation finished with
+     * this step, or -1 otherwise.
+     */
+    long calculateHeapSizeIncrementally(long stopAtBytes, int maxObjects) {
+        try {
+            ObjectSizeCalculator.IncrementalCalculation calculation;
             synchronized (this) {
-                localObjectSizeCalculator = objectSizeCalculator;
-                if (localObjectSizeCalculator == null) {
-                    localObjectSizeCalculator = new ObjectSizeCalculator();
-                    objectSizeCalculator = localObjectSizeCalculator;
+                calculation = incrementalHeapSizeCalculation;
+            }
+            if (calculation == null || calculation.getStopAtBytes() != stopAtBytes) {
+                // The heap roots are collected outside of the context lock.
+                ObjectSizeCalculator.IncrementalCalculation newCalculation = getObjectSizeCalculator().startIncrementalCalculation(getContextHeapRoots(), stopAtBytes);
+                synchronized (this) {
+                    calculation = incrementalHeapSizeCalculation;
+                    if (calculation == null || calculation.getStopAtBytes() != stopAtBytes) {
+                        calculation = newCalculation;
+                        if (!closed) {
+                            // Closing the context discards the traversal state.
+                            incrementalHeapSizeCalculation = calculation;
+                        }
+                    }
                 }
             }
-            return localObjectSizeCalculator.calculateObjectSize(getContextHeapRoots(), stopAtBytes, calculationCancelled);
+            if (!calculation.step(maxObjects)) {
+                return -1;
+            }
+            synchronized (this) {
+                if (incrementalHeapSizeCalculation == calculation) {
+                    incrementalHeapSizeCalculation = null;
+                }
+            }
+            return calculation.getSize();
         } catch (UnsupportedOperationException e) {
             throw new UnsupportedOperationException("Polyglot context heap size calculation is not supported on current Truffle runtime.", e);
         }
     }
 
+    private synchronized ObjectSizeCalculator getObjectSizeCalculator() {
+        if (objectSizeCalculator == null) {
+            objectSizeCalculator = new ObjectSizeCalculator();
+        }
+        return objectSizeCalculator;
+    }
+
     Object[] getContextHeapRoots() {
         List<Object> heapRoots = new ArrayList<>();
         addRootPointersForContext(heapRoots);
@@ -1514,6 +1731,9 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
                     if (success) {
                         closed = true;
                         invalid = true;
+                        incrementalHeapSizeCalculation = null;
+                        // drop the statements threads still hold in batches of this context
+                        statementBatchEpoch.invalidate();
                     }
                     // triggers a thread changed event which requires slow path enter
                     setCachedThreadInfo(PolyglotThreadInfo.NULL);
@@ -1537,6 +1757,13 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         }
 
         if (success) {
+            PolyglotContextExecutor localExecutor;
+            synchronized (this) {
+                localExecutor = executor;
+            }
+            if (localExecutor != null) {
+                localExecutor.shutdown();
+            }
             try {
                 /*
                  * We need to notify before we remove the context from engine's context list,
@@ -1906,6 +2133,16 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         return String.format("Detected invaliding sharing of context locals between polyglot engines. Expected engine %s but was %s.", expectedEngine, actualEngine);
     }
 
+    boolean isCurrentThreadInterruptRequested() {
+        PolyglotThreadInfo info = currentThreadInfo;
+        if (info.getThread() != Thread.currentThread()) {
+            synchronized (this) {
+                info = getCurrentThreadInfo();
+            }
+        }
+        return info.interruptRequested;
+    }
+
     PolyglotThreadInfo getCurrentThreadInfo() {
         assert Thread.holdsLock(this);
         PolyglotThreadInfo currentTInfo = currentThreadInfo;
@@ -1972,7 +2209,7 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         }
     }
 
-    static PolyglotContextImpl preInitialize(final PolyglotEngineImpl engine) {
+    static PolyglotContextImpl preInitialize(final PolyglotEngineImpl engine, String additionalLanguages) {
         final FileSystems.PreInitializeContextFileSystem fs = new FileSystems.PreInitializeContextFileSystem();
         final FileSystems.PreInitializeContextFileSystem internalFs = new FileSystems.PreInitializeContextFileSystem();
         EconomicSet<String> allowedLanguages = EconomicSet.create();
@@ -1999,16 +2236,11 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
             context.sourcesToInvalidate = new ArrayList<>();
             final String oldOption = engine.engineOptionValues.get(PolyglotEngineOptions.PreinitializeContexts);
             final String newOption = ImageBuildTimeOptions.get(ImageBuildTimeOptions.PREINITIALIZE_CONTEXTS_NAME);
-            final String optionValue;
-            if (!oldOption.isEmpty() && !newOption.isEmpty()) {
-                optionValue = oldOption + "," + newOption;
-            } else {
-                optionValue = oldOption + newOption;
-            }
-
             final Set<String> languagesToPreinitialize = new HashSet<>();
-            if (!optionValue.isEmpty()) {
-                Collections.addAll(languagesToPreinitialize, optionValue.split(","));
+            for (String optionValue : new String[]{oldOption, newOption, additionalLanguages}) {
+                if (!optionValue.isEmpty()) {
+                    Collections.addAll(languagesToPreinitialize, optionValue.split(","));
+                }
             }
             for (PolyglotLanguage language : engine.idToLanguage.values()) {
                 if (!language.isFirstInstance()) {
@@ -208,6 +208,7 @@ final class PolyglotEngineImpl extends AbstractPolyglotImpl.AbstractEngineImpl i
     final int contextLength;
     private volatile EngineLimits limits;
     final boolean conservativeContextReferences;
+    final boolean generateHostInvokers;
     private final MessageTransport messageInterceptor;
     private volatile int asynchronousStackDepth = 0;
     @CompilationFinal private HostToGuestCodeCache hostToGuestCodeCache;
@@ -291,6 +292,7 @@ final class PolyglotEngineImpl extends AbstractPolyglotImpl.AbstractEngineImpl i
         parseOptions(options, languagesOptions, instrumentsOptions);
 
         this.conservativeContextReferences = engineOptionValues.get(PolyglotEngineOptions.UseConservativeContextReferences);
+        this.generateHostInvokers = engineOptionValues.get(PolyglotEngineOptions.GenerateHostInvokers);
 
         for (PolyglotLanguage language : languagesOptions.keySet()) {
             language.getOptionValues().putAll(languagesOptions.get(language), allowExperimentalOptions);
@@ -386,6 +388,7 @@ final class PolyglotEngineImpl extends AbstractPolyglotImpl.AbstractEngineImpl i
 
         this.engineOptionValues = prototype.engineOptionValues.copy();
         this.conservativeContextReferences = engineOptionValues.get(PolyglotEngineOptions.UseConservativeContextReferences);
+        this.generateHostInvokers = engineOptionValues.get(PolyglotEngineOptions.GenerateHostInvokers);
 
         if (!boundEngine) {
             initializeMultiContext(null);
@@ -617,7 +620,7 @@ final class PolyglotEngineImpl extends AbstractPolyglotImpl.AbstractEngineImpl i
         Properties properties = System.getProperties();
         synchronized (properties) {
             for (Object systemKey : properties.keySet()) {
-                if (PolyglotImpl.PROP_ALLOW_EXPERIMENTAL_OPTIONS.equals(systemKey)) {
+                if (PolyglotImpl.PROP_ALLOW_EXPERIMENTAL_OPTIONS.equals(systemKey) || PolyglotImpl.PROP_PREINITIALIZE_CONTEXTS_IN_BACKGROUND.equals(systemKey)) {
                     continue;
                 }
                 String key = (String) systemKey;
@@ -1122,6 +1125,14 @@ final class PolyglotEngineImpl extends AbstractPolyglotImpl.AbstractEngineImpl i
                     getEngineLogger().log(Level.INFO, String.format("Specialization histogram: %n%s", logMessage.toString()));
                 }
 
+                if (engineOptionValues.get(PolyglotEngineOptions.SourceCacheStatistics)) {
+                    for (PolyglotLanguage language : idToLanguage.values()) {
+                        for (PolyglotLanguageInstance instance : language.getInstancePool()) {
+                            instance.getSourceCache().logStatistics(getEngineLogger(), language.getId());
+                        }
+                    }
+                }
+
                 if (!inShutdownHook) {
                     RUNTIME.onEngineClosed(this.runtimeData);
 
@@ -1242,9 +1253,9 @@ final class PolyglotEngineImpl extends AbstractPolyglotImpl.AbstractEngineImpl i
         return allOptions;
     }
 
-    void preInitialize() {
+    void preInitialize(String additionalLanguages) {
         synchronized (this.lock) {
-            this.preInitializedContext.set(PolyglotContextImpl.preInitialize(this));
+            this.preInitializedContext.set(PolyglotContextImpl.preInitialize(this, additionalLanguages));
         }
     }
 
@@ -1459,7 +1470,7 @@ final class PolyglotEngineImpl extends AbstractPolyglotImpl.AbstractEngineImpl i
                             PolyglotContextImpl context = PolyglotContextImpl.requireContext();
                             if (context.invalid || context.cancelling) {
                                 throw context.createCancelException(eventContext.getInstrumentedNode());
-                            } else if (context.interrupting) {
+                            } else if (context.interrupting || context.isCurrentThreadInterruptRequested()) {
                                 throw new InterruptExecution(eventContext.getInstrumentedNode());
                             }
                         }
@@ -1469,7 +1480,7 @@ final class PolyglotEngineImpl extends AbstractPolyglotImpl.AbstractEngineImpl i
             }
         }
 
-        private void disableCancel() {
+        void disableCancel() {
             synchronized (PolyglotEngineImpl.this.lock) {
                 int usersLeft = --cancellationUsers;
                 if (usersLeft <= 0) {
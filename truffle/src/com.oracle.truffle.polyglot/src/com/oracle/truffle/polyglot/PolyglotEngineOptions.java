@@ -69,6 +69,22 @@ final class PolyglotEngineOptions {
                     "For testing purposes only.")//
     static final OptionKey<Boolean> UseConservativeContextReferences = new OptionKey<>(false);
 
+    @Option(category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = "Maximum number of parsed sources cached per language and sharing layer (default 0: unbounded). " +
+                    "If the cache is full, the least recently used source is evicted.")//
+    static final OptionKey<Integer> SourceCacheSize = new OptionKey<>(0);
+
+    @Option(category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = "Collects hit, miss and eviction counts of the source cache and logs them when the engine is closed.")//
+    static final OptionKey<Boolean> SourceCacheStatistics = new OptionKey<>(false);
+
+    @Option(category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = "Invoke host methods and constructors through generated classes that call them directly, " +
+                    "instead of through method handles (default false). Generates one class per invoked host method.")//
+    static final OptionKey<Boolean> GenerateHostInvokers = new OptionKey<>(false);
+
+    @Option(category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = "Number of statements a thread of a multi-threaded context reserves at once from the statement limit (default 0). " +
+                    "Reserving statements in batches avoids updating a shared counter for every executed statement. " +
+                    "The statement limit may then be reached early or exceeded by up to the batch size for each thread.")//
+    static final OptionKey<Integer> StatementLimitBatchSize = new OptionKey<>(0);
+
     @Option(category = OptionCategory.INTERNAL, stability = OptionStability.EXPERIMENTAL, help = "Enables specialization statistics for nodes generated with Truffle DSL and prints the result on exit. " +
                     "In order for this flag to be functional -Atruffle.dsl.GenerateSpecializationStatistics=true needs to be set at build time." + //
                     "Enabling this flag and the compiler option has major implications on the performance and footprint of the interpreter." + //
@@ -54,7 +54,9 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.logging.Handler;
+import java.util.logging.Level;
 
+import org.graalvm.nativeimage.ImageInfo;
 import org.graalvm.options.OptionDescriptors;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Engine;
@@ -88,6 +90,12 @@ public final class PolyglotImpl extends AbstractPolyglotImpl {
     static final Object[] EMPTY_ARGS = new Object[0];
     static final String OPTION_GROUP_ENGINE = "engine";
     static final String PROP_ALLOW_EXPERIMENTAL_OPTIONS = OptionValuesImpl.SYSTEM_PROPERTY_PREFIX + OPTION_GROUP_ENGINE + ".AllowExperimentalOptions";
+    /*
+     * Comma separated list of languages whose contexts are pre-initialized on a background thread
+     * when the polyglot implementation is loaded on HotSpot. The first context created with a bound
+     * engine then patches the pre-initialized context, as it is done for native images.
+     */
+    static final String PROP_PREINITIALIZE_CONTEXTS_IN_BACKGROUND = OptionValuesImpl.SYSTEM_PROPERTY_PREFIX + OPTION_GROUP_ENGINE + ".PreinitializeContextsInBackground";
 
     @SuppressWarnings("serial") private static final HostException STACKOVERFLOW_ERROR = new HostException(new StackOverflowError() {
         @SuppressWarnings("sync-override")
@@ -101,6 +109,7 @@ public final class PolyglotImpl extends AbstractPolyglotImpl {
     private final PolyglotSourceSection sourceSectionImpl = new PolyglotSourceSection(this);
     private final PolyglotManagement executionListenerImpl = new PolyglotManagement(this);
     private final AtomicReference<PolyglotEngineImpl> preInitializedEngineRef = new AtomicReference<>();
+    private volatile Thread preInitializationThread;
     private final Function<Source, org.graalvm.polyglot.Source> sourceConstructor = new Function<Source, org.graalvm.polyglot.Source>() {
         public org.graalvm.polyglot.Source apply(Source t) {
             return getAPIAccess().newSource(t);
@@ -146,6 +155,45 @@ public final class PolyglotImpl extends AbstractPolyglotImpl {
         this.hostNull = getAPIAccess().newValue(HostObject.NULL, PolyglotValue.createHostNull(this));
         PolyglotValue.createDefaultValues(this, null, primitiveValues);
         disconnectedHostValue = new PolyglotValue.HostValue(this);
+        String backgroundLanguages = System.getProperty(PROP_PREINITIALIZE_CONTEXTS_IN_BACKGROUND);
+        if (backgroundLanguages != null && !backgroundLanguages.isEmpty() && !ImageInfo.inImageCode()) {
+            startBackgroundPreInitialization(backgroundLanguages);
+        }
+    }
+
+    private void startBackgroundPreInitialization(String languages) {
+        Thread thread = new Thread(() -> {
+            PolyglotEngineImpl engine = createDefaultEngine();
+            try {
+                preInitializeEngine(engine, languages);
+            } catch (Throwable t) {
+                // pre-initialization is an optimization only, contexts are created from scratch
+                engine.getEngineLogger().log(Level.WARNING, String.format("Failed to pre-initialize contexts of languages %s in the background.", languages), t);
+                engine.ensureClosed(true, false);
+            }
+        }, "Polyglot Context Pre-Initialization");
+        thread.setDaemon(true);
+        preInitializationThread = thread;
+        thread.start();
+    }
+
+    private void awaitBackgroundPreInitialization() {
+        Thread thread = preInitializationThread;
+        if (thread != null) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            preInitializationThread = null;
+        }
     }
 
     @Override
@@ -238,6 +286,7 @@ public final class PolyglotImpl extends AbstractPolyglotImpl {
 
             impl = (PolyglotEngineImpl) EngineAccessor.RUNTIME.tryLoadCachedEngine(engineOptions, loggerProvider);
             if (impl == null && boundEngine && !EngineAccessor.RUNTIME.isStoreEnabled(engineOptions)) {
+                awaitBackgroundPreInitialization();
                 impl = preInitializedEngineRef.getAndSet(null);
             }
 
@@ -299,9 +348,12 @@ public final class PolyglotImpl extends AbstractPolyglotImpl {
      */
     @Override
     public void preInitializeEngine() {
-        PolyglotEngineImpl engine = createDefaultEngine();
+        preInitializeEngine(createDefaultEngine(), "");
+    }
+
+    private void preInitializeEngine(PolyglotEngineImpl engine, String additionalLanguages) {
         try {
-            engine.preInitialize();
+            engine.preInitialize(additionalLanguages);
         } finally {
             // Reset language homes from native-image compilatio time, will be recomputed in
             // image execution time
@@ -337,6 +389,7 @@ public final class PolyglotImpl extends AbstractPolyglotImpl {
      */
     @Override
     public void resetPreInitializedEngine() {
+        awaitBackgroundPreInitialization();
         preInitializedEngineRef.set(null);
         PolyglotEngineImpl.resetPreInitializedEngine();
     }
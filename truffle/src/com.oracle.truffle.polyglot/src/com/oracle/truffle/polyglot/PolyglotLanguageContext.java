@@ -688,6 +688,24 @@ final class PolyglotLanguageContext implements PolyglotImpl.VMObject {
         }
     }
 
+    boolean reset() {
+        if (isCreated()) {
+            try {
+                if (LANGUAGE.resetContext(env)) {
+                    LOG.log(Level.FINE, "Successfully reset context of language: {0}", this.language.getId());
+                    return true;
+                }
+                LOG.log(Level.FINE, "Failed to reset context of language: {0}", this.language.getId());
+                return false;
+            } catch (Throwable t) {
+                LOG.log(Level.FINE, "Exception during resetting context of language: {0}", this.language.getId());
+                throw GuestToHostRootNode.silenceException(RuntimeException.class, t);
+            }
+        } else {
+            return true;
+        }
+    }
+
     <S> S lookupService(Class<S> type) {
         for (Object languageService : languageServices) {
             if (type.isInstance(languageService)) {
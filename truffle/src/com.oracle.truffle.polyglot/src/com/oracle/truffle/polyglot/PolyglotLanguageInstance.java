@@ -95,7 +95,8 @@ final class PolyglotLanguageInstance implements VMObject {
     @SuppressWarnings("unchecked")
     PolyglotLanguageInstance(PolyglotLanguage language) {
         this.language = language;
-        this.sourceCache = new PolyglotSourceCache();
+        this.sourceCache = new PolyglotSourceCache(language.engine.engineOptionValues.get(PolyglotEngineOptions.SourceCacheSize),
+                        language.engine.engineOptionValues.get(PolyglotEngineOptions.SourceCacheStatistics));
         this.valueCodeCache = new ConcurrentHashMap<>();
         this.hostInteropCodeCache = new ConcurrentHashMap<>();
         try {
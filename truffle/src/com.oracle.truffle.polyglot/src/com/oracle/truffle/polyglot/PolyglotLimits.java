@@ -40,6 +40,7 @@
  */
 package com.oracle.truffle.polyglot;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -50,6 +51,7 @@ import org.graalvm.polyglot.Source;
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.FrameSlot;
@@ -84,7 +86,7 @@ final class PolyglotLimits {
     static void reset(PolyglotContextImpl context) {
         synchronized (context) {
             context.statementCounter = context.statementLimit;
-            context.volatileStatementCounter.set(context.statementLimit);
+            context.statementBatchEpoch.reset(context.statementLimit);
         }
     }
 
@@ -95,31 +97,131 @@ final class PolyglotLimits {
         }
     };
 
+    static final Object CACHED_STATEMENT_BATCH = new Object() {
+        @Override
+        public String toString() {
+            return "$$$cached_statement_batch$$$";
+        }
+    };
+
+    /**
+     * The shared statement counter of a context together with the epoch of its statement batches.
+     * Resetting the limits or closing the context starts a new epoch, which drops the statements
+     * that threads still hold in batches of the previous epoch. Batches refer to the epoch instead
+     * of the context, so the batch a thread keeps does not retain a closed context.
+     */
+    static final class StatementBatchEpoch {
+
+        final AtomicLong counter;
+        volatile int epoch;
+
+        StatementBatchEpoch(AtomicLong counter) {
+            this.counter = counter;
+        }
+
+        synchronized void reset(long statementLimit) {
+            epoch++;
+            counter.set(statementLimit);
+        }
+
+        synchronized void invalidate() {
+            epoch++;
+        }
+
+        synchronized void release(int batchEpoch, long statements) {
+            if (batchEpoch == epoch) {
+                counter.addAndGet(statements);
+            }
+        }
+    }
+
+    /**
+     * Statements a thread reserved from the shared statement counter of a multi-threaded context.
+     * Only used if a statement limit batch size is configured. Only accessed by the thread that
+     * owns the batch.
+     */
+    static final class StatementBatch {
+
+        final StatementBatchEpoch owner;
+        int epoch;
+        long remaining;
+
+        StatementBatch(StatementBatchEpoch owner) {
+            this.owner = owner;
+            this.epoch = owner.epoch;
+        }
+
+        boolean isValid() {
+            return epoch == owner.epoch;
+        }
+
+        /**
+         * Reserves the next batch of statements and counts one of them as executed. Statements
+         * left from a previous epoch are dropped. Returns the value of the shared statement
+         * counter, which is negative if the limit was exceeded.
+         */
+        @TruffleBoundary
+        long reserve(int batchSize) {
+            epoch = owner.epoch;
+            AtomicLong counter = owner.counter;
+            long available;
+            long reserved;
+            do {
+                available = counter.get();
+                if (available <= 0) {
+                    remaining = 0;
+                    return counter.decrementAndGet();
+                }
+                reserved = Math.min(available, batchSize);
+            } while (!counter.compareAndSet(available, available - reserved));
+            remaining = reserved - 1;
+            return available - reserved;
+        }
+
+        void release() {
+            if (remaining > 0) {
+                owner.release(epoch, remaining);
+                remaining = 0;
+            }
+        }
+    }
+
     static final class StatementIncrementNode extends ExecutionEventNode {
 
         final EngineLimits limits;
         final EventContext eventContext;
         final PolyglotEngineImpl engine;
         final FrameSlot readContext;
+        final FrameSlot readBatch;
         final ConditionProfile needsLookup = ConditionProfile.create();
+        final ConditionProfile needsBatchLookup = ConditionProfile.create();
+        final ConditionProfile needsReserve = ConditionProfile.create();
         final FrameDescriptor descriptor;
+        final int batchSize;
         @CompilationFinal private boolean seenInnerContext;
 
         StatementIncrementNode(EventContext context, EngineLimits limits) {
             this.limits = limits;
             this.eventContext = context;
             this.engine = limits.engine;
+            this.batchSize = limits.statementLimitBatchSize;
             if (!engine.singleThreadPerContext.isValid() || !engine.singleContext.isValid()) {
                 descriptor = context.getInstrumentedNode().getRootNode().getFrameDescriptor();
                 readContext = descriptor.findOrAddFrameSlot(CACHED_CONTEXT, FrameSlotKind.Object);
+                readBatch = batchSize > 0 ? descriptor.findOrAddFrameSlot(CACHED_STATEMENT_BATCH, FrameSlotKind.Object) : null;
             } else {
                 readContext = null;
+                readBatch = null;
                 descriptor = null;
             }
         }
 
         @Override
         protected void onEnter(VirtualFrame frame) {
+            if (batchSize > 0 && !engine.singleThreadPerContext.isValid()) {
+                onEnterBatched(frame);
+                return;
+            }
             PolyglotContextImpl currentContext;
             if (readContext == null || frame.getFrameDescriptor() != descriptor) {
                 currentContext = getLimitContext();
@@ -151,6 +253,40 @@ final class PolyglotLimits {
             }
         }
 
+        /*
+         * Multi-threaded contexts with a batch size count statements in a per-thread batch and
+         * only update the shared counter once the batch is used up. The batch is cached in the
+         * frame, like the context, so it is only looked up once per invocation.
+         */
+        private void onEnterBatched(VirtualFrame frame) {
+            StatementBatch batch;
+            if (readBatch == null || frame.getFrameDescriptor() != descriptor) {
+                batch = limits.getStatementBatch(getLimitContext());
+            } else {
+                try {
+                    Object readValue = frame.getObject(readBatch);
+                    if (needsBatchLookup.profile(readValue == descriptor.getDefaultValue())) {
+                        batch = limits.getStatementBatch(getLimitContext());
+                        frame.setObject(readBatch, batch);
+                    } else {
+                        batch = (StatementBatch) readValue;
+                    }
+                } catch (FrameSlotTypeException e) {
+                    CompilerDirectives.transferToInterpreterAndInvalidate();
+                    batch = limits.getStatementBatch(getLimitContext());
+                    frame.setObject(readBatch, batch);
+                }
+            }
+            if (needsReserve.profile(--batch.remaining < 0 || !batch.isValid())) {
+                long count = batch.reserve(batchSize);
+                if (count < 0) { // overflowed
+                    CompilerDirectives.transferToInterpreterAndInvalidate();
+                    PolyglotContextImpl currentContext = getLimitContext();
+                    notifyStatementLimitReached(currentContext, currentContext.statementLimit - count, currentContext.statementLimit);
+                }
+            }
+        }
+
         private PolyglotContextImpl getLimitContext() {
             PolyglotContextImpl context = PolyglotContextImpl.currentEntered(engine);
             if (engine.noInnerContexts.isValid() || context.parent == null) {
@@ -216,7 +352,9 @@ final class PolyglotLimits {
         @CompilationFinal long statementLimit = -1;
         @CompilationFinal Assumption sameStatementLimit;
         @CompilationFinal Predicate<Source> statementLimitSourcePredicate;
+        @CompilationFinal int statementLimitBatchSize;
         EventBinding<?> statementLimitBinding;
+        private final ThreadLocal<StatementBatch> statementBatches = new ThreadLocal<>();
 
         EngineLimits(PolyglotEngineImpl engine) {
             this.engine = engine;
@@ -259,6 +397,7 @@ final class PolyglotLimits {
                 }
 
                 if (statementLimitBinding == null) {
+                    statementLimitBatchSize = engine.engineOptionValues.get(PolyglotEngineOptions.StatementLimitBatchSize);
                     Instrumenter instrumenter = (Instrumenter) EngineAccessor.INSTRUMENT.getEngineInstrumenter(engine.instrumentationHandler);
                     SourceSectionFilter.Builder filter = SourceSectionFilter.newBuilder().tagIs(StatementTag.class);
                     if (statementLimitSourcePredicate != null) {
@@ -284,6 +423,24 @@ final class PolyglotLimits {
             reset(context);
         }
 
+        /**
+         * Returns the statement batch of the current thread for the given context. A thread keeps
+         * one batch at a time, the unused statements of a batch for a different context are given
+         * back to that context unless its limits were reset or it was closed in the meantime.
+         */
+        @TruffleBoundary
+        StatementBatch getStatementBatch(PolyglotContextImpl context) {
+            StatementBatch batch = statementBatches.get();
+            if (batch == null || batch.owner != context.statementBatchEpoch) {
+                if (batch != null) {
+                    batch.release();
+                }
+                batch = new StatementBatch(context.statementBatchEpoch);
+                statementBatches.set(batch);
+            }
+            return batch;
+        }
+
         long getStatementLimit() {
             return statementLimit;
         }
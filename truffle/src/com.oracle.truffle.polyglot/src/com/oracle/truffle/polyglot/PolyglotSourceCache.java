@@ -47,10 +47,15 @@ import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
 
 import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.TruffleLogger;
 import com.oracle.truffle.api.source.Source;
 
 final class PolyglotSourceCache {
@@ -58,9 +63,26 @@ final class PolyglotSourceCache {
     private final Cache strongCache;
     private final Cache weakCache;
 
-    PolyglotSourceCache() {
-        this.weakCache = new WeakCache();
-        this.strongCache = new StrongCache();
+    /*
+     * Maximum number of entries of each cache, zero if unbounded. If bounded, the least recently
+     * used entries are evicted when a new entry is added.
+     */
+    private final int maxSize;
+    private final boolean collectStatistics;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    /*
+     * Monotonic logical clock for the least recently used order. System.nanoTime may return the
+     * same value for subsequent uses if the timer is coarse.
+     */
+    private final AtomicLong useCounter = new AtomicLong();
+
+    PolyglotSourceCache(int maxSize, boolean collectStatistics) {
+        this.maxSize = maxSize;
+        this.collectStatistics = collectStatistics;
+        this.weakCache = new WeakCache(this);
+        this.strongCache = new StrongCache(this);
     }
 
     CallTarget parseCached(PolyglotLanguageContext context, Source source, String[] argumentNames) {
@@ -89,6 +111,52 @@ final class PolyglotSourceCache {
         weakCache.listSources(language, source);
     }
 
+    void logStatistics(TruffleLogger logger, String languageId) {
+        logger.log(Level.INFO, String.format("Source cache statistics for language %s: hits %d, misses %d, evictions %d, entries %d.",
+                        languageId, hits.sum(), misses.sum(), evictions.sum(), strongCache.size() + weakCache.size()));
+    }
+
+    private void onHit(CacheValue value) {
+        if (maxSize > 0) {
+            value.lastUsed = useCounter.incrementAndGet();
+        }
+        if (collectStatistics) {
+            hits.increment();
+        }
+    }
+
+    private void onMiss() {
+        if (collectStatistics) {
+            misses.increment();
+        }
+    }
+
+    /*
+     * Eviction scans the cache for the least recently used entry. This only happens after a
+     * source was parsed, which is much more expensive than the scan.
+     */
+    private <K> void trimToSize(ConcurrentHashMap<K, CacheValue> map) {
+        if (maxSize <= 0) {
+            return;
+        }
+        while (map.size() > maxSize) {
+            K evictKey = null;
+            CacheValue evictValue = null;
+            for (Map.Entry<K, CacheValue> entry : map.entrySet()) {
+                if (evictValue == null || entry.getValue().lastUsed < evictValue.lastUsed) {
+                    evictKey = entry.getKey();
+                    evictValue = entry.getValue();
+                }
+            }
+            if (evictKey == null) {
+                break;
+            }
+            if (map.remove(evictKey, evictValue) && collectStatistics) {
+                evictions.increment();
+            }
+        }
+    }
+
     private static CallTarget parseImpl(PolyglotLanguageContext context, String[] argumentNames, Source source) {
         validateSource(context, source);
         CallTarget parsedTarget = LANGUAGE.parse(context.requireEnv(), source, null, argumentNames);
@@ -166,8 +234,16 @@ final class PolyglotSourceCache {
 
     private abstract static class Cache {
 
+        final PolyglotSourceCache parent;
+
+        Cache(PolyglotSourceCache parent) {
+            this.parent = parent;
+        }
+
         abstract boolean isEmpty();
 
+        abstract int size();
+
         abstract CallTarget lookup(PolyglotLanguageContext context, Source source, String[] argumentNames, boolean parse);
 
         abstract void listSources(PolyglotLanguageInstance language, Collection<org.graalvm.polyglot.Source> source);
@@ -175,20 +251,33 @@ final class PolyglotSourceCache {
 
     private static final class StrongCache extends Cache {
 
-        private final ConcurrentHashMap<SourceKey, CallTarget> sourceCache = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<SourceKey, CacheValue> sourceCache = new ConcurrentHashMap<>();
+
+        StrongCache(PolyglotSourceCache parent) {
+            super(parent);
+        }
 
         @Override
         CallTarget lookup(PolyglotLanguageContext context, Source source, String[] argumentNames, boolean parse) {
             SourceKey key = new SourceKey(source, argumentNames);
-            CallTarget target = sourceCache.get(key);
-            if (target == null && parse) {
-                target = parseImpl(context, argumentNames, source);
-                CallTarget prevTarget = sourceCache.putIfAbsent(key, target);
-                if (prevTarget != null) {
-                    target = prevTarget;
+            CacheValue value = sourceCache.get(key);
+            if (value == null) {
+                if (parse) {
+                    parent.onMiss();
+                    value = new CacheValue(parseImpl(context, argumentNames, source), source, parent.useCounter.incrementAndGet());
+                    CacheValue prev = sourceCache.putIfAbsent(key, value);
+                    if (prev != null) {
+                        value = prev;
+                    } else {
+                        parent.trimToSize(sourceCache);
+                    }
+                } else {
+                    return null;
                 }
+            } else {
+                parent.onHit(value);
             }
-            return target;
+            return value.target;
         }
 
         @Override
@@ -196,11 +285,16 @@ final class PolyglotSourceCache {
             return sourceCache.isEmpty();
         }
 
+        @Override
+        int size() {
+            return sourceCache.size();
+        }
+
         @Override
         void listSources(PolyglotLanguageInstance language, Collection<org.graalvm.polyglot.Source> sources) {
             PolyglotImpl polygot = language.getImpl();
-            for (SourceKey key : sourceCache.keySet()) {
-                sources.add(polygot.getOrCreatePolyglotSource((Source) key.key));
+            for (CacheValue value : sourceCache.values()) {
+                sources.add(polygot.getOrCreatePolyglotSource(value.source));
             }
         }
 
@@ -208,29 +302,38 @@ final class PolyglotSourceCache {
 
     private static final class WeakCache extends Cache {
 
-        private final ConcurrentHashMap<WeakSourceKey, WeakCacheValue> sourceCache = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<WeakSourceKey, CacheValue> sourceCache = new ConcurrentHashMap<>();
         private final ReferenceQueue<Source> deadSources = new ReferenceQueue<>();
 
+        WeakCache(PolyglotSourceCache parent) {
+            super(parent);
+        }
+
         @Override
         CallTarget lookup(PolyglotLanguageContext context, Source source, String[] argumentNames, boolean parse) {
             cleanupStaleEntries();
             Object sourceId = EngineAccessor.SOURCE.getSourceIdentifier(source);
             Source sourceValue = EngineAccessor.SOURCE.copySource(source);
             WeakSourceKey ref = new WeakSourceKey(new SourceKey(sourceId, argumentNames), source, deadSources);
-            WeakCacheValue value = sourceCache.get(ref);
+            CacheValue value = sourceCache.get(ref);
             if (value == null) {
                 if (parse) {
-                    value = new WeakCacheValue(parseImpl(context, argumentNames, sourceValue), sourceValue);
-                    WeakCacheValue prev = sourceCache.putIfAbsent(ref, value);
+                    parent.onMiss();
+                    value = new CacheValue(parseImpl(context, argumentNames, sourceValue), sourceValue, parent.useCounter.incrementAndGet());
+                    CacheValue prev = sourceCache.putIfAbsent(ref, value);
                     if (prev != null) {
                         /*
                          * Parsed twice -> discard the one not in the cache.
                          */
                         value = prev;
+                    } else {
+                        parent.trimToSize(sourceCache);
                     }
                 } else {
                     return null;
                 }
+            } else {
+                parent.onHit(value);
             }
             return value.target;
         }
@@ -240,11 +343,16 @@ final class PolyglotSourceCache {
             return sourceCache.isEmpty();
         }
 
+        @Override
+        int size() {
+            return sourceCache.size();
+        }
+
         @Override
         void listSources(PolyglotLanguageInstance language, Collection<org.graalvm.polyglot.Source> sources) {
             cleanupStaleEntries();
             PolyglotImpl polygot = language.getImpl();
-            for (WeakCacheValue value : sourceCache.values()) {
+            for (CacheValue value : sourceCache.values()) {
                 sources.add(polygot.getOrCreatePolyglotSource(value.source));
             }
         }
@@ -258,14 +366,16 @@ final class PolyglotSourceCache {
 
     }
 
-    static class WeakCacheValue {
+    static class CacheValue {
 
         final CallTarget target;
         final Source source;
+        volatile long lastUsed;
 
-        WeakCacheValue(CallTarget target, Source source) {
+        CacheValue(CallTarget target, Source source, long lastUsed) {
             this.target = target;
             this.source = source;
+            this.lastUsed = lastUsed;
         }
 
     }
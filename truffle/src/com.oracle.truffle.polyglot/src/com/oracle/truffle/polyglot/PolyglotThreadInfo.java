@@ -61,6 +61,11 @@ final class PolyglotThreadInfo {
     private volatile int enteredCount;
     final LinkedList<PolyglotContextImpl> explicitContextStack = new LinkedList<>();
     volatile boolean cancelled;
+    /*
+     * Set when a task running on this thread is cancelled, see PolyglotContextExecutor. Only the
+     * guest code executed by this thread is interrupted.
+     */
+    volatile boolean interruptRequested;
     private Object originalContextClassLoader = NULL_CLASS_LOADER;
     private ClassLoaderEntry prevContextClassLoader;
     private SpecializationStatisticsEntry executionStatisticsEntry;
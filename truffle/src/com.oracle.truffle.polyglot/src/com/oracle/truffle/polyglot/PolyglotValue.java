@@ -98,6 +98,7 @@ import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.PutMemberNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.ReadBufferFloatNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.ReadBufferIntNodeGen;
+import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.ReadBufferNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.RemoveArrayElementNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.RemoveMemberNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.SetArrayElementNodeGen;
@@ -107,6 +108,7 @@ import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.WriteBufferFloatNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.WriteBufferIntNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.WriteBufferLongNodeGen;
+import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.WriteBufferNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.WriteBufferShortNodeGen;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.SourceSection;
@@ -128,6 +130,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static com.oracle.truffle.api.CompilerDirectives.shouldNotReachHere;
 import static com.oracle.truffle.polyglot.EngineAccessor.RUNTIME;
@@ -468,6 +471,46 @@ abstract class PolyglotValue extends AbstractValueImpl {
         return unsupported(context, receiver, "writeBufferDouble()", "hasBufferElements()");
     }
 
+    @Override
+    public void readBuffer(Object receiver, long byteOffset, byte[] destination, int destinationOffset, int length) throws UnsupportedOperationException, IndexOutOfBoundsException {
+        final Object prev = hostEnter(languageContext);
+        try {
+            throw readBufferUnsupported(languageContext, receiver);
+        } catch (Throwable e) {
+            throw PolyglotImpl.guestToHostException(languageContext, e, true);
+        } finally {
+            hostLeave(languageContext, prev);
+        }
+    }
+
+    @TruffleBoundary
+    static RuntimeException readBufferUnsupported(PolyglotLanguageContext context, Object receiver) {
+        return unsupported(context, receiver, "readBuffer()", "hasBufferElements()");
+    }
+
+    @Override
+    public void writeBuffer(Object receiver, long byteOffset, byte[] source, int sourceOffset, int length) throws UnsupportedOperationException, IndexOutOfBoundsException {
+        final Object prev = hostEnter(languageContext);
+        try {
+            throw writeBufferUnsupported(languageContext, receiver);
+        } catch (Throwable e) {
+            throw PolyglotImpl.guestToHostException(languageContext, e, true);
+        } finally {
+            hostLeave(languageContext, prev);
+        }
+    }
+
+    @TruffleBoundary
+    static RuntimeException writeBufferUnsupported(PolyglotLanguageContext context, Object receiver) {
+        return unsupported(context, receiver, "writeBuffer()", "hasBufferElements()");
+    }
+
+    static void checkArrayRange(int arrayLength, int arrayOffset, int length) {
+        if (arrayOffset < 0 || length < 0 || arrayOffset > arrayLength - length) {
+            throw new IndexOutOfBoundsException(String.format("Array range [%d, %d + %d) out of bounds for length %d.", arrayOffset, arrayOffset, length, arrayLength));
+        }
+    }
+
     @TruffleBoundary
     protected static RuntimeException invalidBufferIndex(PolyglotLanguageContext context, Object receiver, long byteOffset, long size) {
         final String message = String.format("Invalid buffer access of length %d at byte offset %d for buffer %s.", size, byteOffset, getValueInfo(context, receiver));
@@ -551,6 +594,17 @@ abstract class PolyglotValue extends AbstractValueImpl {
         }
     }
 
+    @Override
+    public CompletableFuture<Value> executeAsync(Object receiver, Object[] arguments) {
+        if (languageContext == null) {
+            throw new IllegalStateException("The value is not bound to a context and cannot be executed asynchronously.");
+        }
+        // the caller may modify the array before the task runs on the carrier thread
+        Object[] args = arguments.clone();
+        // execute dispatches to the receiver specific implementation on the carrier thread
+        return languageContext.context.submit(() -> args.length == 0 ? execute(receiver) : execute(receiver, args));
+    }
+
     @TruffleBoundary
     static RuntimeException executeUnsupported(PolyglotLanguageContext context, Object receiver) {
         throw unsupported(context, receiver, "execute(Object...)", "canExecute()");
@@ -1379,6 +1433,8 @@ abstract class PolyglotValue extends AbstractValueImpl {
         final CallTarget writeBufferFloat;
         final CallTarget readBufferDouble;
         final CallTarget writeBufferDouble;
+        final CallTarget readBuffer;
+        final CallTarget writeBuffer;
         final CallTarget hasMembers;
         final CallTarget hasMember;
         final CallTarget getMember;
@@ -1453,6 +1509,8 @@ abstract class PolyglotValue extends AbstractValueImpl {
             this.writeBufferFloat = createTarget(WriteBufferFloatNodeGen.create(this));
             this.readBufferDouble = createTarget(PolyglotValueFactory.InteropCodeCacheFactory.ReadBufferDoubleNodeGen.create(this));
             this.writeBufferDouble = createTarget(WriteBufferDoubleNodeGen.create(this));
+            this.readBuffer = createTarget(ReadBufferNodeGen.create(this));
+            this.writeBuffer = createTarget(WriteBufferNodeGen.create(this));
             this.hasMember = createTarget(HasMemberNodeGen.create(this));
             this.getMember = createTarget(GetMemberNodeGen.create(this));
             this.putMember = createTarget(PutMemberNodeGen.create(this));
@@ -2604,6 +2662,87 @@ abstract class PolyglotValue extends AbstractValueImpl {
 
         }
 
+        abstract static class ReadBufferNode extends InteropNode {
+
+            protected ReadBufferNode(InteropCodeCache interop) {
+                super(interop);
+            }
+
+            @Override
+            protected Class<?>[] getArgumentTypes() {
+                return new Class<?>[]{PolyglotLanguageContext.class, polyglot.receiverType, Long.class, byte[].class, Integer.class, Integer.class};
+            }
+
+            @Override
+            protected String getOperationName() {
+                return "readBuffer";
+            }
+
+            @Specialization(limit = "CACHE_LIMIT")
+            static Object doCached(PolyglotLanguageContext context, Object receiver, Object[] args, //
+                            @CachedLibrary("receiver") InteropLibrary buffers,
+                            @Cached BranchProfile unsupported,
+                            @Cached BranchProfile invalidIndex) {
+                final long byteOffset = (long) args[ARGUMENT_OFFSET];
+                final byte[] destination = (byte[]) args[ARGUMENT_OFFSET + 1];
+                final int destinationOffset = (int) args[ARGUMENT_OFFSET + 2];
+                final int length = (int) args[ARGUMENT_OFFSET + 3];
+                try {
+                    buffers.readBuffer(receiver, byteOffset, destination, destinationOffset, length);
+                } catch (UnsupportedMessageException e) {
+                    unsupported.enter();
+                    throw readBufferUnsupported(context, receiver);
+                } catch (InvalidBufferOffsetException e) {
+                    invalidIndex.enter();
+                    throw invalidBufferIndex(context, receiver, e.getByteOffset(), e.getLength());
+                }
+                return null;
+            }
+
+        }
+
+        abstract static class WriteBufferNode extends InteropNode {
+
+            protected WriteBufferNode(InteropCodeCache interop) {
+                super(interop);
+            }
+
+            @Override
+            protected Class<?>[] getArgumentTypes() {
+                return new Class<?>[]{PolyglotLanguageContext.class, polyglot.receiverType, Long.class, byte[].class, Integer.class, Integer.class};
+            }
+
+            @Override
+            protected String getOperationName() {
+                return "writeBuffer";
+            }
+
+            @Specialization(limit = "CACHE_LIMIT")
+            static Object doCached(PolyglotLanguageContext context, Object receiver, Object[] args, //
+                            @CachedLibrary("receiver") InteropLibrary buffers,
+                            @Cached BranchProfile unsupported,
+                            @Cached BranchProfile invalidIndex) {
+                final long byteOffset = (long) args[ARGUMENT_OFFSET];
+                final byte[] source = (byte[]) args[ARGUMENT_OFFSET + 1];
+                final int sourceOffset = (int) args[ARGUMENT_OFFSET + 2];
+                final int length = (int) args[ARGUMENT_OFFSET + 3];
+                try {
+                    buffers.writeBuffer(receiver, byteOffset, source, sourceOffset, length);
+                } catch (UnsupportedMessageException e) {
+                    unsupported.enter();
+                    if (buffers.hasBufferElements(receiver)) {
+                        throw unsupported(context, receiver, "writeBuffer()", "isBufferWritable()");
+                    }
+                    throw writeBufferUnsupported(context, receiver);
+                } catch (InvalidBufferOffsetException e) {
+                    invalidIndex.enter();
+                    throw invalidBufferIndex(context, receiver, e.getByteOffset(), e.getLength());
+                }
+                return null;
+            }
+
+        }
+
         // endregion
 
         abstract static class GetMemberNode extends InteropNode {
@@ -3871,6 +4010,18 @@ abstract class PolyglotValue extends AbstractValueImpl {
             RUNTIME.callProfiled(cache.writeBufferDouble, languageContext, receiver, order, byteOffset, value);
         }
 
+        @Override
+        public void readBuffer(Object receiver, long byteOffset, byte[] destination, int destinationOffset, int length) throws UnsupportedOperationException, IndexOutOfBoundsException {
+            checkArrayRange(destination.length, destinationOffset, length);
+            RUNTIME.callProfiled(cache.readBuffer, languageContext, receiver, byteOffset, destination, destinationOffset, length);
+        }
+
+        @Override
+        public void writeBuffer(Object receiver, long byteOffset, byte[] source, int sourceOffset, int length) throws UnsupportedOperationException, IndexOutOfBoundsException {
+            checkArrayRange(source.length, sourceOffset, length);
+            RUNTIME.callProfiled(cache.writeBuffer, languageContext, receiver, byteOffset, source, sourceOffset, length);
+        }
+
         // endregion
 
         @Override